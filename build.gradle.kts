@@ -28,6 +28,21 @@ application {
   mainClass.set("com.cburch.logisim.Main")
 }
 
+/**
+ * Source set for the JMH micro-benchmarks in src/jmh/java. They see the main classes, the test
+ * classes (for the circuit builders shared with the tests) and their dependencies and are run with
+ * the "jmh" task.
+ */
+val jmh by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+  runtimeClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+}
+
+configurations {
+  "jmhImplementation" { extendsFrom(configurations.implementation.get()) }
+  "jmhRuntimeOnly" { extendsFrom(configurations.runtimeOnly.get()) }
+}
+
 dependencies {
   implementation("org.hamcrest:hamcrest:2.2")
   implementation("javax.help:javahelp:2.0.05")
@@ -52,6 +67,9 @@ dependencies {
   testImplementation(platform("org.junit:junit-bom:5.10.0"))
   testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
   testImplementation("org.mockito:mockito-junit-jupiter:5.4.0")
+
+  "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+  "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 /**
@@ -626,6 +644,20 @@ tasks.register("genVhdlSyntax") {
   }
 }
 
+/**
+ * Task: jmh
+ *
+ * Runs the JMH micro-benchmarks. JMH options can be passed with -Pjmh="...", i.e.
+ * ./gradlew jmh -Pjmh="PropagatorBenchmark -f 1 -wi 3 -i 5"
+ */
+tasks.register<JavaExec>("jmh") {
+  group = "verification"
+  description = "Runs the JMH micro-benchmarks."
+  classpath = jmh.runtimeClasspath
+  mainClass.set("org.openjdk.jmh.Main")
+  args = (findProperty("jmh") as String? ?: "").split(" ").filter { it.isNotBlank() }
+}
+
 /**
  * Task: genFiles
  *
@@ -684,6 +716,10 @@ tasks {
     options.compilerArgs = compilerOptions
     dependsOn("genFiles")
   }
+  named<JavaCompile>("compileJmhJava") {
+    options.encoding = "UTF-8"
+    options.compilerArgs = compilerOptions
+  }
 
   test {
     useJUnitPlatform()
@@ -0,0 +1,84 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Implicant#computeMinimal} on random truth tables. The outputs are drawn with a
+ * fixed seed and a share of don't cares, so every run minimizes the same functions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MinimizationBenchmark {
+  @Param({"4", "6", "8"})
+  int inputs;
+
+  /** Percentage of rows that are don't cares. */
+  @Param({"0", "25"})
+  int dontCares;
+
+  private AnalyzerModel model;
+
+  /**
+   * Tables with more than {@link Implicant#MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM} inputs are
+   * only minimized when a report area is given; this one discards the report.
+   */
+  private final JTextArea report =
+      new JTextArea() {
+        @Override
+        public void append(String str) {}
+      };
+
+  @Setup
+  public void setup() {
+    model = new AnalyzerModel();
+    final List<Var> in = new ArrayList<>();
+    for (var i = 0; i < inputs; i++) in.add(new Var("x" + i, 1));
+    model.setVariables(in, List.of(new Var("y", 1)));
+    final var table = model.getTruthTable();
+    final var random = new Random(inputs);
+    for (var row = 0; row < table.getRowCount(); row++) {
+      final Entry entry;
+      if (random.nextInt(100) < dontCares) entry = Entry.DONT_CARE;
+      else entry = random.nextBoolean() ? Entry.ONE : Entry.ZERO;
+      table.setOutputEntry(row, 0, entry);
+    }
+  }
+
+  @Benchmark
+  public List<Implicant> sumOfProducts() {
+    return Implicant.computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model, "y", report);
+  }
+
+  @Benchmark
+  public List<Implicant> productOfSums() {
+    return Implicant.computeMinimal(AnalyzerModel.FORMAT_PRODUCT_OF_SUMS, model, "y", report);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CircuitWires#propagate} on its own, both for a single dirty point and for the
+ * case where the wire state is outdated and every wire thread has to be recomputed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CircuitWiresBenchmark {
+  @Param({"8", "64", "256"})
+  int bits;
+
+  private Circuit circuit;
+  private CircuitState state;
+  private Set<Location> allPoints;
+  private Set<Location> onePoint;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    circuit = circuits.rippleAdder(bits);
+    state = circuits.newState(circuit);
+    allPoints = new HashSet<>();
+    for (final var comp : circuit.getNonWires()) {
+      for (final var end : comp.getEnds()) allPoints.add(end.getLocation());
+    }
+    onePoint = Set.of(allPoints.iterator().next());
+  }
+
+  @Benchmark
+  public CircuitState dirtyPoint() {
+    circuit.wires.propagate(state, onePoint);
+    return state;
+  }
+
+  @Benchmark
+  public CircuitState allThreads() {
+    state.setWireData(null);
+    circuit.wires.propagate(state, allPoints);
+    return state;
+  }
+}
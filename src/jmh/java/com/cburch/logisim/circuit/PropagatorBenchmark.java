@@ -0,0 +1,152 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Propagator#propagate()} after an input change. The adders are driven with a new
+ * operand on every invocation, so that the carry chain ripples through every bit; the RAM arrays
+ * are clocked with a write on every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropagatorBenchmark {
+
+  @State(Scope.Thread)
+  public static class AdderState {
+    /** Number of adder bits; nested adders use the nearest power of two. */
+    @Param({"8", "64"})
+    int bits;
+
+    /** Whether the adder is a flat row of full adders or a hierarchy of halves. */
+    @Param({"false", "true"})
+    boolean nested;
+
+    CircuitState state;
+    Propagator propagator;
+    InstanceState[] a;
+    InstanceState carryIn;
+    Location carryOut;
+    long operand;
+
+    @Setup
+    public void setup() {
+      final var circuits = new SyntheticCircuits();
+      final var circuit =
+          nested
+              ? circuits.nestedAdder(31 - Integer.numberOfLeadingZeros(bits))
+              : circuits.rippleAdder(bits);
+      state = circuits.newState(circuit);
+      propagator = state.getPropagator();
+      final var inputs = new ArrayList<InstanceState>();
+      for (final var comp : circuit.getNonWires()) {
+        if (!(comp.getFactory() instanceof Pin)) continue;
+        final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
+        if (label.equals("cout")) {
+          carryOut = comp.getLocation();
+        } else if (label.equals("cin")) {
+          carryIn = state.getInstanceState(comp);
+        } else if (label.startsWith("a")) {
+          inputs.add(state.getInstanceState(comp));
+        } else if (label.startsWith("b")) {
+          // b is held at all ones, so that any change of a ripples the carry
+          Pin.FACTORY.setValue(state.getInstanceState(comp), Value.TRUE);
+          state.getInstanceState(comp).fireInvalidated();
+        }
+      }
+      a = inputs.toArray(new InstanceState[0]);
+      propagator.propagate();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class RamState {
+    @Param({"4", "32"})
+    int rams;
+
+    @Param({"10"})
+    int addrBits;
+
+    CircuitState state;
+    Propagator propagator;
+    InstanceState addr;
+    InstanceState data;
+    long counter;
+
+    @Setup
+    public void setup() {
+      final var circuits = new SyntheticCircuits();
+      final var circuit = circuits.ramArray(rams, addrBits, 32);
+      state = circuits.newState(circuit);
+      propagator = state.getPropagator();
+      for (final var comp : circuit.getNonWires()) {
+        if (!(comp.getFactory() instanceof Pin)) continue;
+        final var pinState = state.getInstanceState(comp);
+        switch (pinState.getAttributeValue(StdAttr.LABEL)) {
+          case "addr" -> addr = pinState;
+          case "din" -> data = pinState;
+          case "we" -> {
+            Pin.FACTORY.setValue(pinState, Value.TRUE);
+            pinState.fireInvalidated();
+          }
+          default -> { }
+        }
+      }
+      propagator.propagate();
+    }
+  }
+
+  @Benchmark
+  public Value adder(AdderState s) {
+    s.operand = s.operand * 0x5DEECE66DL + 0xBL;
+    var bits = s.operand;
+    for (final var pin : s.a) {
+      Pin.FACTORY.setValue(pin, Value.createKnown(1, bits & 1));
+      pin.fireInvalidated();
+      bits >>>= 1;
+    }
+    Pin.FACTORY.setValue(s.carryIn, Value.createKnown(1, bits & 1));
+    s.carryIn.fireInvalidated();
+    s.propagator.propagate();
+    return s.state.getValue(s.carryOut);
+  }
+
+  @Benchmark
+  public boolean ramWrite(RamState s) {
+    s.counter++;
+    Pin.FACTORY.setValue(s.addr, Value.createKnown(s.addrBits, s.counter));
+    s.addr.fireInvalidated();
+    Pin.FACTORY.setValue(s.data, Value.createKnown(32, s.counter * 31));
+    s.data.fireInvalidated();
+    s.propagator.toggleClocks();
+    return s.propagator.propagate();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating and combining values, which the simulator does for every bundle it drives.
+ * The operands cycle through a small pool, as they do on a real bus, so the intern table hits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueBenchmark {
+  private static final int POOL = 256;
+
+  @Param({"1", "8", "32", "64"})
+  int width;
+
+  /** Number of distinct values the operands are drawn from. */
+  @Param({"16", "65536"})
+  int distinct;
+
+  private Value[] known;
+  private Value[] partial;
+  private Value[] bits;
+  private int next;
+
+  @Setup
+  public void setup() {
+    known = new Value[POOL];
+    partial = new Value[POOL];
+    for (var i = 0; i < POOL; i++) {
+      final var v = (i * 0x9E3779B97F4A7C15L) % distinct;
+      known[i] = Value.createKnown(width, v);
+      // every other bit unknown, as when two drivers share a bus
+      final var b = known[i].getAll();
+      for (var j = i & 1; j < b.length; j += 2) b[j] = Value.UNKNOWN;
+      partial[i] = Value.create(b);
+    }
+    bits = known[POOL - 1].getAll();
+  }
+
+  @Benchmark
+  public Value createKnown() {
+    next = (next + 1) & (POOL - 1);
+    return Value.createKnown(width, (next * 0x9E3779B97F4A7C15L) % distinct);
+  }
+
+  @Benchmark
+  public Value createFromBits() {
+    return Value.create(bits);
+  }
+
+  @Benchmark
+  public Value combine() {
+    next = (next + 1) & (POOL - 1);
+    return known[next].combine(partial[(next + 1) & (POOL - 1)]);
+  }
+}
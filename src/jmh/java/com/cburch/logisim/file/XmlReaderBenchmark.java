@@ -0,0 +1,60 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.circuit.SyntheticCircuits;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading a circuit file through {@link XmlReader}. The file is a synthetic project with a
+ * ripple adder, a nested adder and a RAM array, saved once to memory during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlReaderBenchmark {
+  @Param({"16", "128"})
+  int bits;
+
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    circuits.rippleAdder(bits);
+    circuits.nestedAdder(31 - Integer.numberOfLeadingZeros(bits));
+    circuits.ramArray(bits / 8, 8, 8);
+    final var out = new ByteArrayOutputStream();
+    circuits.getFile().write(out, circuits.getLoader());
+    bytes = out.toByteArray();
+  }
+
+  @Benchmark
+  public LogisimFile load() throws IOException {
+    return new Loader(null).openLogisimFile(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.std.memory;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures random reads and writes of memory contents of various geometries. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemContentsBenchmark {
+  @Param({"8", "16", "20"})
+  int addrBits;
+
+  @Param({"8", "32", "64"})
+  int width;
+
+  private MemContents contents;
+  private long mask;
+  private long seed = 1;
+
+  @Setup
+  public void setup() {
+    contents = MemContents.create(addrBits, width, true);
+    mask = (1L << addrBits) - 1;
+  }
+
+  private long nextAddress() {
+    seed = seed * 0x5DEECE66DL + 0xBL;
+    return (seed >>> 16) & mask;
+  }
+
+  @Benchmark
+  public long get() {
+    return contents.get(nextAddress());
+  }
+
+  @Benchmark
+  public MemContents set() {
+    final var addr = nextAddress();
+    contents.set(addr, addr ^ seed);
+    return contents;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.vhdl.sim;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the VHDL co-simulation bridge against {@link VhdlSimulatorLoopback}, so that only the
+ * protocol and the local socket are timed: one propagation step of <code>entities</code> entities
+ * with a changing 32 bit input and output each, with <code>depth</code> steps in flight.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VhdlSimulatorChannelBenchmark {
+  @Param({"1", "16"})
+  int entities;
+
+  @Param({"1", "8"})
+  int depth;
+
+  private ServerSocket server;
+  private Socket socket;
+  private VhdlSimulatorChannel channel;
+  private int[] inputs;
+  private int[] outputs;
+  private final int[] inFlight = new int[8];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    new VhdlSimulatorLoopback(
+            server.getLocalPort(),
+            (name, width, forced) -> forced.get(name.replace("_q", "_d")))
+        .start();
+    socket = server.accept();
+    socket.setTcpNoDelay(true);
+    channel = new VhdlSimulatorChannel(socket.getInputStream(), socket.getOutputStream());
+    inputs = new int[entities];
+    outputs = new int[entities];
+    for (var i = 0; i < entities; i++) {
+      inputs[i] = channel.getSignalId("e" + i + "_d", 1, 32);
+      outputs[i] = channel.getSignalId("e" + i + "_q", 2, 32);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    channel.end();
+    socket.close();
+    server.close();
+  }
+
+  /** Sends <code>depth</code> steps, then collects their replies; returns the last value. */
+  @Benchmark
+  public Value steps() throws IOException {
+    for (var d = 0; d < depth; d++) {
+      next++;
+      for (var i = 0; i < entities; i++) {
+        channel.drive(inputs[i], Value.createKnown(BitWidth.create(32), next + i));
+        channel.examine(outputs[i]);
+      }
+      inFlight[d] = channel.sendStep();
+    }
+    Value[] values = null;
+    for (var d = 0; d < depth; d++) values = channel.receiveStep(inFlight[d]);
+    return values[entities - 1];
+  }
+}
@@ -18,6 +18,7 @@ import java.awt.Color;
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
+import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.text.DefaultCaret;
@@ -39,12 +40,27 @@ public class MinimizeButton  extends JButton {
   }
 
   void doOptimize() {
-    final var choice = OptionPane.showConfirmDialog(
-          parent, 
-          S.get("OptimizeLongTimeWarning"), 
-          S.get("minimizeFunctionTitle"), 
-          OptionPane.YES_NO_OPTION);
-    if (choice != OptionPane.YES_OPTION) return;
+    final Object[] options = {
+        S.get("minimizeHeuristic"), S.get("minimizeExact"), S.get("minimizeCancel")};
+    final var algorithm = OptionPane.showOptionDialog(
+          parent,
+          S.get("minimizeChooseAlgorithm"),
+          S.get("minimizeFunctionTitle"),
+          OptionPane.YES_NO_CANCEL_OPTION,
+          OptionPane.QUESTION_MESSAGE,
+          null,
+          options,
+          options[0]);
+    if (algorithm != 0 && algorithm != 1) return;
+    final var heuristic = algorithm == 0;
+    if (!heuristic) {
+      final var choice = OptionPane.showConfirmDialog(
+            parent, 
+            S.get("OptimizeLongTimeWarning"), 
+            S.get("minimizeFunctionTitle"), 
+            OptionPane.YES_NO_OPTION);
+      if (choice != OptionPane.YES_OPTION) return;
+    }
     final var info = new JTextArea(20, 80);
     info.setEditable(false);
     info.setFont(new Font("monospaced", Font.PLAIN, 12));
@@ -56,13 +72,17 @@ public class MinimizeButton  extends JButton {
     pane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
     pane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
     final var doneButton = new JButton(S.get("minimizeDone"));
+    final var stopButton = new JButton(S.get("minimizeStop"));
+    final var buttons = new JPanel();
+    buttons.add(stopButton);
+    buttons.add(doneButton);
     final var infoPanel = new JDialog(
           parent, 
           S.get("minimizeFunctionTitle"), 
           true);
     infoPanel.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
     infoPanel.add(pane, BorderLayout.CENTER);
-    infoPanel.add(doneButton, BorderLayout.SOUTH);
+    infoPanel.add(buttons, BorderLayout.SOUTH);
     doneButton.setVisible(false);
     infoPanel.setLocationRelativeTo(parent);
     infoPanel.pack();
@@ -82,11 +102,18 @@ public class MinimizeButton  extends JButton {
     final var optimizeThread = new Thread(
         new Runnable() {
             public void run() {
-                model.getOutputExpressions().forcedOptimize(info, format);
+                model.getOutputExpressions().forcedOptimize(info, format, heuristic);
+                stopButton.setVisible(false);
                 doneButton.setVisible(true);
             }
         }
     );
+    // stopping interrupts the optimization, the heuristic one keeping its best result so far and
+    // the outputs not minimized yet their previous minimal form
+    stopButton.addActionListener(event -> {
+      stopButton.setEnabled(false);
+      optimizeThread.interrupt();
+    });
     optimizeThread.start();
   }
 }
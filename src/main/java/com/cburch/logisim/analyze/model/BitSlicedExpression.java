@@ -0,0 +1,240 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An {@link Expression} compiled into a flat postfix program over bit slices: every variable is a
+ * <code>long</code> holding its value in 64 independent lanes, so that one run of the program
+ * evaluates the expression for 64 assignments at once, without walking the expression tree.
+ *
+ * <p>Variables are numbered when compiling; a variable without a number evaluates as 0, as {@link
+ * Expression#evaluate} does for an unassigned one. To fill truth table columns, the inputs are
+ * numbered by column and {@link #evaluateRows} derives their lanes from the row index.
+ */
+public final class BitSlicedExpression {
+  /** Rows of a column handed to one task by {@link #evaluateColumns}. */
+  private static final int ROWS_PER_TASK = 1 << 14;
+
+  /** The lanes in which each of the low six bits of the row index is set. */
+  static final long[] LOW_BITS = {
+    0xaaaa_aaaa_aaaa_aaaaL, 0xcccc_cccc_cccc_ccccL, 0xf0f0_f0f0_f0f0_f0f0L,
+    0xff00_ff00_ff00_ff00L, 0xffff_0000_ffff_0000L, 0xffff_ffff_0000_0000L
+  };
+
+  // the low bits of an instruction give the operation, the others the variable of a LOAD
+  private static final int LOAD = 0;
+  private static final int ZERO = 1;
+  private static final int ONES = 2;
+  private static final int NOT = 3;
+  private static final int AND = 4;
+  private static final int OR = 5;
+  private static final int XOR = 6;
+  private static final int XNOR = 7;
+  private static final int OP_BITS = 3;
+  private static final int OP_MASK = (1 << OP_BITS) - 1;
+
+  private final int[] code;
+  private final int stackSize;
+  private final int inputCount;
+  private final boolean readsUnknownVariables;
+
+  private BitSlicedExpression(int[] code, int stackSize, int inputCount,
+      boolean readsUnknownVariables) {
+    this.code = code;
+    this.stackSize = stackSize;
+    this.inputCount = inputCount;
+    this.readsUnknownVariables = readsUnknownVariables;
+  }
+
+  /** Compiles the expression, numbering the variables by their position in <code>inputs</code>. */
+  public static BitSlicedExpression compile(Expression expr, List<String> inputs) {
+    final var variables = new HashMap<String, Integer>();
+    for (var i = 0; i < inputs.size(); i++) variables.put(inputs.get(i), i);
+    return compile(expr, variables);
+  }
+
+  /**
+   * Compiles the expression, with the variables numbered by <code>variables</code> from 0 to its
+   * size minus one.
+   */
+  public static BitSlicedExpression compile(Expression expr, Map<String, Integer> variables) {
+    final var compiler = new Compiler(variables);
+    expr.visit(compiler);
+    return new BitSlicedExpression(Arrays.copyOf(compiler.code, compiler.length),
+        compiler.maxDepth, variables.size(), compiler.unknown);
+  }
+
+  private static final class Compiler implements Expression.Visitor<Void> {
+    final Map<String, Integer> variables;
+    int[] code = new int[16];
+    int length = 0;
+    int depth = 0;
+    int maxDepth = 0;
+    boolean unknown = false;
+
+    Compiler(Map<String, Integer> variables) {
+      this.variables = variables;
+    }
+
+    private void emit(int instruction, int push) {
+      if (length == code.length) code = Arrays.copyOf(code, 2 * length);
+      code[length++] = instruction;
+      depth += push;
+      maxDepth = Math.max(maxDepth, depth);
+    }
+
+    @Override
+    public Void visitVariable(String name) {
+      final var index = variables.get(name);
+      if (index == null) {
+        unknown = true;
+        emit(ZERO, 1);
+      } else {
+        emit((index << OP_BITS) | LOAD, 1);
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitConstant(int value) {
+      emit((value & 1) != 0 ? ONES : ZERO, 1);
+      return null;
+    }
+
+    @Override
+    public Void visitNot(Expression a) {
+      a.visit(this);
+      emit(NOT, 0);
+      return null;
+    }
+
+    @Override
+    public Void visitBinary(Expression a, Expression b, Expression.Op op) {
+      a.visit(this);
+      b.visit(this);
+      emit(switch (op) {
+        case AND -> AND;
+        case OR -> OR;
+        case XOR -> XOR;
+        default -> XNOR; // XNOR and EQ, which only differ in how they are written
+      }, -1);
+      return null;
+    }
+  }
+
+  /** Returns whether the expression has variables that were not numbered when compiling. */
+  public boolean readsUnknownVariables() {
+    return readsUnknownVariables;
+  }
+
+  /**
+   * Evaluates the expression in all 64 lanes, <code>inputs[i]</code> holding the lanes of
+   * variable <code>i</code>. Safe to call from several threads at once.
+   */
+  public long evaluate(long[] inputs) {
+    return evaluate(inputs, new long[stackSize]);
+  }
+
+  private long evaluate(long[] inputs, long[] stack) {
+    var sp = -1;
+    for (final var instruction : code) {
+      switch (instruction & OP_MASK) {
+        case LOAD -> stack[++sp] = inputs[instruction >>> OP_BITS];
+        case ZERO -> stack[++sp] = 0L;
+        case ONES -> stack[++sp] = -1L;
+        case NOT -> stack[sp] = ~stack[sp];
+        case AND -> {
+          sp--;
+          stack[sp] &= stack[sp + 1];
+        }
+        case OR -> {
+          sp--;
+          stack[sp] |= stack[sp + 1];
+        }
+        case XOR -> {
+          sp--;
+          stack[sp] ^= stack[sp + 1];
+        }
+        default -> {
+          sp--;
+          stack[sp] = ~(stack[sp] ^ stack[sp + 1]);
+        }
+      }
+    }
+    return stack[0];
+  }
+
+  /**
+   * Sets the lanes of the inputs of a truth table for its rows <code>base</code> to <code>base +
+   * 63</code>, the input of column 0 being the most significant bit of the row index.
+   */
+  public static void setRowLanes(long[] inputs, int base) {
+    for (var col = 0; col < inputs.length; col++) {
+      final var bit = inputs.length - 1 - col;
+      if (bit < LOW_BITS.length) {
+        inputs[col] = LOW_BITS[bit];
+      } else {
+        inputs[col] = ((base >>> bit) & 1) != 0 ? -1L : 0L;
+      }
+    }
+  }
+
+  /**
+   * Fills the rows <code>from</code> to <code>to - 1</code> of a truth table column, the variables
+   * having been numbered by input column. <code>from</code> must be a multiple of 64.
+   */
+  public void evaluateRows(Entry[] column, int from, int to) {
+    final var inputs = new long[inputCount];
+    final var stack = new long[stackSize];
+    for (var base = from; base < to; base += Long.SIZE) {
+      setRowLanes(inputs, base);
+      final var value = evaluate(inputs, stack);
+      final var end = Math.min(to, base + Long.SIZE);
+      for (var row = base; row < end; row++) {
+        column[row] = ((value >>> (row - base)) & 1) != 0 ? Entry.ONE : Entry.ZERO;
+      }
+    }
+  }
+
+  /**
+   * Computes the truth table columns of the expressions over the given inputs, in parallel over
+   * columns and ranges of rows. A <code>null</code> expression gives a column of don't cares.
+   */
+  public static Entry[][] evaluateColumns(List<String> inputs, List<Expression> exprs) {
+    final var rows = 1 << inputs.size();
+    final var columns = new Entry[exprs.size()][rows];
+    final var programs = new BitSlicedExpression[exprs.size()];
+    for (var col = 0; col < programs.length; col++) {
+      final var expr = exprs.get(col);
+      if (expr != null) programs[col] = compile(expr, inputs);
+    }
+    final var ranges = (rows + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+    final var tasks = IntStream.range(0, programs.length * ranges);
+    (programs.length * ranges > 1 ? tasks.parallel() : tasks)
+        .forEach(
+            task -> {
+              final var col = task / ranges;
+              final var from = (task % ranges) * ROWS_PER_TASK;
+              final var to = Math.min(rows, from + ROWS_PER_TASK);
+              if (programs[col] == null) {
+                Arrays.fill(columns[col], from, to, Entry.DONT_CARE);
+              } else {
+                programs[col].evaluateRows(columns[col], from, to);
+              }
+            });
+    return columns;
+  }
+}
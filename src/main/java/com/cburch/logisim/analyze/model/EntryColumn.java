@@ -0,0 +1,113 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.Arrays;
+
+/**
+ * An output column of a {@link TruthTable}, packed into bit planes of one bit per row: one plane
+ * tells whether the entry is a one, another whether it is a don't care, and a zero is neither.
+ * The two planes holding errors are only allocated once an error is stored, so a column usually
+ * takes two bits per row, 256 KiB for 20 inputs.
+ */
+final class EntryColumn {
+  private final int size;
+  private final long[] ones;
+  private final long[] dontCares;
+  private long[] errors; // null while the column holds no error
+  private long[] oscillations; // which of the errors are oscillation errors
+
+  /** Creates a column of <code>size</code> rows, all holding <code>fill</code>. */
+  EntryColumn(int size, Entry fill) {
+    this.size = size;
+    final var words = (size + Long.SIZE - 1) >>> 6;
+    ones = new long[words];
+    dontCares = new long[words];
+    if (fill == Entry.ONE) {
+      fill(ones);
+    } else if (fill == Entry.DONT_CARE) {
+      fill(dontCares);
+    } else if (fill != Entry.ZERO) {
+      for (var idx = 0; idx < size; idx++) set(idx, fill);
+    }
+  }
+
+  private void fill(long[] plane) {
+    if (plane.length == 0) return;
+    Arrays.fill(plane, -1L);
+    if ((size & (Long.SIZE - 1)) != 0) plane[plane.length - 1] = (1L << size) - 1;
+  }
+
+  static EntryColumn of(Entry[] values) {
+    final var ret = new EntryColumn(values.length, Entry.ZERO);
+    for (var idx = 0; idx < values.length; idx++) ret.set(idx, values[idx]);
+    return ret;
+  }
+
+  int size() {
+    return size;
+  }
+
+  Entry get(int idx) {
+    final var w = idx >>> 6;
+    final var bit = 1L << idx;
+    if ((ones[w] & bit) != 0) return Entry.ONE;
+    if ((dontCares[w] & bit) != 0) return Entry.DONT_CARE;
+    if (errors != null && (errors[w] & bit) != 0) {
+      return (oscillations[w] & bit) != 0 ? Entry.OSCILLATE_ERROR : Entry.BUS_ERROR;
+    }
+    return Entry.ZERO;
+  }
+
+  void set(int idx, Entry value) {
+    final var w = idx >>> 6;
+    final var bit = 1L << idx;
+    ones[w] = value == Entry.ONE ? ones[w] | bit : ones[w] & ~bit;
+    dontCares[w] = value == Entry.DONT_CARE ? dontCares[w] | bit : dontCares[w] & ~bit;
+    final var error = value == Entry.BUS_ERROR || value == Entry.OSCILLATE_ERROR;
+    if (errors == null) {
+      if (!error) return;
+      errors = new long[ones.length];
+      oscillations = new long[ones.length];
+    }
+    errors[w] = error ? errors[w] | bit : errors[w] & ~bit;
+    oscillations[w] =
+        value == Entry.OSCILLATE_ERROR ? oscillations[w] | bit : oscillations[w] & ~bit;
+  }
+
+  Entry[] toArray() {
+    final var ret = new Entry[size];
+    for (var idx = 0; idx < size; idx++) ret[idx] = get(idx);
+    return ret;
+  }
+
+  /** Returns the rows of word <code>w</code> that hold <code>value</code>, as a bit mask. */
+  private long match(int w, Entry value) {
+    final var error = errors == null ? 0L : errors[w];
+    if (value == Entry.ONE) return ones[w];
+    if (value == Entry.DONT_CARE) return dontCares[w];
+    if (value == Entry.ZERO) return ~(ones[w] | dontCares[w] | error);
+    if (value == Entry.OSCILLATE_ERROR) return error == 0 ? 0L : error & oscillations[w];
+    return error == 0 ? 0L : error & ~oscillations[w];
+  }
+
+  /** Returns the first row from <code>idx</code> on that holds <code>value</code>, or -1. */
+  int next(Entry value, int idx) {
+    if (idx >= size) return -1;
+    var w = idx >>> 6;
+    var bits = match(w, value) & (-1L << idx);
+    while (bits == 0) {
+      if (++w == ones.length) return -1;
+      bits = match(w, value);
+    }
+    final var ret = (w << 6) + Long.numberOfTrailingZeros(bits);
+    return ret < size ? ret : -1;
+  }
+}
@@ -0,0 +1,429 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static com.cburch.logisim.analyze.Strings.S;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.JTextArea;
+
+/**
+ * Heuristic two-level minimisation in the style of Espresso: instead of finding all prime
+ * implicants as {@link Implicant#computeMinimal} does, it improves one cover by repeating
+ *
+ * <ul>
+ *   <li>EXPAND, which grows each cube into a prime as long as it does not hit the OFF-set,
+ *       dropping the cubes that become covered;
+ *   <li>IRREDUNDANT, which drops cubes whose ON rows are all covered by other cubes;
+ *   <li>REDUCE, which shrinks each cube to the rows only it covers, so that the next EXPAND can
+ *       grow it in another direction;
+ * </ul>
+ *
+ * <p>for as long as the number of products, then of literals, goes down. The result is a cover by
+ * primes in which no product is redundant, which usually is minimal or close to it, in seconds
+ * even for 20 inputs.
+ *
+ * <p>A cube is a pair of row index bit masks, the unknowns and the values, as for an {@link
+ * Implicant}. The ON-set and OFF-set are bitmaps of the truth table rows, so that a cube is checked
+ * 64 rows at a time: the low six bits of the row index select a bit of a word, the others the
+ * word.
+ *
+ * <p>The minimisation checks for interruption of its thread between the steps; when interrupted,
+ * it returns the best cover found so far, or <code>null</code> if the first one is not complete.
+ */
+final class Espresso {
+  private static final int LANE_BITS = 6;
+
+  private final int inputCount;
+  private final long[] on; // rows that must be covered
+  private final long[] off; // rows that must not be covered
+  private final long[] covered; // rows covered by the cubes expanded so far
+  private final int[] counts; // number of cubes of the cover holding each ON row
+  private final JTextArea outputArea;
+
+  private Espresso(int inputCount, JTextArea outputArea) {
+    this.inputCount = inputCount;
+    this.outputArea = outputArea;
+    final var words = Math.max(1, (1 << inputCount) >>> LANE_BITS);
+    on = new long[words];
+    off = new long[words];
+    covered = new long[words];
+    counts = new int[1 << inputCount];
+  }
+
+  /**
+   * Computes a minimal or close to minimal cover of the output, as {@link Implicant#computeMinimal}
+   * does, and reports the progress to <code>outputArea</code> if it is not <code>null</code>.
+   * Returns <code>null</code> if the calling thread is interrupted before a first cover is built.
+   */
+  static List<Implicant> computeMinimal(int format, AnalyzerModel model, String variable,
+      JTextArea outputArea) {
+    final var table = model.getTruthTable();
+    final var column = model.getOutputs().bits.indexOf(variable);
+    if (column < 0) return Collections.emptyList();
+    final var desiredTerm = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS ? Entry.ONE : Entry.ZERO;
+    final var skippedTerm = desiredTerm == Entry.ONE ? Entry.ZERO : Entry.ONE;
+    // all other entries are don't cares
+    final var espresso = new Espresso(table.getInputColumnCount(), outputArea);
+    table.getOutputRows(column, desiredTerm).forEach(row -> set(espresso.on, row));
+    table.getOutputRows(column, skippedTerm).forEach(row -> set(espresso.off, row));
+
+    report(outputArea, String.format("\n%s\n", S.fmt("implicantOutputName", variable)));
+    final var cover = espresso.minimize();
+    if (cover == null) return null;
+    final var ret = new ArrayList<Implicant>(cover.length);
+    for (final var cube : cover) ret.add(new Implicant(unknowns(cube), values(cube)));
+    Collections.sort(ret);
+    return ret;
+  }
+
+  private static void report(JTextArea out, String info) {
+    if (out != null) out.append(info);
+  }
+
+  private static void set(long[] plane, int row) {
+    plane[row >>> LANE_BITS] |= 1L << row;
+  }
+
+  //
+  // cubes, packed into a long as the unknowns above the values
+  //
+  private static long cube(int unknowns, int values) {
+    return ((long) unknowns << Integer.SIZE) | (values & ~unknowns & 0xffff_ffffL);
+  }
+
+  private static int unknowns(long cube) {
+    return (int) (cube >>> Integer.SIZE);
+  }
+
+  private static int values(long cube) {
+    return (int) cube;
+  }
+
+  /** Returns the bits of a word holding the rows of the cube in the words it spans. */
+  private static long lanes(long cube) {
+    final var unknowns = unknowns(cube);
+    final var values = values(cube);
+    var ret = -1L;
+    for (var b = 0; b < LANE_BITS; b++) {
+      if ((unknowns & (1 << b)) != 0) continue;
+      final var bit = BitSlicedExpression.LOW_BITS[b];
+      ret &= (values & (1 << b)) != 0 ? bit : ~bit;
+    }
+    return ret;
+  }
+
+  /** Returns whether the cube holds a row of the plane. */
+  private static boolean intersects(long cube, long[] plane) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var sub = 0;
+    do {
+      if ((plane[base | sub] & lanes) != 0) return true;
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return false;
+  }
+
+  /** Returns the number of ON rows of the cube not covered yet. */
+  private int countUncovered(long cube) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var ret = 0;
+    var sub = 0;
+    do {
+      final var w = base | sub;
+      ret += Long.bitCount(on[w] & ~covered[w] & lanes);
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return ret;
+  }
+
+  private void cover(long cube) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var sub = 0;
+    do {
+      covered[base | sub] |= lanes;
+      sub = (sub - high) & high;
+    } while (sub != 0);
+  }
+
+  /** Adds <code>delta</code> to the counts of the ON rows of the cube. */
+  private void count(long cube, int delta) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var sub = 0;
+    do {
+      final var w = base | sub;
+      for (var bits = on[w] & lanes; bits != 0; bits &= bits - 1) {
+        counts[(w << LANE_BITS) | Long.numberOfTrailingZeros(bits)] += delta;
+      }
+      sub = (sub - high) & high;
+    } while (sub != 0);
+  }
+
+  /** Returns whether some ON row of the cube is held by no other cube of the cover. */
+  private boolean isNeeded(long cube) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var sub = 0;
+    do {
+      final var w = base | sub;
+      for (var bits = on[w] & lanes; bits != 0; bits &= bits - 1) {
+        if (counts[(w << LANE_BITS) | Long.numberOfTrailingZeros(bits)] == 1) return true;
+      }
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return false;
+  }
+
+  /**
+   * Returns the smallest cube holding the ON rows of the cube held by no other cube of the cover,
+   * whose counts are already decremented, or -1 if there are none.
+   */
+  private long reduced(long cube) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var and = -1;
+    var or = 0;
+    var sub = 0;
+    do {
+      final var w = base | sub;
+      for (var bits = on[w] & lanes; bits != 0; bits &= bits - 1) {
+        final var row = (w << LANE_BITS) | Long.numberOfTrailingZeros(bits);
+        if (counts[row] != 0) continue;
+        and &= row;
+        or |= row;
+      }
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return or == 0 && and == -1 ? -1L : cube(and ^ or, and);
+  }
+
+  private int literals(long[] cover) {
+    var ret = 0;
+    for (final var cube : cover) ret += inputCount - Integer.bitCount(unknowns(cube));
+    return ret;
+  }
+
+  /** Returns the cost of a cover, fewer products first and then fewer literals being better. */
+  private long cost(long[] cover) {
+    return ((long) cover.length << Integer.SIZE) + literals(cover);
+  }
+
+  private static long[] sortBySize(long[] cover, boolean largestFirst) {
+    final Comparator<Long> bySize =
+        Comparator.comparingInt(cube -> Integer.bitCount(unknowns(cube)));
+    return Arrays.stream(cover)
+        .boxed()
+        .sorted(largestFirst ? bySize.reversed() : bySize)
+        .mapToLong(Long::longValue)
+        .toArray();
+  }
+
+  private long[] minimize() {
+    final var first = expandRows();
+    if (first == null) {
+      report(outputArea, String.format("\n%s", S.get("espressoInterrupted")));
+      return null;
+    }
+    var best = irredundant(first);
+    var pass = 1;
+    reportPass(pass, best);
+    while (!Thread.currentThread().isInterrupted()) {
+      // the counts are those of the best cover here
+      var cover = irredundant(expand(reduce(best)));
+      reportPass(++pass, cover);
+      if (cost(cover) < cost(best)) {
+        best = cover;
+        continue;
+      }
+      recount(best);
+      cover = lastGasp(best);
+      if (cost(cover) >= cost(best)) break;
+      reportPass(++pass, cover);
+      best = cover;
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      report(outputArea, String.format("\n%s", S.get("espressoInterrupted")));
+    }
+    return best;
+  }
+
+  private void reportPass(int pass, long[] cover) {
+    report(outputArea,
+        String.format("\n%s", S.fmt("espressoPass", pass, cover.length, literals(cover))));
+  }
+
+  //
+  // EXPAND
+  //
+  /** Returns the prime that EXPAND grows the cube into. */
+  private long expand(long cube) {
+    var blocked = 0; // variables whose raising would hit the OFF-set, even for a larger cube
+    while (true) {
+      var bestBit = 0;
+      var bestScore = -1;
+      for (var v = 0; v < inputCount; v++) {
+        final var bit = 1 << v;
+        if (((unknowns(cube) | blocked) & bit) != 0) continue;
+        // the cube itself misses the OFF-set, so only its mirror image needs checking
+        final var mirror = cube(unknowns(cube), values(cube) ^ bit);
+        if (intersects(mirror, off)) {
+          blocked |= bit;
+          continue;
+        }
+        // raise the variable bringing in the most ON rows that are not covered yet
+        final var score = countUncovered(mirror);
+        if (score > bestScore) {
+          bestScore = score;
+          bestBit = bit;
+        }
+      }
+      if (bestScore < 0) return cube;
+      cube = cube(unknowns(cube) | bestBit, values(cube));
+    }
+  }
+
+  /**
+   * Builds a first cover of primes by expanding the ON rows not covered yet, in turn, or returns
+   * <code>null</code> if interrupted, as the rows left would not be covered.
+   */
+  private long[] expandRows() {
+    Arrays.fill(covered, 0L);
+    final var ret = new ArrayList<Long>();
+    for (var w = 0; w < on.length; w++) {
+      for (var bits = on[w] & ~covered[w]; bits != 0; bits = on[w] & ~covered[w]) {
+        if (Thread.currentThread().isInterrupted()) return null;
+        final var row = (w << LANE_BITS) | Long.numberOfTrailingZeros(bits);
+        final var prime = expand(cube(0, row));
+        cover(prime);
+        ret.add(prime);
+      }
+    }
+    return ret.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Expands the cubes into primes, the largest first as the others are more likely to be covered
+   * by them, and drops the cubes whose ON rows become covered.
+   */
+  private long[] expand(long[] cover) {
+    Arrays.fill(covered, 0L);
+    final var ret = new ArrayList<Long>(cover.length);
+    for (final var cube : sortBySize(cover, true)) {
+      // an interrupted pass is dropped, so its cover only needs to stay a cover
+      if (Thread.currentThread().isInterrupted()) return cover;
+      if (countUncovered(cube) == 0) continue;
+      final var prime = expand(cube);
+      cover(prime);
+      ret.add(prime);
+    }
+    return ret.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  //
+  // IRREDUNDANT
+  //
+  /**
+   * Drops the cubes whose ON rows are all held by other cubes, trying the smallest first, and
+   * leaves the counts of the rows for the cubes kept.
+   */
+  private long[] irredundant(long[] cover) {
+    recount(cover);
+    final var ret = new ArrayList<Long>(cover.length);
+    for (final var cube : sortBySize(cover, false)) {
+      if (isNeeded(cube)) {
+        ret.add(cube);
+      } else {
+        count(cube, -1);
+      }
+    }
+    return ret.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private void recount(long[] cover) {
+    Arrays.fill(counts, 0);
+    for (final var cube : cover) count(cube, 1);
+  }
+
+  //
+  // LAST_GASP
+  //
+  /**
+   * Reduces every cube on its own, expands the reduced cubes towards each other, and adds the
+   * primes reaching into other reduced cubes before dropping redundant cubes again, which may
+   * replace two cubes by one where REDUCE and EXPAND, taking the cubes in turn, could not. Espresso
+   * only adds the primes holding two reduced cubes; checking that against every other one would
+   * take quadratic time, so IRREDUNDANT sorts out the extra primes instead.
+   */
+  private long[] lastGasp(long[] cover) {
+    final var reduced = new ArrayList<Long>(cover.length);
+    for (final var cube : cover) {
+      count(cube, -1);
+      final var small = reduced(cube);
+      count(cube, 1);
+      if (small != -1L) reduced.add(small);
+    }
+    // score the raising of variables by the rows of the reduced cubes brought in
+    Arrays.fill(covered, -1L);
+    for (final var small : reduced) uncover(small);
+    final var added = new ArrayList<Long>();
+    for (final var small : reduced) {
+      final var prime = expand(small);
+      if (countUncovered(prime) > countUncovered(small)) added.add(prime);
+    }
+    if (added.isEmpty()) return cover;
+    final var ret = Arrays.copyOf(cover, cover.length + added.size());
+    for (var i = 0; i < added.size(); i++) ret[cover.length + i] = added.get(i);
+    return irredundant(ret);
+  }
+
+  private void uncover(long cube) {
+    final var lanes = lanes(cube);
+    final var high = unknowns(cube) >>> LANE_BITS;
+    final var base = values(cube) >>> LANE_BITS;
+    var sub = 0;
+    do {
+      covered[base | sub] &= ~lanes;
+      sub = (sub - high) & high;
+    } while (sub != 0);
+  }
+
+  //
+  // REDUCE
+  //
+  /**
+   * Shrinks the cubes, the largest first, to the smallest cubes holding the ON rows no other cube
+   * holds, using and updating the counts left by {@link #irredundant}.
+   */
+  private long[] reduce(long[] cover) {
+    final var ret = new ArrayList<Long>(cover.length);
+    for (final var cube : sortBySize(cover, true)) {
+      count(cube, -1);
+      final var reduced = reduced(cube);
+      if (reduced == -1L) continue;
+      count(reduced, 1);
+      ret.add(reduced);
+    }
+    return ret.stream().mapToLong(Long::longValue).toArray();
+  }
+}
@@ -89,6 +89,11 @@ public class Implicant implements Comparable<Implicant> {
     return result.toString();
   }
 
+  /**
+   * Computes a minimal cover of the output, reporting the progress to <code>outputArea</code> if it
+   * is not <code>null</code>. Returns <code>null</code> if the calling thread is interrupted before
+   * the cover is complete.
+   */
   static List<Implicant> computeMinimal(int format, AnalyzerModel model, String variable, JTextArea outputArea) {
     final var table = model.getTruthTable();
     final var outputVariableIndex = model.getOutputs().bits.indexOf(variable);
@@ -97,6 +102,14 @@ public class Implicant implements Comparable<Implicant> {
     final var desiredTerm = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS ? Entry.ONE : Entry.ZERO;
     final var skippedTerm = desiredTerm == Entry.ONE ? Entry.ZERO : Entry.ONE;
     final var nrOfInputs = table.getInputColumnCount();
+    // In case the number of inputs is bigger than approx. 8 inputs, this
+    // algorithm takes a long time. To prevent "freezing" of logisim, we
+    // only perform an optimization for systems with more than 6 inputs on
+    // user request, see Espresso for a faster one. Otherwise we exit here,
+    // before collecting the min/maxterms.
+    if ((nrOfInputs > MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM) && (outputArea == null)) {
+      return Collections.emptyList();
+    }
     final var oneHotTable = new HashSet<Integer>();
     var mask = 1;
     for (var bitIndex = 0; bitIndex < nrOfInputs; bitIndex++) {
@@ -138,18 +151,13 @@ public class Implicant implements Comparable<Implicant> {
     }
 
     if (allDontCare) return Collections.emptyList();
-    // In case the number of inputs is bigger than approx. 8 inputs, this
-    // algorithm takes a long time. To prevent "freezing" of logisim, we
-    // only perform an optimization for systems with more than 6 inputs on
-    // user request. Otherwise we exit here and return the set of min/maxterms
-    if ((nrOfInputs > MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM) && (outputArea == null)) {
-      return Collections.emptyList();
-    }
     report(outputArea, String.format("\n%s\n", S.fmt("implicantOutputName", variable)));
     // Here the real work starts, we determine all primes
     var couldMerge = false;
     var groupSize = 2;
     do {
+      // the optimization is stopped by interrupting its thread
+      if (Thread.currentThread().isInterrupted()) return null;
       report(outputArea, String.format("\n%s", S.fmt("implicantGroupSize", groupSize)));
       var nrOfPrimes = 0L;
       couldMerge = false;
@@ -224,6 +232,7 @@ public class Implicant implements Comparable<Implicant> {
     report(outputArea, String.format("\n%s", S.get("implicantColumRowReduction")));
     var nrEssentialPrimes = 0L;
     do {
+      if (Thread.currentThread().isInterrupted()) return null;
       couldDoRowReduction = false;
       couldDoColumnReduction = false;
       final var termsToRemove = new ArrayList<Implicant>();
@@ -343,7 +352,7 @@ public class Implicant implements Comparable<Implicant> {
   final boolean isDontCare;
   boolean isPrime = true;
 
-  private Implicant(int unknowns, int values) {
+  Implicant(int unknowns, int values) {
     this.unknowns = unknowns;
     this.values = values;
     isDontCare = false;
@@ -11,9 +11,10 @@ package com.cburch.logisim.analyze.model;
 
 import com.cburch.logisim.util.CollectionUtil;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JTextArea;
 
@@ -146,12 +147,22 @@ public class OutputExpressions {
     }
 
     private void invalidate(boolean initializing, boolean formatChanged, JTextArea outputArea) {
+      invalidate(initializing, formatChanged, outputArea, false);
+    }
+
+    private void invalidate(boolean initializing, boolean formatChanged, JTextArea outputArea,
+        boolean heuristic) {
       if (invalidating) return;
       invalidating = true;
       try {
         final var oldImplicants = minimalImplicants;
         final var oldMinExpr = minimalExpr;
-        minimalImplicants = Implicant.computeMinimal(format, model, output, outputArea);
+        final var implicants = heuristic
+            ? Espresso.computeMinimal(format, model, output, outputArea)
+            : Implicant.computeMinimal(format, model, output, outputArea);
+        // an interrupted minimization keeps the previous minimal form
+        if (implicants == null) return;
+        minimalImplicants = implicants;
         minimalExpr = Implicant.toExpression(format, model, minimalImplicants);
         final var minChanged = !implicantsSame(oldImplicants, minimalImplicants);
 
@@ -234,11 +245,16 @@ public class OutputExpressions {
     }
 
     void setExpression(Expression newExpr, String newExprString) {
+      setExpression(newExpr, newExprString, null);
+    }
+
+    /** Sets the expression, whose truth table column may have been computed already. */
+    void setExpression(Expression newExpr, String newExprString, Entry[] column) {
       expr = newExpr;
       exprString = newExprString;
 
       if (expr != minimalExpr) { // for efficiency to avoid recomputation
-        final var values = computeColumn(model.getTruthTable(), expr);
+        final var values = column != null ? column : computeColumn(model.getTruthTable(), expr);
         final var outputColumn = model.getOutputs().bits.indexOf(output);
         updatingTable = true;
         try {
@@ -272,21 +288,13 @@ public class OutputExpressions {
   }
 
   private static Entry[] computeColumn(TruthTable table, Expression expr) {
-    final var rows = table.getRowCount();
-    final var cols = table.getInputColumnCount();
-    final var values = new Entry[rows];
-    if (expr == null) {
-      Arrays.fill(values, Entry.DONT_CARE);
-    } else {
-      final var assn = new Assignments();
-      for (var i = 0; i < rows; i++) {
-        for (var j = 0; j < cols; j++) {
-          assn.put(table.getInputHeader(j), TruthTable.isInputSet(i, j, cols));
-        }
-        values[i] = expr.evaluate(assn) ? Entry.ONE : Entry.ZERO;
-      }
-    }
-    return values;
+    return computeColumns(table, Collections.singletonList(expr))[0];
+  }
+
+  private static Entry[][] computeColumns(TruthTable table, List<Expression> exprs) {
+    final var inputs = new ArrayList<String>();
+    for (var j = 0; j < table.getInputColumnCount(); j++) inputs.add(table.getInputHeader(j));
+    return BitSlicedExpression.evaluateColumns(inputs, exprs);
   }
 
   private static boolean implicantsSame(List<Implicant> a, List<Implicant> b) {
@@ -327,10 +335,21 @@ public class OutputExpressions {
   }
 
   public void forcedOptimize(JTextArea outtextArea, int format) {
+    forcedOptimize(outtextArea, format, false);
+  }
+
+  /**
+   * Minimizes all outputs, with the exact algorithm of {@link Implicant} or the heuristic one of
+   * {@link Espresso}, reporting the progress to <code>outtextArea</code>. Interrupting the calling
+   * thread stops the optimization; the heuristic one then keeps the best form found so far, and
+   * an output whose minimization did not get that far keeps its previous minimal form.
+   */
+  public void forcedOptimize(JTextArea outtextArea, int format, boolean heuristic) {
     for (final var output : outputData.keySet()) {
+      if (Thread.currentThread().isInterrupted()) return;
       final var data = outputData.get(output);
       data.setMinimizedFormat(format);
-      data.invalidate(false, false, outtextArea);
+      data.invalidate(false, false, outtextArea, heuristic);
     }
   }
 
@@ -455,6 +474,24 @@ public class OutputExpressions {
     getOutputData(output, true).setExpression(expr, exprString);
   }
 
+  /**
+   * Sets the expressions of several outputs, as calling {@link #setExpression(String, Expression)}
+   * for each of them in turn would, but computes their truth table columns in parallel.
+   */
+  public void setExpressions(Map<String, Expression> exprs) {
+    final var outputs = new ArrayList<String>();
+    final var list = new ArrayList<Expression>();
+    for (final var entry : exprs.entrySet()) {
+      if (entry.getKey() == null) continue;
+      outputs.add(entry.getKey());
+      list.add(entry.getValue());
+    }
+    final var columns = computeColumns(model.getTruthTable(), list);
+    for (var i = 0; i < outputs.size(); i++) {
+      getOutputData(outputs.get(i), true).setExpression(list.get(i), null, columns[i]);
+    }
+  }
+
   public void setMinimizedFormat(String output, int format) {
     final var oldFormat = getMinimizedFormat(output);
     if (format != oldFormat) {
@@ -12,23 +12,22 @@ package com.cburch.logisim.circuit;
 import static com.cburch.logisim.circuit.Strings.S;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
-import com.cburch.logisim.analyze.model.Entry;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
-import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Direction;
 import com.cburch.logisim.data.Location;
-import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -110,11 +109,62 @@ public class Analyze {
    * difficulties arise.
    */
   public static void computeExpression(AnalyzerModel model, Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
-    final var expressionMap = new ExpressionMap(circuit);
+    final var expressionMap = propagateExpressions(circuit, pinNames);
 
     final var inputVars = new ArrayList<Var>();
     final var outputVars = new ArrayList<Var>();
     final var outputPins = new ArrayList<Instance>();
+    for (final var entry : pinNames.entrySet()) {
+      final var pin = entry.getKey();
+      final var label = entry.getValue();
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      if (Pin.FACTORY.isInputPin(pin)) {
+        inputVars.add(new Var(label, width));
+      } else {
+        outputPins.add(pin);
+        outputVars.add(new Var(label, width));
+      }
+    }
+
+    model.setVariables(inputVars, outputVars);
+    final var expressions = new LinkedHashMap<String, Expression>();
+    for (final var pin : outputPins) {
+      final var label = pinNames.get(pin);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      for (var b = 0; b < width; b++) {
+        final var loc = new LocationBit(pin.getLocation(), b);
+        final var name = (width > 1 ? label + "[" + b + "]" : label);
+        expressions.put(name, expressionMap.get(loc));
+      }
+    }
+    model.getOutputExpressions().setExpressions(expressions);
+  }
+
+  /**
+   * Computes the expressions driving each bit of the given output pins without going through an
+   * AnalyzerModel, so it is not bound by the model's limits on the number of variables. Input pins
+   * in <code>pinNames</code> become variables named as in {@link #computeExpression}; an input pin
+   * of the circuit that is missing from the map is treated as unconnected. The returned arrays are
+   * indexed by bit and hold <code>null</code> for bits that nothing drives.
+   */
+  public static Map<Instance, Expression[]> computeOutputExpressions(Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
+    final var expressionMap = propagateExpressions(circuit, pinNames);
+    final var ret = new HashMap<Instance, Expression[]>();
+    for (final var pin : pinNames.keySet()) {
+      if (Pin.FACTORY.isInputPin(pin)) continue;
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      final var bits = new Expression[width];
+      for (var b = 0; b < width; b++) {
+        bits[b] = expressionMap.get(new LocationBit(pin.getLocation(), b));
+      }
+      ret.put(pin, bits);
+    }
+    return ret;
+  }
+
+  private static ExpressionMap propagateExpressions(Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
+    final var expressionMap = new ExpressionMap(circuit);
+
     for (final var entry : pinNames.entrySet()) {
       final var pin = entry.getKey();
       final var label = entry.getValue();
@@ -125,10 +175,6 @@ public class Analyze {
           final var e = Expressions.variable(width > 1 ? label + "[" + b + "]" : label);
           expressionMap.put(new LocationBit(pin.getLocation(), b), e);
         }
-        inputVars.add(new Var(label, width));
-      } else {
-        outputPins.add(pin);
-        outputVars.add(new Var(label, width));
       }
     }
 
@@ -149,24 +195,27 @@ public class Analyze {
       final var expr = checkForCircularExpressions(expressionMap);
       if (expr != null) throw new AnalyzeException.Circular();
     }
-
-    model.setVariables(inputVars, outputVars);
-    for (final var pin : outputPins) {
-      final var label = pinNames.get(pin);
-      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-      for (var b = 0; b < width; b++) {
-        final var loc = new LocationBit(pin.getLocation(), b);
-        final var name = (width > 1 ? label + "[" + b + "]" : label);
-        model.getOutputExpressions().setExpression(name, expressionMap.get(loc));
-      }
-    }
+    return expressionMap;
   }
 
   //
   // ComputeTable
   //
-  /** Returns a truth table corresponding to the circuit. */
+  /**
+   * Returns a truth table corresponding to the circuit, computing its rows on as many threads as
+   * there are processors.
+   */
   public static void computeTable(AnalyzerModel model, Project proj, Circuit circuit, Map<Instance, String> pinLabels) {
+    computeTable(model, proj, circuit, pinLabels, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Returns a truth table corresponding to the circuit. Rows are evaluated 64 at a time, on up to
+   * <code>threads</code> threads, if the outputs can be expressed in terms of the inputs, and are
+   * otherwise simulated, sharing one circuit state if the circuit is combinational; see
+   * {@link TruthTableExtractor}.
+   */
+  public static void computeTable(AnalyzerModel model, Project proj, Circuit circuit, Map<Instance, String> pinLabels, int threads) {
     final var inputPins = new ArrayList<Instance>();
     final var inputVars = new ArrayList<Var>();
     final var inputNames = new ArrayList<String>();
@@ -188,57 +237,10 @@ public class Analyze {
       }
     }
 
-    final var inputCount = inputNames.size();
-    final var rowCount = 1 << inputCount;
-    final var columns = new Entry[outputNames.size()][rowCount];
-
-    for (var i = 0; i < rowCount; i++) {
-      final var circuitState = new CircuitState(proj, circuit);
-      var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
-        }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.setValue(pinState, Value.create(v));
-      }
-
-      final var prop = circuitState.getPropagator();
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      if (prop.isOscillating()) {
-        for (var j = 0; j < columns.length; j++) {
-          columns[j][i] = Entry.OSCILLATE_ERROR;
-        }
-      } else {
-        var outcol = 0;
-        for (final var pin : outputPins) {
-          int width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-          final var pinState = circuitState.getInstanceState(pin);
-          Entry out;
-          for (int b = width - 1; b >= 0; b--) {
-            final var outValue = Pin.FACTORY.getValue(pinState).get(b);
-            if (outValue == Value.TRUE)
-              out = Entry.ONE;
-            else if (outValue == Value.FALSE)
-              out = Entry.ZERO;
-            else if (outValue == Value.ERROR)
-              out = Entry.BUS_ERROR;
-            else
-              out = Entry.DONT_CARE;
-            columns[outcol++][i] = out;
-          }
-        }
-      }
-    }
+    final var columns =
+        new TruthTableExtractor(proj, circuit, pinLabels, inputPins, inputNames, outputPins,
+                outputNames.size())
+            .compute(threads);
 
     model.setVariables(inputVars, outputVars);
     for (var i = 0; i < columns.length; i++) {
@@ -341,6 +343,7 @@ public class Analyze {
         }
       } else if (comp.getFactory() instanceof Pin) { // pins are handled elsewhere
       } else if (comp.getFactory() instanceof SplitterFactory) { // splitters are handled elsewhere
+      } else if (comp.getFactory() instanceof Tunnel) { // tunnels are joined into the wire bundles
       } else {
         throw new AnalyzeException.CannotHandle(comp.getFactory().getDisplayName());
       }
@@ -104,7 +104,16 @@ public class Circuit {
   private class MyComponentListener implements ComponentListener {
     @Override
     public void componentInvalidated(ComponentEvent e) {
-      fireEvent(CircuitEvent.ACTION_INVALIDATE, e.getSource());
+      final var source = e.getSource();
+      // during parallel propagation, listeners are notified in the simulation's order
+      if (!Propagator.defer(() -> fireEvent(CircuitEvent.ACTION_INVALIDATE, source))) {
+        fireEvent(CircuitEvent.ACTION_INVALIDATE, source);
+      }
+    }
+
+    @Override
+    public void boundsChanged(ComponentEvent e) {
+      index.invalidate(e.getSource());
     }
 
     @Override
@@ -113,6 +122,7 @@ public class Circuit {
       isAnnotated = false;
       myNetList.clear();
       final var comp = e.getSource();
+      index.invalidate(comp);
       final var toRemove = toMap(e.getOldData());
       final var toAdd = toMap(e.getData());
       final var xn = new EndChangedTransaction(comp, toRemove, toAdd);
@@ -136,6 +146,7 @@ public class Circuit {
 
     @Override
     public void labelChanged(ComponentEvent e) {
+      index.invalidate(e.getSource());
       final var attrEvent = (AttributeEvent) e.getData();
       if (attrEvent.getSource() == null || attrEvent.getValue() == null) return;
       final var newLabel = (String) attrEvent.getValue();
@@ -221,13 +232,17 @@ public class Circuit {
   }
 
   private static final int maxTimeoutTestBenchSec = 60000;
+  // how far drawings may reach beyond the bounds of a component (thick strokes, DRC marks)
+  private static final int DRAW_MARGIN = 20;
   private final MyComponentListener myComponentListener = new MyComponentListener();
   private final CircuitAppearance appearance;
   private final AttributeSet staticAttrs;
   private final SubcircuitFactory subcircuitFactory;
   private final EventSourceWeakSupport<CircuitListener> listeners = new EventSourceWeakSupport<>();
   private LinkedHashSet<Component> comps = new LinkedHashSet<>(); // doesn't include wires
-  CircuitWires wires = new CircuitWires();
+  final PointIndex pointIndex = new PointIndex(); // survives mutatorClear, unlike wires
+  CircuitWires wires = new CircuitWires(pointIndex);
+  private final ComponentIndex index = new ComponentIndex(); // spatial index of comps and wires
   private final List<Component> clocks = new ArrayList<>();
   private final CircuitLocker locker;
 
@@ -466,7 +481,14 @@ public class Circuit {
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
   public void doTestVector(Project project, Instance[] pin, Value[] val) throws TestException {
-    final var state = project.getCircuitState();
+    doTestVector(project.getCircuitState(), pin, val);
+  }
+
+  /**
+   * Runs one row of a test vector in the given state, which is reset first. Test runners that
+   * evaluate rows concurrently give each worker its own root state of this circuit.
+   */
+  public void doTestVector(CircuitState state, Instance[] pin, Value[] val) throws TestException {
     state.reset();
 
     for (var i = 0; i < pin.length; ++i) {
@@ -512,12 +534,32 @@ public class Circuit {
   //
   public void draw(ComponentDrawContext context, Collection<Component> hidden) {
     final var g = context.getGraphics();
+    // only draw what may show up in the clip; without a clip (as when printing), draw everything
+    final var clip = g.getClipBounds();
+    final Collection<Component> nonWires;
+    final Collection<Wire> visibleWires;
+    final Bounds area;
+    if (clip == null) {
+      nonWires = comps;
+      visibleWires = wires.getWires();
+      area = null;
+    } else {
+      area = Bounds.create(clip).expand(DRAW_MARGIN);
+      final var drawn = new ArrayList<Component>();
+      final var drawnWires = new ArrayList<Wire>();
+      for (final var c : index.overlapping(area, g)) {
+        if (c instanceof Wire w) drawnWires.add(w);
+        else drawn.add(c);
+      }
+      nonWires = drawn;
+      visibleWires = drawnWires;
+    }
     var gCopy = g.create();
     context.setGraphics(gCopy);
-    wires.draw(context, hidden);
+    wires.draw(context, hidden, visibleWires, area);
 
     if (CollectionUtil.isNullOrEmpty(hidden)) {
-      for (final var c : comps) {
+      for (final var c : nonWires) {
         final var gNew = g.create();
         context.setGraphics(gNew);
         gCopy.dispose();
@@ -526,7 +568,7 @@ public class Circuit {
         c.draw(context);
       }
     } else {
-      for (final var c : comps) {
+      for (final var c : nonWires) {
         if (!hidden.contains(c)) {
           final var gNew = g.create();
           context.setGraphics(gNew);
@@ -562,7 +604,7 @@ public class Circuit {
 
   public Collection<Component> getAllContaining(Location pt) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : index.overlapping(Bounds.create(pt).expand(2), null)) {
       if (comp.contains(pt)) ret.add(comp);
     }
     return ret;
@@ -570,7 +612,7 @@ public class Circuit {
 
   public Collection<Component> getAllContaining(Location pt, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : index.overlapping(Bounds.create(pt).expand(2), g)) {
       if (comp.contains(pt, g)) ret.add(comp);
     }
     return ret;
@@ -578,7 +620,7 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : index.overlapping(bds, null)) {
       if (bds.contains(comp.getBounds())) ret.add(comp);
     }
     return ret;
@@ -586,7 +628,7 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : index.overlapping(bds, g)) {
       if (bds.contains(comp.getBounds(g))) ret.add(comp);
     }
     return ret;
@@ -807,8 +849,10 @@ public class Circuit {
   }
 
   public boolean isConnected(Location loc, Component ignore) {
-    for (final var o : wires.points.getComponents(loc)) {
-      if (o != ignore) return true;
+    // indexed, as components ask this for their ports whenever they propagate
+    final var comps = wires.points.getComponents(loc);
+    for (var i = 0; i < comps.size(); i++) {
+      if (comps.get(i) != ignore) return true;
     }
     return false;
   }
@@ -862,6 +906,7 @@ public class Circuit {
       c.addComponentListener(myComponentListener);
     }
     removeWrongLabels(c.getFactory().getName());
+    index.add(c);
     fireEvent(CircuitEvent.ACTION_ADD, c);
   }
 
@@ -870,7 +915,8 @@ public class Circuit {
 
     final var oldComps = comps;
     comps = new LinkedHashSet<>();
-    wires = new CircuitWires();
+    wires = new CircuitWires(pointIndex);
+    index.clear();
     clocks.clear();
     myNetList.clear();
     isAnnotated = false;
@@ -882,6 +928,10 @@ public class Circuit {
     fireEvent(CircuitEvent.ACTION_CLEAR, oldComps);
   }
 
+  void mutatorChanged(Component c) {
+    index.invalidate(c);
+  }
+
   void mutatorRemove(Component c) {
     locker.checkForWritePermission("remove", this);
 
@@ -902,6 +952,7 @@ public class Circuit {
       }
       c.removeComponentListener(myComponentListener);
     }
+    index.remove(c);
     fireEvent(CircuitEvent.ACTION_REMOVE, c);
   }
 
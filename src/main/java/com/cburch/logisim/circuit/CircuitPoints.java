@@ -18,6 +18,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 
 class CircuitPoints {
@@ -130,9 +131,9 @@ class CircuitPoints {
     return locData == null ? 0 : locData.components.size();
   }
 
-  Collection<? extends Component> getComponents(Location loc) {
+  List<? extends Component> getComponents(Location loc) {
     final var locData = map.get(loc);
-    if (locData == null) return Collections.emptySet();
+    if (locData == null) return Collections.emptyList();
     else return locData.components;
   }
 
@@ -25,13 +25,15 @@ import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.memory.RamState;
 import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 public class CircuitState implements InstanceData {
 
@@ -62,6 +64,7 @@ public class CircuitState implements InstanceData {
           final var subState = (CircuitState) getData(comp);
           if (subState != null && subState.parentComp == comp) {
             subStates.remove(subState);
+            subStateArray = null;
             subState.parentState = null;
             subState.parentComp = null;
             subState.reset();
@@ -81,6 +84,7 @@ public class CircuitState implements InstanceData {
         temporaryClock = null;
         knownClocks = false;
         subStates.clear();
+        subStateArray = null;
         wireData = null;
         for (final var comp : componentData.keySet()) {
           if (componentData.get(comp) instanceof ComponentDataGuiProvider dataGuiProvider)
@@ -90,10 +94,9 @@ public class CircuitState implements InstanceData {
           }
         }
         componentData.clear();
-        values.clear();
+        points = new PointData(pointIndex.generation());
         dirtyComponents.clear();
         dirtyPoints.clear();
-        causes.clear();
       } else if (action == CircuitEvent.ACTION_INVALIDATE) {
         final var comp = (Component) event.getData();
         markComponentAsDirty(comp);
@@ -121,12 +124,78 @@ public class CircuitState implements InstanceData {
           if (!found && compState instanceof CircuitState sub) {
             sub.parentState = null;
             subStates.remove(sub);
+            subStateArray = null;
           }
         }
       }
     }
   }
 
+  /**
+   * The values and causes of the points of a state, in arrays indexed by the ids of one generation
+   * of the circuit's {@link PointIndex}. Readers take the object once and look ids up in its own
+   * generation, so that a state moving to another generation never has them mix up ids.
+   */
+  private static final class PointData {
+    final PointIndex.Generation layout;
+    Value[] values = new Value[0]; // null where no wire drives the point
+    SetData[] causes = new SetData[0];
+
+    PointData(PointIndex.Generation layout) {
+      this.layout = layout;
+    }
+  }
+
+  /**
+   * The components or points waiting to be propagated, in the order they were marked. They are
+   * compared by identity, which for the interned locations is almost always equality; a location
+   * marked twice only gets looked at twice. Any thread may mark, and nothing is allocated once the
+   * tables have grown to the size of the circuit.
+   */
+  private static final class DirtySet<T> {
+    private final IdentityHashMap<T, Boolean> marked = new IdentityHashMap<>();
+    private ArrayList<T> order = new ArrayList<>();
+    private ArrayList<T> taken = new ArrayList<>();
+
+    synchronized void add(T item) {
+      if (marked.put(item, Boolean.TRUE) == null) order.add(item);
+    }
+
+    synchronized void addAll(Collection<? extends T> items) {
+      for (final var item : items) add(item);
+    }
+
+    synchronized void remove(T item) {
+      if (marked.remove(item) != null) order.remove(item);
+    }
+
+    synchronized boolean isEmpty() {
+      return order.isEmpty();
+    }
+
+    synchronized void clear() {
+      marked.clear();
+      order.clear();
+    }
+
+    synchronized List<T> toList() {
+      return new ArrayList<>(order);
+    }
+
+    /**
+     * Empties the set and returns what it held, in a list that the next call reuses, so the caller
+     * must be done with it by then.
+     */
+    synchronized ArrayList<T> take() {
+      final var ret = order;
+      for (var i = 0; i < ret.size(); i++) marked.remove(ret.get(i));
+      order = taken;
+      order.clear();
+      taken = ret;
+      return ret;
+    }
+  }
+
   private final MyCircuitListener myCircuitListener = new MyCircuitListener();
   private Propagator base = null; // base of tree of CircuitStates
   private final Project proj; // project where circuit liespr
@@ -136,13 +205,14 @@ public class CircuitState implements InstanceData {
   private Component parentComp = null; // subcircuit component containing this
   // state
   private HashSet<CircuitState> subStates = new HashSet<>();
+  private CircuitState[] subStateArray = null; // subStates as an array, null after a change
 
   private CircuitWires.State wireData = null;
   private final HashMap<Component, Object> componentData = new HashMap<>();
-  private final Map<Location, Value> values = new HashMap<>();
-  private CopyOnWriteArraySet<Component> dirtyComponents = new CopyOnWriteArraySet<>();
-  private final CopyOnWriteArraySet<Location> dirtyPoints = new CopyOnWriteArraySet<>();
-  final HashMap<Location, SetData> causes = new HashMap<>();
+  private final PointIndex pointIndex; // the circuit's, numbers the locations of the points
+  private volatile PointData points;
+  private final DirtySet<Component> dirtyComponents = new DirtySet<>();
+  private final DirtySet<Location> dirtyPoints = new DirtySet<>();
 
   private static int lastId = 0;
   private final int id = lastId++;
@@ -150,6 +220,8 @@ public class CircuitState implements InstanceData {
   public CircuitState(Project proj, Circuit circuit) {
     this.proj = proj;
     this.circuit = circuit;
+    this.pointIndex = circuit.pointIndex;
+    this.points = new PointData(pointIndex.generation());
     circuit.addCircuitListener(myCircuitListener);
   }
 
@@ -167,7 +239,10 @@ public class CircuitState implements InstanceData {
   }
 
   public boolean containsKey(Location pt) {
-    return values.containsKey(pt);
+    final var data = points;
+    final var id = data.layout.find(pt);
+    final var values = data.values;
+    return id >= 0 && id < values.length && values[id] != null;
   }
 
   private void copyFrom(CircuitState src, Propagator base) {
@@ -176,6 +251,7 @@ public class CircuitState implements InstanceData {
     this.parentState = src.parentState;
     final var substateData = new HashMap<CircuitState, CircuitState>();
     this.subStates = new HashSet<>();
+    this.subStateArray = null;
     for (final var oldSub : src.subStates) {
       final var newSub = new CircuitState(src.proj, oldSub.circuit);
       newSub.copyFrom(oldSub, base);
@@ -194,17 +270,19 @@ public class CircuitState implements InstanceData {
         this.componentData.put(key, newValue);
       }
     }
-    for (final var key : src.causes.keySet()) {
-      final var oldValue = src.causes.get(key);
-      final var newValue = oldValue.cloneFor(this);
-      this.causes.put(key, newValue);
+    final var srcPoints = src.points;
+    final var data = new PointData(srcPoints.layout);
+    data.causes = new SetData[srcPoints.causes.length];
+    for (var i = 0; i < srcPoints.causes.length; i++) {
+      if (srcPoints.causes[i] != null) data.causes[i] = srcPoints.causes[i].cloneFor(this);
     }
     if (src.wireData != null) {
       this.wireData = (CircuitWires.State) src.wireData.clone();
     }
-    this.values.putAll(src.values);
-    this.dirtyComponents.addAll(src.dirtyComponents);
-    this.dirtyPoints.addAll(src.dirtyPoints);
+    data.values = srcPoints.values.clone();
+    this.points = data;
+    this.dirtyComponents.addAll(src.dirtyComponents.toList());
+    this.dirtyPoints.addAll(src.dirtyPoints.toList());
   }
 
   public void drawOscillatingPoints(ComponentDrawContext context) {
@@ -218,10 +296,61 @@ public class CircuitState implements InstanceData {
     return circuit;
   }
 
-  Value getComponentOutputAt(Location p) {
+  Value getComponentOutputAt(int pointId) {
     // for CircuitWires - to get values, ignoring wires' contributions
-    final var causeList = causes.get(p);
-    return Propagator.computeValue(causeList);
+    return Propagator.computeValue(getCauses(pointId));
+  }
+
+  SetData getCauses(int pointId) {
+    final var causes = points.causes;
+    return pointId < causes.length ? causes[pointId] : null;
+  }
+
+  void setCauses(int pointId, SetData head) {
+    final var data = points;
+    if (pointId >= data.causes.length) {
+      if (head == null) return;
+      data.causes = Arrays.copyOf(data.causes, Math.max(pointId + 1, data.layout.size()));
+    }
+    data.causes[pointId] = head;
+  }
+
+  /**
+   * Moves the values and causes to the ids of the given generation of the point index, unless they
+   * already use it. Only the thread propagating the state may call this, as it does before
+   * propagating with a bundle map numbered by another generation.
+   */
+  void useLayout(PointIndex.Generation layout) {
+    final var old = points;
+    if (old.layout == layout) return;
+    final var ids = new int[Math.max(old.values.length, old.causes.length)];
+    var length = 0;
+    for (var i = 0; i < ids.length; i++) {
+      final var used = (i < old.values.length && old.values[i] != null)
+          || (i < old.causes.length && old.causes[i] != null);
+      // a point still in use keeps an id even if the compaction did not know about it
+      ids[i] = used ? layout.get(old.layout.getLocation(i)) : -1;
+      length = Math.max(length, ids[i] + 1);
+    }
+    final var data = new PointData(layout);
+    data.values = new Value[length];
+    data.causes = new SetData[length];
+    for (var i = 0; i < ids.length; i++) {
+      if (ids[i] < 0) continue;
+      if (i < old.values.length) data.values[ids[i]] = old.values[i];
+      if (i < old.causes.length) data.causes[ids[i]] = old.causes[i];
+    }
+    points = data;
+  }
+
+  /** Returns the generation of the point index that the ids of this state belong to. */
+  PointIndex.Generation getLayout() {
+    return points.layout;
+  }
+
+  /** Returns the id of the point in the generation this state uses, see {@link #getLayout}. */
+  int getPointId(Location p) {
+    return points.layout.get(p);
   }
 
   public Object getData(Component comp) {
@@ -269,15 +398,19 @@ public class CircuitState implements InstanceData {
   }
 
   public Value getValue(Location pt) {
-    final var ret = values.get(pt);
+    final var data = points;
+    final var id = data.layout.find(pt);
+    final var values = data.values;
+    final var ret = id >= 0 && id < values.length ? values[id] : null;
     if (ret != null) return ret;
 
     final var wid = circuit.getWidth(pt);
     return Value.createUnknown(wid);
   }
 
-  Value getValueByWire(Location p) {
-    return values.get(p);
+  Value getValueByWire(int pointId) {
+    final var values = points.values;
+    return pointId >= 0 && pointId < values.length ? values[pointId] : null;
   }
 
   CircuitWires.State getWireData() {
@@ -299,64 +432,56 @@ public class CircuitState implements InstanceData {
   }
 
   public void markComponentAsDirty(Component comp) {
-    try {
-      dirtyComponents.add(comp);
-    } catch (RuntimeException e) {
-      final var set = new CopyOnWriteArraySet<Component>();
-      set.add(comp);
-      dirtyComponents = set;
-    }
+    dirtyComponents.add(comp);
   }
 
   public void markComponentsDirty(Collection<Component> comps) {
     dirtyComponents.addAll(comps);
   }
 
+  /**
+   * Hands the components that were marked dirty over to the caller instead of propagating them,
+   * see {@link LevelizedPropagator}.
+   */
+  List<Component> takeDirtyComponents() {
+    dirtyPoints.clear();
+    return dirtyComponents.take();
+  }
+
   public void markPointAsDirty(Location pt) {
     dirtyPoints.add(pt);
   }
 
   void processDirtyComponents() {
     if (!dirtyComponents.isEmpty()) {
-      // This seeming wasted copy is to avoid ConcurrentModifications
-      // if we used an iterator instead.
-      Object[] toProcess;
-      RuntimeException firstException = null;
-      for (var tries = 4; true; tries--) {
-        try {
-          toProcess = dirtyComponents.toArray();
-          break;
-        } catch (RuntimeException e) {
-          if (firstException == null) firstException = e;
-          if (tries == 0) {
-            toProcess = new Object[0];
-            dirtyComponents = new CopyOnWriteArraySet<>();
-            throw firstException;
-          }
-        }
-      }
-      dirtyComponents.clear();
-      for (final var compObj : toProcess) {
-        if (compObj instanceof Component comp) {
-          comp.propagate(this);
-          if (comp.getFactory() instanceof Pin && parentState != null) {
-            // should be propagated in superstate
-            parentComp.propagate(parentState);
-          }
+      // components marked while these propagate go to the set, not to this list
+      final var toProcess = dirtyComponents.take();
+      for (var i = 0; i < toProcess.size(); i++) {
+        final var comp = toProcess.get(i);
+        comp.propagate(this);
+        if (comp.getFactory() instanceof Pin && parentState != null) {
+          // should be propagated in superstate
+          parentComp.propagate(parentState);
         }
       }
     }
 
-    final var subs = new CircuitState[subStates.size()];
-    for (final var substate : subStates.toArray(subs)) {
+    if (subStates.isEmpty()) return;
+    final var subs = subStateArray();
+    if (base != null && base.processInParallel(subs, true)) return;
+    for (final var substate : subs) {
       substate.processDirtyComponents();
     }
   }
 
   void processDirtyPoints() {
-    final var dirty = new HashSet<>(dirtyPoints);
-    dirtyPoints.clear();
-    if (circuit.wires.isMapVoided()) {
+    final var mapVoided = circuit.wires.isMapVoided();
+    if (dirtyPoints.isEmpty() && !mapVoided) {
+      processSubstateDirtyPoints();
+      return;
+    }
+    final var dirty = dirtyPoints.take();
+    if (mapVoided) {
       for (var i = 3; i >= 0; i--) {
         try {
           dirty.addAll(circuit.wires.points.getSplitLocations());
@@ -374,9 +499,14 @@ public class CircuitState implements InstanceData {
     if (!dirty.isEmpty()) {
       circuit.wires.propagate(this, dirty);
     }
+    processSubstateDirtyPoints();
+  }
 
-    final var subs = new CircuitState[subStates.size()];
-    for (final var substate : subStates.toArray(subs)) {
+  private void processSubstateDirtyPoints() {
+    if (subStates.isEmpty()) return;
+    final var subs = subStateArray();
+    if (base != null && base.processInParallel(subs, false)) return;
+    for (final var substate : subs) {
       /* TODO: Analyze why this bug happens, e.g. a substate that is null! */
       if (substate != null) substate.processDirtyPoints();
     }
@@ -399,10 +529,9 @@ public class CircuitState implements InstanceData {
         componentData.put(comp, null);
       }
     }
-    values.clear();
+    points = new PointData(pointIndex.generation());
     dirtyComponents.clear();
     dirtyPoints.clear();
-    causes.clear();
     markAllComponentsDirty();
 
     for (CircuitState sub : subStates) {
@@ -420,6 +549,7 @@ public class CircuitState implements InstanceData {
         if (oldState != null && oldState.parentComp == comp) {
           // it looks like it's being removed
           subStates.remove(oldState);
+          subStateArray = null;
           oldState.parentState = null;
           oldState.parentComp = null;
           oldState.reset();
@@ -427,6 +557,7 @@ public class CircuitState implements InstanceData {
         if (newState != null && newState.parentState != this) {
           // this is the first time I've heard about this CircuitState
           subStates.add(newState);
+          subStateArray = null;
           newState.base = this.base;
           newState.parentState = this;
           newState.parentComp = comp;
@@ -445,19 +576,28 @@ public class CircuitState implements InstanceData {
     if (base != null) base.setValue(this, pt, val, cause, delay);
   }
 
-  void setValueByWire(Location p, Value v) {
+  void setValueByWire(int pointId, Value v) {
     // for CircuitWires - to set value at point
+    final var data = points;
     boolean changed;
     if (v == Value.NIL) {
-      final var old = values.remove(p);
+      final var old = pointId < data.values.length ? data.values[pointId] : null;
+      if (old != null) data.values[pointId] = null;
       changed = (old != null && old != Value.NIL);
     } else {
-      final var old = values.put(p, v);
+      if (pointId >= data.values.length) {
+        data.values = Arrays.copyOf(data.values, Math.max(pointId + 1, data.layout.size()));
+      }
+      final var old = data.values[pointId];
+      data.values[pointId] = v;
       changed = !v.equals(old);
     }
     if (changed) {
+      final var p = data.layout.getLocation(pointId);
+      final var comps = circuit.wires.points.getComponents(p);
       var found = false;
-      for (final var comp : circuit.getComponents(p)) {
+      for (var i = 0; i < comps.size(); i++) {
+        final var comp = comps.get(i);
         if (!(comp instanceof Wire) && !(comp instanceof Splitter)) {
           found = true;
           markComponentAsDirty(comp);
@@ -482,12 +622,20 @@ public class CircuitState implements InstanceData {
     for (final var clock : circuit.getClocks())
       ret |= Clock.tick(this, ticks, clock);
 
-    final var subs = new CircuitState[subStates.size()];
-    for (final var substate : subStates.toArray(subs))
+    for (final var substate : subStateArray())
       ret |= substate.toggleClocks(ticks);
     return ret;
   }
 
+  private CircuitState[] subStateArray() {
+    var ret = subStateArray;
+    if (ret == null) {
+      ret = subStates.toArray(new CircuitState[0]);
+      subStateArray = ret;
+    }
+    return ret;
+  }
+
   private boolean temporaryClockValidateOrTick(int ticks) {
     // temporaryClock.getFactory() will be Pin, normally a 1 bit input
     try {
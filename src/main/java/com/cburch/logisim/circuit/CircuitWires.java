@@ -33,22 +33,31 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
-import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 class CircuitWires {
 
   static class BundleMap {
+    final PointIndex.Generation generation; // the numbering of the point ids below
     final HashMap<Location, WireBundle> pointBundles = new HashMap<>();
     final HashSet<WireBundle> bundles = new HashSet<>();
+    // Numbering of the threads and of the (point, bit) pairs driving them, see numberThreads
+    WireThread[] threads = new WireThread[0];
+    int bundleCount;
+    int slotCount;
+    int[] pointPositions = new int[0]; // position of each point id in its bundle's pointIds
     boolean isValid = true;
     // NOTE: It would make things more efficient if we also had
     // a set of just the first bundle in each tree.
     HashSet<WidthIncompatibilityData> incompatibilityData = null;
 
+    BundleMap(PointIndex.Generation generation) {
+      this.generation = generation;
+    }
+
     void addWidthIncompatibilityData(WidthIncompatibilityData e) {
       if (incompatibilityData == null) {
         incompatibilityData = new HashSet<>();
@@ -104,25 +113,98 @@ class CircuitWires {
     }
   }
 
+  /**
+   * The values of a circuit state's wire threads. Each thread keeps count of how many of its
+   * (point, bit) pairs drive 0, 1 or an error, so that a changed driver updates its thread without
+   * visiting the thread's other points.
+   */
   static class State {
+    static final byte DRIVES_NOTHING = -1;
+    static final byte DRIVES_ZERO = 0;
+    static final byte DRIVES_ONE = 1;
+    static final byte DRIVES_ERROR = 2;
+
     final BundleMap bundleMap;
-    final HashMap<WireThread, Value> thrValues = new HashMap<>();
+    final Value[] thrValues; // by WireThread.index
+    final byte[] drives; // what each slot drives, by ThreadBundle.firstSlot + point position
+    final int[] driverCounts; // per thread, the number of slots driving 0, 1 and an error
+    // scratch space of propagate, so that it does not allocate
+    private final int[] threadStamps;
+    private final int[] bundleStamps;
+    private int stamp;
+    final ArrayList<WireThread> dirtyThreads = new ArrayList<>(); // threads whose drivers changed
+    final ArrayList<WireBundle> dirtyBundles = new ArrayList<>(); // bundles needing new values
 
     State(BundleMap bundleMap) {
       this.bundleMap = bundleMap;
+      thrValues = new Value[bundleMap.threads.length];
+      drives = new byte[bundleMap.slotCount];
+      driverCounts = new int[3 * bundleMap.threads.length];
+      threadStamps = new int[bundleMap.threads.length];
+      bundleStamps = new int[bundleMap.bundleCount];
+      Arrays.fill(drives, DRIVES_NOTHING);
     }
 
     @Override
     public Object clone() {
       final var ret = new State(this.bundleMap);
-      ret.thrValues.putAll(this.thrValues);
+      System.arraycopy(thrValues, 0, ret.thrValues, 0, thrValues.length);
+      System.arraycopy(drives, 0, ret.drives, 0, drives.length);
+      System.arraycopy(driverCounts, 0, ret.driverCounts, 0, driverCounts.length);
       return ret;
     }
+
+    /** Records what the given slot of the thread drives now; returns whether that changed. */
+    boolean drive(int thread, int slot, byte what) {
+      final var old = drives[slot];
+      if (old == what) return false;
+      drives[slot] = what;
+      if (old != DRIVES_NOTHING) driverCounts[3 * thread + old]--;
+      if (what != DRIVES_NOTHING) driverCounts[3 * thread + what]++;
+      return true;
+    }
+
+    /** Returns the value of the thread, as the combination of its drivers and its pull value. */
+    Value resolve(WireThread thread) {
+      final var base = 3 * thread.index;
+      final var zeros = driverCounts[base + DRIVES_ZERO];
+      final var ones = driverCounts[base + DRIVES_ONE];
+      final Value ret;
+      if (driverCounts[base + DRIVES_ERROR] > 0 || (zeros > 0 && ones > 0)) ret = Value.ERROR;
+      else if (ones > 0) ret = Value.TRUE;
+      else if (zeros > 0) ret = Value.FALSE;
+      else ret = Value.UNKNOWN;
+      return thread.pull == Value.UNKNOWN ? ret : pullValue(ret, thread.pull);
+    }
+
+    int nextStamp() {
+      if (++stamp == 0) {
+        Arrays.fill(threadStamps, 0);
+        Arrays.fill(bundleStamps, 0);
+        stamp = 1;
+      }
+      return stamp;
+    }
+
+    /** Returns true the first time it is called for the thread with the given stamp. */
+    boolean markThread(WireThread thread, int stamp) {
+      if (threadStamps[thread.index] == stamp) return false;
+      threadStamps[thread.index] = stamp;
+      return true;
+    }
+
+    /** Returns true the first time it is called for the bundle with the given stamp. */
+    boolean markBundle(WireBundle bundle, int stamp) {
+      if (bundleStamps[bundle.index] == stamp) return false;
+      bundleStamps[bundle.index] = stamp;
+      return true;
+    }
   }
 
   static class ThreadBundle {
     final int loc;
     final WireBundle b;
+    int firstSlot; // slot of the bundle's first point, see State.drives
 
     ThreadBundle(int loc, WireBundle b) {
       this.loc = loc;
@@ -140,7 +222,8 @@ class CircuitWires {
     public void attributeValueChanged(AttributeEvent e) {
       final var attr = e.getAttribute();
       if (attr == StdAttr.LABEL || attr == PullResistor.ATTR_PULL_TYPE) {
-        voidBundleMap();
+        beginChange();
+        endChange(true);
       }
     }
   }
@@ -181,9 +264,15 @@ class CircuitWires {
   // derived data
   private Bounds bounds = Bounds.EMPTY_BOUNDS;
 
-  private BundleMap masterBundleMap = null;
+  private volatile BundleMap masterBundleMap = null;
+  private long structureVersion = 0; // guarded by this, odd while the wiring changes
+  private Thread builder = null; // guarded by this, the thread building the next bundle map
+  private Splitter builderLocking = null; // guarded by this, splitter whose lock builder needs
+  private final PointIndex pointIndex;
 
-  CircuitWires() {}
+  CircuitWires(PointIndex pointIndex) {
+    this.pointIndex = pointIndex;
+  }
 
   //
   // action methods
@@ -192,30 +281,36 @@ class CircuitWires {
   // avoid voiding the bundle map.
   /*synchronized*/ boolean add(Component comp) {
     var added = true;
-    if (comp instanceof Wire wire) {
-      added = addWire(wire);
-    } else if (comp instanceof Splitter splitter) {
-      splitters.add(splitter);
-    } else {
-      final var factory = comp.getFactory();
-      if (factory instanceof Tunnel) {
-        tunnels.add(comp);
-        comp.getAttributeSet().addAttributeListener(tunnelListener);
-      } else if (factory instanceof PullResistor) {
-        pulls.add(comp);
-        comp.getAttributeSet().addAttributeListener(tunnelListener);
+    beginChange();
+    try {
+      if (comp instanceof Wire wire) {
+        added = addWire(wire);
+      } else if (comp instanceof Splitter splitter) {
+        splitters.add(splitter);
+      } else {
+        final var factory = comp.getFactory();
+        if (factory instanceof Tunnel) {
+          tunnels.add(comp);
+          comp.getAttributeSet().addAttributeListener(tunnelListener);
+        } else if (factory instanceof PullResistor) {
+          pulls.add(comp);
+          comp.getAttributeSet().addAttributeListener(tunnelListener);
+        }
       }
-    }
-    if (added) {
-      points.add(comp);
-      voidBundleMap();
+      if (added) points.add(comp);
+    } finally {
+      endChange(added);
     }
     return added;
   }
 
   /*synchronized*/ void add(Component comp, EndData end) {
-    points.add(comp, end);
-    voidBundleMap();
+    beginChange();
+    try {
+      points.add(comp, end);
+    } finally {
+      endChange(true);
+    }
   }
 
   private boolean addWire(Wire w) {
@@ -269,9 +364,13 @@ class CircuitWires {
       }
     }
 
-    // determine the bundles at the end of each splitter
+    // determine the bundles at the end of each splitter; this is kept with the map being built
+    // rather than in the splitters, as several threads may build maps at the same time
+    final var splitterData = new HashMap<Splitter, SplitterData>();
     for (final var spl : splitters) {
       final var ends = new ArrayList<>(spl.getEnds());
+      final var splData = new SplitterData(ends.size() - 1);
+      splitterData.put(spl, splData);
       int index = -1;
       for (final var end : ends) {
         index++;
@@ -279,17 +378,18 @@ class CircuitWires {
         final var pb = ret.getBundleAt(p);
         if (pb != null) {
           pb.setWidth(end.getWidth(), p);
-          spl.wireData.endBundle[index] = pb;
+          splData.endBundle[index] = pb;
         }
       }
     }
 
     // unite threads going through splitters
     for (final var spl : splitters) {
+      lockingSplitter(spl);
       synchronized (spl) {
         final var splAttrs = (SplitterAttributes) spl.getAttributeSet();
         final var bitEnd = splAttrs.bitEnd;
-        final var splData = spl.wireData;
+        final var splData = splitterData.get(spl);
         final var fromBundle = splData.endBundle[0];
         if (fromBundle == null || !fromBundle.isValid()) continue;
 
@@ -317,14 +417,27 @@ class CircuitWires {
     // merge any threads united by previous step
     for (final var wireBundle : ret.getBundles()) {
       if (wireBundle.isValid() && wireBundle.threads != null) {
+        wireBundle.threadBundles = new ThreadBundle[wireBundle.threads.length];
         for (int i = 0; i < wireBundle.threads.length; i++) {
           final var thr = wireBundle.threads[i].find();
           wireBundle.threads[i] = thr;
-          thr.getBundles().add(new ThreadBundle(i, wireBundle));
+          wireBundle.threadBundles[i] = new ThreadBundle(i, wireBundle);
+          thr.getBundles().add(wireBundle.threadBundles[i]);
         }
       }
     }
 
+    // number the points so that propagation can address the states' arrays directly
+    for (final var wireBundle : ret.getBundles()) {
+      final var ids = new int[wireBundle.points.size()];
+      var i = 0;
+      for (final var p : wireBundle.points) {
+        ids[i++] = ret.generation.get(p);
+      }
+      wireBundle.pointIds = ids;
+    }
+    numberThreads(ret);
+
     // All threads are sewn together! Compute the exception set before
     // leaving
     final var exceptions = points.getWidthIncompatibilityData();
@@ -339,6 +452,38 @@ class CircuitWires {
     }
   }
 
+  /**
+   * Numbers the bundles and threads of the map, and gives every (point, bit) pair of a thread a
+   * slot of its own, so that a circuit state can keep the wire values in flat arrays.
+   */
+  private void numberThreads(BundleMap ret) {
+    final var threads = new ArrayList<WireThread>();
+    final var positions = new int[ret.generation.size()];
+    var bundleCount = 0;
+    var slotCount = 0;
+    for (final var wireBundle : ret.getBundles()) {
+      wireBundle.index = bundleCount++;
+      final var ids = wireBundle.pointIds;
+      for (var i = 0; i < ids.length; i++) positions[ids[i]] = i;
+      if (!wireBundle.isValid() || wireBundle.threads == null) continue;
+      for (final var thr : wireBundle.threads) {
+        if (thr.index >= 0) continue; // already numbered through another bundle
+        thr.index = threads.size();
+        threads.add(thr);
+        for (final var tb : thr.getBundles()) {
+          tb.firstSlot = slotCount;
+          slotCount += tb.b.pointIds.length;
+          final var pullHere = tb.b.getPullValue();
+          if (pullHere != Value.UNKNOWN) thr.pull = thr.pull.combine(pullHere);
+        }
+      }
+    }
+    ret.threads = threads.toArray(new WireThread[0]);
+    ret.bundleCount = bundleCount;
+    ret.slotCount = slotCount;
+    ret.pointPositions = positions;
+  }
+
   private void connectPullResistors(BundleMap ret) {
     for (final var comp : pulls) {
       final var loc = comp.getEnd(0).getLocation();
@@ -414,7 +559,12 @@ class CircuitWires {
     }
   }
 
-  void draw(ComponentDrawContext context, Collection<Component> hidden) {
+  /**
+   * Draws the given wires and the connection dots that lie within <code>area</code>, or all the
+   * dots if <code>area</code> is <code>null</code>.
+   */
+  void draw(ComponentDrawContext context, Collection<Component> hidden, Collection<Wire> visible,
+      Bounds area) {
     final var showState = context.getShowState();
     final var state = context.getCircuitState();
     final var g = (Graphics2D) context.getGraphics();
@@ -425,7 +575,7 @@ class CircuitWires {
     final var bmap = getBundleMap();
     final var isValid = bmap.isValid();
     if (CollectionUtil.isNullOrEmpty(hidden)) {
-      for (final var wire : wires) {
+      for (final var wire : visible) {
         final var s = wire.e0;
         final var t = wire.e1;
         final var wb = bmap.getBundleAt(s);
@@ -470,6 +620,7 @@ class CircuitWires {
       }
 
       for (final var loc : points.getSplitLocations()) {
+        if (area != null && !area.contains(loc)) continue;
         if (points.getComponentCount(loc) > 2) {
           final var wb = bmap.getBundleAt(loc);
           if (wb != null) {
@@ -495,7 +646,7 @@ class CircuitWires {
         }
       }
     } else {
-      for (final var wire : wires) {
+      for (final var wire : visible) {
         if (!hidden.contains(wire)) {
           final var s = wire.e0;
           final var t = wire.e1;
@@ -522,6 +673,7 @@ class CircuitWires {
       // the problem is minor, and hidden only exists for a short
       // while at a time anway.
       for (final var loc : points.getSplitLocations()) {
+        if (area != null && !area.contains(loc)) continue;
         if (points.getComponentCount(loc) > 2) {
           var icount = 0;
           for (final var comp : points.getComponents(loc)) {
@@ -549,64 +701,84 @@ class CircuitWires {
     }
   }
 
-  // There are only two threads that need to use the bundle map, I think:
-  // the AWT event thread, and the simulation worker thread.
-  // AWT does modifications to the components and wires, then voids the
-  // masterBundleMap, and eventually recomputes a new map (if needed) during
-  // painting. AWT sometimes locks a splitter, then changes components and
-  // wires.
-  // Computing a new bundle map requires both locking splitters and touching
-  // the components and wires, so to avoid deadlock, only the AWT should
-  // create the new bundle map.
-
-  /*synchronized*/ private BundleMap getBundleMap() {
-    if (masterBundleMap != null) return masterBundleMap;
-    if (SwingUtilities.isEventDispatchThread()) {
-      // AWT event thread.
-      final var ret = new BundleMap();
+  // The bundle map is an immutable snapshot of the wiring, which is built by whichever thread
+  // needs it first (the AWT event thread while painting, or the simulation thread) and then
+  // shared by all of them. Building takes no lock other than the splitters' own, because the AWT
+  // sometimes locks a splitter and then changes components and wires. Instead, structureVersion
+  // works as a seqlock: it is incremented before and after every change of the wiring, so that
+  // it is odd while a change is in progress. A build only starts on an even version, and its map
+  // is only used if the version did not move while it ran; any other build, including one that
+  // failed on the half-changed collections, is simply done again.
+  //
+  // Only one thread builds at a time, and the others wait for its map. The exception is a waiter
+  // holding the lock of the splitter the builder is about to take, which would never be released
+  // while it waits, so it builds the map itself instead.
+
+  BundleMap getBundleMap() {
+    var ret = masterBundleMap;
+    if (ret != null) return ret;
+    while (true) {
+      final long version;
+      final boolean registered;
+      synchronized (this) {
+        while ((structureVersion & 1) != 0 || mustWaitForBuilder()) {
+          if (masterBundleMap != null) return masterBundleMap;
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ret = new BundleMap(pointIndex.generation());
+            ret.invalidate();
+            return ret;
+          }
+        }
+        if (masterBundleMap != null) return masterBundleMap;
+        version = structureVersion;
+        registered = builder == null;
+        if (registered) builder = Thread.currentThread();
+      }
+      ret = new BundleMap(pointIndex.generation());
+      Exception failure = null;
+      boolean current = false;
       try {
         computeBundleMap(ret);
-        masterBundleMap = ret;
       } catch (Exception t) {
-        ret.invalidate();
-        logger.error(t.getLocalizedMessage());
+        failure = t;
+      } finally {
+        synchronized (this) {
+          if (registered) {
+            builder = null;
+            builderLocking = null;
+          }
+          current = structureVersion == version;
+          if (current && failure == null) {
+            if (masterBundleMap == null) masterBundleMap = ret;
+            else ret = masterBundleMap; // published by a thread that could not wait for us
+          }
+          notifyAll();
+        }
       }
+      if (!current) continue; // disturbed by a concurrent change
+      if (failure == null) return ret;
+      ret.invalidate();
+      logger.error(failure.getLocalizedMessage());
       return ret;
-    } else {
-      // Simulation thread.
-      try {
-        final var ret = new BundleMap[1];
-        SwingUtilities.invokeAndWait(() -> ret[0] = getBundleMap());
-        return ret[0];
-      } catch (Exception e) {
-        final var ret = new BundleMap();
-        ret.invalidate();
-        return ret;
-      }
     }
   }
 
-  Iterator<? extends Component> getComponents() {
-    return IteratorUtil.createJoinedIterator(splitters.iterator(), wires.iterator());
+  private boolean mustWaitForBuilder() {
+    if (builder == null || builder == Thread.currentThread()) return false;
+    return builderLocking == null || !Thread.holdsLock(builderLocking);
   }
 
-  private Value getThreadValue(CircuitState state, WireThread t) {
-    var ret = Value.UNKNOWN;
-    var pull = Value.UNKNOWN;
-    for (final var tb : t.getBundles()) {
-      for (final var p : tb.b.points) {
-        final var val = state.getComponentOutputAt(p);
-        if (val != null && val != Value.NIL) {
-          ret = ret.combine(val.get(tb.loc));
-        }
-      }
-      final var pullHere = tb.b.getPullValue();
-      if (pullHere != Value.UNKNOWN) pull = pull.combine(pullHere);
-    }
-    if (pull != Value.UNKNOWN) {
-      ret = pullValue(ret, pull);
-    }
-    return ret;
+  private synchronized void lockingSplitter(Splitter spl) {
+    if (builder != Thread.currentThread()) return;
+    builderLocking = spl;
+    notifyAll();
+  }
+
+  Iterator<? extends Component> getComponents() {
+    return IteratorUtil.createJoinedIterator(splitters.iterator(), wires.iterator());
   }
 
   BitWidth getWidth(Location q) {
@@ -672,88 +844,124 @@ class CircuitWires {
   //
   // utility methods
   //
-  void propagate(CircuitState circState, Set<Location> points) {
+  void propagate(CircuitState circState, List<Location> points) {
     final var map = getBundleMap();
-    final var dirtyThreads = new CopyOnWriteArraySet<WireThread>(); // affected threads
+
+    // the map's point ids are those of the generation it was numbered by
+    circState.useLayout(map.generation);
 
     // get state, or create a new one if current state is outdated
     var state = circState.getWireData();
-    if (state == null || state.bundleMap != map) {
+    final var outdated = state == null || state.bundleMap != map;
+    if (outdated) state = new State(map);
+    final var stamp = state.nextStamp();
+    final var dirtyThreads = state.dirtyThreads;
+    final var dirtyBundles = state.dirtyBundles;
+    dirtyThreads.clear();
+    dirtyBundles.clear();
+    if (outdated) {
       // if it is outdated, we need to compute for all threads
-      state = new State(map);
-      for (final var bundle : map.getBundles()) {
-        final var wireThreads = bundle.threads;
-        if (bundle.isValid() && wireThreads != null) {
-          dirtyThreads.addAll(Arrays.asList(wireThreads));
+      for (final var thr : map.threads) {
+        for (final var tb : thr.getBundles()) {
+          final var ids = tb.b.pointIds;
+          for (var i = 0; i < ids.length; i++) {
+            state.drive(thr.index, tb.firstSlot + i, drives(circState.getComponentOutputAt(ids[i]), tb.loc));
+          }
         }
+        state.markThread(thr, stamp);
+        dirtyThreads.add(thr);
       }
       circState.setWireData(state);
     }
 
     // determine affected threads, and set values for unwired points
-    for (final var point : points) {
+    for (var p = 0; p < points.size(); p++) {
+      final var point = points.get(p);
       final var wireBundle = map.getBundleAt(point);
       if (wireBundle == null) { // point is not wired
-        circState.setValueByWire(point, circState.getComponentOutputAt(point));
+        final var id = circState.getPointId(point);
+        circState.setValueByWire(id, circState.getComponentOutputAt(id));
       } else {
         final var th = wireBundle.threads;
         if (!wireBundle.isValid() || th == null) {
           // immediately propagate NILs across invalid bundles
-          final var pbPoints = wireBundle.points;
+          final var pbPoints = wireBundle.pointIds;
           if (pbPoints == null) {
-            circState.setValueByWire(point, Value.NIL);
+            circState.setValueByWire(circState.getPointId(point), Value.NIL);
           } else {
-            for (final var loc2 : pbPoints) {
-              circState.setValueByWire(loc2, Value.NIL);
+            for (final var id2 : pbPoints) {
+              circState.setValueByWire(id2, Value.NIL);
             }
           }
         } else {
-          dirtyThreads.addAll(Arrays.asList(th));
+          // only this point's own slots change, the thread's other drivers are left alone
+          final var id = circState.getPointId(point);
+          final var val = circState.getComponentOutputAt(id);
+          final var position = map.pointPositions[id];
+          for (var i = 0; i < th.length; i++) {
+            final var slot = wireBundle.threadBundles[i].firstSlot + position;
+            if (state.drive(th[i].index, slot, drives(val, i)) && state.markThread(th[i], stamp)) {
+              dirtyThreads.add(th[i]);
+            }
+          }
+          if (state.markBundle(wireBundle, stamp)) dirtyBundles.add(wireBundle);
         }
       }
     }
 
-    if (dirtyThreads.isEmpty()) return;
-
-    // determine values of affected threads
-    final var bundles = new HashSet<ThreadBundle>();
-    for (final var t : dirtyThreads) {
-      final var v = getThreadValue(circState, t);
-      state.thrValues.put(t, v);
-      bundles.addAll(t.getBundles());
+    // determine values of affected threads; only threads whose value changes touch other bundles
+    for (var i = 0; i < dirtyThreads.size(); i++) {
+      final var t = dirtyThreads.get(i);
+      final var v = state.resolve(t);
+      if (v.equals(state.thrValues[t.index])) continue;
+      state.thrValues[t.index] = v;
+      final var bundles = t.getBundles();
+      for (var j = 0; j < bundles.size(); j++) {
+        final var b = bundles.get(j).b;
+        if (state.markBundle(b, stamp)) dirtyBundles.add(b);
+      }
     }
 
     // now propagate values through circuit
-    for (final var tb : bundles) {
-      final var b = tb.b;
-
-      Value bv = null;
-      if (!b.isValid() || b.threads == null) {
-        // do nothing
-      } else if (b.threads.length == 1) {
-        bv = state.thrValues.get(b.threads[0]);
+    for (var i = 0; i < dirtyBundles.size(); i++) {
+      final var b = dirtyBundles.get(i);
+      final Value bv;
+      if (b.threads.length == 1) {
+        bv = state.thrValues[b.threads[0].index];
       } else {
-        final var tvs = new Value[b.threads.length];
-        var tvsValid = true;
-        for (var i = 0; i < tvs.length; i++) {
-          final var tv = state.thrValues.get(b.threads[i]);
-          if (tv == null) {
-            tvsValid = false;
-            break;
+        // one bit per thread, put together from masks rather than an array of bits
+        var ones = 0L;
+        var unknowns = 0L;
+        for (var j = 0; j < b.threads.length; j++) {
+          final var tv = state.thrValues[b.threads[j].index];
+          final var bit = 1L << j;
+          if (tv == Value.TRUE) {
+            ones |= bit;
+          } else if (tv == Value.UNKNOWN) {
+            unknowns |= bit;
+          } else if (tv != Value.FALSE) {
+            ones |= bit;
+            unknowns |= bit;
           }
-          tvs[i] = tv;
         }
-        if (tvsValid) bv = Value.create(tvs);
+        bv = Value.createFromMasks(b.threads.length, ones, unknowns);
       }
-
-      if (bv != null) {
-        for (final var p : b.points) {
-          circState.setValueByWire(p, bv);
-        }
+      for (final var id : b.pointIds) {
+        circState.setValueByWire(id, bv);
       }
     }
   }
 
+  /** Returns what a component output drives onto the given bit of its bundle. */
+  private static byte drives(Value val, int bit) {
+    if (val == null || val == Value.NIL) return State.DRIVES_NOTHING;
+    final var v = val.get(bit);
+    if (v == Value.FALSE) return State.DRIVES_ZERO;
+    if (v == Value.TRUE) return State.DRIVES_ONE;
+    if (v == Value.UNKNOWN) return State.DRIVES_NOTHING;
+    return State.DRIVES_ERROR;
+  }
+
   private Bounds recomputeBounds() {
     final var it = wires.iterator();
     if (!it.hasNext()) {
@@ -782,27 +990,35 @@ class CircuitWires {
   }
 
   /*synchronized*/ void remove(Component comp) {
-    if (comp instanceof Wire wire) {
-      removeWire(wire);
-    } else if (comp instanceof Splitter) {
-      splitters.remove(comp);
-    } else {
-      final var factory = comp.getFactory();
-      if (factory instanceof Tunnel) {
-        tunnels.remove(comp);
-        comp.getAttributeSet().removeAttributeListener(tunnelListener);
-      } else if (factory instanceof PullResistor) {
-        pulls.remove(comp);
-        comp.getAttributeSet().removeAttributeListener(tunnelListener);
+    beginChange();
+    try {
+      if (comp instanceof Wire wire) {
+        removeWire(wire);
+      } else if (comp instanceof Splitter) {
+        splitters.remove(comp);
+      } else {
+        final var factory = comp.getFactory();
+        if (factory instanceof Tunnel) {
+          tunnels.remove(comp);
+          comp.getAttributeSet().removeAttributeListener(tunnelListener);
+        } else if (factory instanceof PullResistor) {
+          pulls.remove(comp);
+          comp.getAttributeSet().removeAttributeListener(tunnelListener);
+        }
       }
+      points.remove(comp);
+    } finally {
+      endChange(true);
     }
-    points.remove(comp);
-    voidBundleMap();
   }
 
   /*synchronized*/ void remove(Component comp, EndData end) {
-    points.remove(comp, end);
-    voidBundleMap();
+    beginChange();
+    try {
+      points.remove(comp, end);
+    } finally {
+      endChange(true);
+    }
   }
 
   private void removeWire(Wire w) {
@@ -818,18 +1034,32 @@ class CircuitWires {
   }
 
   /*synchronized*/ void replace(Component comp, EndData oldEnd, EndData newEnd) {
-    points.remove(comp, oldEnd);
-    points.add(comp, newEnd);
-    voidBundleMap();
+    beginChange();
+    try {
+      points.remove(comp, oldEnd);
+      points.add(comp, newEnd);
+    } finally {
+      endChange(true);
+    }
   }
 
   //
   // helper methods
   //
-  private void voidBundleMap() {
-    // This should really only be called by AWT thread, but main() also
-    // calls it during startup. It should not be called by the simulation
-    // thread.
-    masterBundleMap = null;
+  // These should really only be called by AWT thread, but main() also
+  // calls them during startup. They should not be called by the simulation
+  // thread.
+  private synchronized void beginChange() {
+    structureVersion++;
+  }
+
+  private synchronized void endChange(boolean changed) {
+    if (changed) {
+      masterBundleMap = null;
+      // the wiring changed, which may have left many point ids unused
+      pointIndex.compact(points.getSplitLocations());
+    }
+    structureVersion++;
+    notifyAll();
   }
 }
@@ -0,0 +1,221 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Bounds;
+import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A uniform grid over the components and wires of a circuit, used to answer the point and
+ * rectangle queries of {@link Circuit} without looking at every component. Each component is
+ * filed under every cell its box overlaps; components whose box spans too many cells are kept in
+ * a separate list that every query looks at.
+ *
+ * <p>The index only narrows down the candidates; the caller still applies the exact test. A
+ * component's box therefore only has to cover its bounds, so components are re-filed lazily: a
+ * change to a component merely marks it stale (which is safe from any thread), and stale
+ * components are re-filed by the next query. Labels only count for the queries that pass a
+ * <code>Graphics</code>, since their size depends on the font metrics; their boxes are widened
+ * the first time such a query sees the component after it changed.
+ */
+final class ComponentIndex {
+  private static final int CELL_BITS = 7; // cells of 128 x 128
+  private static final int MAX_CELLS = 256;
+  private static final int TEXT_MARGIN = 4; // font metrics differ slightly between graphics
+  private static final long WIRE_ORDER = 1L << 62; // wires come after all other components
+
+  private static final Comparator<Entry> ORDER = Comparator.comparingLong(e -> e.order);
+
+  private static final class Entry {
+    final Component comp;
+    final long order;
+    Bounds box = null;
+    boolean oversized;
+    volatile boolean stale = false;
+    int mark = 0;
+
+    Entry(Component comp, long order) {
+      this.comp = comp;
+      this.order = order;
+    }
+  }
+
+  private final ConcurrentHashMap<Component, Entry> entries = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Entry> staleEntries = new ConcurrentLinkedQueue<>();
+  private final HashMap<Long, ArrayList<Entry>> cells = new HashMap<>();
+  private final ArrayList<Entry> oversized = new ArrayList<>();
+  private final LinkedHashSet<Entry> textPending = new LinkedHashSet<>();
+  private long nextOrder = 0;
+  private int mark = 0;
+
+  synchronized void add(Component comp) {
+    if (entries.containsKey(comp)) return;
+    final var order = comp instanceof Wire ? WIRE_ORDER + nextOrder++ : nextOrder++;
+    final var entry = new Entry(comp, order);
+    entries.put(comp, entry);
+    file(entry, comp.getBounds());
+    if (!(comp instanceof Wire)) textPending.add(entry);
+  }
+
+  synchronized void remove(Component comp) {
+    final var entry = entries.remove(comp);
+    if (entry == null) return;
+    unfile(entry);
+    textPending.remove(entry);
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    staleEntries.clear();
+    cells.clear();
+    oversized.clear();
+    textPending.clear();
+  }
+
+  /** Marks the component as possibly moved or resized. Safe to call from any thread. */
+  void invalidate(Component comp) {
+    final var entry = entries.get(comp);
+    if (entry != null && !entry.stale) {
+      entry.stale = true;
+      staleEntries.add(entry);
+    }
+  }
+
+  /**
+   * Returns, in the order they were added, all components whose box overlaps the given area. This
+   * is a superset of the components whose bounds overlap it, or whose bounds including the label
+   * overlap it if <code>g</code> is not <code>null</code>.
+   */
+  synchronized List<Component> overlapping(Bounds area, Graphics g) {
+    refresh();
+    if (g != null) fileText(g);
+    if (++mark == 0) {
+      for (final var entry : entries.values()) entry.mark = 0;
+      mark = 1;
+    }
+    final var found = new ArrayList<Entry>();
+    for (final var entry : oversized) {
+      if (overlaps(entry.box, area)) found.add(entry);
+    }
+    final var cx0 = area.getX() >> CELL_BITS;
+    final var cy0 = area.getY() >> CELL_BITS;
+    final var cx1 = (area.getX() + area.getWidth()) >> CELL_BITS;
+    final var cy1 = (area.getY() + area.getHeight()) >> CELL_BITS;
+    if ((long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > entries.size()) {
+      // a query as large as the whole circuit is cheaper by looking at every entry once
+      for (final var entry : entries.values()) {
+        if (!entry.oversized && overlaps(entry.box, area)) found.add(entry);
+      }
+    } else {
+      for (var cx = cx0; cx <= cx1; cx++) {
+        for (var cy = cy0; cy <= cy1; cy++) {
+          final var cell = cells.get(key(cx, cy));
+          if (cell == null) continue;
+          for (final var entry : cell) {
+            if (entry.mark != mark && overlaps(entry.box, area)) {
+              entry.mark = mark;
+              found.add(entry);
+            }
+          }
+        }
+      }
+    }
+    found.sort(ORDER);
+    final var ret = new ArrayList<Component>(found.size());
+    for (final var entry : found) ret.add(entry.comp);
+    return ret;
+  }
+
+  private void refresh() {
+    for (var entry = staleEntries.poll(); entry != null; entry = staleEntries.poll()) {
+      if (entries.get(entry.comp) != entry) continue;
+      entry.stale = false;
+      final var bds = entry.comp.getBounds();
+      if (!bds.equals(entry.box)) {
+        unfile(entry);
+        file(entry, bds);
+      }
+      if (!(entry.comp instanceof Wire)) {
+        textPending.add(entry);
+      }
+    }
+  }
+
+  private void fileText(Graphics g) {
+    for (final var entry : textPending) {
+      final var bds = entry.comp.getBounds();
+      final var withText = entry.comp.getBounds(g);
+      final var box = withText.equals(bds) ? bds : bds.add(withText.expand(TEXT_MARGIN));
+      if (!box.equals(entry.box)) {
+        unfile(entry);
+        file(entry, box);
+      }
+    }
+    textPending.clear();
+  }
+
+  private void file(Entry entry, Bounds box) {
+    entry.box = box;
+    final var cx0 = box.getX() >> CELL_BITS;
+    final var cy0 = box.getY() >> CELL_BITS;
+    final var cx1 = (box.getX() + box.getWidth()) >> CELL_BITS;
+    final var cy1 = (box.getY() + box.getHeight()) >> CELL_BITS;
+    entry.oversized = (long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > MAX_CELLS;
+    if (entry.oversized) {
+      oversized.add(entry);
+      return;
+    }
+    for (var cx = cx0; cx <= cx1; cx++) {
+      for (var cy = cy0; cy <= cy1; cy++) {
+        cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>(4)).add(entry);
+      }
+    }
+  }
+
+  private void unfile(Entry entry) {
+    final var box = entry.box;
+    if (box == null) return;
+    entry.box = null;
+    if (entry.oversized) {
+      oversized.remove(entry);
+      return;
+    }
+    final var cx0 = box.getX() >> CELL_BITS;
+    final var cy0 = box.getY() >> CELL_BITS;
+    final var cx1 = (box.getX() + box.getWidth()) >> CELL_BITS;
+    final var cy1 = (box.getY() + box.getHeight()) >> CELL_BITS;
+    for (var cx = cx0; cx <= cx1; cx++) {
+      for (var cy = cy0; cy <= cy1; cy++) {
+        final var key = key(cx, cy);
+        final var cell = cells.get(key);
+        if (cell != null && cell.remove(entry) && cell.isEmpty()) cells.remove(key);
+      }
+    }
+  }
+
+  private static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+  }
+
+  private static boolean overlaps(Bounds a, Bounds b) {
+    return a.getX() <= b.getX() + b.getWidth()
+        && b.getX() <= a.getX() + a.getWidth()
+        && a.getY() <= b.getY() + b.getHeight()
+        && b.getY() <= a.getY() + a.getHeight();
+  }
+}
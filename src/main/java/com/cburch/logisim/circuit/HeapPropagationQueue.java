@@ -0,0 +1,43 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import java.util.PriorityQueue;
+
+/** Binary heap based scheduler; O(log n) per operation, but without any limit on the delays. */
+class HeapPropagationQueue implements PropagationQueue {
+  private final PriorityQueue<SetData> heap = new PriorityQueue<>();
+
+  @Override
+  public void add(SetData data) {
+    heap.add(data);
+  }
+
+  @Override
+  public SetData peek() {
+    return heap.peek();
+  }
+
+  @Override
+  public SetData poll() {
+    return heap.poll();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return heap.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    heap.clear();
+  }
+}
@@ -0,0 +1,605 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.InstanceComponent;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstanceStateImpl;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Compiled alternative to the event-driven {@link Propagator}, meant for headless runs of
+ * synchronous designs.
+ *
+ * <p>The whole state tree is flattened once into nets of single bits, and the components into
+ * nodes that read and write those bits. Stateless components are sorted topologically, so that
+ * after the clocked (stateful) components have fired, one pass over them in that order settles the
+ * circuit. Which components are clocked is told by {@link InstanceFactory#isSequential}. Components still compute their outputs through their own {@link
+ * InstanceFactory#propagate} method; only the scheduling and the wires are replaced, so values are
+ * the ones the event-driven simulator settles on. Delays are not modelled.
+ *
+ * <p>A circuit that cannot be handled this way, because of combinational feedback loops, nets
+ * with several drivers (tri-state buses), pull resistors or components that do not use the
+ * instance API, is rejected by {@link #compile} with a {@link CircuitException} stating the
+ * reason; the caller is then expected to stay with the event-driven simulator.
+ *
+ * <p>The values kept by the {@link CircuitState}s for the wires are not updated while this class
+ * runs the simulation; the states of the components are. Values that components set through
+ * {@link CircuitState#setValue} rather than their ports, and the actions registered through {@link
+ * Propagator#runAtEndOfStep}, which run after every pass, are handled as well.
+ */
+public final class LevelizedPropagator {
+  private static final int SOURCE = 0; // has no inputs
+  private static final int SEQUENTIAL = 1; // keeps state, fires before the combinational logic
+  private static final int COMBINATIONAL = 2;
+
+  /** An end of a component: the bits of the net it touches and its own contributions to them. */
+  private static final class Terminal {
+    final int[] bits;
+    final int slot; // first of bits.length contribution slots
+
+    Terminal(int[] bits, int slot) {
+      this.bits = bits;
+      this.slot = slot;
+    }
+  }
+
+  /** The nets of one circuit state, numbered as they are first touched. */
+  private static final class Nets {
+    final CircuitWires.BundleMap map;
+    final HashMap<WireThread, Integer> threadBits = new HashMap<>();
+    final HashMap<Location, int[]> pointBits = new HashMap<>(); // points without wires
+
+    Nets(CircuitWires.BundleMap map) {
+      this.map = map;
+    }
+  }
+
+  private abstract static class Node {
+    final int kind;
+    final Terminal[] reads; // terminals whose changes make the node dirty
+    final Terminal[] writes; // terminals the node drives
+    boolean dirty = true;
+
+    Node(int kind, Terminal[] reads, Terminal[] writes) {
+      this.kind = kind;
+      this.reads = reads;
+      this.writes = writes;
+    }
+
+    abstract void evaluate();
+  }
+
+  /** Lets a component's factory read and write the compiled nets instead of the circuit state. */
+  private final class PortState extends InstanceStateImpl {
+    private final Terminal[] terminals;
+
+    PortState(CircuitState state, Component comp, Terminal[] terminals) {
+      super(state, comp);
+      this.terminals = terminals;
+    }
+
+    @Override
+    public Value getPortValue(int portIndex) {
+      return read(terminals[portIndex]);
+    }
+
+    @Override
+    public void setPort(int portIndex, Value value, int delay) {
+      drive(terminals[portIndex], value);
+    }
+  }
+
+  private static final class ComponentNode extends Node {
+    final InstanceFactory factory;
+    final PortState state;
+
+    ComponentNode(int kind, Terminal[] reads, Terminal[] writes, InstanceFactory factory,
+        PortState state) {
+      super(kind, reads, writes);
+      this.factory = factory;
+      this.state = state;
+    }
+
+    @Override
+    void evaluate() {
+      factory.propagate(state);
+    }
+  }
+
+  /** Passes a value from a subcircuit's port to the input pin inside, like SubcircuitFactory. */
+  private final class InputLink extends Node {
+    final Terminal outer;
+    final PortState pin;
+
+    InputLink(Terminal outer, PortState pin, Terminal inner) {
+      super(COMBINATIONAL, new Terminal[] {outer}, new Terminal[] {inner});
+      this.outer = outer;
+      this.pin = pin;
+    }
+
+    @Override
+    void evaluate() {
+      final var newVal = read(outer);
+      final var oldVal = Pin.FACTORY.getValue(pin);
+      if (!newVal.equals(oldVal)) {
+        Pin.FACTORY.setValue(pin, newVal);
+        Pin.FACTORY.propagate(pin);
+      }
+    }
+  }
+
+  /** Passes the value at an output pin of a subcircuit to the port outside. */
+  private final class OutputLink extends Node {
+    final Terminal inner;
+    final Terminal outer;
+
+    OutputLink(Terminal inner, Terminal outer) {
+      super(COMBINATIONAL, new Terminal[] {inner}, new Terminal[] {outer});
+      this.inner = inner;
+      this.outer = outer;
+    }
+
+    @Override
+    void evaluate() {
+      write(outer, read(inner));
+    }
+  }
+
+  private final int iterationLimit;
+  private final Propagator propagator;
+
+  // the flattened circuit
+  private final ArrayList<CircuitState> states = new ArrayList<>();
+  private final HashMap<CircuitState, HashMap<Component, ArrayList<Node>>> nodesByComponent =
+      new HashMap<>();
+  private final HashMap<CircuitState, HashMap<Component, HashMap<Location, Terminal>>>
+      terminalsByEnd = new HashMap<>();
+  private Node[] order; // sources, then sequential nodes, then combinational ones in level order
+  private int[][] bitSlots; // contribution slots of each bit
+  private Node[][] bitReaders;
+
+  // the simulation state
+  private Value[] contributions; // null where the terminal does not drive the bit
+  private Value[] bitValues;
+  private int dirtyCount;
+  private boolean deferring = false;
+  private final ArrayList<Terminal> pendingTerminals = new ArrayList<>();
+  private final ArrayList<Value> pendingValues = new ArrayList<>();
+  private final Value[][] scratch = new Value[Value.MAX_WIDTH + 1][];
+  private boolean isOscillating = false;
+
+  // only used while compiling
+  private final HashMap<CircuitState, Nets> netsByState = new HashMap<>();
+  private int bitCount = 0;
+  private int slotCount = 0;
+  private final ArrayList<Node> nodes = new ArrayList<>();
+  private final ArrayList<Terminal> terminals = new ArrayList<>();
+  private final ArrayList<Value> seeds = new ArrayList<>();
+
+  private LevelizedPropagator(CircuitState root) {
+    this.iterationLimit =
+        root.getProject().getOptions().getAttributeSet().getValue(Options.ATTR_SIM_LIMIT);
+    this.propagator = root.getPropagator();
+  }
+
+  /**
+   * Compiles the state tree below the given root state, which should have been propagated by its
+   * {@link Propagator} before, so that all substates exist. Throws a {@link CircuitException} if
+   * the circuit cannot be simulated this way.
+   */
+  public static LevelizedPropagator compile(CircuitState root) {
+    final var ret = new LevelizedPropagator(root);
+    ret.compileState(root);
+    ret.link();
+    return ret;
+  }
+
+  public boolean isOscillating() {
+    return isOscillating;
+  }
+
+  /**
+   * Returns whether the settled values only depend on the current inputs, that is whether no
+   * component that keeps state drives a net. Stateful sinks such as LEDs do not count.
+   */
+  public boolean isCombinational() {
+    for (final var node : order) {
+      if (node.kind == SEQUENTIAL && node.writes.length > 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Settles the circuit after its inputs or clocks changed, e.g. by {@link
+   * Propagator#toggleClocks}. Returns whether anything needed to be evaluated.
+   */
+  public boolean propagate() {
+    propagator.setCompiled(this);
+    try {
+      return settle();
+    } finally {
+      propagator.setCompiled(null);
+    }
+  }
+
+  private boolean settle() {
+    for (final var state : states) {
+      final var byComponent = nodesByComponent.get(state);
+      for (final var comp : state.takeDirtyComponents()) {
+        final var affected = byComponent == null ? null : byComponent.get(comp);
+        if (affected != null) {
+          for (final var node : affected) markDirty(node);
+        }
+      }
+    }
+    if (dirtyCount == 0) return false;
+
+    for (var iterations = 0; dirtyCount > 0; iterations++) {
+      if (iterations >= iterationLimit) {
+        isOscillating = true;
+        return true;
+      }
+      for (final var node : order) {
+        if (!node.dirty) {
+          if (dirtyCount == 0 && !deferring) break;
+          continue;
+        }
+        if (node.kind == SEQUENTIAL) {
+          // clocked components must all see the values from before the edge
+          deferring = true;
+        } else if (deferring) {
+          commitDeferred();
+        }
+        node.dirty = false;
+        dirtyCount--;
+        node.evaluate();
+      }
+      if (deferring) commitDeferred();
+      propagator.runStepEndActions();
+    }
+    isOscillating = false;
+    return true;
+  }
+
+  /**
+   * Takes a value set through {@link CircuitState#setValue} by a component of the compiled
+   * circuit, as for one of its ports. Returns <code>false</code> if the end is unknown.
+   */
+  boolean setValue(CircuitState state, Location pt, Value val, Component cause) {
+    final var byComponent = terminalsByEnd.get(state);
+    final var byEnd = byComponent == null ? null : byComponent.get(cause);
+    final var terminal = byEnd == null ? null : byEnd.get(pt);
+    if (terminal == null) return false;
+    drive(terminal, val);
+    return true;
+  }
+
+  private void drive(Terminal terminal, Value value) {
+    if (deferring) {
+      pendingTerminals.add(terminal);
+      pendingValues.add(value);
+    } else {
+      write(terminal, value);
+    }
+  }
+
+  private void commitDeferred() {
+    deferring = false;
+    for (var i = 0; i < pendingTerminals.size(); i++) {
+      write(pendingTerminals.get(i), pendingValues.get(i));
+    }
+    pendingTerminals.clear();
+    pendingValues.clear();
+  }
+
+  private void markDirty(Node node) {
+    if (!node.dirty) {
+      node.dirty = true;
+      dirtyCount++;
+    }
+  }
+
+  private Value read(Terminal terminal) {
+    final var bits = terminal.bits;
+    if (bits.length == 1) return bitValues[bits[0]];
+    var values = scratch[bits.length];
+    if (values == null) {
+      values = new Value[bits.length];
+      scratch[bits.length] = values;
+    }
+    for (var i = 0; i < bits.length; i++) {
+      values[i] = bitValues[bits[i]];
+    }
+    return Value.create(values);
+  }
+
+  private void write(Terminal terminal, Value value) {
+    final var bits = terminal.bits;
+    for (var i = 0; i < bits.length; i++) {
+      final var bitValue = value == Value.NIL ? null : value.get(i);
+      final var slot = terminal.slot + i;
+      if (contributions[slot] != bitValue) {
+        contributions[slot] = bitValue;
+        final var bit = bits[i];
+        final var resolved = resolve(bit);
+        if (resolved != bitValues[bit]) {
+          bitValues[bit] = resolved;
+          for (final var reader : bitReaders[bit]) markDirty(reader);
+        }
+      }
+    }
+  }
+
+  /** Combines all contributions to a bit, as CircuitWires does for a wire thread. */
+  private Value resolve(int bit) {
+    var ret = Value.UNKNOWN;
+    for (final var slot : bitSlots[bit]) {
+      final var contribution = contributions[slot];
+      if (contribution != null) ret = ret.combine(contribution);
+    }
+    return ret;
+  }
+
+  //
+  // compilation
+  //
+  private void compileState(CircuitState state) {
+    states.add(state);
+    final var circuit = state.getCircuit();
+    for (final var comp : circuit.getNonWires()) {
+      final var factory = comp.getFactory();
+      if (comp instanceof Splitter || factory instanceof Tunnel || comp.getEnds().isEmpty()) {
+        continue; // part of the nets
+      }
+      if (factory instanceof PullResistor) {
+        throw new CircuitException(circuit.getName() + ": pull resistors are not supported");
+      }
+      if (factory instanceof SubcircuitFactory) {
+        compileSubcircuit(state, comp);
+        continue;
+      }
+      if (state.isSubstate() && factory instanceof Pin) continue; // replaced by the parent's links
+      if (!(factory instanceof InstanceFactory instanceFactory)) {
+        throw new CircuitException(comp.getFactory().getName() + " cannot be compiled");
+      }
+
+      final var ends = comp.getEnds();
+      final var all = new Terminal[ends.size()];
+      final var reads = new ArrayList<Terminal>();
+      final var writes = new ArrayList<Terminal>();
+      for (var i = 0; i < all.length; i++) {
+        final var end = ends.get(i);
+        all[i] = terminal(state, comp, end.getLocation(), end.getWidth().getWidth());
+        if (end.isInput()) reads.add(all[i]);
+        if (end.isOutput()) writes.add(all[i]);
+      }
+      final int kind;
+      if (reads.isEmpty()) {
+        kind = SOURCE;
+      } else if (instanceFactory.isSequential(comp.getAttributeSet())) {
+        kind = SEQUENTIAL;
+      } else {
+        kind = COMBINATIONAL;
+      }
+      final var node = new ComponentNode(kind, reads.toArray(new Terminal[0]),
+          writes.toArray(new Terminal[0]), instanceFactory, portState(state, comp, all));
+      nodes.add(node);
+      register(state, comp, node);
+    }
+
+    for (final var substate : state.getSubStates()) {
+      if (substate.getParentState() == state) compileState(substate);
+    }
+  }
+
+  private void compileSubcircuit(CircuitState state, Component comp) {
+    if (!(state.getData(comp) instanceof CircuitState substate)) {
+      throw new CircuitException(comp.getFactory().getName() + " has not been simulated yet");
+    }
+
+    final var pins = ((CircuitAttributes) comp.getAttributeSet()).getPinInstances();
+    for (var i = 0; i < pins.length; i++) {
+      final var end = comp.getEnd(i);
+      final var pin = pins[i].getComponent();
+      final var pinEnd = pin.getEnd(0);
+      final var outer = terminal(state, comp, end.getLocation(), end.getWidth().getWidth());
+      final var inner =
+          terminal(substate, pin, pinEnd.getLocation(), pinEnd.getWidth().getWidth());
+      final Node link;
+      if (Pin.FACTORY.isInputPin(pins[i])) {
+        link = new InputLink(outer, portState(substate, pin, new Terminal[] {inner}), inner);
+      } else {
+        link = new OutputLink(inner, outer);
+      }
+      nodes.add(link);
+      register(state, comp, link);
+      register(substate, pin, link);
+    }
+  }
+
+  private PortState portState(CircuitState state, Component comp, Terminal[] terminals) {
+    // do not leave the component pointing to our state object, see InstanceComponent
+    final var instanceComp = (InstanceComponent) comp;
+    final var previous = instanceComp.getInstanceStateImpl();
+    final var ret = new PortState(state, comp, terminals);
+    instanceComp.setInstanceStateImpl(previous);
+    return ret;
+  }
+
+  /** Records that the node must be evaluated when the component is marked dirty. */
+  private void register(CircuitState state, Component comp, Node node) {
+    nodesByComponent
+        .computeIfAbsent(state, s -> new HashMap<>())
+        .computeIfAbsent(comp, c -> new ArrayList<>())
+        .add(node);
+  }
+
+  private Nets nets(CircuitState state) {
+    var ret = netsByState.get(state);
+    if (ret == null) {
+      final var circuit = state.getCircuit();
+      final var map = circuit.wires.getBundleMap();
+      if (!map.isValid() || map.incompatibilityData != null) {
+        throw new CircuitException(circuit.getName() + ": invalid wiring");
+      }
+      ret = new Nets(map);
+      netsByState.put(state, ret);
+    }
+    return ret;
+  }
+
+  /** Creates a terminal for an end of the given component, attached to the net at loc. */
+  private Terminal terminal(CircuitState state, Component comp, Location loc, int width) {
+    final var nets = nets(state);
+    final int[] bits;
+    final var bundle = nets.map.getBundleAt(loc);
+    if (bundle != null) {
+      if (!bundle.isValid() || bundle.threads == null) {
+        throw new CircuitException(state.getCircuit().getName() + ": invalid wiring at " + loc);
+      }
+      if (bundle.getPullValue() != Value.UNKNOWN) {
+        throw new CircuitException(state.getCircuit().getName() + ": pulled wire at " + loc);
+      }
+      bits = new int[bundle.threads.length];
+      for (var i = 0; i < bits.length; i++) {
+        bits[i] = nets.threadBits.computeIfAbsent(bundle.threads[i], t -> bitCount++);
+      }
+    } else {
+      final var pointWidth = state.getCircuit().getWidth(loc).getWidth();
+      final var w = pointWidth > 0 ? pointWidth : Math.max(width, 1);
+      bits = nets.pointBits.computeIfAbsent(loc, l -> {
+        final var ret = new int[w];
+        for (var i = 0; i < w; i++) ret[i] = bitCount++;
+        return ret;
+      });
+    }
+    final var ret = new Terminal(bits, slotCount);
+    slotCount += bits.length;
+    terminals.add(ret);
+    terminalsByEnd
+        .computeIfAbsent(state, s -> new HashMap<>())
+        .computeIfAbsent(comp, c -> new HashMap<>())
+        .put(loc, ret);
+
+    // start from the values the event-driven simulation settled on
+    Value seed = null;
+    for (var n = state.getCauses(state.getPointId(loc)); n != null; n = n.next) {
+      if (n.cause == comp) seed = n.val;
+    }
+    seeds.add(seed);
+    return ret;
+  }
+
+  /** Builds the bit tables and sorts the nodes once all states have been compiled. */
+  private void link() {
+    contributions = new Value[slotCount];
+    for (var t = 0; t < terminals.size(); t++) {
+      final var terminal = terminals.get(t);
+      final var seed = seeds.get(t);
+      if (seed == null || seed == Value.NIL) continue;
+      for (var i = 0; i < terminal.bits.length; i++) {
+        contributions[terminal.slot + i] = seed.get(i);
+      }
+    }
+
+    final var slotLists = new ArrayList<ArrayList<Integer>>();
+    final var readerLists = new ArrayList<ArrayList<Node>>();
+    final var writerLists = new ArrayList<ArrayList<Node>>();
+    for (var i = 0; i < bitCount; i++) {
+      slotLists.add(new ArrayList<>());
+      readerLists.add(new ArrayList<>());
+      writerLists.add(new ArrayList<>());
+    }
+    for (final var terminal : terminals) {
+      for (var i = 0; i < terminal.bits.length; i++) {
+        slotLists.get(terminal.bits[i]).add(terminal.slot + i);
+      }
+    }
+    for (final var node : nodes) {
+      for (final var terminal : node.reads) {
+        for (final var bit : terminal.bits) {
+          final var readers = readerLists.get(bit);
+          if (!readers.contains(node)) readers.add(node);
+        }
+      }
+      for (final var terminal : node.writes) {
+        for (final var bit : terminal.bits) {
+          final var writers = writerLists.get(bit);
+          if (writers.contains(node)) continue;
+          writers.add(node);
+          if (writers.size() > 1) {
+            throw new CircuitException("nets with several drivers are not supported");
+          }
+        }
+      }
+    }
+
+    bitSlots = new int[bitCount][];
+    bitReaders = new Node[bitCount][];
+    bitValues = new Value[bitCount];
+    for (var bit = 0; bit < bitCount; bit++) {
+      bitSlots[bit] = slotLists.get(bit).stream().mapToInt(Integer::intValue).toArray();
+      bitReaders[bit] = readerLists.get(bit).toArray(new Node[0]);
+      bitValues[bit] = resolve(bit);
+    }
+
+    // level the combinational nodes (Kahn's algorithm)
+    final var indegree = new HashMap<Node, Integer>();
+    final var successors = new HashMap<Node, ArrayList<Node>>();
+    for (final var node : nodes) {
+      if (node.kind != COMBINATIONAL) continue;
+      indegree.putIfAbsent(node, 0);
+      for (final var terminal : node.reads) {
+        for (final var bit : terminal.bits) {
+          for (final var writer : writerLists.get(bit)) {
+            if (writer == node || writer.kind != COMBINATIONAL) continue;
+            successors.computeIfAbsent(writer, w -> new ArrayList<>()).add(node);
+            indegree.merge(node, 1, Integer::sum);
+          }
+        }
+      }
+    }
+    final var sorted = new ArrayList<Node>();
+    for (final var node : nodes) {
+      if (node.kind == SOURCE) sorted.add(node);
+    }
+    for (final var node : nodes) {
+      if (node.kind == SEQUENTIAL) sorted.add(node);
+    }
+    final var ready = new ArrayDeque<Node>();
+    for (final var node : nodes) {
+      if (node.kind == COMBINATIONAL && indegree.get(node) == 0) ready.add(node);
+    }
+    var combinational = 0;
+    while (!ready.isEmpty()) {
+      final var node = ready.poll();
+      sorted.add(node);
+      combinational++;
+      for (final var next : successors.getOrDefault(node, new ArrayList<>())) {
+        if (indegree.merge(next, -1, Integer::sum) == 0) ready.add(next);
+      }
+    }
+    if (combinational != indegree.size()) {
+      throw new CircuitException("combinational feedback loops are not supported");
+    }
+    order = sorted.toArray(new Node[0]);
+    dirtyCount = order.length;
+  }
+}
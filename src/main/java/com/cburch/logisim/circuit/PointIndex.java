@@ -0,0 +1,170 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Dense numbering of the points of a circuit. Each location at which a value is ever stored gets
+ * a small integer id, so that the per-{@link CircuitState} signal values and causes can be kept in
+ * flat arrays.
+ *
+ * <p>Ids are handed out in {@link Generation generations}. Within one generation they are never
+ * removed or reused, hence arrays indexed by them stay valid while the circuit is edited. Once
+ * most ids belong to points that are gone, {@link #compact} starts a new generation numbering just
+ * the points still in use. Older generations stay usable: every bundle map and every state knows
+ * the generation its ids belong to and never mixes them with another's, and a state moves its
+ * arrays over to the generation of the bundle map it propagates with, see {@link
+ * CircuitState#useLayout}. Compaction can therefore happen on any thread at any time.
+ *
+ * <p>Lookups are lock-free; only the assignment of a new id and compaction are synchronized.
+ */
+final class PointIndex {
+  private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(Location[].class);
+
+  /** Fewest ids of vanished points for which a compaction is worth it. */
+  static final int MIN_DEAD_IDS = 256;
+
+  private static final class Table {
+    final Location[] keys;
+    final int[] ids;
+    final int mask;
+
+    Table(int capacity) {
+      keys = new Location[capacity];
+      ids = new int[capacity];
+      mask = capacity - 1;
+    }
+  }
+
+  /** One numbering of the points. It only grows, also after it was replaced by a compaction. */
+  static final class Generation {
+    private volatile Table table;
+    private volatile Location[] locations;
+    private volatile int size = 0;
+
+    private Generation(int capacity) {
+      table = new Table(2 * capacity);
+      locations = new Location[capacity];
+    }
+
+    /** Returns the id of the given location, or -1 if it has none yet. */
+    int find(Location loc) {
+      final var tab = table;
+      for (var i = slot(loc, tab.mask); ; i = (i + 1) & tab.mask) {
+        final var key = (Location) KEYS.getAcquire(tab.keys, i);
+        if (key == null) return -1;
+        if (key == loc || key.equals(loc)) return tab.ids[i];
+      }
+    }
+
+    /** Returns the id of the given location, assigning a new one if necessary. */
+    int get(Location loc) {
+      final var ret = find(loc);
+      return ret >= 0 ? ret : add(loc);
+    }
+
+    Location getLocation(int id) {
+      return locations[id];
+    }
+
+    /** Returns an upper bound (exclusive) for all ids handed out in this generation. */
+    int size() {
+      return size;
+    }
+
+    private synchronized int add(Location loc) {
+      final var found = find(loc);
+      if (found >= 0) return found;
+      final var id = size;
+      append(loc, id);
+      size = id + 1;
+      return id;
+    }
+
+    private void append(Location loc, int id) {
+      var locs = locations;
+      if (id == locs.length) {
+        locs = Arrays.copyOf(locs, 2 * id);
+        locations = locs;
+      }
+      locs[id] = loc;
+
+      final var tab = table;
+      if (2 * (id + 1) > tab.keys.length) {
+        final var bigger = new Table(2 * tab.keys.length);
+        for (var i = 0; i < tab.keys.length; i++) {
+          if (tab.keys[i] != null) insert(bigger, tab.keys[i], tab.ids[i]);
+        }
+        insert(bigger, loc, id);
+        table = bigger;
+      } else {
+        insert(tab, loc, id);
+      }
+    }
+  }
+
+  private volatile Generation current = new Generation(32);
+
+  private static int slot(Location loc, int mask) {
+    final var h = loc.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /** Returns the generation new bundle maps and states number their points by. */
+  Generation generation() {
+    return current;
+  }
+
+  /** Returns the id of the given location in the current generation, or -1 if it has none yet. */
+  int find(Location loc) {
+    return current.find(loc);
+  }
+
+  /** Returns the id of the given location in the current generation, assigning one if necessary. */
+  int get(Location loc) {
+    return current.get(loc);
+  }
+
+  Location getLocation(int id) {
+    return current.getLocation(id);
+  }
+
+  /** Returns an upper bound (exclusive) for all ids of the current generation. */
+  int size() {
+    return current.size;
+  }
+
+  /**
+   * Starts a new generation holding only the given locations if more than half of the ids of the
+   * current one, and at least {@link #MIN_DEAD_IDS}, belong to other points. Returns whether it did.
+   */
+  synchronized boolean compact(Collection<Location> live) {
+    final var dead = current.size - live.size();
+    if (dead < MIN_DEAD_IDS || dead <= live.size()) return false;
+    final var gen = new Generation(Math.max(32, Integer.highestOneBit(live.size()) * 2));
+    var id = 0;
+    for (final var loc : live) gen.append(loc, id++);
+    gen.size = id;
+    current = gen;
+    return true;
+  }
+
+  private static void insert(Table tab, Location loc, int id) {
+    var i = slot(loc, tab.mask);
+    while (tab.keys[i] != null) i = (i + 1) & tab.mask;
+    tab.ids[i] = id;
+    KEYS.setRelease(tab.keys, i, loc);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+
+/**
+ * Scheduler holding the pending signal changes of a {@link Propagator}. Implementations must hand
+ * out events in exactly the order defined by {@link SetData#compareTo}, i.e. first by time and
+ * then by serial number, so that the choice of scheduler never changes simulation results.
+ */
+interface PropagationQueue {
+
+  void add(SetData data);
+
+  /** Returns the earliest pending event without removing it, or null if there is none. */
+  SetData peek();
+
+  /** Removes and returns the earliest pending event, or null if there is none. */
+  SetData poll();
+
+  boolean isEmpty();
+
+  void clear();
+}
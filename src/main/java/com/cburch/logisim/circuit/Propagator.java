@@ -17,17 +17,21 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.Options;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class Propagator {
   private static class ComponentPoint {
+    final CircuitState state;
     final Component cause;
     final Location loc;
 
-    public ComponentPoint(Component cause, Location loc) {
+    public ComponentPoint(CircuitState state, Component cause, Location loc) {
+      this.state = state;
       this.cause = cause;
       this.loc = loc;
     }
@@ -35,13 +39,43 @@ public class Propagator {
     @Override
     public boolean equals(Object other) {
       return (other instanceof ComponentPoint o)
-             ? this.cause.equals(o.cause) && this.loc.equals(o.loc)
+             ? this.state == o.state && this.cause.equals(o.cause) && this.loc.equals(o.loc)
              : false;
     }
 
     @Override
     public int hashCode() {
-      return 31 * cause.hashCode() + loc.hashCode();
+      return 31 * (31 * System.identityHashCode(state) + cause.hashCode()) + loc.hashCode();
+    }
+  }
+
+  /**
+   * Processes one substate, together with everything below it, on behalf of {@link
+   * #processInParallel}. Everything the substate would do to the shared simulation (scheduling
+   * values, firing circuit events) is recorded in {@link #actions} instead.
+   */
+  private static class SubstateTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final transient CircuitState state;
+    final boolean components;
+    final transient ArrayList<Runnable> actions = new ArrayList<>();
+
+    SubstateTask(CircuitState state, boolean components) {
+      this.state = state;
+      this.components = components;
+    }
+
+    @Override
+    protected void compute() {
+      final var outer = deferred.get();
+      deferred.set(actions);
+      try {
+        if (components) state.processDirtyComponents();
+        else state.processDirtyPoints();
+      } finally {
+        if (outer == null) deferred.remove();
+        else deferred.set(outer);
+      }
     }
   }
 
@@ -71,15 +105,19 @@ public class Propagator {
   }
 
   static class SetData implements Comparable<SetData> {
-    final int time;
-    final int serialNumber;
-    final CircuitState state; // state of circuit containing component
-    final Component cause; // component emitting the value
-    final Location loc; // the location at which value is emitted
+    // These fields are only written while the object sits in the pool of
+    // its Propagator, see Propagator.newSetData().
+    int time;
+    int serialNumber;
+    CircuitState state; // state of circuit containing component
+    Component cause; // component emitting the value
+    Location loc; // the location at which value is emitted
     Value val; // value being emitted
     SetData next = null;
+    SetData queueNext = null; // link used by the scheduler and by the pool
+    long handledStep = 0; // last step in which this cause was processed, see stepInternal()
 
-    private SetData(
+    SetData(
         int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
       this.time = time;
       this.serialNumber = serialNumber;
@@ -138,7 +176,12 @@ public class Propagator {
    */
   private volatile int simRandomShift;
 
-  private final PriorityQueue<SetData> toProcess = new PriorityQueue<>();
+  /** Maximum number of discarded SetData objects kept for reuse. */
+  private static final int MAX_POOL_SIZE = 4096;
+
+  private final PropagationQueue toProcess;
+  private SetData pool = null; // discarded SetData objects, linked by queueNext
+  private int poolSize = 0;
   private int clock = 0;
   private boolean isOscillating = false;
   private boolean oscAdding = false;
@@ -148,25 +191,58 @@ public class Propagator {
   private int noiseCount = 0;
 
   private int setDataSerialNumber = 0;
+
+  /**
+   * Number of the current step. Each (state, location, cause) triple may only be processed once per
+   * step; the entry of the cause list that represents the triple is stamped with this number, so
+   * that no bookkeeping has to be allocated per event.
+   */
+  private long stepNumber = 0;
+
+  /** Triples that were removed from their cause list in the current step. Normally empty. */
+  private final HashSet<ComponentPoint> removedInStep = new HashSet<>();
+
+  /** Actions to run once the components of the current step have been propagated. */
+  private final ArrayList<Runnable> stepEndActions = new ArrayList<>();
+
+  /** The compiled simulation settling the circuit right now, which takes the values set. */
+  private LevelizedPropagator compiled = null;
+
+  /**
+   * Whether sibling substates are propagated concurrently, see {@link #processInParallel}. Only
+   * changed between propagations.
+   */
+  private volatile boolean parallel = false;
+
+  /** Shared by all propagators; created when parallel propagation is first enabled. */
+  private static ForkJoinPool workers = null;
+
+  /** Actions recorded by the {@link SubstateTask} running on the current thread, if any. */
+  private static final ThreadLocal<ArrayList<Runnable>> deferred = new ThreadLocal<>();
   static int lastId = 0;
 
   final int id = lastId++;
 
   public Propagator(CircuitState root) {
+    this(root, new WheelPropagationQueue());
+  }
+
+  Propagator(CircuitState root, PropagationQueue queue) {
     this.root = root;
+    this.toProcess = queue;
     final var l = new Listener(this);
     root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
     updateRandomness();
     updateOscillationLimit();
   }
 
-  private SetData addCause(CircuitState state, SetData head, SetData data) {
+  private SetData addCause(CircuitState state, int pointId, SetData head, SetData data) {
     if (data.val == null) { // actually, it should be removed
-      return removeCause(state, head, data.loc, data.cause);
+      head = removeCause(state, pointId, head, data.cause);
+      recycle(data);
+      return head;
     }
 
-    final var causes = state.causes;
-
     // first check whether this is change of previous info.
     var replaced = false;
     for (var n = head; n != null; n = n.next) {
@@ -176,11 +252,12 @@ public class Propagator {
         break;
       }
     }
+    if (replaced) recycle(data);
 
     // otherwise, insert to list of causes
     if (!replaced) {
       if (head == null) {
-        causes.put(data.loc, data);
+        state.setCauses(pointId, data);
         head = data;
       } else {
         data.next = head.next;
@@ -197,16 +274,17 @@ public class Propagator {
   void checkComponentEnds(CircuitState state, Component comp) {
     for (final var end : comp.getEnds()) {
       final var loc = end.getLocation();
-      final var oldHead = state.causes.get(loc);
+      final var pointId = state.getPointId(loc);
+      final var oldHead = state.getCauses(pointId);
       final var oldVal = computeValue(oldHead);
-      final var newHead = removeCause(state, oldHead, loc, comp);
+      final var newHead = removeCause(state, pointId, oldHead, comp);
       final var newVal = computeValue(newHead);
-      final var wireVal = state.getValueByWire(loc);
+      final var wireVal = state.getValueByWire(pointId);
 
       if (!newVal.equals(oldVal) || wireVal != null) {
         state.markPointAsDirty(loc);
       }
-      if (wireVal != null) state.setValueByWire(loc, Value.NIL);
+      if (wireVal != null) state.setValueByWire(pointId, Value.NIL);
     }
   }
 
@@ -272,7 +350,7 @@ public class Propagator {
   public boolean propagate(Simulator.ProgressListener propListener, Simulator.Event propEvent) {
     oscPoints.clear();
     root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyComponents();
 
     final var oscThreshold = simLimit;
     final var logThreshold = 3 * oscThreshold / 4;
@@ -299,13 +377,11 @@ public class Propagator {
     return iters > 0;
   }
 
-  private SetData removeCause(CircuitState state, SetData head, Location loc, Component cause) {
-    final var causes = state.causes;
+  private SetData removeCause(CircuitState state, int pointId, SetData head, Component cause) {
     if (head == null) {
     } else if (head.cause == cause) {
       head = head.next;
-      if (head == null) causes.remove(loc);
-      else causes.put(loc, head);
+      state.setCauses(pointId, head);
     } else {
       var prev = head;
       var cur = head.next;
@@ -324,6 +400,9 @@ public class Propagator {
   void reset() {
     halfClockCycles = 0;
     toProcess.clear();
+    synchronized (stepEndActions) {
+      stepEndActions.clear();
+    }
     root.reset();
     isOscillating = false;
   }
@@ -333,6 +412,11 @@ public class Propagator {
   //
   void setValue(CircuitState state, Location pt, Value val, Component cause, int delay) {
     if (cause instanceof Wire || cause instanceof Splitter) return;
+    if (compiled != null && compiled.setValue(state, pt, val, cause)) return;
+    if (parallel) {
+      final var requestedDelay = delay;
+      if (defer(() -> setValue(state, pt, val, cause, requestedDelay))) return;
+    }
     if (delay <= 0) {
       delay = 1;
     }
@@ -350,7 +434,7 @@ public class Propagator {
         }
       }
     }
-    toProcess.add(new SetData(clock + delay, setDataSerialNumber, state, pt, cause, val));
+    toProcess.add(newSetData(clock + delay, setDataSerialNumber, state, pt, cause, val));
     /*
      * DEBUGGING - comment out Simulator.log(clock + ": set " + pt + " in "
      * + state + " to " + val + " by " + cause + " after " + delay); //
@@ -359,10 +443,41 @@ public class Propagator {
     setDataSerialNumber++;
   }
 
+  private SetData newSetData(
+      int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+    final var ret = pool;
+    if (ret == null) return new SetData(time, serialNumber, state, loc, cause, val);
+    pool = ret.queueNext;
+    poolSize--;
+    ret.queueNext = null;
+    ret.next = null;
+    ret.handledStep = 0;
+    ret.time = time;
+    ret.serialNumber = serialNumber;
+    ret.state = state;
+    ret.loc = loc;
+    ret.cause = cause;
+    ret.val = val;
+    return ret;
+  }
+
+  /** Returns a SetData that is neither queued nor part of a cause list to the pool. */
+  private void recycle(SetData data) {
+    if (poolSize >= MAX_POOL_SIZE) return;
+    data.state = null;
+    data.loc = null;
+    data.cause = null;
+    data.val = null;
+    data.next = null;
+    data.queueNext = pool;
+    pool = data;
+    poolSize++;
+  }
+
   boolean step(PropagationPoints changedPoints) {
     oscPoints.clear();
     root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyComponents();
 
     if (toProcess.isEmpty()) return false;
 
@@ -382,21 +497,32 @@ public class Propagator {
     clock = toProcess.peek().time;
 
     // propagate all values for this clock tick
-    final var visited = new HashMap<CircuitState, HashSet<ComponentPoint>>();
+    final var step = ++stepNumber;
     while (true) {
       final var data = toProcess.peek();
       if (data == null || data.time != clock) break;
-      toProcess.remove();
+      toProcess.poll();
       final var state = data.state;
+      final var loc = data.loc;
+      final var cause = data.cause;
 
       // if it's already handled for this clock tick, continue
-      var handled = visited.get(state);
-      if (handled != null) {
-        if (!handled.add(new ComponentPoint(data.cause, data.loc))) continue;
+      final var pointId = state.getPointId(loc);
+      final var oldHead = state.getCauses(pointId);
+      var entry = oldHead;
+      while (entry != null && entry.cause != cause) entry = entry.next;
+      if ((entry != null && entry.handledStep == step)
+          || (!removedInStep.isEmpty()
+              && removedInStep.contains(new ComponentPoint(state, cause, loc)))) {
+        recycle(data);
+        continue;
+      }
+      if (data.val == null) {
+        removedInStep.add(new ComponentPoint(state, cause, loc));
+      } else if (entry != null) {
+        entry.handledStep = step;
       } else {
-        handled = new HashSet<>();
-        visited.put(state, handled);
-        handled.add(new ComponentPoint(data.cause, data.loc));
+        data.handledStep = step; // data is about to become the entry for this cause
       }
 
       /*
@@ -405,22 +531,60 @@ public class Propagator {
        * data.cause); //
        */
 
-      if (changedPoints != null) changedPoints.add(state, data.loc);
+      if (changedPoints != null) changedPoints.add(state, loc);
 
-      // change the information about value
-      final var oldHead = state.causes.get(data.loc);
+      // change the information about value (data may be recycled by addCause)
       final var oldVal = computeValue(oldHead);
-      final var newHead = addCause(state, oldHead, data);
+      final var newHead = addCause(state, pointId, oldHead, data);
       final var newVal = computeValue(newHead);
 
       // if the value at point has changed, propagate it
       if (!newVal.equals(oldVal)) {
-        state.markPointAsDirty(data.loc);
+        state.markPointAsDirty(loc);
       }
     }
+    removedInStep.clear();
 
     root.processDirtyPoints();
+    processDirtyComponents();
+  }
+
+  /**
+   * Registers an action to be run once every component made dirty in the current step has been
+   * propagated, before the propagator moves on to the next step. Components that hand their work
+   * to something outside the simulator use this to do it once for everything the step produced;
+   * values the action sets are scheduled as if they had been set while the step ran.
+   */
+  public void runAtEndOfStep(Runnable action) {
+    synchronized (stepEndActions) {
+      stepEndActions.add(action);
+    }
+  }
+
+  private void processDirtyComponents() {
     root.processDirtyComponents();
+    runStepEndActions();
+  }
+
+  /** Runs the actions registered by {@link #runAtEndOfStep}, including those they register. */
+  void runStepEndActions() {
+    while (true) {
+      final Runnable[] actions;
+      synchronized (stepEndActions) {
+        if (stepEndActions.isEmpty()) return;
+        actions = stepEndActions.toArray(new Runnable[0]);
+        stepEndActions.clear();
+      }
+      for (final var action : actions) action.run();
+    }
+  }
+
+  /**
+   * Hands the values set through {@link CircuitState#setValue} to the given compiled simulation
+   * while it settles the circuit, or to the event queue again if <code>null</code>.
+   */
+  void setCompiled(LevelizedPropagator value) {
+    compiled = value;
   }
 
   public boolean toggleClocks() {
@@ -433,6 +597,81 @@ public class Propagator {
     return "Prop" + id;
   }
 
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Enables or disables parallel propagation. When enabled, the substates of a circuit state are
+   * processed concurrently, one task per substate, during both the wire and the component phase of
+   * each step. Values scheduled and invalidations fired by the tasks are replayed afterwards in the
+   * order in which the sequential engine would have produced them, so event serial numbers, random
+   * delays and therefore all simulation results are the same in both modes.
+   *
+   * <p>This only pays off for circuits with many substates doing real work; components whose
+   * propagation touches state outside their own circuit state must not be used in this mode.
+   */
+  public void setParallel(boolean value) {
+    if (value) {
+      synchronized (Propagator.class) {
+        if (workers == null) workers = new ForkJoinPool();
+      }
+    }
+    parallel = value;
+  }
+
+  /**
+   * Records an action to be performed once the {@link SubstateTask} running on the current thread
+   * has been merged. Returns false, doing nothing, if the current thread is not running such a task.
+   */
+  public static boolean defer(Runnable action) {
+    final var actions = deferred.get();
+    if (actions == null) return false;
+    actions.add(action);
+    return true;
+  }
+
+  /**
+   * Called by {@link CircuitState} for the substates of a state, once the state itself has been
+   * processed. Returns false if the substates should rather be processed sequentially by the caller,
+   * which is the case unless parallel propagation is enabled and there is more than one substate.
+   * While oscillations are being recorded everything stays sequential, as {@link #oscPoints} is
+   * not thread-safe.
+   */
+  boolean processInParallel(CircuitState[] subs, boolean components) {
+    if (!parallel || oscAdding || subs.length < 2) return false;
+    final var tasks = new ArrayList<SubstateTask>(subs.length);
+    for (final var sub : subs) {
+      if (sub == null) continue;
+      // build the wiring of a changed circuit here, rather than in all of its siblings at once
+      sub.getCircuit().wires.getBundleMap();
+      tasks.add(new SubstateTask(sub, components));
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      workers.invoke(
+          new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+              invokeAll(tasks);
+            }
+          });
+    }
+    // merge in the order of the sequential engine, which processes substates one after the other
+    final var outer = deferred.get();
+    for (final var task : tasks) {
+      if (outer != null) {
+        outer.addAll(task.actions);
+      } else {
+        for (final var action : task.actions) action.run();
+      }
+    }
+    return true;
+  }
+
   private void updateRandomness() {
     final var opts = root.getProject().getOptions();
     final var rand = opts.getAttributeSet().getValue(Options.ATTR_SIM_RAND);
@@ -0,0 +1,275 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.analyze.model.BitSlicedExpression;
+import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.analyze.model.Expression;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the output columns of a truth table for {@link Analyze#computeTable}, in the fastest way
+ * the circuit allows:
+ *
+ * <ul>
+ *   <li>If {@link Analyze} can reduce every output bit to an expression of the inputs, 64 rows are
+ *       evaluated at once, one per bit lane of a <code>long</code>.
+ *   <li>Otherwise the rows are simulated, visiting them in Gray-code order. If the circuit compiles
+ *       into a {@link LevelizedPropagator} and is purely combinational, one circuit state is reused
+ *       and only the input pin holding the one bit that changed is set before each propagation.
+ *   <li>Otherwise every row is simulated on a fresh circuit state, so that sequential parts start
+ *       from their reset state as they always did.
+ * </ul>
+ *
+ * <p>The packed evaluation can be split into ranges of rows computed by several threads. Simulation
+ * stays on the calling thread: states of one circuit share its components, which record the state
+ * last created for them, and its wire layout.
+ */
+final class TruthTableExtractor {
+  /** Fewest rows worth handing to a thread of their own. */
+  private static final int MIN_ROWS_PER_THREAD = 1024;
+
+  private final Project proj;
+  private final Circuit circuit;
+  private final Map<Instance, String> pinLabels;
+  private final Instance[] inputPins;
+  private final Instance[] outputPins;
+  private final List<String> inputNames;
+  private final int inputCount;
+  private final int[] inputShifts; // bit of the row index holding bit 0 of each input pin
+  private final int[] bitPins; // input pin holding each bit of the row index
+  private final Entry[][] columns;
+
+  TruthTableExtractor(Project proj, Circuit circuit, Map<Instance, String> pinLabels,
+      List<Instance> inputPins, List<String> inputNames, List<Instance> outputPins,
+      int outputCount) {
+    this.proj = proj;
+    this.circuit = circuit;
+    this.pinLabels = pinLabels;
+    this.inputPins = inputPins.toArray(new Instance[0]);
+    this.outputPins = outputPins.toArray(new Instance[0]);
+    this.inputNames = inputNames;
+    inputCount = inputNames.size();
+    inputShifts = new int[this.inputPins.length];
+    bitPins = new int[inputCount];
+    // the first column is the most significant bit of the row index, and of its pin
+    var shift = inputCount;
+    for (var p = 0; p < this.inputPins.length; p++) {
+      shift -= width(this.inputPins[p]);
+      inputShifts[p] = shift;
+      for (var b = 0; b < width(this.inputPins[p]); b++) bitPins[shift + b] = p;
+    }
+    columns = new Entry[outputCount][1 << inputCount];
+  }
+
+  private static int width(Instance pin) {
+    return pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+  }
+
+  private interface RowRange {
+    void compute(int from, int to);
+  }
+
+  /**
+   * Computes all rows and returns the output columns. The packed evaluation runs on up to
+   * <code>threads</code> threads, simulation on the calling thread.
+   */
+  Entry[][] compute(int threads) {
+    final var task = packedEvaluator();
+    final var rowCount = 1 << inputCount;
+    if (task == null) {
+      simulateRange(0, rowCount);
+      return columns;
+    }
+    final var ranges = Math.max(1, Math.min(threads, rowCount / MIN_ROWS_PER_THREAD));
+    if (ranges == 1) {
+      task.compute(0, rowCount);
+      return columns;
+    }
+
+    final var size = ((rowCount + ranges - 1) / ranges + Long.SIZE - 1) & -Long.SIZE;
+    final var pool =
+        Executors.newFixedThreadPool(
+            ranges,
+            r -> {
+              final var worker = new UniquelyNamedThread(r, "TruthTable-Worker");
+              worker.setDaemon(true);
+              return worker;
+            });
+    try {
+      final var pending = new ArrayList<Future<?>>();
+      for (var from = 0; from < rowCount; from += size) {
+        final var start = from;
+        final var end = Math.min(rowCount, from + size);
+        pending.add(pool.submit(() -> task.compute(start, end)));
+      }
+      for (final var range : pending) range.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return columns;
+  }
+
+  //
+  // bit-parallel evaluation
+  //
+  /**
+   * Returns a task evaluating the rows through the expressions of the output bits, or
+   * <code>null</code> if {@link Analyze} cannot express some output in terms of the inputs.
+   */
+  private RowRange packedEvaluator() {
+    // input pins without a column still need a name, so that an output depending on one is
+    // recognised instead of being computed as if the pin were unconnected
+    final var names = new HashMap<>(pinLabels);
+    var unused = 0;
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var pin = Instance.getInstanceFor(comp);
+      if (Pin.FACTORY.isInputPin(pin) && !names.containsKey(pin)) {
+        names.put(pin, "\0" + unused++);
+      }
+    }
+    final Map<Instance, Expression[]> expressions;
+    try {
+      expressions = Analyze.computeOutputExpressions(circuit, names);
+    } catch (AnalyzeException e) {
+      return null;
+    }
+
+    final var programs = new BitSlicedExpression[columns.length];
+    var col = 0;
+    for (final var pin : outputPins) {
+      final var pinBits = expressions.get(pin);
+      for (var b = pinBits.length - 1; b >= 0; b--, col++) {
+        if (pinBits[b] == null) continue;
+        programs[col] = BitSlicedExpression.compile(pinBits[b], inputNames);
+        if (programs[col].readsUnknownVariables()) return null;
+      }
+    }
+    return (from, to) -> {
+      for (var c = 0; c < columns.length; c++) {
+        if (programs[c] == null) {
+          // nothing drives the output, which the simulator reads as unknown
+          Arrays.fill(columns[c], from, to, Entry.DONT_CARE);
+        } else {
+          programs[c].evaluateRows(columns[c], from, to);
+        }
+      }
+    };
+  }
+
+  //
+  // simulation
+  //
+  /**
+   * Simulates the rows at the positions <code>from</code> to <code>to - 1</code> of the Gray-code
+   * sequence, where consecutive rows differ in one input bit.
+   */
+  private void simulateRange(int from, int to) {
+    var row = from ^ (from >>> 1);
+    final var state = simulateRow(row);
+    final var compiled = compileCombinational(state);
+    final var inputs = compiled == null ? null : instanceStates(state, inputPins);
+    final var outputs = compiled == null ? null : instanceStates(state, outputPins);
+    for (var k = from + 1; k < to; k++) {
+      final var bit = Integer.numberOfTrailingZeros(k);
+      row ^= 1 << bit;
+      if (compiled == null) {
+        simulateRow(row);
+        continue;
+      }
+      final var p = bitPins[bit];
+      Pin.FACTORY.setValue(inputs[p], pinValue(p, row));
+      state.markComponentAsDirty(inputPins[p].getComponent());
+      compiled.propagate();
+      readRow(outputs, row, compiled.isOscillating());
+    }
+  }
+
+  /** Simulates one row on a fresh circuit state, which is returned. */
+  private CircuitState simulateRow(int row) {
+    final var state = new CircuitState(proj, circuit);
+    final var inputs = instanceStates(state, inputPins);
+    for (var p = 0; p < inputs.length; p++) {
+      Pin.FACTORY.setValue(inputs[p], pinValue(p, row));
+    }
+    final var prop = state.getPropagator();
+    prop.propagate();
+    readRow(instanceStates(state, outputPins), row, prop.isOscillating());
+    return state;
+  }
+
+  /**
+   * Returns a compiled propagator for the state if the circuit can be settled by it and its
+   * outputs only depend on its inputs, or <code>null</code> otherwise.
+   */
+  private static LevelizedPropagator compileCombinational(CircuitState state) {
+    if (state.getPropagator().isOscillating()) return null;
+    try {
+      final var ret = LevelizedPropagator.compile(state);
+      return ret.isCombinational() ? ret : null;
+    } catch (CircuitException e) {
+      return null;
+    }
+  }
+
+  private static InstanceState[] instanceStates(CircuitState state, Instance[] pins) {
+    final var ret = new InstanceState[pins.length];
+    for (var p = 0; p < pins.length; p++) ret[p] = state.getInstanceState(pins[p]);
+    return ret;
+  }
+
+  private Value pinValue(int p, int row) {
+    final var width = width(inputPins[p]);
+    return Value.createKnown(width, (row >>> inputShifts[p]) & ((1L << width) - 1));
+  }
+
+  private void readRow(InstanceState[] outputs, int row, boolean oscillating) {
+    if (oscillating) {
+      for (final var column : columns) column[row] = Entry.OSCILLATE_ERROR;
+      return;
+    }
+    var col = 0;
+    for (final var output : outputs) {
+      final var value = Pin.FACTORY.getValue(output);
+      for (var b = value.getWidth() - 1; b >= 0; b--) {
+        final var bit = value.get(b);
+        final Entry out;
+        if (bit == Value.TRUE)
+          out = Entry.ONE;
+        else if (bit == Value.FALSE)
+          out = Entry.ZERO;
+        else if (bit == Value.ERROR)
+          out = Entry.BUS_ERROR;
+        else
+          out = Entry.DONT_CARE;
+        columns[col++][row] = out;
+      }
+    }
+  }
+}
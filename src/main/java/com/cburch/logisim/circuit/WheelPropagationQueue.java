@@ -0,0 +1,123 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+
+/**
+ * Timing wheel scheduler. Events are hashed by time into a ring of buckets covering the window
+ * [cursor, cursor + size). As the serial numbers handed out by the {@link Propagator} grow with
+ * every insertion, appending to a bucket keeps it sorted, so insertion and removal are O(1).
+ * Events further in the future than the window are kept in a heap; it is consulted on every
+ * peek, hence the ordering is always identical to the one of {@link HeapPropagationQueue}.
+ */
+class WheelPropagationQueue implements PropagationQueue {
+  static final int DEFAULT_SIZE = 1024;
+
+  private final SetData[] heads;
+  private final SetData[] tails;
+  private final int mask;
+  private final HeapPropagationQueue overflow = new HeapPropagationQueue();
+  private int cursor = 0; // no event in the wheel is earlier than this
+  private int count = 0; // number of events in the wheel (excluding overflow)
+  private int now = 0; // time of the last event handed out by poll()
+
+  WheelPropagationQueue() {
+    this(DEFAULT_SIZE);
+  }
+
+  WheelPropagationQueue(int size) {
+    if (size <= 0 || Integer.bitCount(size) != 1)
+      throw new IllegalArgumentException("size must be a power of two");
+    heads = new SetData[size];
+    tails = new SetData[size];
+    mask = size - 1;
+  }
+
+  @Override
+  public void add(SetData data) {
+    // Nothing can be scheduled before the last handed out event, so an empty wheel can
+    // safely be re-anchored there.
+    if (count == 0) cursor = now;
+    final var offset = data.time - cursor;
+    if (offset < 0 || offset > mask) {
+      overflow.add(data);
+      return;
+    }
+    final var idx = data.time & mask;
+    data.queueNext = null;
+    if (heads[idx] == null) heads[idx] = data;
+    else tails[idx].queueNext = data;
+    tails[idx] = data;
+    count++;
+  }
+
+  /**
+   * Moves the cursor to the first non-empty bucket, but never beyond the earliest overflow
+   * event, and returns the head of that bucket (or null).
+   */
+  private SetData wheelHead(SetData spill) {
+    if (count == 0) return null;
+    while (heads[cursor & mask] == null) {
+      if (spill != null && cursor - spill.time >= 0) return null;
+      cursor++;
+    }
+    return heads[cursor & mask];
+  }
+
+  @Override
+  public SetData peek() {
+    final var spill = overflow.peek();
+    final var head = wheelHead(spill);
+    if (head == null) return spill;
+    return (spill != null && spill.compareTo(head) < 0) ? spill : head;
+  }
+
+  @Override
+  public SetData poll() {
+    final var spill = overflow.peek();
+    final var head = wheelHead(spill);
+    SetData ret;
+    if (head == null || (spill != null && spill.compareTo(head) < 0)) {
+      ret = overflow.poll();
+    } else {
+      final var idx = cursor & mask;
+      heads[idx] = head.queueNext;
+      if (heads[idx] == null) tails[idx] = null;
+      head.queueNext = null;
+      count--;
+      ret = head;
+    }
+    if (ret != null) now = ret.time;
+    return ret;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return count == 0 && overflow.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    if (count > 0) {
+      for (var i = 0; i < heads.length; i++) {
+        for (var n = heads[i]; n != null; ) {
+          final var next = n.queueNext;
+          n.queueNext = null;
+          n = next;
+        }
+        heads[i] = null;
+        tails[i] = null;
+      }
+      count = 0;
+    }
+    overflow.clear();
+  }
+}
@@ -21,9 +21,12 @@ class WireBundle {
   private Location widthDeterminant = null;
   private boolean isBus_ = false;
   WireThread[] threads = null;
+  CircuitWires.ThreadBundle[] threadBundles = null; // the threads' entries for this bundle, by bit
+  int index; // position of the bundle in its bundle map
   final CopyOnWriteArraySet<Location> points = new CopyOnWriteArraySet<>(); // points
   // bundle
   // hits
+  int[] pointIds = null; // the same points, numbered by the circuit's PointIndex
   private WidthIncompatibilityData incompatibilityData = null;
 
   WireBundle() {
@@ -9,12 +9,16 @@
 
 package com.cburch.logisim.circuit;
 
-import java.util.concurrent.CopyOnWriteArraySet;
+import com.cburch.logisim.data.Value;
+import java.util.ArrayList;
+import java.util.List;
 
 class WireThread {
   private WireThread parent;
-  private final CopyOnWriteArraySet<CircuitWires.ThreadBundle> bundles =
-      new CopyOnWriteArraySet<>();
+  private final ArrayList<CircuitWires.ThreadBundle> bundles = new ArrayList<>();
+  // The following are set once the bundle map is complete, see CircuitWires.numberThreads
+  int index = -1; // position of the thread in its bundle map, addresses CircuitWires.State
+  Value pull = Value.UNKNOWN; // the combined pull value of the thread's bundles
 
   WireThread() {
     parent = this;
@@ -30,7 +34,7 @@ class WireThread {
     return ret;
   }
 
-  CopyOnWriteArraySet<CircuitWires.ThreadBundle> getBundles() {
+  List<CircuitWires.ThreadBundle> getBundles() {
     return bundles;
   }
 
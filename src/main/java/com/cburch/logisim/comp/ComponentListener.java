@@ -21,4 +21,13 @@ public interface ComponentListener {
   default void labelChanged(ComponentEvent e) {
     // no-op implementation
   }
+
+  /**
+   * Called when the bounds of the component changed without its attributes being set through a
+   * circuit mutation, e.g. because they follow the simulation state. The old and new {@link
+   * com.cburch.logisim.data.Bounds} are the event's old data and data.
+   */
+  default void boundsChanged(ComponentEvent e) {
+    // no-op implementation
+  }
 }
@@ -9,7 +9,7 @@
 
 package com.cburch.logisim.data;
 
-import com.cburch.logisim.util.Cache;
+import com.cburch.logisim.util.InternTable;
 import java.util.Comparator;
 import java.util.List;
 
@@ -22,15 +22,12 @@ public class Location implements Comparable<Location> {
     // we round to half-grid base
     final var xRounded = hasToSnap ? Math.round(x / 5) * 5 : x;
     final var yRounded = hasToSnap ? Math.round(y / 5) * 5 : y;
-    final var hashCode = 31 * xRounded + yRounded;
-    final var ret = cache.get(hashCode);
-    if (ret != null) {
-      final var loc = (Location) ret;
-      if (loc.x == xRounded && loc.y == yRounded) return loc;
-    }
-    final var loc = new Location(hashCode, xRounded, yRounded, hasToSnap);
-    cache.put(hashCode, loc);
-    return loc;
+    return cache.intern(xRounded, yRounded, hasToSnap ? 1 : 0);
+  }
+
+  /** Returns the table through which locations are shared, e.g. to read its hit and miss counts. */
+  public static InternTable<Location> getInternTable() {
+    return cache;
   }
 
   public static Location parse(String value) {
@@ -57,7 +54,19 @@ public class Location implements Comparable<Location> {
     return Location.create(x, y, true);
   }
 
-  private static final Cache cache = new Cache();
+  // keyed on the coordinates only, like equals; the snap flag is kept from the first creation
+  private static final InternTable<Location> cache =
+      new InternTable<>(InternTable.getDefaultCapacity()) {
+        @Override
+        protected boolean matches(Location candidate, int x, long y, long hasToSnap) {
+          return candidate.x == x && candidate.y == y;
+        }
+
+        @Override
+        protected Location create(int x, long y, long hasToSnap) {
+          return new Location(31 * x + (int) y, x, (int) y, hasToSnap != 0);
+        }
+      };
   private final int hashCode;
   private final int x;
   private final int y;
@@ -77,6 +86,7 @@ public class Location implements Comparable<Location> {
 
   @Override
   public boolean equals(Object otherObj) {
+    if (this == otherObj) return true;
     return (otherObj instanceof Location other)
            ? this.x == other.x && this.y == other.y
            : false;
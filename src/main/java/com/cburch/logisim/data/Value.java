@@ -10,7 +10,7 @@
 package com.cburch.logisim.data;
 
 import com.cburch.logisim.prefs.AppPreferences;
-import com.cburch.logisim.util.Cache;
+import com.cburch.logisim.util.InternTable;
 import java.awt.Color;
 import java.util.Arrays;
 
@@ -30,21 +30,8 @@ public class Value {
       unknown = unknown & mask & ~error;
       value = value & mask & ~unknown & ~error;
 
-      var hashCode = width;
-      hashCode = 31 * hashCode + (int) (error ^ (error >>> 32));
-      hashCode = 31 * hashCode + (int) (unknown ^ (unknown >>> 32));
-      hashCode = 31 * hashCode + (int) (value ^ (value >>> 32));
-      Object cached = cache.get(hashCode);
-      if (cached != null) {
-        Value val = (Value) cached;
-        if (val.value == value
-            && val.width == width
-            && val.error == error
-            && val.unknown == unknown) return val;
-      }
-      final var ret = new Value(width, error, unknown, value);
-      cache.put(hashCode, ret);
-      return ret;
+      // each bit is one of four states, so the three masks pack losslessly into two longs
+      return cache.intern(width, value | error, unknown | error);
     }
   }
 
@@ -72,6 +59,11 @@ public class Value {
     return Value.create(width, error, unknown, value);
   }
 
+  /** Returns the table through which multi-bit values are shared, e.g. to read its hit and miss counts. */
+  public static InternTable<Value> getInternTable() {
+    return cache;
+  }
+
   public static Value createError(BitWidth bits) {
     return Value.create(bits.getWidth(), -1, 0, 0);
   }
@@ -97,6 +89,16 @@ public class Value {
     return Value.create(bits, 0, 0, value);
   }
 
+  /**
+   * Creates a value from the two masks returned by {@link #getOnesMask()} and {@link
+   * #getUnknownMask()}: a bit set in both masks is an error, a bit set in the unknown mask only is
+   * unknown, and the other bits are given by the ones mask.
+   */
+  public static Value createFromMasks(int bits, long ones, long unknowns) {
+    final var error = ones & unknowns;
+    return Value.create(bits, error, unknowns & ~error, ones & ~error);
+  }
+
   /**
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
@@ -201,7 +203,21 @@ public class Value {
   public static Color widthErrorCaptionBgcolor = new Color(AppPreferences.WIDTH_ERROR_BACKGROUND_COLOR.get());
   public static Color clockFrequencyColor = new Color(AppPreferences.CLOCK_FREQUENCY_COLOR.get());
 
-  private static final Cache cache = new Cache();
+  private static final InternTable<Value> cache =
+      new InternTable<>(InternTable.getDefaultCapacity()) {
+        @Override
+        protected boolean matches(Value candidate, int width, long ones, long unknowns) {
+          return candidate.width == width
+              && (candidate.value | candidate.error) == ones
+              && (candidate.unknown | candidate.error) == unknowns;
+        }
+
+        @Override
+        protected Value create(int width, long ones, long unknowns) {
+          final var error = ones & unknowns;
+          return new Value(width, error, unknowns & ~error, ones & ~error);
+        }
+      };
 
   private final int width;
 
@@ -281,6 +297,7 @@ public class Value {
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
   public boolean compatible(Value other) {
+    if (this == other) return true;
     // where this has a value, other must have same value
     // where this has unknown, other can have unknown or any value
     // where this has error, other must have error
@@ -292,6 +309,7 @@ public class Value {
 
   @Override
   public boolean equals(Object otherObj) {
+    if (this == otherObj) return true;
     return (otherObj instanceof Value other)
            ? this.width == other.width
               && this.error == other.error
@@ -353,6 +371,16 @@ public class Value {
     return width;
   }
 
+  /** Returns the bits that are either one or an error, see {@link #createFromMasks}. */
+  public long getOnesMask() {
+    return value | error;
+  }
+
+  /** Returns the bits that are either unknown or an error, see {@link #createFromMasks}. */
+  public long getUnknownMask() {
+    return unknown | error;
+  }
+
   @Override
   public int hashCode() {
     var ret = width;
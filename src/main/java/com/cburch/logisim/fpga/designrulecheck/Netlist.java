@@ -79,6 +79,7 @@ public class Netlist {
 
   private String circuitName;
   private final ArrayList<Net> myNets = new ArrayList<>();
+  private final Map<Location, Net> netIndex = new HashMap<>();
   private final ArrayList<netlistComponent> mySubCircuits = new ArrayList<>();
   private final ArrayList<netlistComponent> myComponents = new ArrayList<>();
   private final ArrayList<netlistComponent> myClockGenerators = new ArrayList<>();
@@ -126,6 +127,7 @@ public class Netlist {
     }
     drcStatus = DRC_REQUIRED;
     myNets.clear();
+    netIndex.clear();
     mySubCircuits.clear();
     myComponents.clear();
     myClockGenerators.clear();
@@ -541,16 +543,27 @@ public class Netlist {
   }
 
   private Net findConnectedNet(Location loc) {
-    for (final var current : myNets) {
-      if (current.contains(loc)) return current;
-    }
-    return null;
+    return netIndex.get(loc);
+  }
+
+  private void indexNet(Net net) {
+    for (final var point : net.getPoints()) netIndex.put(point, net);
+  }
+
+  /** Returns the representative of the set holding <code>net</code> in a disjoint-set forest. */
+  private static Net findSet(Map<Net, Net> parents, Net net) {
+    var root = net;
+    for (var up = parents.get(root); up != null; up = parents.get(root)) root = up;
+    for (var cur = net; cur != root; ) cur = parents.put(cur, root);
+    return root;
   }
 
   private boolean generateNetlist() {
     final var drc = new ArrayList<SimpleDrcContainer>();
     var errors = false;
     circuitName = myCircuit.getName();
+    final var phaseStarts = new long[8];
+    phaseStarts[0] = System.nanoTime();
     final var progress = Reporter.report.getProgressBar();
     var curMax = 0;
     var curVal = 0;
@@ -567,10 +580,17 @@ public class Netlist {
     wires.addAll(myCircuit.getWires());
     // FIRST PASS: In this pass we take all wire segments and see if they
     // are connected to other segments. If they are connected we build a net.
-    while (wires.size() != 0) {
+    final var wiresAt = new HashMap<Location, List<Wire>>();
+    for (final var wire : wires) {
+      wiresAt.computeIfAbsent(wire.getEnd0(), loc -> new ArrayList<>()).add(wire);
+      wiresAt.computeIfAbsent(wire.getEnd1(), loc -> new ArrayList<>()).add(wire);
+    }
+    for (final var wire : new ArrayList<>(wires)) {
+      if (!wires.contains(wire)) continue;
       final var newNet = new Net();
-      getNet(null, newNet);
-      if (!newNet.isEmpty()) myNets.add(newNet);
+      getNet(wire, newNet, wiresAt);
+      myNets.add(newNet);
+      indexNet(newNet);
     }
     // Here we start to detect direct input-output component connections, read we detect "hidden"
     // nets
@@ -631,10 +651,8 @@ public class Netlist {
         }
         /* Here we are going to mark the bitwidths on the nets */
         final var width = end.getWidth().getWidth();
-        final var loc = end.getLocation();
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(loc) && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
-        }
+        final var thisNet = findConnectedNet(end.getLocation());
+        if (thisNet != null && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
       }
     }
     for (final var simpleDRCContainer : drc) {
@@ -644,6 +662,7 @@ public class Netlist {
       }
     }
     if (errors) return false;
+    phaseStarts[1] = System.nanoTime();
     if (progress != null) {
       progress.setValue(1);
       progress.setString(S.get("NetListBuild", circuitName, 2));
@@ -662,14 +681,12 @@ public class Netlist {
         final var loc = end.getLocation();
         if (points.containsKey(loc)) {
           /* Found a connection already used */
-          var newNet = true;
-          for (final var net : myNets) {
-            if (net.contains(loc)) newNet = false;
-          }
-          if (newNet) {
+          if (!netIndex.containsKey(loc)) {
             final var bitWidth = points.get(loc);
             if (bitWidth == end.getWidth().getWidth()) {
-              myNets.add(new Net(loc, bitWidth));
+              final var newNet = new Net(loc, bitWidth);
+              myNets.add(newNet);
+              netIndex.put(loc, newNet);
             } else {
               drc.get(0).addMarkComponent(comp);
             }
@@ -684,55 +701,59 @@ public class Netlist {
       return false;
     }
 
+    phaseStarts[2] = System.nanoTime();
     if (progress != null) {
       progress.setValue(2);
       progress.setString(S.get("NetListBuild", circuitName, 3));
     }
     /*
      * Here we are going to process the tunnels and possible merging of the
-     * tunneled nets
+     * tunneled nets. Nets sharing a tunnel label are joined in a disjoint-set
+     * forest, after which each set is merged into its last net.
      */
-    var areTunnelsPresent = false;
+    final var tunnelSets = new HashMap<Net, Net>();
+    final var tunnelNets = new HashMap<String, Net>();
     for (final var comp : tunnelList) {
-      final var ends = comp.getEnds();
-      for (final var end : ends) {
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(end.getLocation())) {
-            thisNet.addTunnel(comp.getAttributeSet().getValue(StdAttr.LABEL));
-            areTunnelsPresent = true;
-          }
-        }
+      final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
+      for (final var end : comp.getEnds()) {
+        final var thisNet = findConnectedNet(end.getLocation());
+        if (thisNet == null) continue;
+        thisNet.addTunnel(label);
+        final var labelNet = tunnelNets.putIfAbsent(label, thisNet);
+        if (labelNet == null) continue;
+        final var thisSet = findSet(tunnelSets, thisNet);
+        final var labelSet = findSet(tunnelSets, labelNet);
+        if (thisSet != labelSet) tunnelSets.put(thisSet, labelSet);
       }
     }
     drc.clear();
     drc.add(new SimpleDrcContainer(myCircuit, S.get("NetMerge_BitWidthError"), SimpleDrcContainer.LEVEL_FATAL, SimpleDrcContainer.MARK_WIRE));
-    if (areTunnelsPresent) {
-      final var netIterator = myNets.listIterator();
-      while (netIterator.hasNext()) {
-        final var thisNet = netIterator.next();
-        if (thisNet.hasTunnel() && (myNets.indexOf(thisNet) < (myNets.size() - 1))) {
-          var merged = false;
-          final var searchIterator = myNets.listIterator(myNets.indexOf(thisNet) + 1);
-          while (searchIterator.hasNext() && !merged) {
-            final var searchNet = searchIterator.next();
-            for (final var name : thisNet.getTunnelNames()) {
-              if (searchNet.containsTunnel(name) && !merged) {
-                merged = true;
-                if (!searchNet.merge(thisNet)) {
-                  drc.get(0).addMarkComponents(searchNet.getWires());
-                  drc.get(0).addMarkComponents(thisNet.getWires());
-                }
-              }
-            }
-          }
-          if (merged) netIterator.remove();
+    if (!tunnelSets.isEmpty()) {
+      final var lastNets = new HashMap<Net, Net>();
+      for (final var thisNet : myNets) {
+        if (thisNet.hasTunnel()) lastNets.put(findSet(tunnelSets, thisNet), thisNet);
+      }
+      final var keptNets = new ArrayList<Net>(myNets.size());
+      for (final var thisNet : myNets) {
+        final var lastNet =
+            thisNet.hasTunnel() ? lastNets.get(findSet(tunnelSets, thisNet)) : thisNet;
+        if (lastNet == thisNet) {
+          keptNets.add(thisNet);
+        } else if (lastNet.merge(thisNet)) {
+          for (final var point : thisNet.getPoints()) netIndex.put(point, lastNet);
+        } else {
+          drc.get(0).addMarkComponents(lastNet.getWires());
+          drc.get(0).addMarkComponents(thisNet.getWires());
         }
       }
+      myNets.clear();
+      myNets.addAll(keptNets);
     }
     if (drc.get(0).isDrcInfoPresent()) {
       Reporter.report.addError(drc.get(0));
       return false;
     }
+    phaseStarts[3] = System.nanoTime();
     if (progress != null) {
       progress.setValue(3);
       progress.setString(S.get("NetListBuild", circuitName, 4));
@@ -789,6 +810,7 @@ public class Netlist {
       final var wire = netIterator.next();
       if (wire.getBitWidth() == 0) {
         drc.get(0).addMarkComponents(wire.getWires());
+        netIndex.keySet().removeAll(wire.getPoints());
         netIterator.remove();
       }
     }
@@ -821,50 +843,23 @@ public class Netlist {
       }
       /* stupid situation first: the splitters bus connection is a single fanout */
       if (busWidth == maxFanoutWidth) {
-        Net busnet = null;
-        Net connectedNet = null;
-        final var busLoc = mySplitter.getEnd(0).getLocation();
-        final var connectedLoc = mySplitter.getEnd(index).getLocation();
-        var issueWarning = false;
         /* here we search for the nets */
-        for (final var currentNet : myNets) {
-          if (currentNet.contains(busLoc)) {
-            if (busnet != null) {
-              Reporter.report.addFatalErrorFmt(
-                  "BUG: Multiple bus nets found for a single splitter\n ==> %s:%d\n",
-                  this.getClass().getName().replace(".", "/"),
-                  Thread.currentThread().getStackTrace()[2].getLineNumber());
-              return false;
-            } else {
-              busnet = currentNet;
-            }
-          }
-          if (currentNet.contains(connectedLoc)) {
-            if (connectedNet != null) {
-              Reporter.report.addFatalErrorFmt(
-                  "BUG: Multiple nets found for a single splitter split connection\n ==> %s:%d\n",
-                  this.getClass().getName().replace(".", "/"),
-                  Thread.currentThread().getStackTrace()[2].getLineNumber());
-              return false;
-            } else {
-              connectedNet = currentNet;
-            }
-          }
-        }
-        if (connectedNet != null) {
-          if (busnet != null) {
-            /* we can merge both nets */
-            if (!busnet.merge(connectedNet)) {
-              Reporter.report.addFatalErrorFmt(
-                  "BUG: Splitter bus merge error\n ==> %s:%d\n",
-                  this.getClass().getName().replace(".", "/"),
-                  Thread.currentThread().getStackTrace()[2].getLineNumber());
-              return false;
-            } else {
-              myNets.remove(connectedNet);
-            }
+        final var busnet = findConnectedNet(mySplitter.getEnd(0).getLocation());
+        final var connectedNet = findConnectedNet(mySplitter.getEnd(index).getLocation());
+        var issueWarning = false;
+        if (connectedNet != null && busnet != null) {
+          /* we can merge both nets, unless both ends are on the same one */
+          if (busnet == connectedNet) {
+            // nothing to merge
+          } else if (!busnet.merge(connectedNet)) {
+            Reporter.report.addFatalErrorFmt(
+                "BUG: Splitter bus merge error\n ==> %s:%d\n",
+                this.getClass().getName().replace(".", "/"),
+                Thread.currentThread().getStackTrace()[2].getLineNumber());
+            return false;
           } else {
-            issueWarning = true;
+            myNets.remove(connectedNet);
+            for (final var point : connectedNet.getPoints()) netIndex.put(point, busnet);
           }
         } else {
           issueWarning = true;
@@ -883,6 +878,7 @@ public class Netlist {
       }
     }
 
+    phaseStarts[4] = System.nanoTime();
     if (progress != null) {
       progress.setValue(4);
       progress.setString(S.get("NetListBuild", circuitName, 5));
@@ -897,15 +893,9 @@ public class Netlist {
       // Currently by definition end(0) is the combined end of the splitter
       final var ends = comp.getEnds();
       final var combinedEnd = ends.get(0);
-      var rootNet = -1;
       /* We search for the root net in the list of nets */
-      for (var i = 0; i < myNets.size() && rootNet < 0; i++) {
-        if (myNets.get(i).contains(combinedEnd.getLocation())) {
-          rootNet = i;
-          // FIXME: shouldn't we `break` once we found it?
-        }
-      }
-      if (rootNet < 0) {
+      final var rootNet = findConnectedNet(combinedEnd.getLocation());
+      if (rootNet == null) {
         Reporter.report.addFatalErrorFmt(
             "BUG: Splitter without a bus connection\n ==> %s:%d\n",
             this.getClass().getName().replace(".", "/"),
@@ -915,35 +905,28 @@ public class Netlist {
       }
       // Now we process all the other ends to find the child busses/nets
       // of this root bus
-      final var connections = new ArrayList<Integer>();
+      final var connections = new ArrayList<Net>();
       for (var i = 1; i < ends.size(); i++) {
-        final var thisEnd = ends.get(i);
         /* Find the connected net */
-        var connectedNet = -1;
-        for (var j = 0; j < myNets.size() && connectedNet < 1; j++) {
-          if (myNets.get(j).contains(thisEnd.getLocation())) {
-            connectedNet = j;
-          }
-        }
-        connections.add(connectedNet);
+        connections.add(findConnectedNet(ends.get(i).getLocation()));
       }
       var unconnectedEnds = false;
       var connectedUnknownEnds = false;
       final var sattrs = (SplitterAttributes) comp.getAttributeSet();
       for (var i = 1; i < ends.size(); i++) {
-        var connectedNet = connections.get(i - 1);
-        if (connectedNet >= 0) {
+        final var connectedNet = connections.get(i - 1);
+        if (connectedNet != null) {
           /* Has this end a connection to the root bus? */
           connectedUnknownEnds |= sattrs.isNoConnect(i);
           /* There is a net connected to this splitter's end point */
-          if (!myNets.get(connectedNet).setParent(myNets.get(rootNet))) {
-            myNets.get(connectedNet).forceRootNet();
+          if (!connectedNet.setParent(rootNet)) {
+            connectedNet.forceRootNet();
           }
           /* Here we have to process the inherited bits of the parent */
           final var busBitConnection = ((Splitter) comp).getEndpoints();
           for (byte b = 0; b < busBitConnection.length; b++) {
             if (busBitConnection[b] == i) {
-              myNets.get(connectedNet).addParentBit(b);
+              connectedNet.addParentBit(b);
             }
           }
         } else {
@@ -971,6 +954,7 @@ public class Netlist {
         Reporter.report.addWarning(warn);
       }
     }
+    phaseStarts[5] = System.nanoTime();
     if (progress != null) {
       progress.setValue(5);
       progress.setString(S.get("NetListBuild", circuitName, 6));
@@ -1008,6 +992,7 @@ public class Netlist {
         }
       }
     }
+    phaseStarts[6] = System.nanoTime();
     if (progress != null) {
       progress.setValue(6);
       progress.setString(S.get("NetListBuild", circuitName, 7));
@@ -1027,13 +1012,10 @@ public class Netlist {
             // Currently by definition end(0) is the combined end of the splitter
             final var ends = comp.getEnds();
             final var combinedEnd = ends.get(0);
-            var connectedBus = -1;
             final var sattrs = (SplitterAttributes) comp.getAttributeSet();
             /* We search for the root net in the list of nets */
-            for (var i = 0; i < myNets.size() && connectedBus < 0; i++) {
-              if (myNets.get(i).contains(combinedEnd.getLocation())) connectedBus = i;
-            }
-            if (connectedBus < 0) {
+            final var connectedBus = findConnectedNet(combinedEnd.getLocation());
+            if (connectedBus == null) {
               // This should never happen as we already checked in the first pass.
               Reporter.report.addFatalErrorFmt(
                   "BUG: This is embarasing as this should never happen\n ==> %s:%d\n",
@@ -1057,7 +1039,7 @@ public class Netlist {
                 }
                 byte connectedBusIndex = indexBits.get(bit);
                 // Figure out the rootbusid and rootbusindex
-                var rootBus = myNets.get(connectedBus);
+                var rootBus = connectedBus;
                 while (!rootBus.isRootNet()) {
                   connectedBusIndex = rootBus.getBit(connectedBusIndex);
                   rootBus = rootBus.getParent();
@@ -1082,11 +1064,19 @@ public class Netlist {
         }
       }
     }
+    phaseStarts[7] = System.nanoTime();
     if (progress != null) {
       progress.setMaximum(curMax);
       progress.setValue(curVal);
       progress.setString(curStr);
     }
+    final var phaseTimes = new StringBuilder();
+    for (var phase = 1; phase < phaseStarts.length; phase++) {
+      if (phase > 1) phaseTimes.append(", ");
+      phaseTimes.append((phaseStarts[phase] - phaseStarts[phase - 1]) / 1000000);
+    }
+    Reporter.report.addInfo(S.get("NetListBuildTimes", circuitName,
+        (phaseStarts[7] - phaseStarts[0]) / 1000000, phaseTimes.toString()));
     return true;
   }
 
@@ -1163,10 +1153,7 @@ public class Netlist {
               if (busBitConnection[index] == splitterEnd) netIndex++;
             }
             // Find the connected Net
-            Net slaveNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(ends.get(splitterEnd).getLocation())) slaveNet = thisnet;
-            }
+            final var slaveNet = findConnectedNet(ends.get(splitterEnd).getLocation());
             if (slaveNet != null)
               result.addAll(getHiddenSinks(slaveNet, netIndex, splitters, handledNets, false));
           } else {
@@ -1174,10 +1161,7 @@ public class Netlist {
             for (byte b = 0; b < busBitConnection.length; b++) {
               if (busBitConnection[b] == end) rootIndices.add(b);
             }
-            Net rootNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(currentSplitter.getEnd(0).getLocation())) rootNet = thisnet;
-            }
+            final var rootNet = findConnectedNet(currentSplitter.getEnd(0).getLocation());
             if (rootNet != null)
               result.addAll(getHiddenSinks(rootNet, rootIndices.get(bitIndex), splitters, handledNets, false));
           }
@@ -1252,24 +1236,23 @@ public class Netlist {
     return components;
   }
 
-  private void getNet(Wire wire, Net thisNet) {
-    final var myIterator = wires.iterator();
-    final var matchedWires = new ArrayList<Wire>();
-    var compWire = wire;
-    while (myIterator.hasNext()) {
-      final var thisWire = myIterator.next();
-      if (compWire == null) {
-        compWire = thisWire;
-        thisNet.add(thisWire);
-        myIterator.remove();
-      } else if (thisWire.sharesEnd(compWire)) {
-        matchedWires.add(thisWire);
-        thisNet.add(thisWire);
-        myIterator.remove();
+  /**
+   * Adds <code>wire</code> and all wires connected to it, that are still in <code>wires</code>,
+   * to <code>thisNet</code>; <code>wiresAt</code> gives the wires having an end at a location.
+   */
+  private void getNet(Wire wire, Net thisNet, Map<Location, List<Wire>> wiresAt) {
+    final var pending = new ArrayList<Wire>();
+    wires.remove(wire);
+    pending.add(wire);
+    while (!pending.isEmpty()) {
+      final var thisWire = pending.remove(pending.size() - 1);
+      thisNet.add(thisWire);
+      for (final var end : List.of(thisWire.getEnd0(), thisWire.getEnd1())) {
+        for (final var matched : wiresAt.get(end)) {
+          if (wires.remove(matched)) pending.add(matched);
+        }
       }
     }
-    for (final var matched : matchedWires) getNet(matched, thisNet);
-    matchedWires.clear();
   }
 
   public Integer getNetId(Net selectedNet) {
@@ -1418,10 +1401,7 @@ public class Netlist {
               if (busBitConnection[index] == splitterEnd) netIndex++;
             }
             /* Find the connected Net */
-            Net slaveNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(ends.get(splitterEnd).getLocation())) slaveNet = thisnet;
-            }
+            final var slaveNet = findConnectedNet(ends.get(splitterEnd).getLocation());
             if (slaveNet != null) {
               final var ret = getHiddenSource(null, (byte) 0, slaveNet, netIndex, splitters, handledNets, segments, splitter);
               if (ret != null) return ret;
@@ -1431,10 +1411,7 @@ public class Netlist {
             for (byte b = 0; b < busBitConnection.length; b++) {
               if (busBitConnection[b] == end) rootIndices.add(b);
             }
-            Net rootNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(splitter.getEnd(0).getLocation())) rootNet = thisnet;
-            }
+            final var rootNet = findConnectedNet(splitter.getEnd(0).getLocation());
             if (rootNet != null) {
               final var ret = getHiddenSource(null, (byte) 0, rootNet, rootIndices.get(bitIndex), splitters, handledNets, segments, splitter);
               if (ret != null) return ret;
@@ -1483,10 +1460,7 @@ public class Netlist {
               if (busBitConnection[index] == splitterEnd) netIndex++;
             }
             // Find the connected Net
-            Net slaveNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(ends.get(splitterEnd).getLocation())) slaveNet = thisnet;
-            }
+            final var slaveNet = findConnectedNet(ends.get(splitterEnd).getLocation());
             if (slaveNet != null && hasHiddenSource(null, (byte) 0, slaveNet, netIndex, splitterList, handledNets, currentSplitter))
               return true;
           } else {
@@ -1494,10 +1468,7 @@ public class Netlist {
             for (byte b = 0; b < busBitConnection.length; b++) {
               if (busBitConnection[b] == end) rootIndices.add(b);
             }
-            Net rootNet = null;
-            for (final var thisnet : myNets) {
-              if (thisnet.contains(currentSplitter.getEnd(0).getLocation())) rootNet = thisnet;
-            }
+            final var rootNet = findConnectedNet(currentSplitter.getEnd(0).getLocation());
             if (rootNet != null
                 && hasHiddenSource(null, (byte) 0, rootNet, rootIndices.get(combinedBitIndex), splitterList, handledNets, currentSplitter)) {
               return true;
@@ -290,7 +290,11 @@ public class RightPanel extends JPanel {
       gfx.drawString("Oops! Chronogram is too large to display.", 15, 15);
       gfx.drawString("Try zooming out, or reset the simulation.", 15, 29);
     } else {
-      for (final var w : rows) w.paintWaveform(gfx);
+      // only the rows in view are drawn, off-screen images are not even created for the others
+      final var clip = gfx.getClipBounds();
+      for (final var w : rows) {
+        if (clip == null || clip.intersects(w.getBounds())) w.paintWaveform(gfx);
+      }
       paintCursor(gfx);
     }
   }
@@ -15,57 +15,195 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * The history of one signal of the chronogram, as a sequence of entries each holding a value and
+ * the time it started; an entry lasts until the next one starts, the last one until the end time.
+ *
+ * <p>Entries are kept in chunks of primitive arrays. The start times are stored as such, so the
+ * end time is known without summing durations and the entry at a given time is found by binary
+ * search. Values are stored as their ones and unknown masks (see {@link Value#createFromMasks}),
+ * bit-packed for narrow signals: both masks of a one-bit signal take two bits, so 32 entries share
+ * a long. When a history limit is set the entries form a ring and the oldest ones are overwritten.
+ */
 public class Signal {
 
-  private static final int CHUNK = 512;
+  private static final int CHUNK_BITS = 9;
+  private static final int CHUNK = 1 << CHUNK_BITS; // entries per chunk
+  private static final int CHUNK_MASK = CHUNK - 1;
 
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
-  private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
+  private long[][] times = new long[0][]; // start time of each entry, in chunks of CHUNK
+  private long[][] bits = new long[0][]; // value masks of each entry, in chunks of CHUNK
+  private int valueWidth; // width the values are packed for
+  private int shift; // each entry takes 1 << shift bits; 7 means a long for each mask
+  private long timeEnd;
   private Value last;
-  private long[][] dur; // duration of each value
   private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
+  private int firstIndex; // for wrapping, only when limited
 
   public Signal(
       int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
-    this.timeStart = timeStart;
+    this.timeEnd = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
+    setValueWidth(Math.max(1, info.getWidth()));
     extend(initialValue, duration);
   }
 
-  public long omittedDataTime() {
-    return curSize == maxSize ? timeStart : 0;
+  private void setValueWidth(int width) {
+    valueWidth = width;
+    shift = 32 - Integer.numberOfLeadingZeros(2 * width - 1);
   }
 
-  public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
+  private int wordsFor(int entries) {
+    return shift == 7 ? 2 * entries : ((entries << shift) + 63) >>> 6;
+  }
+
+  private int capacity() {
+    final var c = times.length;
+    return c == 0 ? 0 : CHUNK * (c - 1) + times[c - 1].length;
+  }
+
+  /** Makes room for at least one more entry, never beyond the history limit. */
+  private void grow() {
+    final var c = times.length;
+    final var limit = maxSize == 0 ? Integer.MAX_VALUE : maxSize;
+    if (c > 0 && times[c - 1].length < CHUNK) {
+      // last chunk was cut short by a smaller limit
+      final var len = Math.min(CHUNK, limit - CHUNK * (c - 1));
+      times[c - 1] = Arrays.copyOf(times[c - 1], len);
+      bits[c - 1] = Arrays.copyOf(bits[c - 1], wordsFor(len));
+    } else {
+      final var len = Math.min(CHUNK, limit - CHUNK * c);
+      times = Arrays.copyOf(times, c + 1);
+      bits = Arrays.copyOf(bits, c + 1);
+      times[c] = new long[len];
+      bits[c] = new long[wordsFor(len)];
     }
-    return t;
   }
 
-  public void extend(long duration) {
-    if (last == null) {
-      timeStart += duration;
+  /** Returns where the entry at position <code>p</code>, counted from the oldest, is stored. */
+  private int slot(int p) {
+    final var i = firstIndex + p;
+    return firstIndex != 0 && i >= maxSize ? i - maxSize : i;
+  }
+
+  private long startOf(int p) {
+    final var i = slot(p);
+    return times[i >>> CHUNK_BITS][i & CHUNK_MASK];
+  }
+
+  private long endOf(int p) {
+    return p == curSize - 1 ? timeEnd : startOf(p + 1);
+  }
+
+  private long onesAt(int i) {
+    final var b = bits[i >>> CHUNK_BITS];
+    final var e = i & CHUNK_MASK;
+    if (shift == 7) return b[2 * e];
+    final var size = 1 << shift;
+    return (b[e >>> (6 - shift)] >>> ((e << shift) & 63)) & ((1L << (size >>> 1)) - 1);
+  }
+
+  private long unknownsAt(int i) {
+    final var b = bits[i >>> CHUNK_BITS];
+    final var e = i & CHUNK_MASK;
+    if (shift == 7) return b[2 * e + 1];
+    final var size = 1 << shift;
+    final var entry = b[e >>> (6 - shift)] >>> ((e << shift) & 63);
+    return (entry >>> (size >>> 1)) & ((1L << (size >>> 1)) - 1);
+  }
+
+  private void set(int i, long time, long ones, long unknowns) {
+    final var c = i >>> CHUNK_BITS;
+    final var e = i & CHUNK_MASK;
+    times[c][e] = time;
+    final var b = bits[c];
+    if (shift == 7) {
+      b[2 * e] = ones;
+      b[2 * e + 1] = unknowns;
     } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      final var half = 1 << (shift - 1);
+      final var halfMask = (1L << half) - 1;
+      final var slotMask = shift == 6 ? -1L : (1L << (2 * half)) - 1;
+      final var pos = (e << shift) & 63;
+      final var w = e >>> (6 - shift);
+      final var entry = (ones & halfMask) | ((unknowns & halfMask) << half);
+      b[w] = (b[w] & ~(slotMask << pos)) | (entry << pos);
+    }
+  }
+
+  private void setValue(int i, long time, Value v) {
+    set(i, time, v.getOnesMask(), v.getUnknownMask());
+  }
+
+  /** Returns the value of the entry at position <code>p</code>, always in the current width. */
+  private Value valueOf(int p) {
+    final var i = slot(p);
+    return Value.createFromMasks(valueWidth, onesAt(i), unknownsAt(i))
+        .extendWidth(info.getWidth(), Value.FALSE);
+  }
+
+  /** Returns the position of the last entry starting at or before <code>t</code>. */
+  private int search(long t, int from) {
+    var lo = from;
+    var hi = curSize - 1;
+    while (lo < hi) {
+      final var mid = (lo + hi + 1) >>> 1;
+      if (startOf(mid) <= t) lo = mid;
+      else hi = mid - 1;
     }
+    return lo;
+  }
+
+  /**
+   * Stores <code>amt</code> entries anew, starting at position <code>offset</code>, unwrapped,
+   * packed for <code>width</code> bits and within the limit <code>newMaxSize</code>.
+   */
+  private void rebuild(int offset, int amt, int width, int newMaxSize) {
+    final var t = new long[amt];
+    final var ones = new long[amt];
+    final var unknowns = new long[amt];
+    for (var p = 0; p < amt; p++) {
+      final var i = slot(offset + p);
+      t[p] = times[i >>> CHUNK_BITS][i & CHUNK_MASK];
+      ones[p] = onesAt(i);
+      unknowns[p] = unknownsAt(i);
+    }
+    times = new long[0][];
+    bits = new long[0][];
+    maxSize = newMaxSize;
+    setValueWidth(width);
+    firstIndex = 0;
+    curSize = amt;
+    for (var p = 0; p < amt; p++) {
+      if (p == capacity()) grow();
+      set(p, t[p], ones[p], unknowns[p]);
+    }
+  }
+
+  private long getTimeStart() {
+    return curSize == 0 ? timeEnd : startOf(0);
+  }
+
+  public long omittedDataTime() {
+    return curSize == maxSize ? getTimeStart() : 0;
+  }
+
+  public long getEndTime() {
+    return timeEnd;
+  }
+
+  public void extend(long duration) {
+    timeEnd += duration;
   }
 
   public void extend(Value v, long duration) {
@@ -74,70 +212,46 @@ public class Signal {
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
     if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      timeEnd += duration;
       return;
     }
     last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c + 1] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c + 1] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
+    if (v.getWidth() > valueWidth) rebuild(0, curSize, v.getWidth(), maxSize);
+    if (maxSize > 0 && curSize == maxSize) {
+      // limited size is filled, overwrite the oldest entry, which moves the start
+      setValue(firstIndex, timeEnd, v);
       firstIndex++;
       if (firstIndex >= maxSize) firstIndex = 0;
+    } else {
+      if (curSize == capacity()) grow();
+      setValue(slot(curSize), timeEnd, v);
+      curSize++;
     }
+    timeEnd += duration;
   }
 
   public void replaceRecent(Value v, long duration) {
     if (last == null || curSize == 0)
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
+    final var p = curSize - 1;
+    final var i = slot(p);
+    final var start = startOf(p);
+    final var dur = timeEnd - start;
+    if (dur == duration) {
+      setValue(i, start, v);
       last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
-        curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
+      if (curSize > 1) {
+        final var j = slot(p - 1);
+        if (onesAt(j) == v.getOnesMask() && unknownsAt(j) == v.getUnknownMask()) {
+          // the entry before now lasts until the end
+          curSize--;
         }
       }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    } else if (dur > duration) {
+      timeEnd -= duration;
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
+    } else if (curSize == 1 && timeEnd >= duration) {
+      setValue(i, timeEnd - duration, v);
       last = v;
     } else {
       throw new IllegalStateException(
@@ -145,96 +259,44 @@ public class Signal {
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + dur
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
     if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
+    if (newMaxSize == 0 || (maxSize != 0 && newMaxSize > maxSize)) {
       // growing
-      if (firstIndex != 0) retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
+      if (firstIndex != 0) rebuild(0, curSize, valueWidth, newMaxSize); // keeps all data, unwrapped
+      else maxSize = newMaxSize;
+    } else if (curSize > newMaxSize || firstIndex != 0) {
+      // shrinking: keep only the most recent data, unwrapped
+      final var keep = Math.min(curSize, newMaxSize);
+      rebuild(curSize - keep, keep, valueWidth, newMaxSize);
     } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
+      // shrinking, but mostly empty: keep all data, drop the room beyond the new limit
+      maxSize = newMaxSize;
+      if (capacity() > newMaxSize) {
+        final var c = (newMaxSize + CHUNK - 1) >>> CHUNK_BITS;
+        times = Arrays.copyOf(times, c);
+        bits = Arrays.copyOf(bits, c);
+        final var len = newMaxSize - CHUNK * (c - 1);
+        times[c - 1] = Arrays.copyOf(times[c - 1], len);
+        bits[c - 1] = Arrays.copyOf(bits[c - 1], wordsFor(len));
       }
     }
-    maxSize = newMaxSize;
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
+    if (times.length > 1) {
+      times = Arrays.copyOf(times, 1);
+      bits = Arrays.copyOf(bits, 1);
     }
     last = null;
     curSize = 0;
     firstIndex = 0;
+    timeEnd = 0;
     extend(v, duration);
   }
 
@@ -247,11 +309,9 @@ public class Signal {
 
     public Iterator() {
       position = 0;
-      time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      time = getTimeStart();
+      value = valueOf(0);
+      duration = endOf(0) - time;
     }
 
     public Iterator(long t) {
@@ -271,10 +331,8 @@ public class Signal {
       }
       position++;
       time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = valueOf(position);
+      duration = endOf(position) - time;
       return true;
     }
 
@@ -282,8 +340,19 @@ public class Signal {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
       final var t = time + timeFwd;
-      while (t >= time + duration) {
-        if (!advance()) return false;
+      if (t >= time + duration) {
+        if (t >= timeEnd) {
+          // ran off the end, as advance() does past the last entry
+          position = curSize - 1;
+          time = startOf(position);
+          value = null;
+          duration = 0;
+          return false;
+        }
+        position = search(t, position + 1);
+        time = startOf(position);
+        value = valueOf(position);
+        duration = endOf(position) - time;
       }
       // postcondition: t < time + duration
       //                t - time < duration
@@ -293,18 +362,9 @@ public class Signal {
     }
   }
 
-  // TODO: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    if (t < getTimeStart() || t >= timeEnd) return null;
+    return valueOf(search(t, 0));
   }
 
   public String getFormattedValue(long t) {
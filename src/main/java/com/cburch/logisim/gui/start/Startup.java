@@ -98,6 +98,7 @@ public class Startup implements AWTEventListener {
   private File loadFile;
   private File saveFile;
   private int ttyFormat = 0;
+  private int ttySampleTicks = 1;
   // from other sources
   private boolean initialized = false;
   private SplashScreen monitor = null;
@@ -456,6 +457,19 @@ public class Startup implements AWTEventListener {
     if (fmts.length > 0) {
       // FIXME: why we support multiple TTY types in one invocation? fallback?
       for (final var singleFmt : fmts) {
+        if (singleFmt.trim().startsWith("sample=")) {
+          // sample=N: only look at the outputs every N ticks
+          try {
+            startup.ttySampleTicks = Integer.parseInt(singleFmt.trim().substring("sample=".length()));
+          } catch (NumberFormatException e) {
+            startup.ttySampleTicks = 0;
+          }
+          if (startup.ttySampleTicks <= 0) {
+            logger.error(S.get("ttyFormatError"));
+            return RC.QUIT;
+          }
+          continue;
+        }
         final var val = switch (singleFmt.trim()) {
           case "table" -> TtyInterface.FORMAT_TABLE;
           case "speed" -> TtyInterface.FORMAT_SPEED;
@@ -466,6 +480,9 @@ public class Startup implements AWTEventListener {
           case "hex" -> TtyInterface.FORMAT_TABLE_HEX;
           case "csv" -> TtyInterface.FORMAT_TABLE_CSV;
           case "tabs" -> TtyInterface.FORMAT_TABLE_TABBED;
+          case "parallel" -> TtyInterface.FORMAT_PARALLEL;
+          case "compiled" -> TtyInterface.FORMAT_COMPILED;
+          case "vcd" -> TtyInterface.FORMAT_TABLE_VCD;
           default -> 0;
         };
 
@@ -474,8 +491,8 @@ public class Startup implements AWTEventListener {
           return RC.QUIT;
         }
         startup.ttyFormat |= val;
-        return RC.OK;
       }
+      return RC.OK;
     }
     logger.error(S.get("ttyFormatError"));
     return RC.QUIT;
@@ -799,6 +816,10 @@ public class Startup implements AWTEventListener {
     return ttyFormat;
   }
 
+  int getTtySampleTicks() {
+    return ttySampleTicks;
+  }
+
   boolean isFpgaDownload() {
     return doFpgaDownload;
   }
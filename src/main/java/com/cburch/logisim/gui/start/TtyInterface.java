@@ -15,7 +15,9 @@ import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitException;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.LevelizedPropagator;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.FileStatistics;
 import com.cburch.logisim.file.LoadFailedException;
@@ -31,10 +33,13 @@ import com.cburch.logisim.std.io.Tty;
 import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -52,8 +57,18 @@ public class TtyInterface {
   public static final int FORMAT_TABLE_CSV = 64;
   public static final int FORMAT_TABLE_BIN = 128;
   public static final int FORMAT_TABLE_HEX = 256;
+  public static final int FORMAT_PARALLEL = 512;
+  public static final int FORMAT_COMPILED = 1024;
+  public static final int FORMAT_TABLE_VCD = 2048;
   static final Logger logger = LoggerFactory.getLogger(TtyInterface.class);
   private static boolean lastIsNewline = true;
+  // Simulation output goes through one buffered stream over System.out. It is flushed whenever the
+  // tty printed something, and otherwise every FLUSH_ROWS samples or FLUSH_NANOS, whichever comes
+  // first. A shutdown hook flushes it when the run is interrupted.
+  private static final int FLUSH_ROWS = 1024;
+  private static final long FLUSH_NANOS = 100_000_000L;
+  private static volatile PrintStream out = System.out;
+  private static volatile boolean ttyPending = false;
 
   private static int countDigits(int num) {
     int digits = 1;
@@ -117,29 +132,59 @@ public class TtyInterface {
         S.get("statsTotalWith"));
   }
 
-  private static void displayTableRow(ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs) {
-    var shouldPrint = false;
-    if (prevOutputs == null) {
-      shouldPrint = true;
-    } else {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        final var a = prevOutputs.get(i);
-        final var b = curOutputs.get(i);
-        if (!a.equals(b)) {
-          shouldPrint = true;
-          break;
-        }
-      }
+  private static void displayTableRow(Value[] prevOutputs, Value[] curOutputs) {
+    if (prevOutputs != null && Arrays.equals(prevOutputs, curOutputs)) return;
+    for (var i = 0; i < curOutputs.length; i++) {
+      if (i != 0) out.print('\t');
+      out.print(curOutputs[i]);
     }
-    if (shouldPrint) {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        if (i != 0) System.out.print("\t");
-        System.out.print(curOutputs.get(i));
+    out.println();
+  }
+
+  /** Writes the header of a value change dump with one variable per output, using ticks as time. */
+  private static void displayVcdHeader(Circuit circuit, ArrayList<String> names, Value[] outputs) {
+    out.print("$timescale 1ns $end\n");
+    out.print("$scope module " + circuit.getName().replace(' ', '_') + " $end\n");
+    for (var i = 0; i < names.size(); i++) {
+      out.print("$var wire " + outputs[i].getWidth() + " " + vcdIdentifier(i) + " " + names.get(i) + " $end\n");
+    }
+    out.print("$upscope $end\n$enddefinitions $end\n");
+  }
+
+  /** Writes the outputs that changed since the previous sample, if any, stamped with the tick. */
+  private static void displayVcdChanges(long tick, Value[] prevOutputs, Value[] curOutputs) {
+    var stamped = false;
+    for (var i = 0; i < curOutputs.length; i++) {
+      final var v = curOutputs[i];
+      if (prevOutputs != null && v.equals(prevOutputs[i])) continue;
+      if (!stamped) {
+        out.print('#');
+        out.print(tick);
+        out.print('\n');
+        stamped = true;
       }
-      System.out.println();
+      if (v.getWidth() > 1) out.print('b');
+      for (var b = v.getWidth() - 1; b >= 0; b--) {
+        final var bit = v.get(b);
+        // a floating (unknown) wire is high impedance in VCD terms
+        out.print(bit == Value.TRUE ? '1' : bit == Value.FALSE ? '0' : bit == Value.UNKNOWN ? 'z' : 'x');
+      }
+      if (v.getWidth() > 1) out.print(' ');
+      out.print(vcdIdentifier(i));
+      out.print('\n');
     }
   }
 
+  private static String vcdIdentifier(int index) {
+    // identifiers are strings over the printable ASCII characters '!' to '~'
+    final var ret = new StringBuilder();
+    do {
+      ret.append((char) ('!' + index % 94));
+      index /= 94;
+    } while (index > 0);
+    return ret.toString();
+  }
+
   private static boolean displayTableRow(boolean showHeader, ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs,
                                          ArrayList<String> headers, ArrayList<String> formats, int format) {
     var shouldPrint = false;
@@ -172,16 +217,16 @@ public class TtyInterface {
           }
         }
         for (var i = 0; i < headers.size(); i++) {
-          if (i != 0) System.out.print(sep);
-          System.out.printf(formats.get(i), headers.get(i));
+          if (i != 0) out.print(sep);
+          out.printf(formats.get(i), headers.get(i));
         }
-        System.out.println();
+        out.println();
       }
       for (var i = 0; i < curOutputs.size(); i++) {
-        if (i != 0) System.out.print(sep);
-        System.out.printf(formats.get(i), valueFormat(curOutputs.get(i), format));
+        if (i != 0) out.print(sep);
+        out.printf(formats.get(i), valueFormat(curOutputs.get(i), format));
       }
-      System.out.println();
+      out.println();
     }
     return shouldPrint;
   }
@@ -204,7 +249,7 @@ public class TtyInterface {
   private static void ensureLineTerminated() {
     if (!lastIsNewline) {
       lastIsNewline = true;
-      System.out.print('\n');
+      out.print('\n');
     }
   }
 
@@ -318,6 +363,7 @@ public class TtyInterface {
     }
 
     CircuitState circState = new CircuitState(proj, circuit);
+    circState.getPropagator().setParallel((format & FORMAT_PARALLEL) != 0);
     // we have to do our initial propagation before the simulation starts -
     // it's necessary to populate the circuit with substates.
     circState.getPropagator().propagate();
@@ -334,7 +380,11 @@ public class TtyInterface {
       }
     }
     final var ttyFormat = args.getTtyFormat();
-    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+    final var outputNames = new ArrayList<String>();
+    for (final var pin : outputPins) {
+      if (pin != haltPin) outputNames.add(pinNames.get(pin));
+    }
+    final var simCode = runSimulation(circState, outputPins, outputNames, haltPin, ttyFormat, args.getTtySampleTicks());
 
     if (args.getSaveFile() != null) {
       try {
@@ -419,6 +469,7 @@ public class TtyInterface {
       }
 
       final var prop = circuitState.getPropagator();
+      prop.setParallel((format & FORMAT_PARALLEL) != 0);
       prop.propagate();
       /*
        * TODO for the SimulatorPrototype class do { prop.step(); } while
@@ -447,12 +498,28 @@ public class TtyInterface {
     return 0;
   }
 
-  private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format) {
-    final var showTable = (format & FORMAT_TABLE) != 0;
+  /**
+   * Clocks the circuit until the halt pin goes high or it oscillates. The outputs are sampled only
+   * every <code>sampleTicks</code> ticks (and when the simulation stops), and a row is written
+   * only when some output changed since the previous sample.
+   */
+  private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, ArrayList<String> outputNames,
+                                   Instance haltPin, int format, int sampleTicks) {
+    final var showVcd = (format & FORMAT_TABLE_VCD) != 0;
+    final var showTable = (format & FORMAT_TABLE) != 0 || showVcd;
     final var showSpeed = (format & FORMAT_SPEED) != 0;
     final var showTty = (format & FORMAT_TTY) != 0;
     final var showHalt = (format & FORMAT_HALT) != 0;
 
+    LevelizedPropagator compiled = null;
+    if ((format & FORMAT_COMPILED) != 0) {
+      try {
+        compiled = LevelizedPropagator.compile(circState);
+      } catch (CircuitException e) {
+        logger.warn("{}", S.get("ttyCompiledFallback", e.getMessage()));
+      }
+    }
+
     ArrayList<InstanceState> keyboardStates = null;
     StdinThread stdinThread = null;
     if (showTty) {
@@ -470,50 +537,86 @@ public class TtyInterface {
       }
     }
 
+    // the instance states only wrap the circuit state, so they can be made once and polled each tick
+    final var haltState = haltPin == null ? null : circState.getInstanceState(haltPin);
+    final var tableStates = new InstanceState[outputNames.size()];
+    var column = 0;
+    for (final var pin : outputPins) {
+      if (pin != haltPin) tableStates[column++] = circState.getInstanceState(pin);
+    }
+    var curOutputs = new Value[tableStates.length];
+    Value[] prevOutputs = null;
+
+    final var buffered = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+    final var flusher = new Thread(buffered::flush, "TtyInterface-Flush");
+    Runtime.getRuntime().addShutdownHook(flusher);
+    out = buffered;
+
     var retCode = 0;
     long tickCount = 0;
+    var unflushedRows = 0;
+    var lastFlush = System.nanoTime();
     final var start = System.currentTimeMillis();
-    var halted = false;
-    ArrayList<Value> prevOutputs = null;
     final var prop = circState.getPropagator();
-    while (true) {
-      final var curOutputs = new ArrayList<Value>();
-      for (final var pin : outputPins) {
-        final var pinState = circState.getInstanceState(pin);
-        final var val = Pin.FACTORY.getValue(pinState);
-        if (pin == haltPin) {
-          halted |= val.equals(Value.TRUE);
-        } else if (showTable) {
-          curOutputs.add(val);
+    try {
+      while (true) {
+        final var halted = haltState != null && Pin.FACTORY.getValue(haltState).equals(Value.TRUE);
+        final var oscillating = compiled != null ? compiled.isOscillating() : prop.isOscillating();
+        if (showTable && (tickCount % sampleTicks == 0 || halted || oscillating)) {
+          for (var i = 0; i < tableStates.length; i++) {
+            curOutputs[i] = Pin.FACTORY.getValue(tableStates[i]);
+          }
+          if (showVcd) {
+            if (prevOutputs == null) displayVcdHeader(circState.getCircuit(), outputNames, curOutputs);
+            displayVcdChanges(tickCount, prevOutputs, curOutputs);
+          } else {
+            displayTableRow(prevOutputs, curOutputs);
+          }
+          final var swap = prevOutputs == null ? new Value[curOutputs.length] : prevOutputs;
+          prevOutputs = curOutputs;
+          curOutputs = swap;
+          unflushedRows++;
+        }
+        if (ttyPending || unflushedRows >= FLUSH_ROWS
+            || (unflushedRows > 0 && System.nanoTime() - lastFlush >= FLUSH_NANOS)) {
+          ttyPending = false;
+          unflushedRows = 0;
+          lastFlush = System.nanoTime();
+          out.flush();
         }
-      }
-      if (showTable) {
-        displayTableRow(prevOutputs, curOutputs);
-      }
 
-      if (halted) {
-        retCode = 0; // normal exit
-        break;
-      }
-      if (prop.isOscillating()) {
-        retCode = 1; // abnormal exit
-        break;
-      }
-      if (keyboardStates != null) {
-        final var buffer = stdinThread.getBuffer();
-        if (buffer != null) {
-          for (final var keyState : keyboardStates) {
-            Keyboard.addToBuffer(keyState, buffer);
+        if (halted) {
+          retCode = 0; // normal exit
+          break;
+        }
+        if (oscillating) {
+          retCode = 1; // abnormal exit
+          break;
+        }
+        if (keyboardStates != null) {
+          final var buffer = stdinThread.getBuffer();
+          if (buffer != null) {
+            for (final var keyState : keyboardStates) {
+              Keyboard.addToBuffer(keyState, buffer);
+            }
           }
         }
+        tickCount++;
+        prop.toggleClocks();
+        if (compiled != null) compiled.propagate();
+        else prop.propagate();
+      }
+      if (showTty) ensureLineTerminated();
+    } finally {
+      buffered.flush();
+      out = System.out;
+      try {
+        Runtime.getRuntime().removeShutdownHook(flusher);
+      } catch (IllegalStateException e) {
+        // already shutting down, so the hook flushes once more
       }
-      prevOutputs = curOutputs;
-      tickCount++;
-      prop.toggleClocks();
-      prop.propagate();
     }
     final var elapse = System.currentTimeMillis() - start;
-    if (showTty) ensureLineTerminated();
     if (showHalt || retCode != 0) {
       if (retCode == 0) {
         logger.error("{}", S.get("ttyHaltReasonPin"));
@@ -529,7 +632,8 @@ public class TtyInterface {
 
   public static void sendFromTty(char c) {
     lastIsNewline = c == '\n';
-    System.out.print(c);
+    ttyPending = true;
+    out.print(c);
   }
 
   // It's possible to avoid using the separate thread using
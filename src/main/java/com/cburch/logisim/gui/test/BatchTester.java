@@ -0,0 +1,175 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import com.cburch.logisim.analyze.model.BitSlicedExpression;
+import com.cburch.logisim.analyze.model.Expression;
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.AnalyzeException;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates the rows of a test vector 64 at a time for purely combinational circuits. Every output
+ * bit is reduced to a boolean expression over the input pins by {@link Analyze}, and the rows of a
+ * batch are packed into the bit lanes of a <code>long</code>, so that one run of the expression
+ * compiled into a {@link BitSlicedExpression} evaluates all of them.
+ *
+ * <p>The batch only ever decides that a row passes. Rows that the two-valued evaluation cannot
+ * represent (inputs with unknown or error bits, expected values with error bits) and rows that
+ * seem to fail are left to the caller, which runs them through {@link Circuit#doTestVector} so
+ * that failures are always reported by the simulator itself.
+ */
+final class BatchTester {
+  static final int LANES = Long.SIZE;
+
+  private final TestVector vector;
+  private final int[] inputColumns;
+  private final int[] inputBase;
+  private final int[] outputColumns;
+  private final BitSlicedExpression[][] outputs;
+  private final int laneCount;
+
+  private BatchTester(TestVector vector, int[] inputColumns, int[] outputColumns,
+      BitSlicedExpression[][] outputs) {
+    this.vector = vector;
+    this.inputColumns = inputColumns;
+    this.outputColumns = outputColumns;
+    this.outputs = outputs;
+    inputBase = new int[inputColumns.length];
+    var count = 0;
+    for (var i = 0; i < inputColumns.length; i++) {
+      inputBase[i] = count;
+      count += vector.columnWidth[inputColumns[i]].getWidth();
+    }
+    laneCount = count;
+  }
+
+  /**
+   * Returns a batch tester for the given vector, or <code>null</code> if the circuit cannot be
+   * expressed as boolean functions of the vector's input columns (sequential or unsupported
+   * components, feedback, undriven outputs, or outputs that depend on pins missing from the vector).
+   */
+  static BatchTester create(Circuit circuit, Instance[] pin, TestVector vector) {
+    final var pinNames = new LinkedHashMap<Instance, String>();
+    final var columns = new HashMap<Instance, Integer>();
+    var numInputs = 0;
+    for (var i = 0; i < pin.length; i++) {
+      if (columns.putIfAbsent(pin[i], i) != null) return null;
+      pinNames.put(pin[i], "c" + i);
+      if (Pin.FACTORY.isInputPin(pin[i])) numInputs++;
+    }
+    // Input pins the vector does not drive still need a name, so that an output depending on one
+    // is recognised instead of being computed as if the pin were unconnected.
+    var unused = 0;
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var inst = Instance.getInstanceFor(comp);
+      if (Pin.FACTORY.isInputPin(inst) && !pinNames.containsKey(inst)) {
+        pinNames.put(inst, "u" + unused++);
+      }
+    }
+
+    final Map<Instance, Expression[]> expressions;
+    try {
+      expressions = Analyze.computeOutputExpressions(circuit, pinNames);
+    } catch (AnalyzeException e) {
+      return null;
+    }
+
+    final var inputColumns = new int[numInputs];
+    final var outputColumns = new int[pin.length - numInputs];
+    final var outputs = new BitSlicedExpression[outputColumns.length][];
+    final var variables = new HashMap<String, Integer>();
+    var in = 0;
+    var varIndex = 0;
+    for (var i = 0; i < pin.length; i++) {
+      if (!Pin.FACTORY.isInputPin(pin[i])) continue;
+      inputColumns[in++] = i;
+      final var width = vector.columnWidth[i].getWidth();
+      for (var b = 0; b < width; b++) {
+        variables.put(width > 1 ? "c" + i + "[" + b + "]" : "c" + i, varIndex++);
+      }
+    }
+    var out = 0;
+    for (var i = 0; i < pin.length; i++) {
+      if (Pin.FACTORY.isInputPin(pin[i])) continue;
+      outputColumns[out] = i;
+      final var bits = expressions.get(pin[i]);
+      outputs[out] = new BitSlicedExpression[bits.length];
+      for (var b = 0; b < bits.length; b++) {
+        if (bits[b] == null) return null;
+        outputs[out][b] = BitSlicedExpression.compile(bits[b], variables);
+        if (outputs[out][b].readsUnknownVariables()) return null;
+      }
+      out++;
+    }
+    return new BatchTester(vector, inputColumns, outputColumns, outputs);
+  }
+
+  /**
+   * Evaluates the rows <code>start</code> to <code>start + 63</code> of the vector (or up to the
+   * end of the vector) and returns a mask whose bit <code>k</code> is set if row <code>start + k
+   * </code> is known to pass. Rows whose bit is clear have to be checked by the simulator. Safe to
+   * call from several threads at once.
+   */
+  long run(int start) {
+    final var count = Math.min(LANES, vector.data.size() - start);
+    if (count <= 0) return 0L;
+    var decided = count == LANES ? -1L : (1L << count) - 1;
+
+    final var lanes = new long[laneCount];
+    for (var k = 0; k < count; k++) {
+      final var row = vector.data.get(start + k);
+      final var lane = 1L << k;
+      for (var i = 0; i < inputColumns.length; i++) {
+        final var v = row[inputColumns[i]];
+        if (!v.isFullyDefined()) {
+          decided &= ~lane;
+          continue;
+        }
+        var bits = v.toLongValue();
+        for (var b = inputBase[i]; bits != 0; b++, bits >>>= 1) {
+          if ((bits & 1) != 0) lanes[b] |= lane;
+        }
+      }
+    }
+
+    var failed = 0L;
+    for (var o = 0; o < outputColumns.length; o++) {
+      final var column = outputColumns[o];
+      final var bits = outputs[o];
+      for (var b = 0; b < bits.length; b++) {
+        var care = 0L;
+        var expected = 0L;
+        for (var k = 0; k < count; k++) {
+          final var v = vector.data.get(start + k)[column].get(b);
+          if (v == Value.TRUE) {
+            care |= 1L << k;
+            expected |= 1L << k;
+          } else if (v == Value.FALSE) {
+            care |= 1L << k;
+          } else if (v == Value.ERROR) {
+            decided &= ~(1L << k);
+          }
+        }
+        if (care == 0) continue;
+        failed |= care & (expected ^ bits[b].evaluate(lanes));
+      }
+    }
+    return decided & ~failed;
+  }
+}
@@ -15,26 +15,38 @@ import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.SubcircuitFactory;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.FailException;
 import com.cburch.logisim.data.TestException;
 import com.cburch.logisim.data.TestVector;
 import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TestThread extends UniquelyNamedThread implements CircuitListener {
+  /** Rows handed to a worker at a time, a multiple of the batch width. */
+  private static final int SHARD_SIZE = 4 * BatchTester.LANES;
 
   private final Project project;
   private final Circuit circuit;
   private final TestVector vector;
   private Instance[] pin;
+  private final BatchTester batch;
   private Model model;
-  private boolean canceled = false;
-  private boolean paused = false;
+  private volatile boolean canceled = false;
+  private volatile boolean paused = false;
 
   public TestThread(Model model) throws TestException {
     super("TestThread-Model");
@@ -45,6 +57,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.vector = model.getVector();
 
     matchPins();
+    batch = BatchTester.create(circuit, pin, vector);
 
     model.getCircuit().addCircuitListener(this);
   }
@@ -57,6 +70,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.vector = vec;
 
     matchPins();
+    batch = BatchTester.create(circuit, pin, vector);
   }
 
   // used only for automated testing via command line arguments
@@ -80,24 +94,26 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
     System.out.println(S.get("testRunning", Integer.toString(vec.data.size())));
 
-    int numPass = 0;
-    int numFail = 0;
-    for (int i = 0; i < vec.data.size(); i++) {
-      try {
-        System.out.print((i + 1) + " \r");
-        tester.test(i);
-        numPass++;
-      } catch (FailException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", Integer.toString(i + 1)));
-        for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
-        numFail++;
-      } catch (TestException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", (i + 1) + " " + e.getMessage()));
-        numFail++;
-      }
-    }
+    final var counts = new int[2]; // passed, failed
+    tester.testAll(
+        (i, result) -> {
+          System.out.print((i + 1) + " \r");
+          if (result == null) {
+            counts[0]++;
+          } else if (result instanceof FailException e) {
+            System.out.println();
+            System.err.println(S.get("testFailed", Integer.toString(i + 1)));
+            for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
+            counts[1]++;
+          } else {
+            System.out.println();
+            System.err.println(S.get("testFailed", (i + 1) + " " + result.getMessage()));
+            counts[1]++;
+          }
+          return true;
+        });
+    final var numPass = counts[0];
+    final var numFail = counts[1];
     System.out.println();
     System.out.println(S.get("testResults", Integer.toString(numPass), Integer.toString(numFail)));
     return 0;
@@ -146,32 +162,127 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   @Override
   public void run() {
     try {
-      for (int i = 0; i < vector.data.size() && !canceled; i++) {
-        while (paused) {
-          if (canceled) return;
-          try {
-            Thread.sleep(1000);
-          } catch (InterruptedException ignored) {
-          }
+      testAll(
+          (i, result) -> {
+            while (paused) {
+              if (canceled) return false;
+              try {
+                Thread.sleep(1000);
+              } catch (InterruptedException ignored) {
+              }
+            }
+            canceled = canceled || !model.setResult(vector, i, result);
+            return !canceled;
+          });
+    } finally {
+      model.stop();
+    }
+  }
+
+  /**
+   * Runs every row of the vector and hands the results to <code>handler</code> in row order, on
+   * the calling thread, until it returns false. When the batch tester applies, a pool of workers
+   * evaluates shards of rows 64 at a time ahead of the calling thread, which simulates only the
+   * rows the batch could not vouch for. Simulation stays on one thread and one root state of the
+   * circuit, since components record the state last created for them and the circuit's wire
+   * layout is shared; the project's circuit state is left untouched and the components point to
+   * their previous states once the run is over.
+   */
+  private void testAll(ResultHandler handler) {
+    final var saved = saveStatePointers(circuit, new HashMap<>());
+    final var state = new CircuitState(project, circuit);
+    try {
+      if (batch == null) {
+        for (var i = 0; i < vector.data.size(); i++) {
+          if (!handler.handle(i, simulate(state, i))) return;
+        }
+      } else {
+        testBatched(state, handler);
+      }
+    } finally {
+      saved.forEach(InstanceComponent::setInstanceStateImpl);
+    }
+  }
+
+  private void testBatched(CircuitState state, ResultHandler handler) {
+    final var count = vector.data.size();
+    final var shards = (count + SHARD_SIZE - 1) / SHARD_SIZE;
+    final var threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), shards));
+    final var pool =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              final var worker = new UniquelyNamedThread(r, "TestThread-Worker");
+              worker.setDaemon(true);
+              return worker;
+            });
+    final var pending = new ArrayDeque<Future<long[]>>();
+    try {
+      var submitted = 0;
+      for (var shard = 0; shard < shards; shard++) {
+        // keep a bounded number of shards in flight so a canceled run stops promptly
+        for (; submitted < shards && submitted < shard + 2 * threads; submitted++) {
+          final var start = submitted * SHARD_SIZE;
+          pending.add(pool.submit(() -> runShard(start)));
         }
-        try {
-          test(i);
-          canceled = canceled || !model.setResult(vector, i, null);
-        } catch (TestException e) {
-          canceled = canceled || !model.setResult(vector, i, e);
+        final var passed = pending.removeFirst().get();
+        final var start = shard * SHARD_SIZE;
+        final var end = Math.min(start + SHARD_SIZE, count);
+        for (var i = start; i < end; i++) {
+          final var lane = i - start;
+          final var bit = 1L << (lane % BatchTester.LANES);
+          final var result =
+              (passed[lane / BatchTester.LANES] & bit) != 0 ? null : simulate(state, i);
+          if (!handler.handle(i, result)) return;
         }
-        Thread.yield();
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
     } finally {
-      model.stop();
+      pool.shutdownNow();
+    }
+  }
+
+  /** Returns the rows of the shard the batch tester passed, one bit per row. */
+  private long[] runShard(int start) {
+    final var end = Math.min(start + SHARD_SIZE, vector.data.size());
+    final var ret = new long[(end - start + BatchTester.LANES - 1) / BatchTester.LANES];
+    for (var k = 0; k < ret.length; k++) {
+      ret[k] = batch.run(start + k * BatchTester.LANES);
+    }
+    return ret;
+  }
+
+  private TestException simulate(CircuitState state, int idx) {
+    try {
+      circuit.doTestVector(state, pin, vector.data.get(idx));
+      return null;
+    } catch (TestException e) {
+      return e;
+    }
+  }
+
+  /** Records the state each component of the circuit and its subcircuits currently points to. */
+  private static Map<InstanceComponent, InstanceStateImpl> saveStatePointers(
+      Circuit circuit, Map<InstanceComponent, InstanceStateImpl> saved) {
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp instanceof InstanceComponent instComp) || saved.containsKey(instComp)) continue;
+      saved.put(instComp, instComp.getInstanceStateImpl());
+      if (comp.getFactory() instanceof SubcircuitFactory sub) {
+        saveStatePointers(sub.getSubcircuit(), saved);
+      }
     }
+    return saved;
   }
 
   public void setPaused(boolean paused) {
     this.paused = paused;
   }
 
-  private void test(int idx) throws TestException {
-    circuit.doTestVector(project, pin, vector.data.get(idx));
+  private interface ResultHandler {
+    /** Receives the result of row <code>idx</code>, null if it passed; returns false to stop. */
+    boolean handle(int idx, TestException result);
   }
 }
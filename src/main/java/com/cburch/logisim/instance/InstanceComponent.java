@@ -305,6 +305,17 @@ public final class InstanceComponent implements Component, AttributeListener, To
     }
   }
 
+  private void fireBoundsChanged(Bounds oldBounds) {
+    final var listeners = this.listeners;
+    if (listeners != null) {
+      ComponentEvent e = null;
+      for (final var listener : listeners) {
+        if (e == null) e = new ComponentEvent(this, oldBounds, bounds);
+        listener.boundsChanged(e);
+      }
+    }
+  }
+
   void fireInvalidated() {
     final var listeners = this.listeners;
     if (listeners != null) {
@@ -416,7 +427,9 @@ public final class InstanceComponent implements Component, AttributeListener, To
 
   void recomputeBounds() {
     Location p = loc;
+    final var old = bounds;
     bounds = factory.getOffsetBounds(attrs).translate(p.getX(), p.getY());
+    if (!bounds.equals(old)) fireBoundsChanged(old);
   }
 
   @Override
@@ -152,7 +152,15 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
   }
 
   public final InstanceState createInstanceState(CircuitState state, Instance instance) {
-    return new InstanceStateImpl(state, instance.getComponent());
+    // the state last created for the component is the one it points to; reuse it if it matches
+    final var comp = instance.getComponent();
+    final var last = comp.getInstanceStateImpl();
+    if (last != null
+        && last.getCircuitState() == state
+        && last.getClass() == InstanceStateImpl.class) {
+      return last;
+    }
+    return new InstanceStateImpl(state, comp);
   }
 
   @Override
@@ -372,4 +380,15 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
   public boolean providesSubCircuitMenu() {
     return false;
   }
+
+  /**
+   * Returns whether the component keeps state that a clock or trigger input updates, so that a
+   * compiled simulation must evaluate it with the values from before the edge. By default these
+   * are the components having a trigger attribute; factories of other stateful, clocked
+   * components override this.
+   */
+  public boolean isSequential(AttributeSet attrs) {
+    return attrs.containsAttribute(StdAttr.TRIGGER)
+        || attrs.containsAttribute(StdAttr.EDGE_TRIGGER);
+  }
 }
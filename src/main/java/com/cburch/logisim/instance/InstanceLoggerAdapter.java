@@ -29,7 +29,10 @@ class InstanceLoggerAdapter implements LoggableContract {
     try {
       this.comp = comp;
       this.logger = loggerClass.getDeclaredConstructor().newInstance();
+      // this state is moved between circuit states, so leave the component pointing elsewhere
+      final var previous = comp.getInstanceStateImpl();
       this.state = new InstanceStateImpl(null, comp);
+      comp.setInstanceStateImpl(previous);
     } catch (Exception t) {
       final var className = loggerClass.getName();
       loggerS.error("Error while instantiating logger {}: {}", className, t.getClass().getName());
@@ -10,6 +10,7 @@
 package com.cburch.logisim.instance;
 
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.Propagator;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.Attribute;
@@ -26,7 +27,11 @@ public class InstanceStateImpl implements InstanceState {
     this.component = component;
 
     if (component instanceof InstanceComponent instComp) {
-      instComp.setInstanceStateImpl(this);
+      // sibling substates share their components, so during parallel propagation the last state
+      // is recorded once the substates are merged, in the order of the sequential engine
+      if (!Propagator.defer(() -> instComp.setInstanceStateImpl(this))) {
+        instComp.setInstanceStateImpl(this);
+      }
     }
   }
 
@@ -0,0 +1,80 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The address decoder of a SoC bus. The address ranges of the slaves are cut into segments at
+ * every start and end address, and every segment knows the slaves whose range covers it, so that
+ * the slaves that may answer a transaction are found with one binary search and no allocation.
+ * A decoder is immutable; the memory map builds a new one whenever its slaves or their ranges
+ * change.
+ */
+final class SocBusDecoder {
+  private static final SocBusSlaveInterface[] NO_SLAVES = new SocBusSlaveInterface[0];
+
+  private final long[] bounds; // segment i covers bounds[i] up to, not including, bounds[i + 1]
+  private final SocBusSlaveInterface[][] segments;
+
+  SocBusDecoder(List<SocBusSlaveInterface> slaves) {
+    final var starts = new long[slaves.size()];
+    final var ends = new long[slaves.size()];
+    final var edges = new long[2 * slaves.size()];
+    for (var i = 0; i < slaves.size(); i++) {
+      starts[i] = SocSupport.convUnsignedInt(slaves.get(i).getStartAddress());
+      ends[i] = starts[i] + SocSupport.convUnsignedInt(slaves.get(i).getMemorySize());
+      edges[2 * i] = starts[i];
+      edges[2 * i + 1] = ends[i];
+    }
+    bounds = Arrays.stream(edges).sorted().distinct().toArray();
+    segments = new SocBusSlaveInterface[Math.max(0, bounds.length - 1)][];
+    for (var s = 0; s < segments.length; s++) {
+      final var covering = new ArrayList<SocBusSlaveInterface>();
+      for (var i = 0; i < starts.length; i++) {
+        if (starts[i] <= bounds[s] && bounds[s] < ends[i]) covering.add(slaves.get(i));
+      }
+      segments[s] = covering.toArray(NO_SLAVES);
+    }
+  }
+
+  /**
+   * Returns the slaves whose address range contains the given address, in the order in which
+   * they were registered. The array must not be modified.
+   */
+  SocBusSlaveInterface[] getSlaves(int address) {
+    final var addr = SocSupport.convUnsignedInt(address);
+    var segment = Arrays.binarySearch(bounds, addr);
+    if (segment < 0) segment = -segment - 2;
+    return segment < 0 || segment >= segments.length ? NO_SLAVES : segments[segment];
+  }
+
+  /**
+   * Returns the slave that alone covers all <code>nrOfBytes</code> bytes from <code>address</code>
+   * on, or <code>null</code> if some of them belong to no slave or to several.
+   */
+  SocBusSlaveInterface getOnlySlave(int address, long nrOfBytes) {
+    final var start = SocSupport.convUnsignedInt(address);
+    final var end = start + nrOfBytes;
+    if (end > 1L << 32) return null; // the addresses wrap around
+    var segment = Arrays.binarySearch(bounds, start);
+    if (segment < 0) segment = -segment - 2;
+    if (segment < 0) return null;
+    SocBusSlaveInterface ret = null;
+    for (; bounds[segment] < end; segment++) {
+      if (segment >= segments.length || segments[segment].length != 1) return null;
+      if (ret == null) ret = segments[segment][0];
+      else if (ret != segments[segment][0]) return null;
+    }
+    return ret;
+  }
+}
@@ -13,10 +13,26 @@ import com.cburch.logisim.instance.InstanceComponent;
 
 public interface SocBusSlaveInterface {
 
+  /**
+   * Returns whether this slave answers the transaction. A slave may only answer addresses in the
+   * range given by {@link #getStartAddress()} and {@link #getMemorySize()}, and has to tell its
+   * listeners when that range changes, since the bus decodes addresses from these ranges.
+   */
   boolean canHandleTransaction(SocBusTransaction trans);
 
   void handleTransaction(SocBusTransaction trans);
 
+  /**
+   * Reads <code>count</code> consecutive words starting at <code>address</code> into the array,
+   * from <code>offset</code> on, giving the same data as hidden word read transactions would, and
+   * returns whether it did. The bus only asks for ranges that lie in the range of this
+   * slave alone. Slaves that cannot read in bulk return <code>false</code> and are read word by
+   * word.
+   */
+  default boolean readWords(int address, int[] dest, int offset, int count) {
+    return false;
+  }
+
   Integer getStartAddress();
 
   Integer getMemorySize();
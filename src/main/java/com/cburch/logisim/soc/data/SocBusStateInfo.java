@@ -239,6 +239,16 @@ public class SocBusStateInfo extends JDialog
     return memMap.getSlaves();
   }
 
+  /**
+   * Reads consecutive words in bulk if they all belong to a single slave that supports it, see
+   * {@link SocBusSlaveInterface#readWords}. Like a hidden transaction, this is neither sniffed
+   * nor traced.
+   */
+  public boolean readWords(int address, int[] dest, int offset, int count) {
+    final var slave = memMap.getDecoder().getOnlySlave(address, 4L * count);
+    return slave != null && slave.readWords(address, dest, offset, count);
+  }
+
   @Override
   public String getName() {
     var name = myComp.getAttributeSet().getValue(StdAttr.LABEL);
@@ -263,7 +273,7 @@ public class SocBusStateInfo extends JDialog
 
   public void initializeTransaction(SocBusTransaction trans, String busId) {
     int nrOfReponders = 0;
-    int reponder = -1;
+    SocBusSlaveInterface reponder = null;
     final var slaves = memMap.getSlaves();
     if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
@@ -271,18 +281,19 @@ public class SocBusStateInfo extends JDialog
         && !trans.isAtomicTransaction()) {
       trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     } else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
+      // only the slaves whose memory range holds the address can handle the transaction
+      for (final var slave : memMap.getDecoder().getSlaves(trans.getAddress())) {
+        if (slave.canHandleTransaction(trans)) {
           nrOfReponders++;
-          reponder = i;
+          reponder = slave;
         }
       }
       if (nrOfReponders == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
       else if (nrOfReponders != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else slaves.get(reponder).handleTransaction(trans);
+      else reponder.handleTransaction(trans);
     }
     if (!trans.hasError() && !trans.isHidden()) {
-      for (SocBusSnifferInterface sniffer : sniffers) sniffer.sniffTransaction(trans);
+      for (int i = 0; i < sniffers.size(); i++) sniffers.get(i).sniffTransaction(trans);
     }
     if (!trans.isHidden()) {
       final var data = getRegPropagateState();
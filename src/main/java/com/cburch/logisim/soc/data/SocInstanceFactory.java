@@ -74,4 +74,9 @@ public abstract class SocInstanceFactory extends InstanceFactory {
   public abstract SocBusSnifferInterface getSnifferInterface(AttributeSet attrs);
 
   public abstract SocProcessorInterface getProcessorInterface(AttributeSet attrs);
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
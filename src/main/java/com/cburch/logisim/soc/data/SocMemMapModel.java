@@ -203,6 +203,7 @@ public class SocMemMapModel extends AbstractTableModel
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
   private InstanceComponent marked;
+  private volatile SocBusDecoder decoder; // built and dropped holding this, so it is never stale
 
   public SocMemMapModel() {
     super();
@@ -216,25 +217,38 @@ public class SocMemMapModel extends AbstractTableModel
   }
 
   public void registerSocBusSlave(SocBusSlaveInterface slave) {
-    if (!slaves.contains(slave)) {
+    synchronized (this) {
+      if (slaves.contains(slave)) return;
       slaves.add(slave);
-      slave.registerListener(this);
-      rebuild();
+      decoder = null;
     }
+    slave.registerListener(this);
+    rebuild();
   }
 
   public void removeSocBusSlave(SocBusSlaveInterface slave) {
-    if (slaves.contains(slave)) {
-      slaves.remove(slave);
-      slave.removeListener(this);
-      rebuild();
+    synchronized (this) {
+      if (!slaves.remove(slave)) return;
+      decoder = null;
     }
+    slave.removeListener(this);
+    rebuild();
   }
 
   public List<SocBusSlaveInterface> getSlaves() {
     return slaves;
   }
 
+  SocBusDecoder getDecoder() {
+    final var ret = decoder;
+    if (ret != null) return ret;
+    synchronized (this) {
+      // a change of the slaves drops the decoder only once a build that started before it is done
+      if (decoder == null) decoder = new SocBusDecoder(slaves);
+      return decoder;
+    }
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -285,6 +299,9 @@ public class SocMemMapModel extends AbstractTableModel
   }
 
   private void rebuild() {
+    synchronized (this) {
+      decoder = null;
+    }
     slaveMap.clear();
     if (slaves.isEmpty())
       slaveMap.add(new SlaveInfo(0, -1));
@@ -240,6 +240,24 @@ public class SocSimulationManager implements SocBusMasterInterface {
       trans.setError(SocBusTransaction.NO_SOC_BUS_CONNECTED_ERROR);
       return;
     }
+    if (!toBeChecked.isEmpty()) registerPending();
+    info.initializeTransaction(trans, busId);
+  }
+
+  /**
+   * Reads <code>count</code> consecutive words from the given bus into <code>dest</code> in one go
+   * and returns whether it could; if not, the words have to be read by hidden transactions.
+   */
+  public boolean readWords(
+      String busId, int address, int[] dest, int offset, int count, CircuitState cState) {
+    state = cState;
+    final var info = socBusses.get(busId);
+    if (info == null || info.getComponent() == null) return false;
+    if (!toBeChecked.isEmpty()) registerPending();
+    return info.readWords(address, dest, offset, count);
+  }
+
+  private void registerPending() {
     final var iter = toBeChecked.iterator();
     while (iter.hasNext()) {
       final var comp = iter.next();
@@ -258,7 +276,6 @@ public class SocSimulationManager implements SocBusMasterInterface {
       }
       iter.remove();
     }
-    info.initializeTransaction(trans, busId);
   }
 
 }
@@ -10,8 +10,9 @@
 package com.cburch.logisim.soc.data;
 
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.CpuCounters;
+import com.cburch.logisim.soc.util.InstructionTrace;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import javax.swing.JPanel;
 
 public interface SocUpStateInterface {
@@ -25,7 +26,9 @@ public interface SocUpStateInterface {
 
   int getProgramCounter();
 
-  LinkedList<TraceInfo> getTraces();
+  InstructionTrace getTraces();
+
+  CpuCounters getCounters();
 
   void simButtonPressed();
 
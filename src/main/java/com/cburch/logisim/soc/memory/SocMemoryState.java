@@ -78,6 +78,16 @@ public class SocMemoryState implements SocBusSlaveInterface {
         return contents.get(index);
       }
 
+      public void readWords(int address, int[] dest, int offset, int count) {
+        final long from = Math.max(address, startAddress);
+        final long to = Math.min(address + 4L * count, getEndAddress());
+        if (from >= to) return;
+        final var iter = contents.listIterator((int) ((from - startAddress) >> 2));
+        for (var addr = from; addr < to; addr += 4) {
+          dest[offset + (int) ((addr - address) >> 2)] = iter.next();
+        }
+      }
+
       public int getStartAddress() {
         return startAddress;
       }
@@ -108,6 +118,22 @@ public class SocMemoryState implements SocBusSlaveInterface {
       return rand.nextInt();
     }
 
+    /**
+     * Reads <code>count</code> words from the word aligned <code>address</code> on, as that many
+     * calls of {@link #getWord(int)} would, but walks every block only once.
+     */
+    public void readWords(int address, int[] dest, int offset, int count) {
+      final var wrap = (int) Math.min(count, (((long) Integer.MAX_VALUE + 1) - address) >> 2);
+      if (wrap < count) {
+        // the blocks compare addresses signed, so the part beyond 0x7FFFFFFC is read on its own
+        readWords(address, dest, offset, wrap);
+        readWords(address + 4 * wrap, dest, offset + wrap, count - wrap);
+        return;
+      }
+      for (var i = 0; i < count; i++) dest[offset + i] = rand.nextInt();
+      for (final var info : memInfo) info.readWords(address, dest, offset, count);
+    }
+
     public void writeWord(int address, int wdata) {
       final var adders = new ArrayList<SocMemoryInfoBlock>();
       for (final var info : memInfo) {
@@ -263,6 +289,17 @@ public class SocMemoryState implements SocBusSlaveInterface {
     trans.setTransactionResponder(attachedBus.getComponent());
   }
 
+  @Override
+  public boolean readWords(int address, int[] dest, int offset, int count) {
+    final var data = getRegPropagateState();
+    if (data == null) {
+      for (var i = 0; i < count; i++) dest[offset + i] = rand.nextInt();
+    } else {
+      data.readWords((address >> 2) << 2, dest, offset, count);
+    }
+    return true;
+  }
+
   private SocMemoryInfo getRegPropagateState() {
     return (SocMemoryInfo) attachedBus.getSocSimulationManager().getdata(attachedBus.getComponent());
   }
@@ -458,4 +458,8 @@ public class Nios2ArithmeticAndLogicalInstructions implements AssemblerExecution
     return -1;
   }
 
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(OpcCodes, OpxCodes);
+  }
+
 }
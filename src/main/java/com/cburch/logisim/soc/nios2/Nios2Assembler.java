@@ -19,7 +19,7 @@ public class Nios2Assembler extends AbstractAssembler {
   public static final int CONTROL_REGISTER = 257;
 
   public Nios2Assembler() {
-    super();
+    super(Nios2Support.NR_OF_DISPATCH_KEYS, Nios2Support::getDispatchKey);
     super.addAcceptedParameterType(CUSTOM_REGISTER);
     super.addAcceptedParameterType(CONTROL_REGISTER);
     /* Add the custom instructions */
@@ -348,4 +348,8 @@ public class Nios2ComparisonInstructions implements AssemblerExecutionInterface
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(OpcCodes, OpxCodes);
+  }
 }
@@ -209,4 +209,8 @@ public class Nios2CustomInstructions implements AssemblerExecutionInterface {
     if (instruction.equalsIgnoreCase("custom")) return 4;
     return -1;
   }
+
+  public int[] getDispatchKeys() {
+    return new int[] {CUSTOM};
+  }
 }
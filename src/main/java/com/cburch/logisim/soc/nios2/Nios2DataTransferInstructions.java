@@ -265,4 +265,9 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(OpcCodes, null);
+  }
+
 }
@@ -367,4 +367,8 @@ public class Nios2OtherControlInstructions implements AssemblerExecutionInterfac
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(OpcCodes, OpxCodes);
+  }
 }
@@ -405,6 +405,11 @@ public class Nios2ProgramControlInstructions implements AbstractExecutionUnitWit
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(OpcCodes, OpxCodes);
+  }
+
   @Override
   public boolean isLabelSupported() {
     return operation >= INSTR_CALL;
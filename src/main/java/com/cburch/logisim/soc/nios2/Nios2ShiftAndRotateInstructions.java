@@ -199,4 +199,8 @@ public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterf
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  public int[] getDispatchKeys() {
+    return Nios2Support.getDispatchKeys(null, OpxCodes);
+  }
 }
@@ -30,13 +30,16 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.CpuCounters;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
+import com.cburch.logisim.soc.util.InstructionTrace;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -44,7 +47,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -65,7 +67,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private int ienable;
     private int ipending;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTrace instrTrace;
+    private final CpuCounters counters = new CpuCounters();
+    private final DecodedInstructionCache decodeCache =
+        new DecodedInstructionCache(ASSEMBLER, DECODE_CACHE_SIZE);
+    private AssemblerExecutionInterface lastExecuted;
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -77,7 +83,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTrace(CpuDrawSupport.NR_OF_TRACES);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -122,6 +128,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       ienable = 0;
       ipending = 0;
       instrTrace.clear();
+      counters.reset();
       if (visible) repaint();
       simState.reset();
     }
@@ -279,8 +286,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       /* check the simulation state */
       if (!simState.canExecute()) return;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions cust) {
-        if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
+      if (lastExecuted instanceof Nios2CustomInstructions cust) {
+        if (cust.isValid() && cust.waitingOnReady(this, cState)) {
+          counters.stalled();
+          return;
+        }
       }
       Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
@@ -306,6 +316,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       /* fetch an instruction */
       SocBusTransaction trans =
           new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
+      counters.busTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
@@ -320,12 +331,10 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       }
       /* decode instruction */
       final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      final var exe = decodeCache.decode(pc, instruction);
+      lastExecuted = exe;
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
-        instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -333,12 +342,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true);
         pc = pc + 4;
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      final var asm = decodeCache.getAsmInstruction();
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -350,12 +359,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.add(pc, instruction, asm, true);
         if (visible) repaint();
         return;
       }
-      instrTrace.addFirst(trace);
+      instrTrace.add(pc, instruction, asm, false);
+      counters.instructionExecuted();
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
@@ -372,6 +381,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
 
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
+      counters.busTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
@@ -437,10 +447,15 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTrace getTraces() {
       return instrTrace;
     }
 
+    @Override
+    public CpuCounters getCounters() {
+      return counters;
+    }
+
     @Override
     public WindowListener getWindowListener() {
       return this;
@@ -480,6 +495,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
   private final SocBusInfo attachedBus;
 
   public static final AssemblerInterface ASSEMBLER = new Nios2Assembler();
+  private static final int DECODE_CACHE_SIZE = 4096;
   public static final String[] registerABINames = {
       "zero", "at", "r2", "r3", "r4", "r5", "r6", "r7",
       "r8", "r9", "r10", "r11", "r12", "r13", "r14", "r15",
@@ -13,10 +13,13 @@ import static com.cburch.logisim.soc.Strings.S;
 
 import com.cburch.logisim.soc.util.AssemblerAsmInstruction;
 import com.cburch.logisim.soc.util.AssemblerToken;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Nios2Support {
 
   public static final int ASM_FIELD_SIZE = 10;
+  public static final int NR_OF_DISPATCH_KEYS = 0x80;
 
   public static final int I_TYPE = 0;
   public static final int R_TYPE = 1;
@@ -69,6 +72,39 @@ public class Nios2Support {
     return 0;
   }
 
+  /**
+   * Returns the dispatch key of an instruction, see {@link
+   * com.cburch.logisim.soc.util.InstructionDispatcher}: the opcode, or for R-type instructions
+   * the OPX code above the opcodes.
+   */
+  public static int getDispatchKey(int instruction) {
+    final var opcode = getOpcode(instruction);
+    return opcode == 0x3A ? 0x40 | getOPXCode(instruction, R_TYPE) : opcode;
+  }
+
+  /**
+   * Returns the dispatch keys of the instructions in the opcode and OPX code tables of an execution
+   * unit. One of the tables may be <code>null</code>: without opcodes all instructions are R-type,
+   * without OPX codes none is. Entries that are no real codes, like the ones of pseudo
+   * instructions, are left out.
+   */
+  public static int[] getDispatchKeys(List<Integer> opcodes, List<Integer> opxCodes) {
+    final var size = opcodes != null ? opcodes.size() : opxCodes.size();
+    final var keys = new ArrayList<Integer>();
+    for (var i = 0; i < size; i++) {
+      final int opcode = opcodes != null ? opcodes.get(i) : 0x3A;
+      final int key;
+      if (opcode == 0x3A) {
+        final int opx = opxCodes != null ? opxCodes.get(i) : -1;
+        key = opx >= 0 && opx < 0x40 ? 0x40 | opx : -1;
+      } else {
+        key = opcode >= 0 && opcode < 0x40 ? opcode : -1;
+      }
+      if (key >= 0 && !keys.contains(key)) keys.add(key);
+    }
+    return keys.stream().mapToInt(Integer::intValue).toArray();
+  }
+
   public static int getOPXImm(int instruction, int type) {
     if (type == R_TYPE) {
       return (instruction >> 6) & 0x1F;
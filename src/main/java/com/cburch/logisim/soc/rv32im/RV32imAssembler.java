@@ -16,7 +16,7 @@ import java.util.LinkedList;
 public class RV32imAssembler extends AbstractAssembler {
 
   public RV32imAssembler() {
-    super();
+    super(RV32imSupport.NR_OF_OPCODES, RV32imSupport::getOpcode);
     /* Here we add the RV32I base integer instruction set */
     super.addAssemblerExecutionUnit(new RV32imIntegerRegisterImmediateInstructions());
     super.addAssemblerExecutionUnit(new RV32imIntegerRegisterRegisterOperations());
@@ -294,6 +294,11 @@ public class RV32imControlTransferInstructions implements AbstractExecutionUnitW
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {JAL, JALR, BRANCH};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
@@ -92,6 +92,11 @@ public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionIn
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {SYSTEM};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
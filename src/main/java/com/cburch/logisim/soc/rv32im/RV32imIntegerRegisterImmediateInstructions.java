@@ -256,6 +256,11 @@ public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExec
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {OP_IMM, LUI, AUIPC};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
@@ -194,6 +194,11 @@ public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecuti
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {OP};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
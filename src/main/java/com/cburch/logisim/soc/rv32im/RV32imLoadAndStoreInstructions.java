@@ -217,6 +217,11 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {LOAD, STORE};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
@@ -31,13 +31,15 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.CpuCounters;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
+import com.cburch.logisim.soc.util.InstructionTrace;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -45,7 +47,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -63,7 +64,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private final Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTrace instrTrace;
+    private final CpuCounters counters = new CpuCounters();
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -71,11 +73,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodeCache =
+        new DecodedInstructionCache(ASSEMBLER, DECODE_CACHE_SIZE);
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTrace(CpuDrawSupport.NR_OF_TRACES);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -121,6 +125,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       lastRegisterWritten = -1;
       instrTrace.clear();
+      counters.reset();
       if (visible) repaint();
       simState.reset();
     }
@@ -140,7 +145,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     public void setClock(Value clock, CircuitState cState) {
-      if (lastClock == Value.FALSE && clock == Value.TRUE) execute(cState);
+      if (lastClock == Value.FALSE && clock == Value.TRUE) {
+        // while nobody watches the trace, a clock edge may run a block of instructions
+        final var count = visible ? 1 : instructionsPerClock;
+        for (var i = 0; i < count; i++) {
+          if (!executeInstruction(cState)) break;
+        }
+      }
       lastClock = clock;
     }
 
@@ -201,8 +212,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     public void execute(CircuitState cState) {
+      executeInstruction(cState);
+    }
+
+    /** Executes one instruction and returns whether the processor may go on with the next. */
+    private boolean executeInstruction(CircuitState cState) {
       /* check the simulation state */
-      if (!simState.canExecute()) return;
+      if (!simState.canExecute()) return false;
       final var breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
         if (simState.breakPointReached()) {
@@ -212,7 +228,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
               S.get("RV32imBreakPointReached"),
               SocSupport.getMasterName(cState, RV32imState.this.getName()),
               OptionPane.INFORMATION_MESSAGE);
-          return;
+          return false;
         }
       }
       /* TODO: check interrupts */
@@ -224,6 +240,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
               0,
               SocBusTransaction.WORD_ACCESS,
               attachedBus.getComponent());
+      counters.busTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
@@ -235,15 +252,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        return;
+        return false;
       }
       /* decode instruction */
       int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      final var exe = decodeCache.decode(pc, instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES) instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -252,12 +267,12 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true);
         pc = pc + 4;
         if (visible) repaint();
-        return;
+        return false;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      final var asm = decodeCache.getAsmInstruction();
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -269,15 +284,16 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.add(pc, instruction, asm, true);
         if (visible) repaint();
-        return;
+        return false;
       }
-      instrTrace.addFirst(trace);
+      instrTrace.add(pc, instruction, asm, false);
+      counters.instructionExecuted();
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
+      return true;
     }
 
     @Override
@@ -291,6 +307,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
+      counters.busTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
@@ -350,10 +367,15 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTrace getTraces() {
       return instrTrace;
     }
 
+    @Override
+    public CpuCounters getCounters() {
+      return counters;
+    }
+
     @Override
     public WindowListener getWindowListener() {
       return this;
@@ -388,10 +410,12 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
   private int resetVector;
   private int exceptionVector;
   private int nrOfIrqs;
+  private int instructionsPerClock;
   private String label;
   private final SocBusInfo attachedBus;
 
   public static final AssemblerInterface ASSEMBLER = new RV32imAssembler();
+  private static final int DECODE_CACHE_SIZE = 4096;
   public static final String[] registerABINames = {
     "zero", "ra", "sp", "gp", "tp", "t0", "t1", "t2", "s0", "s1", "a0", "a1", "a2", "a3", "a4",
     "a5", "a6", "a7", "s2", "s3", "s4", "s5", "s6", "s7", "s8", "s9", "s10", "s11", "t3", "t4",
@@ -418,6 +442,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     resetVector = 0;
     exceptionVector = 0x14;
     nrOfIrqs = 0;
+    instructionsPerClock = 1;
     label = "";
     attachedBus = new SocBusInfo("");
   }
@@ -426,6 +451,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     dest.resetVector = resetVector;
     dest.exceptionVector = exceptionVector;
     dest.nrOfIrqs = nrOfIrqs;
+    dest.instructionsPerClock = instructionsPerClock;
     dest.label = label;
     dest.attachedBus.setBusId(attachedBus.getBusId());
   }
@@ -472,6 +498,16 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     return nrOfIrqs;
   }
 
+  public boolean setInstructionsPerClock(int value) {
+    if (instructionsPerClock == value) return false;
+    instructionsPerClock = value;
+    return true;
+  }
+
+  public Integer getInstructionsPerClock() {
+    return instructionsPerClock;
+  }
+
   public boolean setLabel(String value) {
     if (label.equals(value)) return false;
     label = value;
@@ -11,6 +11,7 @@ package com.cburch.logisim.soc.rv32im;
 
 public class RV32imSupport {
   public static final int ASM_FIELD_SIZE = 10;
+  public static final int NR_OF_OPCODES = 0x80;
 
   public static final int R_TYPE = 0;
   public static final int I_TYPE = 1;
@@ -155,6 +155,11 @@ public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterfa
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {OP};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
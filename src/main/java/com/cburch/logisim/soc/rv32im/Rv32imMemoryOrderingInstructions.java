@@ -120,6 +120,11 @@ public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInter
     return -1;
   }
 
+  @Override
+  public int[] getDispatchKeys() {
+    return new int[] {FENCE};
+  }
+
   @Override
   public boolean setAsmInstruction(AssemblerAsmInstruction instr) {
     int operation = -1;
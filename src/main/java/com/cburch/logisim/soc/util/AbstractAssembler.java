@@ -24,14 +24,29 @@ import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.function.IntUnaryOperator;
 
 public abstract class AbstractAssembler implements AssemblerInterface {
 
   private static final int nrOfBytesPerLine = 16;
   private final ArrayList<AssemblerExecutionInterface> exeUnits = new ArrayList<>();
   private final HashSet<Integer> acceptedParameterTypes;
+  private final InstructionDispatcher dispatcher;
 
   public AbstractAssembler() {
+    this(new InstructionDispatcher());
+  }
+
+  /**
+   * Creates an assembler whose {@link #decodeInstruction(int)} looks up the execution units by the
+   * given dispatch key function, see {@link InstructionDispatcher}.
+   */
+  public AbstractAssembler(int nrOfDispatchKeys, IntUnaryOperator dispatchKey) {
+    this(new InstructionDispatcher(nrOfDispatchKeys, dispatchKey));
+  }
+
+  private AbstractAssembler(InstructionDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
     acceptedParameterTypes = new HashSet<>();
     acceptedParameterTypes.add(AssemblerToken.BRACKETED_REGISTER);
     acceptedParameterTypes.add(AssemblerToken.DEC_NUMBER);
@@ -55,6 +70,7 @@ public abstract class AbstractAssembler implements AssemblerInterface {
 
   public void addAssemblerExecutionUnit(AssemblerExecutionInterface exe) {
     exeUnits.add(exe);
+    dispatcher.addUnit(exe);
   }
 
   @Override
@@ -63,6 +79,11 @@ public abstract class AbstractAssembler implements AssemblerInterface {
       exe.setBinInstruction(instruction);
   }
 
+  @Override
+  public AssemblerExecutionInterface decodeInstruction(int instruction) {
+    return dispatcher.decode(instruction);
+  }
+
   @Override
   public AssemblerExecutionInterface getExeUnit() {
     for (AssemblerExecutionInterface exe : exeUnits)
@@ -32,4 +32,13 @@ public interface AssemblerExecutionInterface {
   ArrayList<String> getInstructions();
 
   int getInstructionSizeInBytes(String instruction);
+
+  /**
+   * Returns the dispatch keys of the binary instructions this unit may recognize, as defined by
+   * the key function of its assembler, or <code>null</code> if every instruction has to be offered
+   * to it. Declaring more keys than needed only costs time; missing one breaks the decoding.
+   */
+  default int[] getDispatchKeys() {
+    return null;
+  }
 }
@@ -21,6 +21,16 @@ import java.util.LinkedList;
 public interface AssemblerInterface {
   void decode(int instruction);
 
+  /**
+   * Decodes an instruction for execution and returns the unit that recognizes it, if any. Unlike
+   * {@link #decode(int)} this may leave other units untouched, so {@link #getExeUnit()} does not
+   * have to reflect the instruction afterwards.
+   */
+  default AssemblerExecutionInterface decodeInstruction(int instruction) {
+    decode(instruction);
+    return getExeUnit();
+  }
+
   boolean assemble(AssemblerAsmInstruction instruction);
 
   AssemblerExecutionInterface getExeUnit();
@@ -0,0 +1,53 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+/**
+ * Performance counters of a simulated processor core: the instructions it executed, the bus
+ * transactions it started (instruction fetches and data accesses) and the clock edges on which it
+ * stalled waiting for something else. The counters are reset together with the processor.
+ *
+ * <p>Only the simulation thread counts; other threads may read slightly outdated values.
+ */
+public class CpuCounters {
+  private volatile long instructions;
+  private volatile long busTransactions;
+  private volatile long stalls;
+
+  public void instructionExecuted() {
+    instructions++;
+  }
+
+  public void busTransaction() {
+    busTransactions++;
+  }
+
+  public void stalled() {
+    stalls++;
+  }
+
+  public long getInstructions() {
+    return instructions;
+  }
+
+  public long getBusTransactions() {
+    return busTransactions;
+  }
+
+  public long getStalls() {
+    return stalls;
+  }
+
+  public void reset() {
+    instructions = 0;
+    busTransactions = 0;
+    stalls = 0;
+  }
+}
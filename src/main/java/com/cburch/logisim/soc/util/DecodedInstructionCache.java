@@ -0,0 +1,76 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+/**
+ * A direct mapped cache of decoded instructions for a processor simulation, keyed by the address
+ * the instruction was fetched from. On a hit only the execution unit that recognized the
+ * instruction before is loaded with it, without looking the unit up again, and its assembly text
+ * is not built again. Misses are decoded by {@link AssemblerInterface#decodeInstruction(int)}.
+ *
+ * <p>An entry also remembers the instruction word it was decoded from and is only used if the
+ * word just fetched is the same, so code that is overwritten (self-modifying code, a program
+ * loaded anew) is decoded again without the cache having to watch the bus for writes.
+ */
+public class DecodedInstructionCache {
+  private final AssemblerInterface assembler;
+  private final int mask;
+  private final int[] addresses;
+  private final int[] words;
+  private final AssemblerExecutionInterface[] units;
+  private final String[] asm;
+  private int lastSlot = -1;
+
+  /** Creates a cache with <code>size</code> entries, which has to be a power of two. */
+  public DecodedInstructionCache(AssemblerInterface assembler, int size) {
+    this.assembler = assembler;
+    mask = size - 1;
+    addresses = new int[size];
+    words = new int[size];
+    units = new AssemblerExecutionInterface[size];
+    asm = new String[size];
+  }
+
+  /**
+   * Decodes the instruction fetched from the given address and returns the execution unit that
+   * now holds it, or <code>null</code> if no unit recognizes it.
+   */
+  public AssemblerExecutionInterface decode(int address, int instruction) {
+    final var slot = (address >>> 2) & mask;
+    var unit = units[slot];
+    if (unit != null && addresses[slot] == address && words[slot] == instruction) {
+      unit.setBinInstruction(instruction);
+      lastSlot = slot;
+      return unit;
+    }
+    unit = assembler.decodeInstruction(instruction);
+    if (unit == null) {
+      units[slot] = null;
+      lastSlot = -1;
+      return null;
+    }
+    addresses[slot] = address;
+    words[slot] = instruction;
+    units[slot] = unit;
+    asm[slot] = null;
+    lastSlot = slot;
+    return unit;
+  }
+
+  /** Returns the assembly text of the instruction decoded last, which must have been valid. */
+  public String getAsmInstruction() {
+    var ret = asm[lastSlot];
+    if (ret == null) {
+      ret = units[lastSlot].getAsmInstruction();
+      asm[lastSlot] = ret;
+    }
+    return ret;
+  }
+}
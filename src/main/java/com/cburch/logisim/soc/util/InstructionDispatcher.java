@@ -0,0 +1,72 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Finds the execution unit of a binary instruction through a table indexed by a dispatch key,
+ * usually the opcode field of the instruction. Every key holds the units that declared it (see
+ * {@link AssemblerExecutionInterface#getDispatchKeys()}) in the order the units were added, so
+ * an instruction is only offered to the units that may recognize it instead of to every unit of
+ * the processor, and the first unit that accepts it wins as it does when all units are probed.
+ */
+public final class InstructionDispatcher {
+  private static final AssemblerExecutionInterface[] NO_UNITS = new AssemblerExecutionInterface[0];
+
+  private final IntUnaryOperator keyFunction;
+  private final AssemblerExecutionInterface[][] table;
+
+  /** Creates a dispatcher with a single key, which offers every instruction to every unit. */
+  public InstructionDispatcher() {
+    this(1, instruction -> 0);
+  }
+
+  /**
+   * Creates a dispatcher for <code>nrOfKeys</code> keys; <code>keyFunction</code> maps an
+   * instruction to its key, which has to lie between 0 and <code>nrOfKeys - 1</code>.
+   */
+  public InstructionDispatcher(int nrOfKeys, IntUnaryOperator keyFunction) {
+    this.keyFunction = keyFunction;
+    table = new AssemblerExecutionInterface[nrOfKeys][];
+    Arrays.fill(table, NO_UNITS);
+  }
+
+  /** Adds a unit behind the units added before, under the keys it declares. */
+  public void addUnit(AssemblerExecutionInterface unit) {
+    final var keys = unit.getDispatchKeys();
+    if (keys == null) {
+      for (var key = 0; key < table.length; key++) addUnit(key, unit);
+    } else {
+      for (final var key : keys) addUnit(key, unit);
+    }
+  }
+
+  private void addUnit(int key, AssemblerExecutionInterface unit) {
+    final var units = table[key];
+    for (final var exe : units) if (exe == unit) return;
+    final var extended = Arrays.copyOf(units, units.length + 1);
+    extended[units.length] = unit;
+    table[key] = extended;
+  }
+
+  /**
+   * Loads the instruction into the units of its key until one recognizes it, and returns that
+   * unit, or <code>null</code> if none does. Units of other keys are not touched.
+   */
+  public AssemblerExecutionInterface decode(int instruction) {
+    for (final var exe : table[keyFunction.applyAsInt(instruction)]) {
+      exe.setBinInstruction(instruction);
+      if (exe.isValid()) return exe;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import com.cburch.logisim.soc.data.TraceInfo;
+
+/**
+ * The trace of the last instructions executed by a processor, kept in a ring buffer of primitive
+ * records so that recording an instruction neither allocates nor unlinks anything. The assembly
+ * text is stored by reference, it normally comes from a {@link DecodedInstructionCache}.
+ *
+ * <p>The processor records from the simulation thread while the trace is painted from the event
+ * thread, hence all methods are synchronized.
+ */
+public class InstructionTrace {
+  private final int[] pcs;
+  private final int[] instructions;
+  private final String[] asm;
+  private final boolean[] errors;
+  private int newest = -1;
+  private int size = 0;
+
+  /** Creates a trace that holds the last <code>capacity</code> instructions. */
+  public InstructionTrace(int capacity) {
+    pcs = new int[capacity];
+    instructions = new int[capacity];
+    asm = new String[capacity];
+    errors = new boolean[capacity];
+  }
+
+  /** Records an instruction, dropping the oldest one if the trace is full. */
+  public synchronized void add(int pc, int instruction, String asmInstruction, boolean error) {
+    newest = (newest + 1) % pcs.length;
+    pcs[newest] = pc;
+    instructions[newest] = instruction;
+    asm[newest] = asmInstruction;
+    errors[newest] = error;
+    if (size < pcs.length) size++;
+  }
+
+  public synchronized void clear() {
+    newest = -1;
+    size = 0;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int slot(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+    return Math.floorMod(newest - index, pcs.length);
+  }
+
+  /** Returns the program counter of an instruction; index 0 is the instruction recorded last. */
+  public synchronized int getProgramCounter(int index) {
+    return pcs[slot(index)];
+  }
+
+  public synchronized int getInstruction(int index) {
+    return instructions[slot(index)];
+  }
+
+  public synchronized String getAsmInstruction(int index) {
+    return asm[slot(index)];
+  }
+
+  public synchronized boolean hasError(int index) {
+    return errors[slot(index)];
+  }
+
+  /** Returns the recorded instructions for painting, the one recorded last first. */
+  public synchronized TraceInfo[] getTraceInfos() {
+    final var ret = new TraceInfo[size];
+    for (var i = 0; i < size; i++) {
+      final var s = slot(i);
+      ret[i] = new TraceInfo(pcs[s], instructions[s], asm[s], errors[s]);
+    }
+    return ret;
+  }
+}
@@ -25,6 +25,7 @@ import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
 
 public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, SocBusMasterInterface {
@@ -34,6 +35,7 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     private int mode, lineSize, nrOfLines;
     private boolean modeSetBySoftware = false;
     private BufferedImage myImage;
+    private int[] pixels;
     private boolean reload = true;
 
     public VgaDisplayState() {
@@ -62,10 +64,9 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
       return myImage;
     }
 
-    public boolean sizeChanged(boolean initialSize) {
+    public synchronized boolean sizeChanged(boolean initialSize) {
       if (initialSize && modeSetBySoftware)
         return false;
-      clear();
       switch (getMode()) {
         case VgaAttributes.MODE_160_120 -> {
           lineSize = 160;
@@ -89,6 +90,8 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
         }
       }
       myImage = new BufferedImage(lineSize, nrOfLines, BufferedImage.TYPE_INT_RGB);
+      pixels = ((DataBufferInt) myImage.getRaster().getDataBuffer()).getData();
+      clear();
       return true;
     }
 
@@ -99,10 +102,19 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
         return myImage.getHeight() * myImage.getWidth();
     }
 
-    public void clear() {
+    /** Has the whole image read from memory again before it is shown next. */
+    public synchronized void clear() {
       reload = true;
     }
 
+    /**
+     * Shows a write to the frame buffer at pixel <code>index</code>; the mask selects the bits of
+     * the pixel's word that were written.
+     */
+    public void setPixel(int index, int mask, int data) {
+      pixels[index] = ((pixels[index] & ~mask) | (data & mask)) & 0xFFFFFF;
+    }
+
     @Override
     public VgaDisplayState clone() {
       try {
@@ -113,24 +125,35 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     }
 
     private void loadImage(CircuitState cState) {
-      if (reload) {
-        for (int line = 0; line < nrOfLines; line++)
-          for (int pixel = 0; pixel < lineSize; pixel++) {
-            int index = line * lineSize + pixel;
-            SocBusTransaction trans =
-                new SocBusTransaction(
-                    SocBusTransaction.READ_TRANSACTION,
-                    vgaBufferAddress + index * 4,
-                    0,
-                    SocBusTransaction.WORD_ACCESS,
-                    "vgadma");
-            trans.setAsHiddenTransaction();
-            initializeTransaction(trans, attachedBus.getBusId(), cState);
-            int data = trans.hasError() ? 0 : trans.getReadData();
-            myImage.setRGB(pixel, line, data);
-          }
+      final int[] image;
+      synchronized (this) {
+        if (!reload) return;
+        image = pixels;
         reload = false;
       }
+      // the lines lie back to back in memory, so the frame is read in one go
+      loadPixels(image, 0, image.length, cState);
+    }
+
+    private void loadPixels(int[] image, int index, int count, CircuitState cState) {
+      final var manager = attachedBus.getSocSimulationManager();
+      final var address = vgaBufferAddress + index * 4;
+      if (manager == null
+          || !manager.readWords(attachedBus.getBusId(), address, image, index, count, cState)) {
+        for (var i = 0; i < count; i++) {
+          SocBusTransaction trans =
+              new SocBusTransaction(
+                  SocBusTransaction.READ_TRANSACTION,
+                  address + i * 4,
+                  0,
+                  SocBusTransaction.WORD_ACCESS,
+                  "vgadma");
+          trans.setAsHiddenTransaction();
+          initializeTransaction(trans, attachedBus.getBusId(), cState);
+          image[index + i] = trans.hasError() ? 0 : trans.getReadData();
+        }
+      }
+      for (var i = index; i < index + count; i++) image[i] &= 0xFFFFFF;
     }
 
     public void paint(Graphics g, CircuitState cState) {
@@ -352,7 +375,18 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     long addr = SocSupport.convUnsignedInt(trans.getAddress());
     if (addr >= start && addr < end) {
       int index = SocSupport.convUnsignedLong(addr - start) >> 2;
-      state.myImage.setRGB(index % state.lineSize, index / state.lineSize, trans.getWriteData());
+      int data = trans.getWriteData();
+      switch (trans.getAccessType()) {
+        case SocBusTransaction.HALF_WORD_ACCESS -> {
+          int shift = (addr & 2) != 0 ? 16 : 0;
+          state.setPixel(index, 0xFFFF << shift, (data & 0xFFFF) << shift);
+        }
+        case SocBusTransaction.BYTE_ACCESS -> {
+          int shift = ((int) addr & 3) << 3;
+          state.setPixel(index, 0xFF << shift, (data & 0xFF) << shift);
+        }
+        default -> state.setPixel(index, -1, data);
+      }
     }
   }
 
@@ -43,6 +43,10 @@ import java.awt.Graphics2D;
 import java.awt.font.TextLayout;
 
 abstract class AbstractGate extends InstanceFactory {
+  /** The input values of the gate being propagated, so that propagation allocates nothing. */
+  private static final ThreadLocal<Value[]> inputValues =
+      ThreadLocal.withInitial(() -> new Value[GateAttributes.MAX_INPUTS]);
+
   static Value pullOutput(Value value, Object outType) {
     if (outType == GateAttributes.OUTPUT_01) {
       return value;
@@ -548,7 +552,7 @@ abstract class AbstractGate extends InstanceFactory {
     final var errorIfUndefined =
         opts.getValue(Options.ATTR_GATE_UNDEFINED).equals(Options.GATE_UNDEFINED_ERROR);
 
-    final var inputs = new Value[inputCount];
+    final var inputs = inputValues.get();
     var numInputs = 0;
     var error = false;
     for (var i = 1; i <= inputCount; i++) {
@@ -22,29 +22,20 @@ class GateFunctions {
 
   static Value computeExactlyOne(Value[] inputs, int numInputs) {
     final var width = inputs[0].getWidth();
-    final var ret = new Value[width];
-    for (var i = 0; i < width; i++) {
-      var count = 0;
-      for (var j = 0; j < numInputs; j++) {
-        final var v = inputs[j].get(i);
-        if (v == Value.TRUE) {
-          count++;
-        } else if (v == Value.FALSE) {
-          // do nothing
-        } else {
-          count = -1;
-          break;
-        }
-      }
-      if (count < 0) {
-        ret[i] = Value.ERROR;
-      } else if (count == 1) {
-        ret[i] = Value.TRUE;
-      } else {
-        ret[i] = Value.FALSE;
-      }
+    // bits where some input is unknown, an error, or missing because the input is narrower
+    var errors = 0L;
+    var ones = 0L; // bits that are one in at least one input
+    var many = 0L; // bits that are one in more than one input
+    for (var j = 0; j < numInputs; j++) {
+      final var v = inputs[j];
+      final var unknowns = v.getUnknownMask();
+      if (v.getWidth() < width) errors |= -1L << v.getWidth();
+      errors |= unknowns;
+      final var trues = v.getOnesMask() & ~unknowns;
+      many |= ones & trues;
+      ones |= trues;
     }
-    return Value.create(ret);
+    return Value.createFromMasks(width, (ones & ~many) | errors, errors);
   }
 
   static Value computeOddParity(Value[] inputs, int numInputs) {
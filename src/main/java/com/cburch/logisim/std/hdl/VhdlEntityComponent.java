@@ -28,7 +28,6 @@ import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import com.cburch.logisim.vhdl.base.VhdlSimConstants;
-import com.cburch.logisim.vhdl.sim.VhdlSimulatorTop;
 import java.awt.Color;
 import java.awt.Window;
 import java.io.IOException;
@@ -235,7 +234,8 @@ public class VhdlEntityComponent extends InstanceFactory {
    * Propagate signals through the VHDL component. Logisim doesn't have a VHDL simulation tool. So
    * we need to use an external tool. We send signals to Questasim/Modelsim through a socket and a
    * tcl binder. Then, a simulation step is done and the tcl server sends the output signals back to
-   * Logisim. Then we can set the VHDL component output properly.
+   * Logisim. Then we can set the VHDL component output properly. The signals of all VHDL
+   * components propagated in the same step are exchanged together at the end of the step.
    *
    * <p>This can be done only if Logisim could connect to the tcl server (socket). This is done in
    * Simulation.java.
@@ -246,58 +246,8 @@ public class VhdlEntityComponent extends InstanceFactory {
     if (state.getProject().getVhdlSimulator().isEnabled()
         && state.getProject().getVhdlSimulator().isRunning()) {
 
-      VhdlSimulatorTop vhdlSimulator = state.getProject().getVhdlSimulator();
-
-      for (final var p : state.getInstance().getPorts()) {
-        final var index = state.getPortIndex(p);
-        final var val = state.getPortValue(index);
-
-        String vhdlEntityName = getSimName(state.getAttributeSet());
-
-        String message =
-            p.getType()
-                + ":"
-                + vhdlEntityName
-                + "_"
-                + p.getToolTip()
-                + ":"
-                + val.toBinaryString()
-                + ":"
-                + index;
-
-        vhdlSimulator.send(message);
-      }
-
-      vhdlSimulator.send("sync");
-
-      /* Get response from tcl server */
-      String server_response;
-      while ((server_response = vhdlSimulator.receive()) != null
-          && server_response.length() > 0
-          && !server_response.equals("sync")) {
-
-        final var parameters = server_response.split(":");
-
-        final var busValue = parameters[1];
-
-        final var vector_values = new Value[busValue.length()];
-
-        var k = busValue.length() - 1;
-        for (final var bit : busValue.toCharArray()) {
-          try {
-            switch (Character.getNumericValue(bit)) {
-              case 0 -> vector_values[k] = Value.FALSE;
-              case 1 -> vector_values[k] = Value.TRUE;
-              default -> vector_values[k] = Value.UNKNOWN;
-            }
-          } catch (NumberFormatException e) {
-            vector_values[k] = Value.UNKNOWN;
-          }
-          k--;
-        }
-
-        state.setPort(Integer.parseInt(parameters[2]), Value.create(vector_values), 1);
-      }
+      /* Outputs are set once the simulator ran the step, see VhdlSimulatorTop */
+      state.getProject().getVhdlSimulator().propagate(state, getSimName(state.getAttributeSet()));
 
       /* VhdlSimulation stopped/disabled */
     } else {
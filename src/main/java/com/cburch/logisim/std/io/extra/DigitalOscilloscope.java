@@ -366,4 +366,9 @@ public class DigitalOscilloscope extends InstanceFactory {
 
     instance.setPorts(port);
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
@@ -401,4 +401,9 @@ public class ProgrammableGenerator extends InstanceFactory {
       state.setPort(0, q.sending, 1);
     }
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
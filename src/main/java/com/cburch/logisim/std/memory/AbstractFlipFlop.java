@@ -125,6 +125,14 @@ abstract class AbstractFlipFlop extends InstanceFactory {
 
   private static class StateData extends ClockState implements InstanceData {
     Value curValue = (AppPreferences.Memory_Startup_Unknown.get()) ? Value.UNKNOWN : Value.FALSE;
+    Value[] inputs; // scratch space of propagate, not shared with clones
+
+    @Override
+    public StateData clone() {
+      final var ret = (StateData) super.clone();
+      ret.inputs = null;
+      return ret;
+    }
   }
 
   private static final int STD_PORTS = 5;
@@ -402,7 +410,8 @@ abstract class AbstractFlipFlop extends InstanceFactory {
       data.curValue = Value.TRUE;
     } else if (triggered /* && state.getPortValue(n + 5) != Value.FALSE */) {
       // Clock has triggered and flip-flop is enabled: Update the state
-      final var inputs = new Value[n];
+      if (data.inputs == null) data.inputs = new Value[n];
+      final var inputs = data.inputs;
       for (var i = 0; i < n; i++) {
         inputs[i] = state.getPortValue(i);
       }
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.std.ttl;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
@@ -240,4 +241,9 @@ public class AbstractOctalFlops extends AbstractTtlGate {
   public int[] clockPinIndex(netlistComponent comp) {
     return new int[] {9};
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.ttl;
 import static com.cburch.logisim.data.Value.falseColor;
 import static com.cburch.logisim.data.Value.trueColor;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
@@ -221,4 +222,9 @@ public class Ttl74161 extends AbstractTtlGate {
   public int[] clockPinIndex(netlistComponent comp) {
     return new int[] {1};
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
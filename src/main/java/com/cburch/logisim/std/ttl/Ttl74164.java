@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.std.ttl;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
@@ -193,4 +194,9 @@ public class Ttl74164 extends AbstractTtlGate {
   public int[] clockPinIndex(netlistComponent comp) {
     return new int[] {6};
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.std.ttl;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstancePainter;
@@ -229,4 +230,9 @@ public class Ttl74192 extends AbstractTtlGate {
     }
     updateState(state, Value.createKnown(WIDTH, counter), carry, borrow, downCur, upCur);
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.std.ttl;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
@@ -221,4 +222,9 @@ public class Ttl74299 extends AbstractTtlGate {
   public int[] clockPinIndex(netlistComponent comp) {
     return new int[] { pinNrToPortNr(CLK) };
   }
+
+  @Override
+  public boolean isSequential(AttributeSet attrs) {
+    return true;
+  }
 }
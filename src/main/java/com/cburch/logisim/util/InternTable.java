@@ -0,0 +1,112 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size intern table for immutable objects that are identified by a few primitive fields,
+ * so that equal objects are shared instead of being allocated over and over. Lookups take the key
+ * fields directly, which means a hit allocates nothing.
+ *
+ * <p>The table uses open addressing with a short probe window. When every slot in the window holds
+ * some other key, the new object replaces the one in its home slot, so the table never grows and
+ * never blocks; interned objects are therefore usually, but not always, identical when equal.
+ * Lookups and insertions are lock-free and safe from any thread, provided the interned objects
+ * only have final fields.
+ *
+ * <p>The tables of the data classes get their capacity from {@link #getDefaultCapacity()}, which
+ * can be raised with the system property {@value #CAPACITY_PROPERTY} for very large circuits.
+ */
+public abstract class InternTable<T> {
+  public static final String CAPACITY_PROPERTY = "logisim.internTableCapacity";
+
+  private static final int DEFAULT_CAPACITY = 1 << 14;
+  private static final int MAX_CAPACITY = 1 << 24;
+  private static final int MAX_PROBES = 8;
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private final Object[] slots;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /** Creates a table with room for <code>capacity</code> objects, rounded up to a power of two. */
+  protected InternTable(int capacity) {
+    var size = MAX_PROBES;
+    while (size < capacity) size <<= 1;
+    slots = new Object[size];
+    mask = size - 1;
+  }
+
+  /**
+   * Returns the capacity given by the system property {@value #CAPACITY_PROPERTY}, kept between the
+   * probe window and 2^24 slots, or 2^14 if the property is not set.
+   */
+  public static int getDefaultCapacity() {
+    final var capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+    return Math.max(MAX_PROBES, Math.min(MAX_CAPACITY, capacity));
+  }
+
+  /** Returns whether <code>candidate</code> is the object identified by the given key. */
+  protected abstract boolean matches(T candidate, int key0, long key1, long key2);
+
+  /** Creates the object identified by the given key. */
+  protected abstract T create(int key0, long key1, long key2);
+
+  /** Returns the shared object for the given key, creating and recording it if necessary. */
+  @SuppressWarnings("unchecked")
+  public final T intern(int key0, long key1, long key2) {
+    final var home = hash(key0, key1, key2) & mask;
+    for (var i = 0; i < MAX_PROBES; i++) {
+      final var slot = (home + i) & mask;
+      var candidate = (T) SLOTS.getAcquire(slots, slot);
+      if (candidate == null) {
+        final var created = create(key0, key1, key2);
+        candidate = (T) SLOTS.compareAndExchange(slots, slot, null, created);
+        if (candidate == null) {
+          misses.increment();
+          return created;
+        }
+        // another thread took the slot first; it may even have stored this very key
+      }
+      if (matches(candidate, key0, key1, key2)) {
+        hits.increment();
+        return candidate;
+      }
+    }
+    final var created = create(key0, key1, key2);
+    SLOTS.setRelease(slots, home, created);
+    misses.increment();
+    return created;
+  }
+
+  public int getCapacity() {
+    return slots.length;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  private static int hash(int key0, long key1, long key2) {
+    var h = key1 * 0x9E3779B97F4A7C15L + Long.rotateLeft(key2 * 0xC2B2AE3D27D4EB4FL, 31) + key0;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+}
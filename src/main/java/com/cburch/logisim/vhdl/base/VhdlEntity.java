@@ -173,7 +173,8 @@ public class VhdlEntity extends InstanceFactory implements HdlModelListener {
    * Propagate signals through the VHDL component. Logisim doesn't have a VHDL simulation tool. So
    * we need to use an external tool. We send signals to Questasim/Modelsim through a socket and a
    * tcl binder. Then, a simulation step is done and the tcl server sends the output signals back to
-   * Logisim. Then we can set the VHDL component output properly.
+   * Logisim. Then we can set the VHDL component output properly. The signals of all VHDL
+   * components propagated in the same step are exchanged together at the end of the step.
    *
    * <p>This can be done only if Logisim could connect to the tcl server (socket). This is done in
    * Simulation.java.
@@ -184,54 +185,8 @@ public class VhdlEntity extends InstanceFactory implements HdlModelListener {
     if (state.getProject().getVhdlSimulator().isEnabled()
         && state.getProject().getVhdlSimulator().isRunning()) {
 
-      final var vhdlSimulator = state.getProject().getVhdlSimulator();
-
-      for (final var singlePort : state.getInstance().getPorts()) {
-        final var index = state.getPortIndex(singlePort);
-        final var val = state.getPortValue(index);
-        final var vhdlEntityName = getSimName(state.getAttributeSet());
-
-        String message =
-            singlePort.getType()
-                + ":"
-                + vhdlEntityName
-                + "_"
-                + singlePort.getToolTip()
-                + ":"
-                + val.toBinaryString()
-                + ":"
-                + index;
-
-        vhdlSimulator.send(message);
-      }
-
-      vhdlSimulator.send("sync");
-
-      /* Get response from tcl server */
-      String serverResponse;
-      while ((serverResponse = vhdlSimulator.receive()) != null
-          && (serverResponse.length() > 0 && !"sync".equals(serverResponse))) {
-
-        final var parameters = serverResponse.split(":");
-        final var busValue = parameters[1];
-        final var vectorValues = new Value[busValue.length()];
-
-        var idx = busValue.length() - 1;
-        for (final var bit : busValue.toCharArray()) {
-          try {
-            vectorValues[idx] = switch (Character.getNumericValue(bit)) {
-              case 0 -> Value.FALSE;
-              case 1 -> Value.TRUE;
-              default -> Value.UNKNOWN;
-            };
-          } catch (NumberFormatException e) {
-            vectorValues[idx] = Value.UNKNOWN;
-          }
-          idx--;
-        }
-
-        state.setPort(Integer.parseInt(parameters[2]), Value.create(vectorValues), 1);
-      }
+      /* Outputs are set once the simulator ran the step, see VhdlSimulatorTop */
+      state.getProject().getVhdlSimulator().propagate(state, getSimName(state.getAttributeSet()));
 
       /* VhdlSimulation stopped/disabled */
     } else {
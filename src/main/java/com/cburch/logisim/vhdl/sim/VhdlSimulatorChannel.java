@@ -0,0 +1,231 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.vhdl.sim;
+
+import com.cburch.logisim.data.Value;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Logisim's end of the binary protocol spoken with the simulator binder (see
+ * questasim_binder.tcl, or {@link VhdlSimulatorLoopback} for a stand-in).
+ *
+ * <p>Every message is a frame made of a 32 bit length followed by that many bytes, the first of
+ * which gives the kind of the frame. All numbers are big endian. Logisim sends:
+ *
+ * <ul>
+ *   <li><code>DECLARE</code>: a 16 bit count, then for each signal its 16 bit id, its port type
+ *       (1 in, 2 out, 3 inout) as a byte, its 16 bit width and its name as 16 bit length and
+ *       ASCII bytes. Signals are declared once, before the first step that uses them.
+ *   <li><code>STEP</code>: a 32 bit sequence number; a 16 bit count of driven signals, each as its
+ *       id followed by the 64 bit ones and unknown masks of its value (see {@link
+ *       Value#createFromMasks}); a 16 bit count of examined signals, each as its id. The binder
+ *       drives the signals, runs the simulation once and answers with a <code>VALUES</code>
+ *       frame.
+ *   <li><code>RESTART</code> and <code>END</code>, without payload.
+ * </ul>
+ *
+ * <p>A <code>VALUES</code> frame holds the sequence number of its step, a 16 bit count, and for
+ * each examined signal, in the order they were asked for, its 16 bit width (0 if it could not be
+ * examined) followed by its two masks.
+ *
+ * <p>A step carries the signals of all entities propagated in one propagation step, and only the
+ * driven values that changed since they were last sent, as the simulator keeps forcing a signal
+ * until it is forced again. Steps can be pipelined: {@link #sendStep()} returns as soon as the
+ * frame is written, and the replies are collected in order by {@link #receiveStep(int)}.
+ */
+public class VhdlSimulatorChannel {
+
+  static final byte DECLARE = 'D';
+  static final byte STEP = 'S';
+  static final byte RESTART = 'R';
+  static final byte END = 'E';
+  static final byte VALUES = 'V';
+
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  /** Frame under construction, written out with its length by {@link #writeFrame}. */
+  private final ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+  private final DataOutputStream frame = new DataOutputStream(frameBytes);
+
+  private final HashMap<String, Integer> signalIds = new HashMap<>();
+  private final ArrayList<String> names = new ArrayList<>();
+  private final ArrayList<Integer> types = new ArrayList<>();
+  private final ArrayList<Integer> widths = new ArrayList<>();
+  private int declared = 0;
+
+  /** Last value sent for each signal, <code>null</code> if the simulator does not force it. */
+  private final ArrayList<Value> sent = new ArrayList<>();
+
+  private final ByteArrayOutputStream drivesBytes = new ByteArrayOutputStream();
+  private final DataOutputStream drives = new DataOutputStream(drivesBytes);
+  private int nrOfDrives = 0;
+  private final ByteArrayOutputStream examinesBytes = new ByteArrayOutputStream();
+  private final DataOutputStream examines = new DataOutputStream(examinesBytes);
+  private int nrOfExamines = 0;
+  private int sequence = 0;
+
+  public VhdlSimulatorChannel(InputStream in, OutputStream out) {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+  }
+
+  /**
+   * Returns the id of a signal of the simulated top level, assigning one the first time a signal
+   * is seen. The signal is declared to the binder with the next step.
+   */
+  public synchronized int getSignalId(String name, int type, int width) {
+    final var id = signalIds.get(name);
+    if (id != null) return id;
+    final var newId = names.size();
+    signalIds.put(name, newId);
+    names.add(name);
+    types.add(type);
+    widths.add(width);
+    sent.add(null);
+    return newId;
+  }
+
+  /** Adds a signal to be forced in the next step, unless it is forced to that value already. */
+  public synchronized void drive(int id, Value value) {
+    if (value.equals(sent.get(id))) return;
+    sent.set(id, value);
+    try {
+      drives.writeShort(id);
+      drives.writeLong(value.getOnesMask());
+      drives.writeLong(value.getUnknownMask());
+    } catch (IOException e) {
+      // cannot happen on a byte array
+    }
+    nrOfDrives++;
+  }
+
+  /**
+   * Adds a signal to be examined after the next step; returns its position in the values of the
+   * step's reply.
+   */
+  public synchronized int examine(int id) {
+    try {
+      examines.writeShort(id);
+    } catch (IOException e) {
+      // cannot happen on a byte array
+    }
+    return nrOfExamines++;
+  }
+
+  /**
+   * Sends the signals declared, driven and examined since the last step and asks the simulator to
+   * run; returns the sequence number of the step, to be passed to {@link #receiveStep}.
+   */
+  public synchronized int sendStep() throws IOException {
+    if (declared < names.size()) {
+      frame.writeByte(DECLARE);
+      frame.writeShort(names.size() - declared);
+      for (; declared < names.size(); declared++) {
+        frame.writeShort(declared);
+        frame.writeByte(types.get(declared));
+        frame.writeShort(widths.get(declared));
+        frame.writeShort(names.get(declared).length());
+        frame.writeBytes(names.get(declared));
+      }
+      writeFrame();
+    }
+    final var seq = sequence++;
+    frame.writeByte(STEP);
+    frame.writeInt(seq);
+    frame.writeShort(nrOfDrives);
+    drivesBytes.writeTo(frame);
+    frame.writeShort(nrOfExamines);
+    examinesBytes.writeTo(frame);
+    writeFrame();
+    out.flush();
+    drivesBytes.reset();
+    nrOfDrives = 0;
+    examinesBytes.reset();
+    nrOfExamines = 0;
+    return seq;
+  }
+
+  /**
+   * Waits for the reply to the oldest step not received yet, which must be step <code>seq</code>,
+   * and returns the examined values in the order they were asked for. A signal the simulator could
+   * not examine is returned as <code>null</code>.
+   *
+   * <p>Only the thread that sends the steps may receive them.
+   */
+  public Value[] receiveStep(int seq) throws IOException {
+    final var length = in.readInt();
+    if (length < 7 || in.readByte() != VALUES) {
+      throw new IOException("Unexpected frame from simulator");
+    }
+    final var replySeq = in.readInt();
+    if (replySeq != seq) {
+      throw new IOException("Expected step " + seq + ", received step " + replySeq);
+    }
+    final var values = new Value[in.readUnsignedShort()];
+    for (var i = 0; i < values.length; i++) {
+      final var width = in.readUnsignedShort();
+      final var ones = in.readLong();
+      final var unknowns = in.readLong();
+      if (width > 0) values[i] = Value.createFromMasks(width, ones, unknowns);
+    }
+    return values;
+  }
+
+  /**
+   * Asks the simulator to restart. Values driven before are forgotten, so the following steps send
+   * every driven signal again.
+   */
+  public synchronized void restart() throws IOException {
+    sent.replaceAll(value -> null);
+    frame.writeByte(RESTART);
+    writeFrame();
+    out.flush();
+  }
+
+  /** Asks the binder to quit the simulator and end itself. */
+  public synchronized void end() throws IOException {
+    frame.writeByte(END);
+    writeFrame();
+    out.flush();
+  }
+
+  private void writeFrame() throws IOException {
+    out.writeInt(frameBytes.size());
+    frameBytes.writeTo(out);
+    frameBytes.reset();
+  }
+
+  /**
+   * Reads the next frame sent by Logisim, returning its bytes starting with the frame kind, or
+   * <code>null</code> if the connection was closed. Used by the stand-in binder.
+   */
+  static byte[] readFrame(DataInputStream in) throws IOException {
+    final int length;
+    try {
+      length = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    final var bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.vhdl.sim;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stand-in for the Questasim binder that speaks the protocol of {@link VhdlSimulatorChannel} over
+ * a local socket, without simulating any VHDL. The values it reports for examined signals are
+ * computed by a {@link Model} from the values forced so far. It makes it possible to test the
+ * co-simulation bridge and to measure its latency on machines without Questasim.
+ */
+public class VhdlSimulatorLoopback implements Runnable {
+
+  static final Logger logger = LoggerFactory.getLogger(VhdlSimulatorLoopback.class);
+
+  /** Computes what the stand-in reports for a signal. */
+  public interface Model {
+    /**
+     * Returns the value of a signal after a step, given the values of all signals forced so far
+     * by name, or <code>null</code> if it cannot be examined.
+     */
+    Value examine(String name, BitWidth width, Map<String, Value> forced);
+  }
+
+  /** The model of an entity whose outputs are never driven. */
+  public static final Model UNKNOWN = (name, width, forced) -> Value.createUnknown(width);
+
+  private final int port;
+  private final Model model;
+  private final ArrayList<String> names = new ArrayList<>();
+  private final ArrayList<BitWidth> widths = new ArrayList<>();
+  private final HashMap<String, Value> forced = new HashMap<>();
+  private volatile long nrOfSteps = 0;
+  private volatile long nrOfRestarts = 0;
+
+  public VhdlSimulatorLoopback(int port, Model model) {
+    this.port = port;
+    this.model = model;
+  }
+
+  /** Connects to Logisim's socket from a new daemon thread and serves it until it is closed. */
+  public void start() {
+    final var thread = new Thread(this, "VHDL simulator loopback");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public long getNrOfSteps() {
+    return nrOfSteps;
+  }
+
+  public long getNrOfRestarts() {
+    return nrOfRestarts;
+  }
+
+  @Override
+  public void run() {
+    try (final var socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      socket.setTcpNoDelay(true);
+      final var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      final var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      byte[] frame;
+      while ((frame = VhdlSimulatorChannel.readFrame(in)) != null) {
+        final var data = new DataInputStream(new ByteArrayInputStream(frame));
+        switch (data.readByte()) {
+          case VhdlSimulatorChannel.DECLARE -> declare(data);
+          case VhdlSimulatorChannel.STEP -> step(data, out);
+          case VhdlSimulatorChannel.RESTART -> {
+            forced.clear();
+            nrOfRestarts++;
+          }
+          case VhdlSimulatorChannel.END -> {
+            return;
+          }
+          default -> throw new IOException("Unknown frame " + frame[0]);
+        }
+      }
+    } catch (IOException e) {
+      logger.error("VHDL simulator loopback failed: {}", e.getMessage());
+    }
+  }
+
+  private void declare(DataInputStream data) throws IOException {
+    for (var count = data.readUnsignedShort(); count > 0; count--) {
+      final var id = data.readUnsignedShort();
+      data.readByte(); // the port type does not matter here
+      final var width = BitWidth.create(data.readUnsignedShort());
+      final var name = new String(data.readNBytes(data.readUnsignedShort()));
+      while (names.size() <= id) {
+        names.add(null);
+        widths.add(null);
+      }
+      names.set(id, name);
+      widths.set(id, width);
+    }
+  }
+
+  private void step(DataInputStream data, DataOutputStream out) throws IOException {
+    final var seq = data.readInt();
+    for (var count = data.readUnsignedShort(); count > 0; count--) {
+      final var id = data.readUnsignedShort();
+      final var ones = data.readLong();
+      final var unknowns = data.readLong();
+      forced.put(names.get(id), Value.createFromMasks(widths.get(id).getWidth(), ones, unknowns));
+    }
+    final var count = data.readUnsignedShort();
+    out.writeInt(7 + 18 * count);
+    out.writeByte(VhdlSimulatorChannel.VALUES);
+    out.writeInt(seq);
+    out.writeShort(count);
+    for (var i = 0; i < count; i++) {
+      final var id = data.readUnsignedShort();
+      final var value = model.examine(names.get(id), widths.get(id), forced);
+      out.writeShort(value == null ? 0 : value.getWidth());
+      out.writeLong(value == null ? 0 : value.getOnesMask());
+      out.writeLong(value == null ? 0 : value.getUnknownMask());
+    }
+    out.flush();
+    nrOfSteps++;
+  }
+}
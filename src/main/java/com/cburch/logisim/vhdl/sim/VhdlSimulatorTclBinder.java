@@ -169,7 +169,7 @@ public class VhdlSimulatorTclBinder {
     if (running.equals(Boolean.FALSE)) return;
 
     /* We ask the binder to end itself */
-    if (vsim.getSocketClient() != null) vsim.getSocketClient().send("end");
+    vsim.sendEnd();
 
     /*
      * Wait for the process to end
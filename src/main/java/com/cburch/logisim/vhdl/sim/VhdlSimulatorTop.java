@@ -14,6 +14,10 @@ import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.hdl.VhdlEntityComponent;
 import com.cburch.logisim.util.SocketClient;
@@ -26,6 +30,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.help.UnsupportedOperationException;
 import org.slf4j.Logger;
@@ -36,6 +41,10 @@ import org.slf4j.LoggerFactory;
  * task to Questasim. Communication between Logisim and Questasim is done by a TCL socket
  * (TclBinder). Path to Questasim has to be specified in Logisim's preferences.
  *
+ * <p>The VHDL entities propagated during a propagation step are collected and exchanged with the
+ * simulator in a single {@link VhdlSimulatorChannel} step once the step is over, so the
+ * simulation runs once per step rather than once per entity.
+ *
  * @author christian.mueller@heig-vd.ch
  * @since 2.12.0
  */
@@ -45,6 +54,24 @@ public class VhdlSimulatorTop implements CircuitListener {
   private final VhdlSimulatorTclComp tclRun = new VhdlSimulatorTclComp(this);
   private VhdlSimulatorTclBinder tclBinder;
   private final SocketClient socketClient = new SocketClient();
+  private volatile VhdlSimulatorChannel channel;
+
+  /** An entity whose outputs are to be set from the reply of the current step. */
+  private static final class PendingEntity {
+    final CircuitState circuitState;
+    final Component component;
+    final int[] outputs; // port indices
+    final int[] positions; // in the values of the reply
+
+    PendingEntity(CircuitState circuitState, Component component, int[] outputs, int[] positions) {
+      this.circuitState = circuitState;
+      this.component = component;
+      this.outputs = outputs;
+      this.positions = positions;
+    }
+  }
+
+  private final ArrayList<PendingEntity> pending = new ArrayList<>();
 
   public static final Logger logger = LoggerFactory.getLogger(VhdlSimulatorTop.class);
 
@@ -269,14 +296,75 @@ public class VhdlSimulatorTop implements CircuitListener {
   }
 
   /**
-   * Receive a message from the VHDL simulator
+   * Propagate a VHDL entity: its inputs are driven and its outputs examined in the simulator step
+   * run at the end of the current propagation step, which then sets the outputs with a delay of 1.
    *
-   * @return
+   * @param state state of the entity
+   * @param simName name of the entity in the simulated top level
    */
-  public String receive() {
+  public void propagate(InstanceState state, String simName) {
     if (!isRunning()) throw new UnsupportedOperationException();
+    // the simulator may stop, dropping the channel, between the check above and its use
+    final var ch = channel;
+    if (ch == null) return;
+
+    final var circuitState = ((InstanceStateImpl) state).getCircuitState();
+    final var ports = state.getInstance().getPorts();
+    final var outputs = new int[ports.size()];
+    final var positions = new int[ports.size()];
+    var nrOfOutputs = 0;
+    /* Entities of sibling substates may be propagated concurrently */
+    synchronized (pending) {
+      for (var index = 0; index < ports.size(); index++) {
+        final var port = ports.get(index);
+        final var id =
+            ch.getSignalId(
+                simName + "_" + port.getToolTip(),
+                port.getType(),
+                port.getFixedBitWidth().getWidth());
+        if (port.getType() != EndData.OUTPUT_ONLY) ch.drive(id, state.getPortValue(index));
+        if (port.getType() != EndData.INPUT_ONLY) {
+          outputs[nrOfOutputs] = index;
+          positions[nrOfOutputs++] = ch.examine(id);
+        }
+      }
+      if (pending.isEmpty()) circuitState.getPropagator().runAtEndOfStep(this::runStep);
+      pending.add(
+          new PendingEntity(
+              circuitState,
+              state.getInstance().getComponent(),
+              Arrays.copyOf(outputs, nrOfOutputs),
+              Arrays.copyOf(positions, nrOfOutputs)));
+    }
+  }
+
+  /** Run the simulator for the entities propagated in the step that just ended. */
+  private void runStep() {
+    final PendingEntity[] entities;
+    final int seq;
+    final Value[] values;
+    final var ch = channel;
+    try {
+      synchronized (pending) {
+        entities = pending.toArray(new PendingEntity[0]);
+        pending.clear();
+        if (ch == null) return;
+        seq = ch.sendStep();
+      }
+      values = ch.receiveStep(seq);
+    } catch (IOException e) {
+      logger.error("Cannot exchange signals with the VHDL simulator: {}", e.getMessage());
+      return;
+    }
 
-    return socketClient.receive();
+    for (final var entity : entities) {
+      for (var i = 0; i < entity.outputs.length; i++) {
+        final var value = values[entity.positions[i]];
+        if (value == null) continue;
+        final var end = entity.component.getEnd(entity.outputs[i]);
+        entity.circuitState.setValue(end.getLocation(), value, entity.component, 1);
+      }
+    }
   }
 
   public void removeVhdlSimStateListener(VhdlSimulatorListener l) {
@@ -284,7 +372,16 @@ public class VhdlSimulatorTop implements CircuitListener {
   }
 
   public void reset() {
-    if (isEnabled()) socketClient.send("restart");
+    final var ch = channel;
+    if (!isEnabled() || ch == null) return;
+    synchronized (pending) {
+      pending.clear();
+    }
+    try {
+      ch.restart();
+    } catch (IOException e) {
+      logger.error("Cannot restart the VHDL simulator: {}", e.getMessage());
+    }
   }
 
   /** Stop and restart. If not running, just start */
@@ -302,15 +399,15 @@ public class VhdlSimulatorTop implements CircuitListener {
     }
   }
 
-  /**
-   * Send a message to the VHDL simulator
-   *
-   * @param message
-   */
-  public void send(String message) {
-    if (!isRunning()) throw new UnsupportedOperationException();
-
-    socketClient.send(message);
+  /** Ask the TCL binder to end the simulation and itself */
+  void sendEnd() {
+    final var ch = channel;
+    if (ch == null) return;
+    try {
+      ch.end();
+    } catch (IOException e) {
+      logger.error("Cannot end the VHDL simulator: {}", e.getMessage());
+    }
   }
 
   public void setEnabled(boolean enable) {
@@ -370,12 +467,23 @@ public class VhdlSimulatorTop implements CircuitListener {
 
     tclBinder.stop();
     socketClient.stop();
+    channel = null;
 
     setState(State.ENABLED);
   }
 
   public void tclStartCallback() {
     socketClient.start();
+    try {
+      if (!socketClient.isConnected()) throw new IOException("binder did not connect");
+      final var socket = socketClient.getSocket();
+      socket.setTcpNoDelay(true);
+      channel = new VhdlSimulatorChannel(socket.getInputStream(), socket.getOutputStream());
+    } catch (IOException e) {
+      logger.error("Cannot open the VHDL simulator socket: {}", e.getMessage());
+      setState(State.ENABLED);
+      return;
+    }
     setState(State.RUNNING);
   }
 }
@@ -19,102 +19,168 @@
 # Version   Author Date               Description
 # v1.1      CMR    25.06.14           - Exit if socket fails
 # v1.2      CMR    23.07.14           - Better error handling, add reset option
+# v2.0                                - Binary framed protocol, see
+#                                       VhdlSimulatorChannel.java
 #-------------------------------------------------------------------------------
-set Version 1.2
+set Version 2.0
 
-set msgs {}
 set channel 0
 
-proc MessageReceived {channel} {
-	global msgs ;
+# Signals declared by Logisim, by id
+array set names {}
+array set types {}
+array set widths {}
+
+# Read a frame: a 32 bit length followed by that many bytes. Returns an empty
+# string when the socket is closed.
+proc ReadFrame {channel} {
+	set header [read $channel 4]
+	if {[string length $header] < 4} {
+		return ""
+	}
+	binary scan $header Iu length
+	return [read $channel $length]
+}
 
-	if {[eof $channel] || [catch {gets $channel msg}]} {
-		end_binder $channel
-  } else {
+proc WriteFrame {channel frame} {
+	puts -nonewline $channel [binary format I [string length $frame]]$frame
+	flush $channel
+}
 
-		# If end of communication is asked
-		if {$msg == "end"} {
+# Convert the ones and unknown masks of a Logisim value to a std_logic string
+proc ToLogicString {ones unknowns width} {
+	set value ""
+	for {set bit [expr {$width - 1}]} {$bit >= 0} {incr bit -1} {
+		set one [expr {($ones >> $bit) & 1}]
+		if {($unknowns >> $bit) & 1} {
+			if {$one} {append value "X"} else {append value "U"}
+		} else {
+			append value $one
+		}
+	}
+	return $value
+}
 
-			# Sim end procedure
-			end_binder $channel
+# Convert an examined std_logic string to width, ones and unknown masks
+proc FromLogicString {value} {
+	set ones 0
+	set unknowns 0
+	foreach char [split $value ""] {
+		set ones [expr {$ones << 1}]
+		set unknowns [expr {$unknowns << 1}]
+		if {$char == "1"} {
+			incr ones
+		} elseif {$char != "0"} {
+			incr unknowns
+		}
+	}
+	return [binary format SWW [string length $value] [ToWide $ones] [ToWide $unknowns]]
+}
 
-		# When restart is requested
-		} elseif {$msg == "restart"} {
-			puts "Restart simulation"
-			if {[catch {restart -f} errmsg]} {
-				puts "Error at simulation reset: $errmsg"
-			}
-			set msgs {}
-
-		# When a sync is received
-		} elseif {$msg == "sync"} {
-
-			# Drive input signals in simulation
-			foreach msg $msgs {
-
-				# Get parameters from message
-				set signal [split $msg :]
-				set type [lindex $signal 0]
-				set name [lindex $signal 1]
-				set value [lindex $signal 2]
-				set id [lindex $signal 3]
-
-				# If signal is "in"
-				if {$type == 1} {
-					# Drive simulation signal (force signal, no internal logic changes possible)
-					if {[catch {force -freeze sim:/top_sim/$name $value} errmsg]} {
-						puts "Error forcing simulation signal: $errmsg"
-					}
-
-				# If signal is "inout"
-				} elseif {$type == 3} {
-
-					# Use deposit so value can be changed by internal logic
-					if {[catch {force -deposit sim:/top_sim/$name $value} errmsg]} {
-						puts "Error forcing simulation signal: $errmsg"
-					}
-				}
-			}
+# Wrap a mask of up to 64 bits to the signed range "binary format W" accepts
+proc ToWide {mask} {
+	if {$mask >= 0x8000000000000000} {
+		return [expr {$mask - 0x10000000000000000}]
+	}
+	return $mask
+}
+
+proc DeclareSignals {frame} {
+	global names types widths
+
+	binary scan $frame @1Su count
+	set pos 3
+	for {set i 0} {$i < $count} {incr i} {
+		binary scan $frame @${pos}SucuSuSu id type width length
+		incr pos 7
+		binary scan $frame @${pos}a$length name
+		incr pos $length
+		set names($id) $name
+		set types($id) $type
+		set widths($id) $width
+	}
+}
+
+proc RunStep {channel frame} {
+	global names types widths
+
+	binary scan $frame @1IuSu seq count
+	set pos 7
 
-			# Run the simulation
-			if {[catch {run 100} errmsg]} {
-				puts "Error running simulation: $errmsg"
+	# Drive input signals in simulation
+	for {set i 0} {$i < $count} {incr i} {
+		binary scan $frame @${pos}SuWW id ones unknowns
+		incr pos 18
+		set value [ToLogicString $ones $unknowns $widths($id)]
+
+		# If signal is "in"
+		if {$types($id) == 1} {
+			# Drive simulation signal (force signal, no internal logic changes possible)
+			if {[catch {force -freeze sim:/top_sim/$names($id) $value} errmsg]} {
+				puts "Error forcing simulation signal: $errmsg"
 			}
 
-			# Read output signals from simulation
-			foreach msg $msgs {
-				# Get signal and value from message
-				set signal [split $msg :]
-				set type [lindex $signal 0]
-				set name [lindex $signal 1]
-				set value [lindex $signal 2]
-				set id [lindex $signal 3]
-
-				# If signal is "out" or "inout"
-				if {$type == 2 || $type == 3} {
-
-					# Read in sim
-					if {[catch {set value [examine sim:/top_sim/$name]} errmsg]} {
-						puts "Error examining simulation signal: $errmsg"
-					} else {
-						# Send to logisim
-						puts $channel [concat $name:$value:$id]
-					}
-				}
+		# If signal is "inout"
+		} elseif {$types($id) == 3} {
+			# Use deposit so value can be changed by internal logic
+			if {[catch {force -deposit sim:/top_sim/$names($id) $value} errmsg]} {
+				puts "Error forcing simulation signal: $errmsg"
 			}
+		}
+	}
 
-			# Send sync to alert logisim of end of step
-			puts $channel "sync"
-			#puts "sent : sync"
-			flush $channel
+	# Run the simulation
+	if {[catch {run 100} errmsg]} {
+		puts "Error running simulation: $errmsg"
+	}
 
-			set msgs {}
+	# Read output signals from simulation, in the order they were asked for
+	binary scan $frame @${pos}Su count
+	incr pos 2
+	set reply [binary format aIS V $seq $count]
+	for {set i 0} {$i < $count} {incr i} {
+		binary scan $frame @${pos}Su id
+		incr pos 2
+		if {[catch {set value [examine sim:/top_sim/$names($id)]} errmsg]} {
+			puts "Error examining simulation signal: $errmsg"
+			set value ""
+		}
+		append reply [FromLogicString $value]
+	}
 
-		# If it's a signal, add to list
-		} else {
-			lappend msgs $msg ;
+	# Send the values to logisim, this ends the step
+	WriteFrame $channel $reply
+}
+
+proc MessageReceived {channel} {
+
+	if {[eof $channel] || [catch {ReadFrame $channel} frame] || [string length $frame] == 0} {
+		end_binder $channel
+		return
+	}
+
+	binary scan $frame a1 kind
+	switch -- $kind {
+		D {
+			DeclareSignals $frame
+		}
+		S {
+			RunStep $channel $frame
+		}
+		R {
+			puts "Restart simulation"
+			if {[catch {restart -f} errmsg]} {
+				puts "Error at simulation reset: $errmsg"
+			}
+		}
+		E {
+			# Sim end procedure
+			end_binder $channel
+		}
+		default {
+			puts "Unknown frame from Logisim: $kind"
 		}
-  }
+	}
 }
 
 proc {main} {port} {
@@ -128,6 +194,7 @@ proc {main} {port} {
 		puts "Error : $errmsg"
 		exit
 	} else {
+		fconfigure $channel -translation binary -blocking 1
 		puts "TCL_BINDER_CONNECTED"
 		puts "TCL_BINDER_RUNNING"
 
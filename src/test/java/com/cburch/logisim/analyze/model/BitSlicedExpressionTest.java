@@ -0,0 +1,87 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BitSlicedExpressionTest {
+
+  private static Expression randomExpression(Random rnd, List<String> names, int depth) {
+    if (depth == 0 || rnd.nextInt(4) == 0) {
+      return rnd.nextInt(8) == 0
+          ? Expressions.constant(rnd.nextInt(2))
+          : Expressions.variable(names.get(rnd.nextInt(names.size())));
+    }
+    final var a = randomExpression(rnd, names, depth - 1);
+    return switch (rnd.nextInt(6)) {
+      case 0 -> Expressions.not(a);
+      case 1 -> Expressions.and(a, randomExpression(rnd, names, depth - 1));
+      case 2 -> Expressions.or(a, randomExpression(rnd, names, depth - 1));
+      case 3 -> Expressions.xor(a, randomExpression(rnd, names, depth - 1));
+      case 4 -> Expressions.xnor(a, randomExpression(rnd, names, depth - 1));
+      default -> Expressions.eq(a, randomExpression(rnd, names, depth - 1));
+    };
+  }
+
+  /**
+   * Every row of the compiled columns must match what {@link Expression#evaluate} gives for it,
+   * including variables that are not inputs, which evaluate as 0.
+   */
+  @Test
+  public void testColumnsMatchEvaluate() {
+    final var rnd = new Random(7);
+    for (final var inputCount : new int[] {0, 3, 6, 9}) {
+      final var inputs = new ArrayList<String>();
+      for (var i = 0; i < inputCount; i++) inputs.add("i" + i);
+      final var names = new ArrayList<>(inputs);
+      names.add("other");
+      final var exprs = new ArrayList<Expression>();
+      for (var e = 0; e < 20; e++) exprs.add(randomExpression(rnd, names, 6));
+      exprs.add(null);
+
+      final var columns = BitSlicedExpression.evaluateColumns(inputs, exprs);
+      final var rows = 1 << inputCount;
+      for (var col = 0; col < exprs.size(); col++) {
+        assertEquals(rows, columns[col].length);
+        if (exprs.get(col) == null) {
+          assertTrue(Arrays.stream(columns[col]).allMatch(e -> e == Entry.DONT_CARE));
+          continue;
+        }
+        for (var row = 0; row < rows; row++) {
+          final var assignments = new Assignments();
+          for (var i = 0; i < inputCount; i++) {
+            assignments.put(inputs.get(i), TruthTable.isInputSet(row, i, inputCount));
+          }
+          final var expected = exprs.get(col).evaluate(assignments) ? Entry.ONE : Entry.ZERO;
+          assertEquals(expected, columns[col][row], exprs.get(col) + " at row " + row);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownVariables() {
+    final var inputs = List.of("a", "b");
+    final var known = Expressions.and(Expressions.variable("a"), Expressions.variable("b"));
+    assertFalse(BitSlicedExpression.compile(known, inputs).readsUnknownVariables());
+    final var unknown = Expressions.or(known, Expressions.variable("c"));
+    final var program = BitSlicedExpression.compile(unknown, inputs);
+    assertTrue(program.readsUnknownVariables());
+    assertEquals(0x8L, program.evaluate(new long[] {0xaL, 0xcL}));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.swing.JTextArea;
+import org.junit.jupiter.api.Test;
+
+public class EspressoTest {
+
+  private static AnalyzerModel createModel(int inputs, Entry[] column) {
+    final var model = new AnalyzerModel();
+    final var vars = new ArrayList<Var>();
+    for (var i = 0; i < inputs; i++) vars.add(new Var("i" + i, 1));
+    model.setVariables(vars, new ArrayList<>(List.of(new Var("o", 1))));
+    model.getTruthTable().setOutputColumn(0, column);
+    return model;
+  }
+
+  /**
+   * Checks that the products cover the rows holding <code>desired</code> and no rows holding
+   * <code>skipped</code>, and that none of them can be left out.
+   */
+  private static void assertIrredundantCover(Entry[] column, List<Implicant> cover,
+      Entry desired, Entry skipped) {
+    final var counts = new int[column.length];
+    for (final var implicant : cover) {
+      for (final var term : implicant.getTerms()) {
+        assertFalse(column[term.getRow()] == skipped, "covers row " + term.getRow());
+        counts[term.getRow()]++;
+      }
+    }
+    for (var row = 0; row < column.length; row++) {
+      if (column[row] == desired) assertTrue(counts[row] > 0, "misses row " + row);
+    }
+    for (final var implicant : cover) {
+      var needed = false;
+      for (final var term : implicant.getTerms()) {
+        needed |= column[term.getRow()] == desired && counts[term.getRow()] == 1;
+      }
+      assertTrue(needed, "redundant product");
+    }
+  }
+
+  @Test
+  public void testRandomFunctions() {
+    final var rnd = new Random(11);
+    for (final var inputs : new int[] {1, 4, 7, 10}) {
+      for (var f = 0; f < 5; f++) {
+        final var column = new Entry[1 << inputs];
+        for (var row = 0; row < column.length; row++) {
+          final var x = rnd.nextInt(10);
+          column[row] = x == 0 ? Entry.DONT_CARE : x < 5 ? Entry.ONE : Entry.ZERO;
+        }
+        final var model = createModel(inputs, column);
+        assertIrredundantCover(column,
+            Espresso.computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model, "o", null),
+            Entry.ONE, Entry.ZERO);
+        assertIrredundantCover(column,
+            Espresso.computeMinimal(AnalyzerModel.FORMAT_PRODUCT_OF_SUMS, model, "o", null),
+            Entry.ZERO, Entry.ONE);
+      }
+    }
+  }
+
+  @Test
+  public void testMajority() {
+    final var column = new Entry[32];
+    for (var row = 0; row < column.length; row++) {
+      column[row] = Integer.bitCount(row) >= 3 ? Entry.ONE : Entry.ZERO;
+    }
+    final var cover = Espresso.computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS,
+        createModel(5, column), "o", null);
+    // one product for each choice of three of the five inputs
+    assertEquals(10, cover.size());
+    for (final var implicant : cover) assertEquals(2, implicant.getUnknownCount());
+  }
+
+  /** A progress area interrupting the minimizing thread as soon as anything is reported. */
+  private static class InterruptingArea extends JTextArea {
+    @Override
+    public void append(String str) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void assertInterruptKeepsMinimal(boolean heuristic) {
+    final var column = new Entry[16];
+    for (var row = 0; row < column.length; row++) {
+      column[row] = Integer.bitCount(row) >= 2 ? Entry.ONE : Entry.ZERO;
+    }
+    final var expressions = createModel(4, column).getOutputExpressions();
+    final var before = expressions.getMinimalExpression("o");
+    final var implicants = expressions.getMinimalImplicants("o");
+    assertFalse(implicants.isEmpty());
+    final var events = new int[1];
+    expressions.addOutputExpressionsListener(event -> {
+      if (event.getType() == OutputExpressionsEvent.OUTPUT_MINIMAL) events[0]++;
+    });
+    try {
+      expressions.forcedOptimize(new InterruptingArea(), AnalyzerModel.FORMAT_SUM_OF_PRODUCTS,
+          heuristic);
+    } finally {
+      Thread.interrupted();
+    }
+    assertSame(before, expressions.getMinimalExpression("o"));
+    assertSame(implicants, expressions.getMinimalImplicants("o"));
+    assertEquals(0, events[0]);
+  }
+
+  @Test
+  public void testInterruptKeepsPreviousMinimalForm() {
+    assertInterruptKeepsMinimal(false);
+    assertInterruptKeepsMinimal(true);
+  }
+}
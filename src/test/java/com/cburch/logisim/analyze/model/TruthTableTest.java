@@ -0,0 +1,70 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TruthTableTest {
+
+  private static TruthTable createTable(int inputs) {
+    final var model = new AnalyzerModel();
+    final var vars = new ArrayList<Var>();
+    for (var i = 0; i < inputs; i++) vars.add(new Var("i" + i, 1));
+    model.setVariables(vars, new ArrayList<>(List.of(new Var("o", 1))));
+    return model.getTruthTable();
+  }
+
+  @Test
+  public void testOutputColumnRoundTrip() {
+    final Entry[] values = {Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR,
+        Entry.OSCILLATE_ERROR};
+    final var table = createTable(7);
+    final var column = new Entry[table.getRowCount()];
+    for (var i = 0; i < column.length; i++) column[i] = values[(i * 7) % values.length];
+    table.setOutputColumn(0, column);
+    assertArrayEquals(column, table.getOutputColumn(0));
+    for (final var value : values) {
+      final var expected = new ArrayList<Integer>();
+      for (var i = 0; i < column.length; i++) if (column[i] == value) expected.add(i);
+      assertEquals(expected, table.getOutputRows(0, value).boxed().toList(), value.toString());
+    }
+    // the returned column is a copy
+    table.getOutputColumn(0)[0] = Entry.ONE;
+    assertEquals(Entry.ZERO, table.getOutputEntry(0, 0));
+  }
+
+  @Test
+  public void testVisibleRows() {
+    final var table = createTable(3);
+    assertEquals(8, table.getVisibleRowCount());
+    assertEquals(5, table.getVisibleRowIndex(5));
+    assertEquals(Entry.ONE, table.getVisibleInputEntry(5, 0));
+    assertEquals(Entry.ZERO, table.getVisibleInputEntry(5, 1));
+    assertTrue(table.getOutputRows(0, Entry.DONT_CARE).allMatch(i -> i < 8));
+
+    // all outputs are don't cares, so rows 4 and 5 may merge
+    assertTrue(table.setVisibleInputEntry(4, 2, Entry.DONT_CARE, false));
+    assertEquals(7, table.getVisibleRowCount());
+    assertEquals(4, table.findVisibleRowContaining(5));
+    assertEquals(1, table.getVisibleRowDcMask(4));
+
+    // setting one of its entries splits the row again
+    table.setOutputEntry(5, 0, Entry.ONE);
+    assertEquals(8, table.getVisibleRowCount());
+    assertEquals(0, table.getVisibleRowDcMask(5));
+    assertEquals(Entry.ONE, table.getVisibleOutputEntry(5, 0));
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.junit.jupiter.api.Test;
+
+public class CircuitWiresTest {
+
+  private static final int THREADS = 4;
+  private static final int DRIVERS = 6;
+  private static final int BUS_WIDTH = 4;
+
+  private final SyntheticCircuits circuits = new SyntheticCircuits();
+
+  /** Adds and removes a wire far from the rest, which drops the bundle map. */
+  private static void touchWiring(Circuit circuit, int round) {
+    final var from = Location.create(20000, 20000 + 20 * round, true);
+    final var wire = Wire.create(from, from.translate(10, 0));
+    final var add = new CircuitMutation(circuit);
+    add.add(wire);
+    add.execute();
+    final var remove = new CircuitMutation(circuit);
+    remove.remove(wire);
+    remove.execute();
+  }
+
+  @Test
+  public void testConcurrentBuildsShareOneMap() throws Exception {
+    final var circuit = circuits.flatAdder(8);
+    final var barrier = new CyclicBarrier(THREADS);
+    for (var round = 0; round < 50; round++) {
+      touchWiring(circuit, round);
+      assertTrue(circuit.wires.isMapVoided());
+
+      final var maps = new AtomicReferenceArray<CircuitWires.BundleMap>(THREADS);
+      final var threads = new Thread[THREADS];
+      for (var i = 0; i < THREADS; i++) {
+        final var index = i;
+        threads[i] = new Thread(() -> {
+          try {
+            barrier.await();
+            maps.set(index, circuit.wires.getBundleMap());
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        });
+        threads[i].start();
+      }
+      for (final var thread : threads) thread.join();
+
+      final var map = circuit.wires.getBundleMap();
+      assertTrue(map.isValid());
+      for (var i = 0; i < THREADS; i++) assertSame(map, maps.get(i), "round " + round);
+    }
+  }
+
+  @Test
+  public void testWaiterHoldingSplitterLock() throws Exception {
+    // the editor locks a splitter while the simulator builds the map and needs that same lock
+    final var circuit = circuits.splitLogic();
+    Splitter splitter = null;
+    for (final var comp : circuit.getNonWires()) {
+      if (comp instanceof Splitter spl) splitter = spl;
+    }
+    assertNotNull(splitter);
+    final var locked = splitter;
+
+    for (var round = 0; round < 10; round++) {
+      touchWiring(circuit, round);
+      final var built = new AtomicReference<CircuitWires.BundleMap>();
+      final var editor = new Thread(() -> {
+        synchronized (locked) {
+          final var simulator = new Thread(() -> circuit.wires.getBundleMap());
+          simulator.setDaemon(true);
+          simulator.start();
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          built.set(circuit.wires.getBundleMap());
+        }
+      });
+      editor.setDaemon(true);
+      editor.start();
+      editor.join(10000);
+      assertFalse(editor.isAlive(), "round " + round);
+      assertTrue(built.get().isValid());
+      assertSame(built.get(), circuit.wires.getBundleMap());
+    }
+  }
+
+  /**
+   * Checks the driver counts and thread values that propagation kept up to date against those of
+   * a new wire state, which counts every driver of the current outputs again.
+   */
+  private static void assertSameAsRecount(Circuit circuit, CircuitState state, String what) {
+    final var kept = state.getWireData();
+    state.setWireData(null);
+    circuit.wires.propagate(state, List.of());
+    final var counted = state.getWireData();
+    assertNotSame(kept, counted);
+    assertArrayEquals(counted.drives, kept.drives, what);
+    assertArrayEquals(counted.driverCounts, kept.driverCounts, what);
+    assertArrayEquals(counted.thrValues, kept.thrValues, what);
+  }
+
+  @Test
+  public void testDriverCountsMatchRecount() {
+    final var random = new Random(11);
+    for (final var pull : new boolean[] {false, true}) {
+      final var circuit = circuits.triStateBus(DRIVERS, BUS_WIDTH, pull);
+      final var state = circuits.newState(circuit);
+      final var pins = new HashMap<String, Instance>();
+      for (final var comp : circuit.getNonWires()) {
+        if (comp.getFactory() instanceof Pin) {
+          pins.put(comp.getAttributeSet().getValue(StdAttr.LABEL), Instance.getInstanceFor(comp));
+        }
+      }
+
+      for (var step = 0; step < 2000; step++) {
+        final var driver = random.nextInt(DRIVERS);
+        final Instance pin;
+        final Value value;
+        switch (random.nextInt(4)) {
+          case 0, 1 -> {
+            // a driver joins or leaves the bus
+            pin = pins.get("e" + driver);
+            value = Pin.FACTORY.getValue(state.getInstanceState(pin)) == Value.TRUE ? Value.FALSE : Value.TRUE;
+          }
+          case 2 -> {
+            // new data, with some bits undefined or in error
+            pin = pins.get("d" + driver);
+            final var unknowns = random.nextInt(3) == 0 ? random.nextLong() : 0L;
+            value = Value.createFromMasks(BUS_WIDTH, random.nextLong(), unknowns);
+          }
+          default -> {
+            // an undefined enable drives the whole bus in error
+            pin = pins.get("e" + driver);
+            value = random.nextBoolean() ? Value.UNKNOWN : Value.FALSE;
+          }
+        }
+        Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+        state.markComponentAsDirty(pin.getComponent());
+        state.getPropagator().propagate();
+        assertSameAsRecount(circuit, state, circuit.getName() + " step " + step);
+      }
+    }
+  }
+}
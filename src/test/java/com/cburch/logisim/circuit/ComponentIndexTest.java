@@ -0,0 +1,146 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Probe;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the point and rectangle queries of {@link Circuit}, which are answered through its
+ * {@link ComponentIndex}, against a scan of every component.
+ */
+public class ComponentIndexTest {
+
+  private static final int QUERIES = 500;
+  private static final Direction[] FACINGS = {
+    Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST
+  };
+
+  private final SyntheticCircuits circuits = new SyntheticCircuits();
+  private final Graphics graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+  private final Random random = new Random(13);
+
+  /** Returns a random grid location at most <code>spread</code> away from the component's. */
+  private Location near(Component comp, int spread) {
+    final var loc = comp.getLocation();
+    return Location.create(
+        loc.getX() + random.nextInt(2 * spread + 1) - spread,
+        loc.getY() + random.nextInt(2 * spread + 1) - spread,
+        true);
+  }
+
+  private Component anyComponent(Circuit circuit) {
+    final var all = new ArrayList<>(circuit.getComponents());
+    return all.get(random.nextInt(all.size()));
+  }
+
+  private void assertQueriesMatchScan(Circuit circuit, String when) {
+    for (var q = 0; q < QUERIES; q++) {
+      final var pt = near(anyComponent(circuit), 40);
+      final var containing = new HashSet<Component>();
+      final var containingText = new HashSet<Component>();
+      for (final var comp : circuit.getComponents()) {
+        if (comp.contains(pt)) containing.add(comp);
+        if (comp.contains(pt, graphics)) containingText.add(comp);
+      }
+      assertEquals(containing, new HashSet<>(circuit.getAllContaining(pt)), when + " at " + pt);
+      assertEquals(
+          containingText, new HashSet<>(circuit.getAllContaining(pt, graphics)), when + " at " + pt);
+
+      final var corner = near(anyComponent(circuit), 100);
+      final var area =
+          Bounds.create(corner.getX(), corner.getY(), random.nextInt(600), random.nextInt(300));
+      final var within = new HashSet<Component>();
+      final var withinText = new HashSet<Component>();
+      for (final var comp : circuit.getComponents()) {
+        if (area.contains(comp.getBounds())) within.add(comp);
+        if (area.contains(comp.getBounds(graphics))) withinText.add(comp);
+      }
+      assertEquals(within, new HashSet<>(circuit.getAllWithin(area)), when + " in " + area);
+      assertEquals(
+          withinText, new HashSet<>(circuit.getAllWithin(area, graphics)), when + " in " + area);
+    }
+  }
+
+  /** The ripple adder's components and tunnels, with probes and wires scattered between them. */
+  private Circuit scatteredCircuit() {
+    final var circuit = circuits.rippleAdder(8);
+    final var mutation = new CircuitMutation(circuit);
+    for (final var comp : new ArrayList<>(circuit.getNonWires())) {
+      mutation.add(Probe.FACTORY.createComponent(near(comp, 60), Probe.FACTORY.createAttributeSet()));
+      final var from = near(comp, 100);
+      final var to = random.nextBoolean()
+          ? Location.create(from.getX() + random.nextInt(300), from.getY(), true)
+          : Location.create(from.getX(), from.getY() + random.nextInt(300), true);
+      if (!from.equals(to)) mutation.add(Wire.create(from, to));
+    }
+    mutation.execute();
+    return circuit;
+  }
+
+  @Test
+  public void testQueriesMatchScan() {
+    assertQueriesMatchScan(scatteredCircuit(), "built");
+  }
+
+  @Test
+  public void testQueriesMatchScanAfterMoves() {
+    final var circuit = scatteredCircuit();
+    for (var round = 0; round < 5; round++) {
+      final var mutation = new CircuitMutation(circuit);
+      for (final var comp : circuit.getNonWires()) {
+        if (random.nextInt(4) != 0) continue;
+        final var attrs = (AttributeSet) comp.getAttributeSet().clone();
+        mutation.replace(comp, comp.getFactory().createComponent(near(comp, 300), attrs));
+      }
+      mutation.execute();
+      assertQueriesMatchScan(circuit, "after moves " + round);
+    }
+  }
+
+  @Test
+  public void testQueriesMatchScanAfterResizes() {
+    final var circuit = scatteredCircuit();
+    final var probes = new ArrayList<Component>();
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof Probe) probes.add(comp);
+    }
+    for (var round = 0; round < 5; round++) {
+      // through a mutation, as the attribute table does
+      final var mutation = new CircuitMutation(circuit);
+      for (final var probe : probes) {
+        if (random.nextBoolean()) mutation.set(probe, StdAttr.FACING, FACINGS[random.nextInt(4)]);
+      }
+      mutation.execute();
+      assertQueriesMatchScan(circuit, "after mutated resizes " + round);
+
+      // behind the circuit's back, which only the component's bounds change tells about
+      for (final var probe : probes) {
+        if (random.nextBoolean()) {
+          probe.getAttributeSet().setValue(StdAttr.FACING, FACINGS[random.nextInt(4)]);
+        }
+      }
+      assertQueriesMatchScan(circuit, "after direct resizes " + round);
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceComponent;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstancePainter;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that propagating sibling substates in parallel gives the same results as the sequential
+ * engine, and that the components the siblings share remember an instance state of the parallel
+ * propagation once it is done. This also holds when the wiring of the siblings changed just before
+ * the step, and when their components fire invalidations during it.
+ */
+public class ParallelPropagationTest {
+
+  private static final int SIBLINGS = 32;
+  private static final int ROUNDS = 50;
+
+  private final SyntheticCircuits circuits = new SyntheticCircuits();
+
+  /**
+   * Returns the position among the siblings of the substate the component was last propagated in,
+   * or -1 if that substate does not belong to the given root state.
+   */
+  private static int lastSibling(CircuitState root, Component[] siblings, InstanceComponent comp) {
+    final var substate = comp.getInstanceStateImpl().getCircuitState();
+    for (var i = 0; i < siblings.length; i++) {
+      if (root.getData(siblings[i]) == substate) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Propagates a bank of siblings of the part with the sequential and the parallel engine and
+   * compares their outputs. <code>beforeParallel</code> runs in every round between the two.
+   */
+  private void assertSiblingsMatch(Circuit part, IntConsumer beforeParallel) {
+    final var bank = circuits.bank(part, SIBLINGS);
+    final var sequential = circuits.newState(bank);
+    final var parallel = circuits.newState(bank);
+    parallel.getPropagator().setParallel(true);
+
+    final var inputs = new ArrayList<Instance>();
+    final var outputs = new ArrayList<Instance>();
+    final var siblings = new ArrayList<Component>();
+    for (final var comp : bank.getNonWires()) {
+      if (comp.getFactory() instanceof SubcircuitFactory) siblings.add(comp);
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var pin = Instance.getInstanceFor(comp);
+      (Pin.FACTORY.isInputPin(pin) ? inputs : outputs).add(pin);
+    }
+    final var siblingArray = siblings.toArray(new Component[0]);
+    // a component inside the shared subcircuit, which every sibling propagates
+    InstanceComponent shared = null;
+    for (final var comp : part.getNonWires()) {
+      if (comp.getFactory() instanceof Pin) shared = (InstanceComponent) comp;
+    }
+
+    final var random = new Random(4);
+    for (var round = 0; round < ROUNDS; round++) {
+      for (final var pin : inputs) {
+        // about half of the pins keep their values, so not every substate is dirty
+        if (random.nextBoolean()) continue;
+        final var value = Value.createKnown(1, random.nextInt(2));
+        for (final var state : new CircuitState[] {sequential, parallel}) {
+          Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+          state.markComponentAsDirty(pin.getComponent());
+        }
+      }
+      sequential.getPropagator().propagate();
+      beforeParallel.accept(round);
+      parallel.getPropagator().propagate();
+      // the components are shared with the sequential state, which was propagated first
+      assertTrue(lastSibling(parallel, siblingArray, shared) >= 0, "round " + round);
+
+      for (final var pin : outputs) {
+        assertEquals(
+            Pin.FACTORY.getValue(sequential.getInstanceState(pin)),
+            Pin.FACTORY.getValue(parallel.getInstanceState(pin)),
+            "round " + round + " pin " + pin.getAttributeValue(StdAttr.LABEL));
+      }
+    }
+    final var last = Pin.FACTORY.getValue(parallel.getInstanceState(outputs.get(0)));
+    assertTrue(last.isFullyDefined());
+  }
+
+  @Test
+  public void testSiblingsMatchSequentialEngine() {
+    assertSiblingsMatch(circuits.rippleAdder(4), round -> { });
+  }
+
+  @Test
+  public void testWiringChangedBeforeParallelStep() {
+    // every parallel step starts without a bundle map and with point ids to compact
+    final var part = circuits.rippleAdder(4);
+    final var added = new ArrayList<Wire>();
+    assertSiblingsMatch(part, round -> {
+      final var mutation = new CircuitMutation(part);
+      mutation.removeAll(added);
+      added.clear();
+      for (var w = 0; w < 20; w++) {
+        final var from = Location.create(20000 + 20 * w, 20000 + 20 * round, true);
+        added.add(Wire.create(from, from.translate(10, 0)));
+      }
+      mutation.addAll(added);
+      mutation.execute();
+      assertTrue(part.wires.isMapVoided(), "round " + round);
+    });
+  }
+
+  @Test
+  public void testSiblingsFireInvalidations() {
+    // a probe on an output of the part fires an invalidation whenever its value changes
+    final var part = circuits.rippleAdder(4);
+    Instance output = null;
+    for (final var comp : part.getNonWires()) {
+      if (comp.getFactory() instanceof Pin) {
+        final var pin = Instance.getInstanceFor(comp);
+        if (!Pin.FACTORY.isInputPin(pin)) output = pin;
+      }
+    }
+    final var mutation = new CircuitMutation(part);
+    final var probe = new Probe();
+    mutation.add(probe.createComponent(output.getLocation(), probe.createAttributeSet()));
+    mutation.execute();
+
+    final var caller = Thread.currentThread();
+    final var events = new AtomicInteger();
+    final var elsewhere = new AtomicInteger();
+    // the circuit only keeps a weak reference to its listeners
+    final CircuitListener listener = event -> {
+      if (event.getAction() != CircuitEvent.ACTION_INVALIDATE) return;
+      events.incrementAndGet();
+      if (Thread.currentThread() != caller) elsewhere.incrementAndGet();
+    };
+    part.addCircuitListener(listener);
+    assertSiblingsMatch(part, round -> { });
+    part.removeCircuitListener(listener);
+    assertTrue(events.get() > 0);
+    assertEquals(0, elsewhere.get());
+  }
+
+  private static final class Probe extends InstanceFactory {
+    Probe() {
+      super("ParallelProbe");
+      setOffsetBounds(Bounds.create(0, -5, 10, 10));
+      setPorts(new Port[] {new Port(0, 0, Port.INPUT, 1)});
+    }
+
+    @Override
+    public void paintInstance(InstancePainter painter) {
+      // never shown
+    }
+
+    @Override
+    public void propagate(InstanceState state) {
+      final var value = state.getPortValue(0);
+      if (state.getData() instanceof ProbeData data && data.value.equals(value)) return;
+      state.setData(new ProbeData(value));
+      state.fireInvalidated();
+    }
+  }
+
+  private record ProbeData(Value value) implements InstanceData {
+    @Override
+    public Object clone() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+public class PointIndexTest {
+
+  private static final int POINTS = 1000;
+
+  private static Location point(int i) {
+    return Location.create(10 * (i % 100), 10 * (i / 100), false);
+  }
+
+  @Test
+  public void testCompactKeepsOnlyLivePoints() {
+    final var index = new PointIndex();
+    final var live = new ArrayList<Location>();
+    for (var i = 0; i < POINTS; i++) {
+      index.get(point(i));
+      if (i % 10 == 0) live.add(point(i));
+    }
+    final var before = index.generation();
+    assertTrue(index.compact(live));
+    assertNotSame(before, index.generation());
+    assertEquals(live.size(), index.size());
+    for (var i = 0; i < POINTS; i++) {
+      final var id = index.find(point(i));
+      if (i % 10 == 0) {
+        assertTrue(id >= 0 && id < live.size());
+        assertEquals(point(i), index.getLocation(id));
+      } else {
+        assertEquals(-1, id);
+      }
+    }
+    // the old generation keeps its numbering for the states still using it
+    assertEquals(point(7), before.getLocation(7));
+  }
+
+  @Test
+  public void testCompactNeedsEnoughDeadIds() {
+    final var index = new PointIndex();
+    final var live = new ArrayList<Location>();
+    for (var i = 0; i < PointIndex.MIN_DEAD_IDS; i++) {
+      index.get(point(i));
+      if (i % 2 == 0) live.add(point(i));
+    }
+    // fewer dead ids than the minimum
+    assertFalse(index.compact(live));
+
+    live.clear();
+    for (var i = 0; i < 3 * PointIndex.MIN_DEAD_IDS; i++) {
+      index.get(point(i));
+      if (i < 2 * PointIndex.MIN_DEAD_IDS) live.add(point(i));
+    }
+    // fewer dead ids than live ones
+    assertFalse(index.compact(live));
+    assertEquals(3 * PointIndex.MIN_DEAD_IDS, index.size());
+
+    assertTrue(index.compact(live.subList(0, PointIndex.MIN_DEAD_IDS)));
+    assertEquals(PointIndex.MIN_DEAD_IDS, index.size());
+  }
+
+  @Test
+  public void testStateFollowsCompaction() {
+    final var proj = new Project(LogisimFile.createNew(new Loader(null), null));
+    final var circuit = proj.getLogisimFile().getMainCircuit();
+    final var state = new CircuitState(proj, circuit);
+    final var live = new ArrayList<Location>();
+    for (var i = 0; i < POINTS; i++) {
+      final var id = state.getPointId(point(i));
+      if (i % 10 == 0) {
+        live.add(point(i));
+        state.setValueByWire(id, Value.createKnown(8, i % 256));
+      }
+    }
+    // a point holding a value that the compaction was not told about
+    state.setValueByWire(state.getPointId(point(5)), Value.TRUE);
+    final var before = state.getLayout();
+    assertTrue(circuit.pointIndex.compact(live));
+
+    // until it moves, the state keeps using the ids of its own generation
+    assertSame(before, state.getLayout());
+    assertEquals(Value.TRUE, state.getValue(point(5)));
+    assertEquals(Value.TRUE, state.getValueByWire(state.getPointId(point(5))));
+
+    state.useLayout(circuit.pointIndex.generation());
+    assertSame(circuit.pointIndex.generation(), state.getLayout());
+    for (var i = 0; i < POINTS; i++) {
+      if (i % 10 == 0) {
+        assertEquals(Value.createKnown(8, i % 256), state.getValue(point(i)));
+      } else if (i == 5) {
+        assertEquals(Value.TRUE, state.getValue(point(i)));
+      } else {
+        assertNull(state.getValueByWire(circuit.pointIndex.find(point(i))));
+      }
+    }
+    assertEquals(live.size() + 1, circuit.pointIndex.size());
+  }
+
+  /**
+   * Adds and removes wires far from the logic of a ripple adder while another thread keeps
+   * simulating it, as the editor does while the simulator runs, so that the point index is
+   * compacted under the running simulation. Every sum it computes must still be right.
+   */
+  @Test
+  public void testEditsDuringSimulation() throws Exception {
+    final var circuits = new SyntheticCircuits();
+    final var circuit = circuits.flatAdder(4);
+    final var state = circuits.newState(circuit);
+    final var pins = new HashMap<String, Instance>();
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof Pin) {
+        pins.put(comp.getAttributeSet().getValue(StdAttr.LABEL), Instance.getInstanceFor(comp));
+      }
+    }
+    final var first = circuit.pointIndex.generation();
+
+    final var stop = new AtomicBoolean();
+    final var failure = new AtomicReference<Throwable>();
+    final var sums = new AtomicInteger();
+    final var simulator = new Thread(() -> {
+      final var random = new Random(3);
+      try {
+        while (!stop.get()) {
+          final var a = random.nextInt(16);
+          final var b = random.nextInt(16);
+          final var cin = random.nextInt(2);
+          for (var i = 0; i < 4; i++) {
+            setInput(state, pins.get("a" + i), (a >> i) & 1);
+            setInput(state, pins.get("b" + i), (b >> i) & 1);
+          }
+          setInput(state, pins.get("cin"), cin);
+          state.getPropagator().propagate();
+          var sum = (int) Pin.FACTORY.getValue(state.getInstanceState(pins.get("cout"))).toLongValue() << 4;
+          for (var i = 0; i < 4; i++) {
+            sum |= (int) Pin.FACTORY.getValue(state.getInstanceState(pins.get("s" + i))).toLongValue() << i;
+          }
+          assertEquals(a + b + cin, sum, a + " + " + b + " + " + cin);
+          sums.incrementAndGet();
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    simulator.start();
+
+    final var wired = pins.get("s0").getLocation();
+    for (var round = 0; round < 40 && failure.get() == null; round++) {
+      final var wires = new ArrayList<Wire>();
+      final var add = new CircuitMutation(circuit);
+      for (var w = 0; w < 30; w++) {
+        final var from = Location.create(20000 + 20 * w, 20000 + 20 * round, true);
+        wires.add(Wire.create(from, from.translate(10, 0)));
+      }
+      add.addAll(wires);
+      add.execute();
+      // the editor's painting reads values while the simulation runs
+      state.getValue(wired);
+      circuit.wires.getBundleMap();
+      final var remove = new CircuitMutation(circuit);
+      remove.removeAll(wires);
+      remove.execute();
+      state.containsKey(wired);
+      Thread.sleep(1);
+    }
+    stop.set(true);
+    simulator.join();
+
+    if (failure.get() != null) throw new AssertionError(failure.get());
+    assertNotSame(first, circuit.pointIndex.generation());
+    assertTrue(sums.get() > 0);
+  }
+
+  private static void setInput(CircuitState state, Instance pin, int bit) {
+    Pin.FACTORY.setValue(state.getInstanceState(pin), Value.createKnown(1, bit));
+    state.markComponentAsDirty(pin.getComponent());
+  }
+}
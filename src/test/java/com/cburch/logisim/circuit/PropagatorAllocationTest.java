@@ -0,0 +1,108 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation-counting benchmark for the {@link Propagator}: once warmed up, propagating a clocked
+ * counter must not produce any garbage, from scheduling, per-step deduplication and SetData pooling
+ * through wire resolution to the gates and flip-flops themselves.
+ */
+public class PropagatorAllocationTest {
+
+  private static final int BITS = 8;
+  private static final int ROUNDS = 10000;
+  /** Rounds before measuring; until the JIT has compiled the loop, iterators are still allocated. */
+  private static final int WARM_UP_ROUNDS = 5 * ROUNDS;
+  /** Allowance for what reading the allocation counter allocates itself. */
+  private static final long SLACK_BYTES = 1024;
+  /**
+   * Windows of ROUNDS rounds to measure. A recompilation, e.g. after other tests have used the
+   * same code with other types, can land in one window; garbage made every round shows in all.
+   */
+  private static final int WINDOWS = 3;
+
+  @Test
+  public void testSteadyStatePropagationIsAllocationFree() {
+    final var mxBean = ManagementFactory.getThreadMXBean();
+    if (!(mxBean instanceof com.sun.management.ThreadMXBean threadBean)
+        || !threadBean.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    // a counter toggles its flip-flops and the gates between them on every clock tick; its clock
+    // is an input pin, as a Clock component notifies the circuit's listeners whenever it ticks
+    final var circuits = new SyntheticCircuits();
+    final var circuit = circuits.counter(BITS, true);
+    final var state = circuits.newState(circuit);
+    final var outputs = new Instance[BITS];
+    Instance clock = null;
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var pin = Instance.getInstanceFor(comp);
+      final var label = pin.getAttributeValue(StdAttr.LABEL);
+      if (label.equals("en")) {
+        setInput(state, pin, Value.TRUE);
+      } else if (label.equals("clk")) {
+        clock = pin;
+      } else {
+        outputs[Integer.parseInt(label.substring(1))] = pin;
+      }
+    }
+    final var prop = state.getPropagator();
+    prop.propagate();
+
+    // warm up: fills the pool and lets the JIT settle
+    for (var i = 0; i < WARM_UP_ROUNDS; i++) tick(state, clock);
+
+    final var threadId = Thread.currentThread().getId();
+    var allocated = Long.MAX_VALUE;
+    for (var window = 0; window < WINDOWS && allocated > SLACK_BYTES; window++) {
+      final var start = count(state, outputs);
+      final var before = threadBean.getThreadAllocatedBytes(threadId);
+      for (var i = 0; i < ROUNDS; i++) tick(state, clock);
+      allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+      // every round is one rising edge, so the counter advanced by ROUNDS
+      assertEquals((start + ROUNDS) % (1 << BITS), count(state, outputs));
+    }
+    assertTrue(allocated <= SLACK_BYTES, "bytes allocated in " + ROUNDS + " rounds: " + allocated);
+  }
+
+  private static void tick(CircuitState state, Instance clock) {
+    setInput(state, clock, Value.TRUE);
+    state.getPropagator().propagate();
+    setInput(state, clock, Value.FALSE);
+    state.getPropagator().propagate();
+  }
+
+  private static void setInput(CircuitState state, Instance pin, Value value) {
+    Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin.getComponent());
+  }
+
+  private static int count(CircuitState state, Instance[] outputs) {
+    var ret = 0;
+    for (var i = 0; i < outputs.length; i++) {
+      if (Pin.FACTORY.getValue(state.getInstanceState(outputs[i])) == Value.TRUE) ret |= 1 << i;
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,448 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.memory.MemContents;
+import com.cburch.logisim.std.memory.RamAppearance;
+import com.cburch.logisim.std.memory.Rom;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.std.wiring.WiringLibrary;
+import com.cburch.logisim.tools.AddTool;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Builds scalable synthetic circuits for the benchmarks and tests. Components are placed on a grid and joined
+ * through tunnels named after their nets, which keeps the builders free of any wire routing.
+ */
+public final class SyntheticCircuits {
+  private final Loader loader = new Loader(null);
+  private final LogisimFile file;
+  private final Project project;
+
+  public SyntheticCircuits() {
+    try (final var template = AppPreferences.getEmptyTemplate().createStream()) {
+      file = loader.openLogisimFile(template);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    for (final var lib : new String[] {WiringLibrary._ID, GatesLibrary._ID, MemoryLibrary._ID}) {
+      file.addLibrary(loader.getBuiltin().getLibrary(lib));
+    }
+    project = new Project(file);
+  }
+
+  public Loader getLoader() {
+    return loader;
+  }
+
+  public LogisimFile getFile() {
+    return file;
+  }
+
+  public Project getProject() {
+    return project;
+  }
+
+  /** Returns a fresh root state of the circuit, propagated once so its substates exist. */
+  public CircuitState newState(Circuit circuit) {
+    final var state = new CircuitState(project, circuit);
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  /** A one-bit full adder made of gates, with inputs a, b, cin and outputs s, cout. */
+  public Circuit fullAdder() {
+    final var circuit = newCircuit("fa");
+    final var b = new Builder(circuit);
+    b.pin("a", false, 1, "a");
+    b.pin("b", false, 1, "b");
+    b.pin("cin", false, 1, "cin");
+    b.pin("s", true, 1, "s");
+    b.pin("cout", true, 1, "cout");
+    b.gate("XOR Gate", "x", "a", "b");
+    b.gate("XOR Gate", "s", "x", "cin");
+    b.gate("AND Gate", "g", "a", "b");
+    b.gate("AND Gate", "p", "x", "cin");
+    b.gate("OR Gate", "cout", "g", "p");
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A ripple carry adder of <code>bits</code> one-bit full adder subcircuits, with one pin per
+   * input and output bit (a0.., b0.., cin, s0.., cout).
+   */
+  public Circuit rippleAdder(int bits) {
+    return adderOf(fullAdder(), 1, bits, "add" + bits);
+  }
+
+  /**
+   * A ripple carry adder of <code>bits</code> bits made of gates only, with the same pins as
+   * {@link #rippleAdder}.
+   */
+  public Circuit flatAdder(int bits) {
+    final var circuit = newCircuit("flat" + bits);
+    final var b = new Builder(circuit);
+    b.pin("cin", false, 1, "c0");
+    for (var i = 0; i < bits; i++) {
+      b.pin("a" + i, false, 1, "a" + i);
+      b.pin("b" + i, false, 1, "b" + i);
+      b.pin("s" + i, true, 1, "s" + i);
+      b.gate("XOR Gate", "x" + i, "a" + i, "b" + i);
+      b.gate("XOR Gate", "s" + i, "x" + i, "c" + i);
+      b.gate("AND Gate", "g" + i, "a" + i, "b" + i);
+      b.gate("AND Gate", "p" + i, "x" + i, "c" + i);
+      b.gate("OR Gate", "c" + (i + 1), "g" + i, "p" + i);
+    }
+    b.pin("cout", true, 1, "c" + bits);
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A ripple carry adder of <code>1 << depth</code> bits built as a hierarchy: every level is a
+   * subcircuit holding two instances of the level below, down to the one-bit full adder.
+   */
+  public Circuit nestedAdder(int depth) {
+    var level = fullAdder();
+    for (var d = 1; d <= depth; d++) {
+      level = adderOf(level, 1 << (d - 1), 2, "nest" + d);
+    }
+    return level;
+  }
+
+  private Circuit adderOf(Circuit part, int partBits, int parts, String name) {
+    final var circuit = newCircuit(name);
+    final var b = new Builder(circuit);
+    final var bits = partBits * parts;
+    b.pin("cin", false, 1, "c0");
+    for (var i = 0; i < bits; i++) {
+      b.pin("a" + i, false, 1, "a" + i);
+      b.pin("b" + i, false, 1, "b" + i);
+      b.pin("s" + i, true, 1, "s" + i);
+    }
+    b.pin("cout", true, 1, "c" + parts);
+    for (var p = 0; p < parts; p++) {
+      final var sub = b.add(part.getSubcircuitFactory());
+      for (final var port : part.getAppearance().getPortOffsets(Direction.EAST).entrySet()) {
+        final var label = port.getValue().getAttributeValue(StdAttr.LABEL);
+        final String net;
+        if (label.equals("cin")) net = "c" + p;
+        else if (label.equals("cout")) net = "c" + (p + 1);
+        else net = label.charAt(0) + Integer.toString(p * partBits + Integer.parseInt("0" + label.substring(1)));
+        final var loc = sub.getLocation().translate(port.getKey().getX(), port.getKey().getY());
+        b.tunnel(loc, net, 1);
+      }
+    }
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * <code>count</code> side by side instances of the subcircuit, each port of instance
+   * <code>i</code> connected to its own pin labelled with the port's label and "_i".
+   */
+  public Circuit bank(Circuit part, int count) {
+    final var circuit = newCircuit(part.getName() + "x" + count);
+    final var b = new Builder(circuit);
+    for (var i = 0; i < count; i++) {
+      final var sub = b.add(part.getSubcircuitFactory());
+      for (final var port : part.getAppearance().getPortOffsets(Direction.EAST).entrySet()) {
+        final var pin = port.getValue();
+        final var net = pin.getAttributeValue(StdAttr.LABEL) + "_" + i;
+        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+        b.tunnel(sub.getLocation().translate(port.getKey().getX(), port.getKey().getY()), net, width);
+        b.pin(net, !Pin.FACTORY.isInputPin(pin), width, net);
+      }
+    }
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * <code>count</code> RAMs sharing address, data, write enable and clock, each driving its own
+   * output pin; the clock is a Clock component so the circuit can be ticked.
+   */
+  public Circuit ramArray(int count, int addrBits, int dataBits) {
+    final var circuit = newCircuit("ram" + count);
+    final var b = new Builder(circuit);
+    b.pin("addr", false, addrBits, "addr");
+    b.pin("din", false, dataBits, "din");
+    b.pin("we", false, 1, "we");
+    b.net(b.add(Clock.FACTORY), 0, "clk");
+    final var ram = memoryFactory("RAM");
+    for (var r = 0; r < count; r++) {
+      final var comp =
+          b.add(ram, Mem.ADDR_ATTR, BitWidth.create(addrBits), Mem.DATA_ATTR, BitWidth.create(dataBits));
+      final var attrs = comp.getAttributeSet();
+      b.netIfPresent(comp, RamAppearance.getAddrIndex(0, attrs), "addr");
+      b.netIfPresent(comp, RamAppearance.getDataOutIndex(0, attrs), "dout" + r);
+      final var dataIn = RamAppearance.getDataInIndex(0, attrs);
+      if (dataIn != RamAppearance.getDataOutIndex(0, attrs)) b.netIfPresent(comp, dataIn, "din");
+      b.netIfPresent(comp, RamAppearance.getWEIndex(0, attrs), "we");
+      b.netIfPresent(comp, RamAppearance.getClkIndex(0, attrs), "clk");
+      b.pin("dout" + r, true, dataBits, "dout" + r);
+    }
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A synchronous binary counter of <code>bits</code> D flip-flops, counting on each clock tick
+   * while the input pin en is high, with one output pin per bit (q0..).
+   */
+  public Circuit counter(int bits) {
+    return counter(bits, false);
+  }
+
+  /**
+   * The counter of {@link #counter(int)}, clocked by an input pin clk instead of a Clock component
+   * if <code>clockPin</code> is set, so that a test can drive the clock like any other input.
+   */
+  public Circuit counter(int bits, boolean clockPin) {
+    final var circuit = newCircuit((clockPin ? "pinCount" : "count") + bits);
+    final var b = new Builder(circuit);
+    b.pin("en", false, 1, "t0");
+    if (clockPin) b.pin("clk", false, 1, "clk");
+    else b.net(b.add(Clock.FACTORY), 0, "clk");
+    for (var i = 0; i < bits; i++) {
+      b.flipFlop("d" + i, "q" + i);
+      b.gate("XOR Gate", "d" + i, "q" + i, "t" + i);
+      b.gate("AND Gate", "t" + (i + 1), "t" + i, "q" + i);
+      b.pin("q" + i, true, 1, "q" + i);
+    }
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A shift register of <code>length</code> D flip-flops, shifting the input pin in towards the
+   * last stage on each clock tick, with one output pin per stage (q0..).
+   */
+  public Circuit shiftChain(int length) {
+    final var circuit = newCircuit("shift" + length);
+    final var b = new Builder(circuit);
+    b.pin("in", false, 1, "q-1");
+    b.net(b.add(Clock.FACTORY), 0, "clk");
+    for (var i = 0; i < length; i++) {
+      b.flipFlop("q" + (i - 1), "q" + i);
+      b.pin("q" + i, true, 1, "q" + i);
+    }
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A ROM of random contents, reproducible from the seed, read at the address on the input pin
+   * addr and driving the output pin dout.
+   */
+  public Circuit romLookup(int addrBits, int dataBits, long seed) {
+    final var circuit = newCircuit("rom" + addrBits);
+    final var b = new Builder(circuit);
+    final var contents = MemContents.create(addrBits, dataBits, false);
+    final var random = new Random(seed);
+    for (var addr = 0L; addr < 1L << addrBits; addr++) {
+      contents.set(addr, random.nextLong() & ((1L << dataBits) - 1));
+    }
+    b.pin("addr", false, addrBits, "addr");
+    final var comp =
+        b.add(memoryFactory(Rom._ID), Mem.ADDR_ATTR, BitWidth.create(addrBits),
+            Mem.DATA_ATTR, BitWidth.create(dataBits), Rom.CONTENTS_ATTR, contents);
+    final var attrs = comp.getAttributeSet();
+    b.netIfPresent(comp, RamAppearance.getAddrIndex(0, attrs), "addr");
+    b.netIfPresent(comp, RamAppearance.getDataOutIndex(0, attrs), "dout");
+    b.pin("dout", true, dataBits, "dout");
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * A gated D latch of NAND gates with inputs en, d and outputs q, qn, next to a D flip-flop
+   * clocked by the input pin clk and storing d on the output ff.
+   */
+  public Circuit latches() {
+    final var circuit = newCircuit("latches");
+    final var b = new Builder(circuit);
+    b.pin("en", false, 1, "en");
+    b.pin("d", false, 1, "d");
+    b.pin("clk", false, 1, "clk");
+    b.gate("NAND Gate", "sn", "d", "en");
+    b.gate("NAND Gate", "dn", "d", "d");
+    b.gate("NAND Gate", "rn", "dn", "en");
+    b.gate("NAND Gate", "q", "sn", "qn");
+    b.gate("NAND Gate", "qn", "rn", "q");
+    b.pin("q", true, 1, "q");
+    b.pin("qn", true, 1, "qn");
+    b.flipFlop("d", "ff");
+    b.pin("ff", true, 1, "ff");
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * Gates between two splitters: the 4-bit input pin x is split into its bits, which are combined
+   * with each other and with the input pin c into the bits of the 4-bit output pin y.
+   */
+  public Circuit splitLogic() {
+    final var circuit = newCircuit("split");
+    final var b = new Builder(circuit);
+    b.pin("x", false, 4, "x");
+    b.pin("c", false, 1, "c");
+    b.splitter("x", "x0", "x1", "x2", "x3");
+    b.gate("XOR Gate", "y0", "x0", "x1");
+    b.gate("AND Gate", "y1", "x2", "x3");
+    b.gate("OR Gate", "y2", "x1", "x3");
+    b.gate("XOR Gate", "y3", "x0", "c");
+    b.splitter("y", "y0", "y1", "y2", "y3");
+    b.pin("y", true, 4, "y");
+    b.done();
+    return circuit;
+  }
+
+  /**
+   * <code>drivers</code> controlled buffers sharing a bus of <code>width</code> bits, buffer
+   * <code>i</code> driving input pin di onto it while input pin ei is high. The bus goes to output
+   * pin bus, and through a splitter to one output pin per bit (b0..); the even bits are pulled
+   * down if <code>pull</code> is set.
+   */
+  public Circuit triStateBus(int drivers, int width, boolean pull) {
+    final var circuit = newCircuit("bus" + drivers + "x" + width + (pull ? "pulled" : ""));
+    final var b = new Builder(circuit);
+    for (var i = 0; i < drivers; i++) {
+      final var buffer = b.add(gateFactory("Controlled Buffer"), StdAttr.WIDTH, BitWidth.create(width));
+      b.net(buffer, 0, "bus");
+      b.net(buffer, 1, "d" + i);
+      b.net(buffer, 2, "e" + i);
+      b.pin("d" + i, false, width, "d" + i);
+      b.pin("e" + i, false, 1, "e" + i);
+    }
+    b.pin("bus", true, width, "bus");
+    final var bits = new String[width];
+    for (var j = 0; j < width; j++) {
+      bits[j] = "b" + j;
+      b.pin(bits[j], true, 1, bits[j]);
+      if (pull && j % 2 == 0) {
+        // the resistor takes the width of its net, so its tunnel is given one
+        final var resistor = b.add(PullResistor.FACTORY);
+        b.tunnel(resistor.getEnd(0).getLocation(), bits[j], 1);
+      }
+    }
+    b.splitter("bus", bits);
+    b.done();
+    return circuit;
+  }
+
+  private Circuit newCircuit(String name) {
+    final var circuit = new Circuit(name, file, project);
+    file.addCircuit(circuit);
+    return circuit;
+  }
+
+  private ComponentFactory gateFactory(String name) {
+    return ((AddTool) file.getLibrary(GatesLibrary._ID).getTool(name)).getFactory();
+  }
+
+  private ComponentFactory memoryFactory(String name) {
+    return ((AddTool) file.getLibrary(MemoryLibrary._ID).getTool(name)).getFactory();
+  }
+
+  private final class Builder {
+    private final CircuitMutation mutation;
+    private int slot = 0;
+
+    Builder(Circuit circuit) {
+      mutation = new CircuitMutation(circuit);
+    }
+
+    private Location next() {
+      final var s = slot++;
+      return Location.create(100 + (s % 50) * 200, 100 + (s / 50) * 200, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    Component add(ComponentFactory factory, Object... attributes) {
+      final var attrs = factory.createAttributeSet();
+      for (var i = 0; i < attributes.length; i += 2) {
+        attrs.setValue((Attribute<Object>) attributes[i], attributes[i + 1]);
+      }
+      final var comp = factory.createComponent(next(), attrs);
+      mutation.add(comp);
+      return comp;
+    }
+
+    void tunnel(Location loc, String net, int width) {
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, net);
+      attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+      mutation.add(Tunnel.FACTORY.createComponent(loc, attrs));
+    }
+
+    void net(Component comp, int end, String net) {
+      final var e = comp.getEnd(end);
+      tunnel(e.getLocation(), net, e.getWidth().getWidth());
+    }
+
+    void netIfPresent(Component comp, int end, String net) {
+      if (end >= 0) net(comp, end, net);
+    }
+
+    void pin(String label, boolean output, int width, String net) {
+      final var pin =
+          add(Pin.FACTORY, Pin.ATTR_TYPE, output, StdAttr.LABEL, label, StdAttr.WIDTH, BitWidth.create(width));
+      net(pin, 0, net);
+    }
+
+    void gate(String name, String out, String... ins) {
+      final var gate = add(gateFactory(name), GateAttributes.ATTR_INPUTS, ins.length);
+      net(gate, 0, out);
+      for (var i = 0; i < ins.length; i++) net(gate, 1 + i, ins[i]);
+    }
+
+    /** Adds a splitter between the net <code>combined</code> and one net per bit of it. */
+    void splitter(String combined, String... bits) {
+      final var splitter =
+          add(SplitterFactory.instance, SplitterAttributes.ATTR_WIDTH, BitWidth.create(bits.length),
+              SplitterAttributes.ATTR_FANOUT, bits.length);
+      net(splitter, 0, combined);
+      for (var i = 0; i < bits.length; i++) net(splitter, 1 + i, bits[i]);
+    }
+
+    /** Adds a D flip-flop clocked by the net clk, with its reset and preset left open. */
+    void flipFlop(String d, String q) {
+      final var ff = add(memoryFactory("D Flip-Flop"));
+      net(ff, 0, d);
+      net(ff, 1, "clk");
+      net(ff, 2, q);
+    }
+
+    void done() {
+      mutation.execute();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the tables of {@link Analyze#computeTable}, whichever way {@link TruthTableExtractor}
+ * computes them, against simulating every row on a fresh circuit state.
+ */
+public class TruthTableExtractorTest {
+
+  private final SyntheticCircuits circuits = new SyntheticCircuits();
+
+  /** Compares the table computed on the given number of threads with the simulated rows. */
+  private void assertSameAsSimulation(Circuit circuit, int threads) {
+    final var pinLabels = Analyze.getPinLabels(circuit);
+    final var model = new AnalyzerModel();
+    Analyze.computeTable(model, circuits.getProject(), circuit, pinLabels, threads);
+    final var table = model.getTruthTable();
+
+    var inputCount = 0;
+    for (final var pin : pinLabels.keySet()) {
+      if (Pin.FACTORY.isInputPin(pin)) inputCount += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    }
+    final var rowCount = 1 << inputCount;
+    assertEquals(rowCount, table.getRowCount(), circuit.getName());
+
+    for (var row = 0; row < rowCount; row++) {
+      final var state = new CircuitState(circuits.getProject(), circuit);
+      var inCol = 0;
+      for (final var pin : pinLabels.keySet()) {
+        if (!Pin.FACTORY.isInputPin(pin)) continue;
+        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+        final var bits = new Value[width];
+        for (var b = width - 1; b >= 0; b--) {
+          bits[b] = TruthTable.isInputSet(row, inCol++, inputCount) ? Value.TRUE : Value.FALSE;
+        }
+        Pin.FACTORY.setValue(state.getInstanceState(pin), Value.create(bits));
+      }
+      final var prop = state.getPropagator();
+      prop.propagate();
+
+      var outCol = 0;
+      for (final var pin : pinLabels.keySet()) {
+        if (Pin.FACTORY.isInputPin(pin)) continue;
+        final var value = Pin.FACTORY.getValue(state.getInstanceState(pin));
+        for (var b = value.getWidth() - 1; b >= 0; b--, outCol++) {
+          final Entry expected;
+          if (prop.isOscillating()) expected = Entry.OSCILLATE_ERROR;
+          else if (value.get(b) == Value.TRUE) expected = Entry.ONE;
+          else if (value.get(b) == Value.FALSE) expected = Entry.ZERO;
+          else if (value.get(b) == Value.ERROR) expected = Entry.BUS_ERROR;
+          else expected = Entry.DONT_CARE;
+          assertEquals(
+              expected,
+              table.getOutputEntry(row, outCol),
+              circuit.getName() + " row " + row + " column " + outCol);
+        }
+      }
+      assertEquals(table.getOutputColumnCount(), outCol, circuit.getName());
+    }
+  }
+
+  @Test
+  public void testCombinational() {
+    // fewer rows than one 64-row word, several words, and a table split over threads
+    assertSameAsSimulation(circuits.fullAdder(), 1);
+    assertSameAsSimulation(circuits.flatAdder(3), 1);
+    assertSameAsSimulation(circuits.flatAdder(5), 3);
+    assertSameAsSimulation(circuits.rippleAdder(2), 1);
+    assertSameAsSimulation(circuits.rippleAdder(5), 1);
+    assertSameAsSimulation(circuits.rippleAdder(5), 3);
+    assertSameAsSimulation(circuits.romLookup(7, 5, 21), 2);
+  }
+
+  @Test
+  public void testLatches() {
+    assertSameAsSimulation(circuits.latches(), 1);
+  }
+
+  @Test
+  public void testSimulatedRowsWithThreads() {
+    // tables that are simulated, with enough rows to be split if they were evaluated packed
+    assertSameAsSimulation(circuits.romLookup(11, 4, 5), 4);
+    assertSameAsSimulation(circuits.rippleAdder(6), 4);
+  }
+
+  @Test
+  public void testTunnelsAndSplitters() {
+    assertSameAsSimulation(circuits.splitLogic(), 1);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class WheelPropagationQueueTest {
+
+  private static SetData event(int time, int serial) {
+    return new SetData(time, serial, null, null, null, null);
+  }
+
+  /**
+   * The timing wheel must hand out events in exactly the same order as the heap, including
+   * events beyond the wheel window and serial numbers that wrap around.
+   */
+  @Test
+  public void testSameOrderAsHeap() {
+    final var rnd = new Random(42);
+    final var wheel = new WheelPropagationQueue(16);
+    final var heap = new HeapPropagationQueue();
+    var clock = Integer.MAX_VALUE - 100;
+    var serial = Integer.MAX_VALUE - 1000;
+    for (var i = 0; i < 50000; i++) {
+      if (heap.isEmpty() || rnd.nextInt(3) > 0) {
+        final var delay = 1 + (rnd.nextInt(10) == 0 ? rnd.nextInt(100) : rnd.nextInt(4));
+        wheel.add(event(clock + delay, serial));
+        heap.add(event(clock + delay, serial));
+        serial++;
+      } else {
+        clock = heap.peek().time;
+        while (!heap.isEmpty() && heap.peek().time == clock) {
+          final var expected = heap.poll();
+          final var actual = wheel.poll();
+          assertEquals(expected.time, actual.time);
+          assertEquals(expected.serialNumber, actual.serialNumber);
+        }
+      }
+      assertEquals(heap.isEmpty(), wheel.isEmpty());
+    }
+  }
+
+  @Test
+  public void testClear() {
+    final var wheel = new WheelPropagationQueue(4);
+    wheel.add(event(1, 0));
+    wheel.add(event(100, 1));
+    wheel.clear();
+    assertNull(wheel.peek());
+    final var data = event(2, 2);
+    wheel.add(data);
+    assertSame(data, wheel.poll());
+    assertNull(wheel.poll());
+  }
+}
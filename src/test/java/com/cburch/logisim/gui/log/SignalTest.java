@@ -0,0 +1,227 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the packed history of {@link Signal} against a plain list of entries, for every value
+ * width, with and without a history limit.
+ */
+public class SignalTest {
+
+  private static final int OPERATIONS = 1500;
+
+  private final Random random = new Random(20);
+
+  /** The history as the signal should see it: entries of a start time and a value. */
+  private static final class Model {
+    final ArrayList<Long> starts = new ArrayList<>();
+    final ArrayList<Value> values = new ArrayList<>();
+    long end;
+    int maxSize;
+
+    Model(Value v, long duration, int maxSize) {
+      this.maxSize = maxSize;
+      starts.add(0L);
+      values.add(v);
+      end = duration;
+    }
+
+    int last() {
+      return values.size() - 1;
+    }
+
+    void extend(Value v, long duration) {
+      if (!values.get(last()).equals(v)) {
+        if (maxSize > 0 && values.size() == maxSize) {
+          starts.remove(0);
+          values.remove(0);
+        }
+        starts.add(end);
+        values.add(v);
+      }
+      end += duration;
+    }
+
+    void replaceRecent(Value v, long duration) {
+      final var dur = end - starts.get(last());
+      if (dur == duration) {
+        values.set(last(), v);
+        if (last() > 0 && values.get(last() - 1).equals(v)) {
+          starts.remove(last());
+          values.remove(last());
+        }
+      } else if (dur > duration) {
+        end -= duration;
+        extend(v, duration);
+      } else {
+        // only called with a single entry lasting at most the duration
+        starts.set(0, end - duration);
+        values.set(0, v);
+      }
+    }
+
+    void resize(int newMaxSize) {
+      maxSize = newMaxSize;
+      while (newMaxSize > 0 && values.size() > newMaxSize) {
+        starts.remove(0);
+        values.remove(0);
+      }
+    }
+  }
+
+  private static final Circuit ROOT =
+      LogisimFile.createNew(new Loader(null), null).getMainCircuit();
+
+  /** Returns the description of a signal of the given width, which is that of a fresh pin. */
+  private static SignalInfo newInfo(int width) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var pin = Pin.FACTORY.createComponent(Location.create(0, 0, false), attrs);
+    return new SignalInfo(ROOT, new Component[] {pin}, null);
+  }
+
+  private Value randomValue(int width) {
+    final var mask = width == 64 ? -1L : (1L << width) - 1;
+    final var ones = random.nextLong() & mask;
+    // mostly fully known values, as in a simulation; the rest with unknown and error bits
+    final var unknowns = random.nextInt(4) == 0 ? random.nextLong() & mask : 0;
+    return Value.createFromMasks(width, ones, unknowns);
+  }
+
+  private static void assertSameHistory(Model model, Signal signal, String when) {
+    assertEquals(model.end, signal.getEndTime(), when);
+    final var start = model.starts.get(0);
+    assertNull(signal.getValue(start - 1), when);
+    assertNull(signal.getValue(model.end), when);
+    for (var p = 0; p < model.values.size(); p++) {
+      final var from = model.starts.get(p);
+      final var to = p == model.last() ? model.end : model.starts.get(p + 1);
+      assertEquals(model.values.get(p), signal.getValue(from), when + " entry " + p);
+      assertEquals(model.values.get(p), signal.getValue(to - 1), when + " entry " + p);
+    }
+
+    final var it = signal.new Iterator();
+    for (var p = 0; p < model.values.size(); p++) {
+      final var from = model.starts.get(p);
+      final var to = p == model.last() ? model.end : model.starts.get(p + 1);
+      assertEquals((long) from, it.time, when + " entry " + p);
+      assertEquals((long) (to - from), it.duration, when + " entry " + p);
+      assertEquals(model.values.get(p), it.value, when + " entry " + p);
+      assertEquals(p < model.last(), it.advance(), when + " entry " + p);
+    }
+    assertNull(it.value, when);
+
+    // jumping forward lands on the entry holding the time
+    final var mid = start + (model.end - start) / 2;
+    final var jump = signal.new Iterator(mid);
+    assertEquals(mid, jump.time, when);
+    assertEquals(signal.getValue(mid), jump.value, when);
+  }
+
+  /** Applies random operations to the signal and the model, comparing them now and then. */
+  private void run(Signal signal, Model model, int width, int operations, String name) {
+    for (var op = 0; op < operations; op++) {
+      final var kind = random.nextInt(10);
+      final var duration = 1 + random.nextInt(10);
+      if (kind == 0) {
+        signal.extend(duration);
+        model.end += duration;
+      } else if (kind <= 2) {
+        final var recent = model.end - model.starts.get(model.last());
+        final var v = randomValue(width);
+        // replace all of the most recent entry, part of it, or more of it if it is the only one
+        final long replaced;
+        if (random.nextBoolean()) replaced = recent;
+        else if (model.values.size() == 1) replaced = Math.min(model.end, recent + duration);
+        else replaced = 1 + random.nextInt((int) recent);
+        signal.replaceRecent(v, replaced);
+        model.replaceRecent(v, replaced);
+      } else {
+        // repeating the last value only extends it
+        final var v = random.nextInt(4) == 0 ? model.values.get(model.last()) : randomValue(width);
+        signal.extend(v, duration);
+        model.extend(v, duration);
+      }
+      if (op % 97 == 0) assertSameHistory(model, signal, name + " op " + op);
+    }
+    assertSameHistory(model, signal, name);
+  }
+
+  @Test
+  public void testUnlimitedHistoryOfEveryWidth() {
+    for (var width = 1; width <= 64; width++) {
+      final var v = randomValue(width);
+      final var signal = new Signal(0, newInfo(width), v, 5, 0, 0);
+      run(signal, new Model(v, 5, 0), width, OPERATIONS, "width " + width);
+    }
+  }
+
+  @Test
+  public void testLimitedHistoryOfEveryWidth() {
+    final int[] limits = {1, 2, 7, 100, 512, 700};
+    for (var width = 1; width <= 64; width++) {
+      final var limit = limits[width % limits.length];
+      final var v = randomValue(width);
+      final var signal = new Signal(0, newInfo(width), v, 5, 0, limit);
+      // long enough for the ring to wrap several times
+      run(signal, new Model(v, 5, limit), width, OPERATIONS, "width " + width + " limit " + limit);
+    }
+  }
+
+  @Test
+  public void testResize() {
+    final int[] widths = {1, 2, 3, 4, 5, 8, 13, 16, 31, 32, 33, 63, 64};
+    // grow and shrink, within a chunk and across chunks, to and from unlimited
+    final int[] limits = {600, 50, 1000, 0, 300, 10, 0, 513, 1, 2000};
+    for (final var width : widths) {
+      final var v = randomValue(width);
+      final var signal = new Signal(0, newInfo(width), v, 5, 0, 700);
+      final var model = new Model(v, 5, 700);
+      for (final var limit : limits) {
+        run(signal, model, width, 400, "width " + width);
+        signal.resize(limit);
+        model.resize(limit);
+        assertSameHistory(model, signal, "width " + width + " resized to " + limit);
+      }
+    }
+  }
+
+  @Test
+  public void testWideningKeepsHistory() {
+    final var info = newInfo(3);
+    final var v = randomValue(3);
+    final var signal = new Signal(0, info, v, 5, 0, 0);
+    final var model = new Model(v, 5, 0);
+    run(signal, model, 3, OPERATIONS, "narrow");
+
+    // the older, narrower values read back zero-extended
+    info.getComponent().getAttributeSet().setValue(StdAttr.WIDTH, BitWidth.create(40));
+    assertEquals(40, signal.getWidth());
+    model.values.replaceAll(old -> old.extendWidth(40, Value.FALSE));
+    assertSameHistory(model, signal, "widened");
+    run(signal, model, 40, OPERATIONS, "wide");
+  }
+}
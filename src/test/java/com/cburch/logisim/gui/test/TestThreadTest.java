@@ -0,0 +1,179 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.SyntheticCircuits;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceComponent;
+import com.cburch.logisim.instance.InstanceStateImpl;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that {@link TestThread}, which lets a {@link BatchTester} pass combinational rows 64 at a
+ * time, reports the same rows as passed and failed as running every row through the simulator.
+ */
+public class TestThreadTest {
+
+  @TempDir File tempDir;
+
+  private final SyntheticCircuits circuits = new SyntheticCircuits();
+  private final Random random = new Random(6);
+
+  private static String bits(Value v) {
+    final var ret = new StringBuilder();
+    for (var b = v.getWidth() - 1; b >= 0; b--) {
+      final var bit = v.get(b);
+      ret.append(bit == Value.TRUE ? '1' : bit == Value.FALSE ? '0' : 'x');
+    }
+    return ret.toString();
+  }
+
+  /** Returns the bits as a vector token, which must not start with 0x lest it read as hex. */
+  private static String token(char[] bits) {
+    if (bits.length > 1 && bits[0] == '0' && bits[1] == 'x') bits[0] = 'x';
+    return new String(bits);
+  }
+
+  /**
+   * Writes a vector of random rows for the circuit and loads it. The expected outputs are those
+   * of the simulator, except in rows where a bit is flipped, so that the row fails, or replaced by
+   * a don't care. Some rows leave an input bit undefined.
+   */
+  private TestVector randomVector(Circuit circuit, Instance[] pins, int rows) throws Exception {
+    final var text = new StringBuilder();
+    for (final var pin : pins) {
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      text.append(pin.getAttributeValue(StdAttr.LABEL));
+      if (width > 1) text.append('[').append(width).append(']');
+      text.append(' ');
+    }
+    text.append('\n');
+
+    for (var row = 0; row < rows; row++) {
+      final var state = new CircuitState(circuits.getProject(), circuit);
+      final var tokens = new String[pins.length];
+      final var undefined = random.nextInt(20) == 0;
+      for (var i = 0; i < pins.length; i++) {
+        if (!Pin.FACTORY.isInputPin(pins[i])) continue;
+        final var width = pins[i].getAttributeValue(StdAttr.WIDTH);
+        final var token = new char[width.getWidth()];
+        for (var b = 0; b < token.length; b++) token[b] = random.nextBoolean() ? '1' : '0';
+        if (undefined) token[random.nextInt(token.length)] = 'x';
+        tokens[i] = token(token);
+        Pin.FACTORY.setValue(state.getInstanceState(pins[i]), Value.fromLogString(width, tokens[i]));
+      }
+      state.getPropagator().propagate();
+
+      final var change = random.nextInt(4);
+      for (var i = 0; i < pins.length; i++) {
+        if (Pin.FACTORY.isInputPin(pins[i])) continue;
+        final var token = bits(Pin.FACTORY.getValue(state.getInstanceState(pins[i]))).toCharArray();
+        final var b = random.nextInt(token.length);
+        if (change == 0 && token[b] != 'x') token[b] = token[b] == '1' ? '0' : '1';
+        else if (change == 1) token[b] = 'x';
+        tokens[i] = token(token);
+      }
+      text.append(String.join(" ", tokens)).append('\n');
+    }
+
+    final var file = new File(tempDir, circuit.getName() + rows + ".txt");
+    Files.writeString(file.toPath(), text);
+    return new TestVector(file);
+  }
+
+  /** Runs the vector through the test thread and compares each row with the simulator's result. */
+  private void assertSameAsSimulator(Circuit circuit, int rows, boolean batched) throws Exception {
+    final var pins = Analyze.getPinLabels(circuit).keySet().toArray(new Instance[0]);
+    final var vector = randomVector(circuit, pins, rows);
+    final var model = new Model(circuits.getProject(), circuit);
+    model.setVector(vector);
+    final var tester = new TestThread(model);
+    assertEquals(batched, BatchTester.create(circuit, pins, vector) != null, circuit.getName());
+    tester.run();
+    final var results = model.getResults();
+    final var numPass = model.getPass();
+    final var numFail = model.getFail();
+
+    var passed = 0;
+    var failed = 0;
+    for (var row = 0; row < rows; row++) {
+      TestException expected = null;
+      try {
+        circuit.doTestVector(new CircuitState(circuits.getProject(), circuit), pins, vector.data.get(row));
+      } catch (TestException e) {
+        expected = e;
+      }
+      if (expected == null) passed++;
+      else failed++;
+      assertEquals(expected == null, results[row] == null, circuit.getName() + " row " + row);
+      if (expected != null) {
+        assertEquals(expected.getMessage(), results[row].getMessage(), circuit.getName() + " row " + row);
+      }
+    }
+    assertEquals(passed, numPass, circuit.getName());
+    assertEquals(failed, numFail, circuit.getName());
+    assertTrue(passed > 0 && failed > 0, circuit.getName());
+  }
+
+  @Test
+  public void testBatchedRows() throws Exception {
+    // several shards, a single partial batch, and multi-bit pins between splitters
+    assertSameAsSimulator(circuits.flatAdder(3), 1000, true);
+    assertSameAsSimulator(circuits.flatAdder(4), 37, true);
+    assertSameAsSimulator(circuits.splitLogic(), 300, true);
+  }
+
+  @Test
+  public void testSimulatedRows() throws Exception {
+    // subcircuits and flip-flops leave every row to the simulator
+    assertSameAsSimulator(circuits.rippleAdder(2), 200, false);
+    assertSameAsSimulator(circuits.latches(), 100, false);
+  }
+
+  @Test
+  public void testComponentsKeepTheirStates() throws Exception {
+    // the run creates states of its own, which the components must not be left pointing to
+    final var circuit = circuits.rippleAdder(2);
+    final var pins = Analyze.getPinLabels(circuit).keySet().toArray(new Instance[0]);
+    final var vector = randomVector(circuit, pins, 50);
+    final var model = new Model(circuits.getProject(), circuit);
+    model.setVector(vector);
+    final var tester = new TestThread(model);
+
+    final var shown = new CircuitState(circuits.getProject(), circuit);
+    final var before = new HashMap<InstanceComponent, InstanceStateImpl>();
+    for (final var comp : circuit.getNonWires()) {
+      if (comp instanceof InstanceComponent instComp) {
+        shown.getInstanceState(comp);
+        before.put(instComp, instComp.getInstanceStateImpl());
+      }
+    }
+    tester.run();
+    assertEquals(50, model.getPass() + model.getFail());
+    before.forEach((comp, state) -> assertSame(state, comp.getInstanceStateImpl()));
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.instance.InstanceComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the address decoder of the SoC bus against asking every slave about every byte, over
+ * random memory maps placed at the bottom, the middle and the top of the address space.
+ */
+public class SocBusDecoderTest {
+
+  private static final int[] BASES = {0, 0x7FFFFF00, 0xFFFFFF00};
+  private static final int MAPS = 200;
+
+  private final Random random = new Random(18);
+
+  /** A slave that answers every address of its range, as the memories and peripherals do. */
+  private record Slave(int start, int size) implements SocBusSlaveInterface {
+    boolean covers(long addr) {
+      final var from = SocSupport.convUnsignedInt(start);
+      return from <= addr && addr < from + size;
+    }
+
+    @Override
+    public boolean canHandleTransaction(SocBusTransaction trans) {
+      return covers(SocSupport.convUnsignedInt(trans.getAddress()));
+    }
+
+    @Override
+    public void handleTransaction(SocBusTransaction trans) {
+      // never called
+    }
+
+    @Override
+    public Integer getStartAddress() {
+      return start;
+    }
+
+    @Override
+    public Integer getMemorySize() {
+      return size;
+    }
+
+    @Override
+    public String getName() {
+      return "slave";
+    }
+
+    @Override
+    public void registerListener(SocBusSlaveListener l) {
+      // the ranges never change
+    }
+
+    @Override
+    public void removeListener(SocBusSlaveListener l) {
+      // the ranges never change
+    }
+
+    @Override
+    public InstanceComponent getComponent() {
+      return null;
+    }
+  }
+
+  /** Up to six slaves of up to 64 bytes in the 256 bytes from the base, some of them overlapping. */
+  private List<SocBusSlaveInterface> randomMap(int base) {
+    final var slaves = new ArrayList<SocBusSlaveInterface>();
+    final var count = random.nextInt(7);
+    for (var i = 0; i < count; i++) {
+      slaves.add(new Slave(base + 4 * random.nextInt(64), 4 * (1 + random.nextInt(16))));
+    }
+    return slaves;
+  }
+
+  private static SocBusSlaveInterface bruteOnlySlave(List<SocBusSlaveInterface> slaves, int address, long nrOfBytes) {
+    final var start = SocSupport.convUnsignedInt(address);
+    if (start + nrOfBytes > 1L << 32) return null;
+    SocBusSlaveInterface ret = null;
+    for (var addr = start; addr < start + nrOfBytes; addr++) {
+      Slave only = null;
+      for (final var slave : slaves) {
+        if (!((Slave) slave).covers(addr)) continue;
+        if (only != null) return null;
+        only = (Slave) slave;
+      }
+      if (only == null || (ret != null && ret != only)) return null;
+      ret = only;
+    }
+    return ret;
+  }
+
+  @Test
+  public void testOnlySlave() {
+    for (final var base : BASES) {
+      for (var map = 0; map < MAPS; map++) {
+        final var slaves = randomMap(base);
+        final var decoder = new SocBusDecoder(slaves);
+        for (var i = 0; i < 200; i++) {
+          // ranges from just below the slaves to beyond them, wrapping at 2^32 on the top base
+          final var address = base - 16 + 4 * random.nextInt(80);
+          final var nrOfBytes = 4L * (1 + random.nextInt(24));
+          assertSame(
+              bruteOnlySlave(slaves, address, nrOfBytes),
+              decoder.getOnlySlave(address, nrOfBytes),
+              String.format("map %d at 0x%08x, %d bytes", map, address, nrOfBytes));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testOnlySlaveAtTheTop() {
+    final var top = new Slave(0xFFFFFF00, 0x100);
+    final var decoder = new SocBusDecoder(List.of(top));
+    assertSame(top, decoder.getOnlySlave(0xFFFFFF00, 0x100));
+    assertSame(top, decoder.getOnlySlave(0xFFFFFFFC, 4));
+    // the range wraps around to address 0, which belongs to no slave
+    assertNull(decoder.getOnlySlave(0xFFFFFFFC, 8));
+    assertNull(decoder.getOnlySlave(0xFFFFFEFC, 8));
+  }
+
+  /** The slaves that answer a word read at the address, asked one by one like the bus used to. */
+  private static SocBusSlaveInterface[] handlers(List<SocBusSlaveInterface> slaves, int address) {
+    final var trans =
+        new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, address, 0, SocBusTransaction.WORD_ACCESS, "test");
+    return slaves.stream().filter(slave -> slave.canHandleTransaction(trans)).toArray(SocBusSlaveInterface[]::new);
+  }
+
+  private static void assertSameSlaves(List<SocBusSlaveInterface> slaves, int from, int to) {
+    final var decoder = new SocBusDecoder(slaves);
+    for (var address = from; address != to; address++) {
+      assertArrayEquals(handlers(slaves, address), decoder.getSlaves(address), String.format("0x%08x", address));
+    }
+  }
+
+  @Test
+  public void testSlavesMatchCanHandleTransaction() {
+    for (final var base : BASES) {
+      for (var map = 0; map < MAPS; map++) {
+        assertSameSlaves(randomMap(base), base - 16, base + 0x120);
+      }
+    }
+  }
+
+  @Test
+  public void testAdjacentAndOverlappingSlaves() {
+    final var adjacent = List.<SocBusSlaveInterface>of(
+        new Slave(0x1000, 0x100), new Slave(0x1100, 0x100), new Slave(0x1200, 4));
+    assertSameSlaves(adjacent, 0xFF0, 0x1210);
+    // the order of registration is kept where slaves overlap
+    final var overlapping = List.<SocBusSlaveInterface>of(
+        new Slave(0x1080, 0x100), new Slave(0x1000, 0x100), new Slave(0x1000, 0x200), new Slave(0x10FC, 4));
+    assertSameSlaves(overlapping, 0xFF0, 0x1210);
+    assertSameSlaves(List.of(new Slave(0xFFFFFF00, 0x100), new Slave(0, 0x10)), 0xFFFFFEF0, 0x20);
+  }
+
+  @Test
+  public void testDecoderFollowsSlaveChanges() throws Exception {
+    // other threads keep asking for the decoder while the slaves come and go
+    final var model = new SocMemMapModel();
+    final var stop = new AtomicBoolean();
+    final var failure = new AtomicReference<Throwable>();
+    final var readers = new Thread[3];
+    for (var i = 0; i < readers.length; i++) {
+      readers[i] = new Thread(() -> {
+        try {
+          while (!stop.get()) model.getDecoder().getSlaves(0x1000);
+        } catch (Throwable t) {
+          failure.set(t);
+        }
+      });
+      readers[i].start();
+    }
+    final var slaves = new ArrayList<SocBusSlaveInterface>();
+    try {
+      for (var round = 0; round < 5000 && failure.get() == null; round++) {
+        if (slaves.isEmpty() || random.nextBoolean()) {
+          // the model registers a slave only once, and equal records count as the same slave
+          final var slave = new Slave(0x1000 - 4 * random.nextInt(4), 4 * (1 + random.nextInt(8)));
+          if (slaves.contains(slave)) continue;
+          slaves.add(slave);
+          model.registerSocBusSlave(slave);
+        } else {
+          model.removeSocBusSlave(slaves.remove(random.nextInt(slaves.size())));
+        }
+        assertArrayEquals(handlers(slaves, 0x1000), model.getDecoder().getSlaves(0x1000), "round " + round);
+      }
+    } finally {
+      stop.set(true);
+      for (final var reader : readers) reader.join();
+    }
+    if (failure.get() != null) throw new AssertionError(failure.get());
+  }
+}
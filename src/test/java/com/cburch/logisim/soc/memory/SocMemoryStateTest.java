@@ -0,0 +1,77 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that reading words of a SoC memory in bulk gives the words {@link
+ * SocMemoryState.SocMemoryInfo#getWord(int)} gives one at a time, over random block layouts.
+ */
+public class SocMemoryStateTest {
+
+  // around 0x7FFFFFFC the blocks' signed address compares change sign
+  private static final int[] BASES = {0, 0x7FFFFE00, 0xFFFFFE00, 0x12345600};
+  private static final int LAYOUTS = 100;
+
+  private final Random random = new Random(18);
+
+  @Test
+  public void testReadWordsMatchesGetWord() {
+    final var memory = new SocMemoryState();
+    var compared = 0;
+    for (final var base : BASES) {
+      for (var layout = 0; layout < LAYOUTS; layout++) {
+        // scattered writes in 1 KiB make blocks that grow, merge and leave holes
+        final var info = memory.new SocMemoryInfo();
+        final var writes = random.nextInt(256);
+        for (var i = 0; i < writes; i++) {
+          info.writeWord(base + 4 * random.nextInt(256), random.nextInt());
+        }
+
+        for (var i = 0; i < 20; i++) {
+          final var address = base - 64 + 4 * random.nextInt(288);
+          final var count = 1 + random.nextInt(96);
+          final var offset = random.nextInt(4);
+          final var dest = new int[offset + count];
+          info.readWords(address, dest, offset, count);
+          for (var w = 0; w < count; w++) {
+            final var addr = address + 4 * w;
+            // words outside the blocks are random, so only the stored words can be compared
+            final var word = info.getWord(addr);
+            if (word != info.getWord(addr)) continue;
+            assertEquals(word, dest[offset + w], String.format("layout %d at 0x%08x", layout, addr));
+            compared++;
+          }
+        }
+      }
+    }
+    assertTrue(compared > 100000);
+  }
+
+  @Test
+  public void testReadWordsAcrossTheSignChange() {
+    final var info = new SocMemoryState().new SocMemoryInfo();
+    // two blocks on either side of 0x80000000, kept apart by the two words that are never written
+    for (var addr = 0x7FFFFFE0; addr != 0x7FFFFFFC; addr += 4) info.writeWord(addr, addr);
+    for (var addr = 0x80000004; addr != 0x80000020; addr += 4) info.writeWord(addr, addr);
+    final var dest = new int[16];
+    info.readWords(0x7FFFFFE0, dest, 0, 16);
+    for (var w = 0; w < 16; w++) {
+      final var addr = 0x7FFFFFE0 + 4 * w;
+      if (addr == 0x7FFFFFFC || addr == 0x80000000) continue;
+      assertEquals(addr, dest[w], String.format("0x%08x", addr));
+    }
+  }
+}
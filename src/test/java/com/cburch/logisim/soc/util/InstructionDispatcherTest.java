@@ -0,0 +1,106 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.soc.nios2.Nios2Assembler;
+import com.cburch.logisim.soc.nios2.Nios2ArithmeticAndLogicalInstructions;
+import com.cburch.logisim.soc.nios2.Nios2ComparisonInstructions;
+import com.cburch.logisim.soc.nios2.Nios2Support;
+import com.cburch.logisim.soc.rv32im.RV32imAssembler;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link AbstractAssembler#decodeInstruction(int)}, which only offers an instruction to
+ * the units of its dispatch key, finds the same unit as loading it into every unit with {@link
+ * AbstractAssembler#decode(int)} and asking {@link AbstractAssembler#getExeUnit()}.
+ */
+public class InstructionDispatcherTest {
+
+  private static final int RANDOM_WORDS = 200000;
+  private static final int NIOS2_R_TYPE = 0x3A;
+  private static final int NIOS2_OPX_0X18 = 0x18;
+
+  private final Random random = new Random(17);
+
+  private static void assertSameUnit(AbstractAssembler assembler, int instruction) {
+    final var dispatched = assembler.decodeInstruction(instruction);
+    final var dispatchedAsm = dispatched == null ? null : dispatched.getAsmInstruction();
+    assembler.decode(instruction);
+    final var probed = assembler.getExeUnit();
+    final var word = String.format("0x%08x", instruction);
+    assertSame(probed, dispatched, word);
+    if (probed != null) assertEquals(probed.getAsmInstruction(), dispatchedAsm, word);
+  }
+
+  /** Every value of the low <code>bits</code> bits, with random bits above them. */
+  private void assertSameUnitForLowBits(AbstractAssembler assembler, int bits, int shift) {
+    for (var low = 0; low < 1 << bits; low++) {
+      for (var i = 0; i < 64; i++) {
+        final var high = random.nextInt() & ~(((1 << bits) - 1) << shift);
+        assertSameUnit(assembler, high | (low << shift));
+      }
+    }
+  }
+
+  private void assertSameUnitForRandomWords(AbstractAssembler assembler) {
+    for (var i = 0; i < RANDOM_WORDS; i++) assertSameUnit(assembler, random.nextInt());
+  }
+
+  @Test
+  public void testRv32im() {
+    final var assembler = new RV32imAssembler();
+    // the dispatch key is the 7-bit opcode
+    assertSameUnitForLowBits(assembler, 7, 0);
+    assertSameUnitForRandomWords(assembler);
+  }
+
+  @Test
+  public void testNios2() {
+    final var assembler = new Nios2Assembler();
+    // the dispatch key is the 6-bit opcode, or the 6-bit OPX code of R-type instructions
+    assertSameUnitForLowBits(assembler, 6, 0);
+    for (var opx = 0; opx < 0x40; opx++) {
+      for (var i = 0; i < 256; i++) {
+        final var fields = random.nextInt() & ~(0x3F << 11) & ~0x3F;
+        assertSameUnit(assembler, fields | (opx << 11) | NIOS2_R_TYPE);
+      }
+    }
+    assertSameUnitForRandomWords(assembler);
+  }
+
+  @Test
+  public void testNios2OverlappingOpx() {
+    // two units declare OPX code 0x18, so the first of them that accepts a word has to win
+    final var key = 0x40 | NIOS2_OPX_0X18;
+    final var arithmetic = new Nios2ArithmeticAndLogicalInstructions().getDispatchKeys();
+    final var comparison = new Nios2ComparisonInstructions().getDispatchKeys();
+    assertTrue(Arrays.stream(arithmetic).anyMatch(k -> k == key));
+    assertTrue(Arrays.stream(comparison).anyMatch(k -> k == key));
+
+    final var assembler = new Nios2Assembler();
+    for (var i = 0; i < 10000; i++) {
+      final var fields = random.nextInt() & ~(0x3F << 11) & ~0x3F;
+      final var instruction = fields | (NIOS2_OPX_0X18 << 11) | NIOS2_R_TYPE;
+      assertEquals(key, Nios2Support.getDispatchKey(instruction));
+      assertSameUnit(assembler, instruction);
+    }
+    // a well-formed cmpne, whose OPX bits are not its only ones, is recognized
+    final var cmpne = (1 << 27) | (2 << 22) | (3 << 17) | (NIOS2_OPX_0X18 << 11) | NIOS2_R_TYPE;
+    assertNotNull(assembler.decodeInstruction(cmpne));
+    assertSameUnit(assembler, cmpne);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link InternTable} shares one object per key between threads while the keys fit,
+ * and still returns the right objects once there are more keys than slots.
+ */
+public class InternTableTest {
+
+  private static final int THREADS = 8;
+
+  private record Key(int key0, long key1, long key2) {}
+
+  private static final class KeyTable extends InternTable<Key> {
+    KeyTable(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    protected boolean matches(Key candidate, int key0, long key1, long key2) {
+      return candidate.key0 == key0 && candidate.key1 == key1 && candidate.key2 == key2;
+    }
+
+    @Override
+    protected Key create(int key0, long key1, long key2) {
+      return new Key(key0, key1, key2);
+    }
+  }
+
+  private static Key intern(KeyTable table, Key key) {
+    final var ret = table.intern(key.key0, key.key1, key.key2);
+    assertEquals(key, ret);
+    return ret;
+  }
+
+  private static Key[] randomKeys(Random random, int count) {
+    final var keys = new Key[count];
+    for (var i = 0; i < count; i++) keys[i] = new Key(random.nextInt(64), random.nextLong(), i);
+    return keys;
+  }
+
+  /** Runs the task on several threads at once and rethrows the first failure. */
+  private static void runConcurrently(Runnable task) throws Exception {
+    final var barrier = new CyclicBarrier(THREADS);
+    final var failure = new AtomicReference<Throwable>();
+    final var threads = new Thread[THREADS];
+    for (var i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          barrier.await();
+          task.run();
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        }
+      });
+      threads[i].start();
+    }
+    for (final var thread : threads) thread.join();
+    if (failure.get() != null) throw new AssertionError(failure.get());
+  }
+
+  @Test
+  public void testConcurrentInterningSharesObjects() throws Exception {
+    final var keys = randomKeys(new Random(9), 256);
+    final var seen = new Key[THREADS][];
+    final var next = new AtomicInteger();
+    for (var round = 0; round < 20; round++) {
+      // a sixteenth of the slots, so that no probe window overflows
+      final var table = new KeyTable(1 << 12);
+      next.set(0);
+      runConcurrently(() -> {
+        final var index = next.getAndIncrement();
+        final var random = new Random(index);
+        final var mine = new Key[keys.length];
+        for (var pass = 0; pass < 4; pass++) {
+          for (var i = 0; i < keys.length; i++) {
+            // first all in the same order, so that the threads meet on keys not yet interned
+            final var k = pass == 0 ? i : random.nextInt(keys.length);
+            final var ret = intern(table, keys[k]);
+            if (mine[k] == null) mine[k] = ret;
+            else assertSame(mine[k], ret);
+          }
+        }
+        for (var k = 0; k < keys.length; k++) {
+          final var ret = intern(table, keys[k]);
+          if (mine[k] != null) assertSame(mine[k], ret);
+          mine[k] = ret;
+        }
+        seen[index] = mine;
+      });
+      for (var k = 0; k < keys.length; k++) {
+        for (var t = 1; t < THREADS; t++) assertSame(seen[0][k], seen[t][k], "round " + round);
+      }
+      // every key was created once, and every other call was a hit
+      assertEquals(keys.length, table.getMisses(), "round " + round);
+      assertEquals(THREADS * 5L * keys.length, table.getHits() + table.getMisses());
+    }
+  }
+
+  @Test
+  public void testInterningPastCapacity() {
+    final var table = new KeyTable(64);
+    final var keys = randomKeys(new Random(10), 100000);
+    for (final var key : keys) {
+      final var ret = intern(table, key);
+      // nothing came in between, so the newest key is still in its probe window
+      assertSame(ret, intern(table, key));
+    }
+    // the table never grows: old keys make room for new ones
+    assertEquals(64, table.getCapacity());
+    assertEquals(2L * keys.length, table.getHits() + table.getMisses());
+    assertTrue(table.getMisses() >= keys.length);
+    for (final var key : keys) intern(table, key);
+  }
+
+  @Test
+  public void testConcurrentInterningPastCapacity() throws Exception {
+    // the threads keep replacing each other's objects, which must stay whole and equal to their key
+    final var table = new KeyTable(16);
+    final var keys = randomKeys(new Random(11), 5000);
+    final var next = new AtomicInteger();
+    runConcurrently(() -> {
+      final var random = new Random(next.getAndIncrement());
+      for (var i = 0; i < 200000; i++) intern(table, keys[random.nextInt(keys.length)]);
+    });
+    assertEquals(16, table.getCapacity());
+  }
+
+  @Test
+  public void testDefaultCapacity() {
+    final var old = System.getProperty(InternTable.CAPACITY_PROPERTY);
+    try {
+      System.clearProperty(InternTable.CAPACITY_PROPERTY);
+      assertEquals(1 << 14, InternTable.getDefaultCapacity());
+      System.setProperty(InternTable.CAPACITY_PROPERTY, "100000");
+      assertEquals(100000, InternTable.getDefaultCapacity());
+      assertEquals(1 << 17, new KeyTable(InternTable.getDefaultCapacity()).getCapacity());
+      System.setProperty(InternTable.CAPACITY_PROPERTY, "1");
+      assertEquals(8, InternTable.getDefaultCapacity());
+      System.setProperty(InternTable.CAPACITY_PROPERTY, String.valueOf(Integer.MAX_VALUE));
+      assertEquals(1 << 24, InternTable.getDefaultCapacity());
+      // not a number
+      System.setProperty(InternTable.CAPACITY_PROPERTY, "lots");
+      assertEquals(1 << 14, InternTable.getDefaultCapacity());
+    } finally {
+      if (old == null) System.clearProperty(InternTable.CAPACITY_PROPERTY);
+      else System.setProperty(InternTable.CAPACITY_PROPERTY, old);
+    }
+  }
+}
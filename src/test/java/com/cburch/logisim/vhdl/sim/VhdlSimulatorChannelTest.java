@@ -0,0 +1,97 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.vhdl.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import org.junit.jupiter.api.Test;
+
+public class VhdlSimulatorChannelTest {
+
+  /** Reports the value forced on the input of the same entity, "x_q" echoing "x_d". */
+  private static final VhdlSimulatorLoopback.Model ECHO =
+      (name, width, forced) -> {
+        if (name.endsWith("_missing")) return null;
+        final var value = forced.get(name.substring(0, name.length() - 1) + "d");
+        return value == null ? Value.createUnknown(width) : value;
+      };
+
+  /**
+   * Values of several entities go through one step each way, keep all four bit states, stay
+   * forced when they are not sent again, and replies of pipelined steps come back in order.
+   */
+  @Test
+  public void testStepsThroughLoopback() throws IOException {
+    try (final var server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      final var loopback = new VhdlSimulatorLoopback(server.getLocalPort(), ECHO);
+      loopback.start();
+      try (final var socket = server.accept()) {
+        final var channel =
+            new VhdlSimulatorChannel(socket.getInputStream(), socket.getOutputStream());
+        final var aIn = channel.getSignalId("a_d", 1, 8);
+        final var aOut = channel.getSignalId("a_q", 2, 8);
+        final var bIn = channel.getSignalId("b_d", 1, 64);
+        final var bOut = channel.getSignalId("b_q", 2, 64);
+        final var missing = channel.getSignalId("b_missing", 2, 1);
+        assertEquals(aIn, channel.getSignalId("a_d", 1, 8));
+
+        final var mixed =
+            Value.create(
+                new Value[] {
+                  Value.TRUE, Value.FALSE, Value.UNKNOWN, Value.ERROR,
+                  Value.ERROR, Value.UNKNOWN, Value.FALSE, Value.TRUE
+                });
+        final var wide = Value.createKnown(BitWidth.create(64), 0x8000_0000_0000_0001L);
+        channel.drive(aIn, Value.createKnown(BitWidth.create(8), 0x5a));
+        channel.drive(bIn, wide);
+        channel.examine(aOut);
+        channel.examine(bOut);
+        channel.examine(missing);
+        var values = channel.receiveStep(channel.sendStep());
+        assertEquals(3, values.length);
+        assertEquals(Value.createKnown(BitWidth.create(8), 0x5a), values[0]);
+        assertEquals(wide, values[1]);
+        assertNull(values[2]);
+
+        // pipelined: three steps in flight; b is not sent again but stays forced
+        final var first = channel.sendStep();
+        channel.drive(aIn, mixed);
+        channel.drive(bIn, wide);
+        channel.examine(aOut);
+        channel.examine(bOut);
+        final var second = channel.sendStep();
+        channel.examine(bOut);
+        final var third = channel.sendStep();
+        assertEquals(0, channel.receiveStep(first).length);
+        values = channel.receiveStep(second);
+        assertEquals(mixed, values[0]);
+        assertEquals(wide, values[1]);
+        assertEquals(wide, channel.receiveStep(third)[0]);
+
+        // after a restart everything is sent again
+        channel.restart();
+        channel.drive(bIn, wide);
+        channel.examine(bOut);
+        assertEquals(wide, channel.receiveStep(channel.sendStep())[0]);
+        channel.examine(aOut);
+        values = channel.receiveStep(channel.sendStep());
+        assertEquals(Value.createUnknown(BitWidth.create(8)), values[0]);
+        assertEquals(1, loopback.getNrOfRestarts());
+        channel.end();
+      }
+    }
+  }
+}